@@ -0,0 +1,39 @@
+#!/usr/bin/env bash
+# Builds the fast-start variant (AOT + thin jar + lib/), then does a training
+# run that starts the context, exits after refresh and dumps an AppCDS archive.
+# Needs the database from application.properties to be reachable (Flyway and
+# Hibernate start during training).
+#
+#   ./scripts/faststart.sh            # build + train
+#   ./scripts/faststart.sh --run      # start the app with AOT + CDS
+
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+OUT=target/faststart
+JSA=$OUT/app.jsa
+
+classpath() {
+    # Explicit, sorted list: CDS refuses to map the archive if the classpath differs
+    local cp=$OUT/app.jar
+    for jar in $(ls "$OUT"/lib/*.jar | sort); do
+        cp="$cp:$jar"
+    done
+    echo "$cp"
+}
+
+JAVA_FLAGS=(-Dspring.aot.enabled=true -Dspring.profiles.active=faststart -XX:TieredStopAtLevel=1)
+
+if [ "${1:-}" = "--run" ]; then
+    exec java "${JAVA_FLAGS[@]}" -XX:SharedArchiveFile="$JSA" -Xshare:auto \
+        -cp "$(classpath)" com.hotelbooking.HotelBookingApplication
+fi
+
+mvn -B -Pfaststart -DskipTests package
+cp target/*.jar.original "$OUT/app.jar"
+
+echo "Training run (writes $JSA)"
+java "${JAVA_FLAGS[@]}" -XX:ArchiveClassesAtExit="$JSA" -Dspring.context.exit=onRefresh \
+    -cp "$(classpath)" com.hotelbooking.HotelBookingApplication
+
+echo "Done. Start with: $0 --run"
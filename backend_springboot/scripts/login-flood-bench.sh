@@ -0,0 +1,59 @@
+#!/usr/bin/env bash
+# Login flood benchmark: hammers POST /api/auth/login while measuring plain
+# browsing (GET /api/hotels) on the side, then prints throughput and latency
+# for both. Run it once against a build before the hashing pool and once
+# after, with the same settings.
+#
+#   BASE_URL=http://localhost:5000 EMAIL=guest@example.com PASSWORD=secret \
+#     LOGIN_CONCURRENCY=200 BROWSE_CONCURRENCY=20 DURATION=30 ./scripts/login-flood-bench.sh
+#
+# Expected with the pool: browse throughput and p99 stay close to the idle
+# baseline, and surplus logins come back as fast 503s instead of slow 200s.
+
+set -euo pipefail
+
+BASE_URL=${BASE_URL:-http://localhost:5000}
+EMAIL=${EMAIL:-guest@example.com}
+PASSWORD=${PASSWORD:-password}
+LOGIN_CONCURRENCY=${LOGIN_CONCURRENCY:-200}
+BROWSE_CONCURRENCY=${BROWSE_CONCURRENCY:-20}
+DURATION=${DURATION:-30}
+
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+# Each worker loops until the deadline and appends "<status> <seconds>" per request
+worker() {
+    local out=$1; shift
+    local deadline=$(( $(date +%s) + DURATION ))
+    while [ "$(date +%s)" -lt "$deadline" ]; do
+        curl -s -o /dev/null -w '%{http_code} %{time_total}\n' "$@" >> "$out" || echo "000 0" >> "$out"
+    done
+}
+
+report() {
+    local name=$1 file=$2
+    local total
+    total=$(cat "$file" | wc -l)
+    echo "== $name: $total requests, $(( total / DURATION )) req/s"
+    awk '{print $1}' "$file" | sort | uniq -c | awk '{printf "   status %s: %s\n", $2, $1}'
+    sort -n -k2 "$file" | awk -v n="$total" '
+        { t[NR] = $2 }
+        END { if (n > 0) printf "   p50 %.0f ms, p99 %.0f ms\n", t[int(n * 0.50) + 1] * 1000, t[int(n * 0.99) + 1] * 1000 }'
+}
+
+echo "Flooding $BASE_URL/api/auth/login with $LOGIN_CONCURRENCY workers, browsing with $BROWSE_CONCURRENCY, for ${DURATION}s"
+
+for i in $(seq "$LOGIN_CONCURRENCY"); do
+    worker "$WORK/login.$i" -X POST -H 'Content-Type: application/json' \
+        -d "{\"email\":\"$EMAIL\",\"password\":\"$PASSWORD\"}" "$BASE_URL/api/auth/login" &
+done
+for i in $(seq "$BROWSE_CONCURRENCY"); do
+    worker "$WORK/browse.$i" "$BASE_URL/api/hotels?page=1&limit=10" &
+done
+wait
+
+cat "$WORK"/login.* > "$WORK/login"
+cat "$WORK"/browse.* > "$WORK/browse"
+report "login" "$WORK/login"
+report "browse" "$WORK/browse"
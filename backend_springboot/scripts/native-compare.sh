@@ -0,0 +1,55 @@
+#!/usr/bin/env bash
+# JVM vs native comparison: time to first request, RSS after startup and
+# after load, and GET /api/hotels throughput over a fixed window.
+# Build both first: mvn -DskipTests package && mvn -Pnative -DskipTests package
+#
+#   DURATION=20 CONCURRENCY=32 ./scripts/native-compare.sh
+
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+PORT=${PORT:-5000}
+DURATION=${DURATION:-20}
+CONCURRENCY=${CONCURRENCY:-32}
+URL="http://localhost:$PORT/api/hotels?page=1&limit=10"
+
+rss_mb() {
+    echo $(( $(ps -o rss= -p "$1") / 1024 ))
+}
+
+load() {
+    local out=$1 deadline=$(( $(date +%s) + DURATION ))
+    for _ in $(seq "$CONCURRENCY"); do
+        ( while [ "$(date +%s)" -lt "$deadline" ]; do
+              curl -s -o /dev/null -w '%{http_code}\n' "$URL"
+          done >> "$out" ) &
+    done
+    wait
+}
+
+run() {
+    local name=$1 profile=$2; shift 2
+    local start pid ttfr tmp
+    tmp=$(mktemp)
+    start=$(date +%s%N)
+    "$@" --spring.profiles.active="$profile" --server.port="$PORT" --admission.enabled=false > /dev/null 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "http://localhost:$PORT/health"; do sleep 0.02; done
+    ttfr=$(( ($(date +%s%N) - start) / 1000000 ))
+    local idle_rss
+    idle_rss=$(rss_mb "$pid")
+
+    load "$tmp"
+    local ok total
+    ok=$(grep -c '^200$' "$tmp" || true)
+    total=$(wc -l < "$tmp")
+    echo "| $name | $ttfr | $idle_rss | $(rss_mb "$pid") | $(( ok / DURATION )) | $(( total - ok )) |"
+
+    kill "$pid"; wait "$pid" 2> /dev/null || true
+    rm -f "$tmp"
+}
+
+echo "| build | first request ms | RSS idle MB | RSS after load MB | req/s | non-200 |"
+echo "|-------|------------------|-------------|-------------------|-------|---------|"
+run jvm faststart java -jar "$(ls target/*.jar | grep -v original | head -1)"
+run native native target/hotel-booking
@@ -0,0 +1,503 @@
+#!/usr/bin/env bash
+# Query plan check: migrates a scratch schema with db/migration (including the
+# V4 index pack), seeds it with enough rows for the optimizer to care, runs
+# EXPLAIN on the hot native queries of the services and fails when one of
+# them reads a whole table or a whole index.
+#
+#   DB_URL='jdbc:mysql://localhost:3306/plan_check?createDatabaseIfNotExist=true' \
+#     DB_USER=root DB_PASSWORD=manager HOTELS=200 BOOKINGS=200000 ./scripts/plan-check.sh
+#
+# The schema in DB_URL is wiped (Flyway clean) on every run - never point it
+# at real data. SKIP_SEED=1 reuses the previous run's schema and data.
+#
+# A query fails when an EXPLAIN row has type ALL or index over MIN_ROWS or
+# more estimated rows. Queries that read a whole table by design (catalog
+# listing, super-admin lists grouped before they are ordered) name the
+# allowed aliases in a "-- scan-ok:" line. When a service query changes or a
+# new hot one is added, update the query list below with it.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+DB_URL=${DB_URL:-'jdbc:mysql://localhost:3306/plan_check?createDatabaseIfNotExist=true&useSSL=false&allowPublicKeyRetrieval=true'}
+DB_USER=${DB_USER:-root}
+DB_PASSWORD=${DB_PASSWORD:-manager}
+HOTELS=${HOTELS:-200}
+ROOMS_PER_HOTEL=${ROOMS_PER_HOTEL:-50}
+GUESTS=${GUESTS:-20000}
+BOOKINGS=${BOOKINGS:-200000}
+MIN_ROWS=${MIN_ROWS:-1000}
+SKIP_SEED=${SKIP_SEED:-0}
+
+mvn -B -q compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+CLASSPATH="target/classes:$(cat target/classpath.txt)"
+
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+# Named parameters are bound to seeded values by the check (see bind() below)
+cat > "$WORK/queries.sql" <<'EOF'
+-- name: room conflicts (BookingRoomRepository.countConflictingBookings)
+SELECT COUNT(*) FROM booking_rooms br
+JOIN bookings b ON br.booking_id = b.id
+WHERE br.room_id = :roomId
+AND b.status NOT IN ('cancelled', 'no_show')
+AND NOT (br.check_out_date <= :checkIn OR br.check_in_date >= :checkOut)
+
+-- name: allocatable rooms (RoomRepository.findAllocatableRooms)
+SELECT * FROM rooms r
+WHERE r.room_type_id = :roomTypeId AND r.hotel_id = :hotelId
+AND r.status NOT IN ('maintenance', 'blocked') AND r.is_active = TRUE
+
+-- name: allocator stays (RoomAllocator)
+SELECT br.room_id, br.check_in_date, br.check_out_date
+FROM booking_rooms br
+JOIN bookings b ON br.booking_id = b.id
+WHERE br.room_id IN (:roomId)
+AND b.status NOT IN ('cancelled', 'no_show')
+AND br.check_out_date > :checkIn AND br.check_in_date < :checkOut
+
+-- name: inventory capacity (InventoryService)
+SELECT room_type_id, COUNT(*) FROM rooms
+WHERE room_type_id IN (:roomTypeId) AND is_active = TRUE AND status != 'blocked'
+GROUP BY room_type_id
+
+-- name: inventory stays (InventoryService.TYPE_STAYS)
+SELECT br.room_type_id, br.check_in_date, br.check_out_date FROM booking_rooms br
+JOIN bookings b ON br.booking_id = b.id
+WHERE br.room_type_id IN (:roomTypeId)
+AND b.status NOT IN ('cancelled', 'no_show')
+AND br.check_in_date < :checkOut AND br.check_out_date > :checkIn
+UNION ALL
+SELECT r.room_type_id, br.check_in_date, br.check_out_date FROM rooms r
+JOIN booking_rooms br ON br.room_id = r.id
+JOIN bookings b ON br.booking_id = b.id
+WHERE r.room_type_id IN (:roomTypeId) AND br.room_type_id IS NULL
+AND b.status NOT IN ('cancelled', 'no_show')
+AND br.check_in_date < :checkOut AND br.check_out_date > :checkIn
+
+-- name: inventory ledger (InventoryService)
+SELECT room_type_id, stay_date, remaining FROM room_type_inventory
+WHERE room_type_id IN (:roomTypeId) AND stay_date >= :checkIn AND stay_date < :checkOut
+
+-- name: available rooms (HotelService.findAvailableRooms)
+SELECT r.id, r.room_number, r.floor, r.status, rt.id AS room_type_id, rt.name, t.price
+FROM rooms r
+JOIN room_types rt ON r.room_type_id = rt.id
+LEFT JOIN tariffs t ON rt.id = t.room_type_id AND :checkIn BETWEEN t.start_date AND t.end_date
+WHERE r.hotel_id = :hotelId AND r.status = 'available' AND r.is_active = TRUE
+AND NOT EXISTS (
+    SELECT 1 FROM booking_rooms br
+    JOIN bookings b ON br.booking_id = b.id
+    WHERE br.room_id = r.id
+    AND b.status NOT IN ('cancelled', 'no_show')
+    AND br.check_in_date < :checkOut AND br.check_out_date > :checkIn
+)
+ORDER BY t.price
+
+-- name: hotels with a free room (HotelService.findHotelsWithFreeRoom)
+SELECT r.hotel_id, r.room_type_id, COUNT(*)
+FROM rooms r
+JOIN room_types rt ON r.room_type_id = rt.id
+WHERE r.hotel_id IN (:hotelId) AND r.status = 'available' AND r.is_active = TRUE
+AND NOT EXISTS (
+    SELECT 1 FROM booking_rooms br
+    JOIN bookings b ON br.booking_id = b.id
+    WHERE br.room_id = r.id
+    AND b.status NOT IN ('cancelled', 'no_show')
+    AND br.check_in_date < :checkOut AND br.check_out_date > :checkIn
+)
+
+-- name: hotel listing (HotelService.LISTING_SELECT)
+-- scan-ok: h
+SELECT h.id, COUNT(DISTINCT r.id), MIN(t.price), ROUND(AVG(rev.rating), 2) AS avg_rating, COUNT(DISTINCT rev.id)
+FROM hotels h
+LEFT JOIN rooms r ON h.id = r.hotel_id AND r.is_active = TRUE
+LEFT JOIN room_types rt ON r.room_type_id = rt.id
+LEFT JOIN tariffs t ON rt.id = t.room_type_id AND CURDATE() BETWEEN t.start_date AND t.end_date
+LEFT JOIN reviews rev ON h.id = rev.hotel_id AND rev.is_approved = TRUE
+WHERE h.is_active = TRUE
+GROUP BY h.id ORDER BY h.star_rating DESC, avg_rating DESC LIMIT :limit OFFSET :offset
+
+-- name: hotel detail (HotelService.getHotelById)
+SELECT h.id, COUNT(DISTINCT r.id), ROUND(AVG(rev.rating), 2), COUNT(DISTINCT rev.id)
+FROM hotels h
+LEFT JOIN rooms r ON h.id = r.hotel_id
+LEFT JOIN reviews rev ON h.id = rev.hotel_id AND rev.is_approved = TRUE
+WHERE h.id = :hotelId AND h.is_active = TRUE
+GROUP BY h.id
+
+-- name: hotel room types (HotelService.getRoomTypesForHotel)
+SELECT rt.id, MAX(t.price), COUNT(DISTINCT r.id)
+FROM room_types rt
+LEFT JOIN tariffs t ON rt.id = t.room_type_id AND CURDATE() BETWEEN t.start_date AND t.end_date
+LEFT JOIN rooms r ON rt.id = r.room_type_id AND r.status = 'available' AND r.is_active = TRUE
+WHERE rt.hotel_id = :hotelId AND rt.is_active = TRUE
+GROUP BY rt.id ORDER BY MAX(t.price)
+
+-- name: hotel rooms (RoomService.getRooms)
+SELECT r.*, rt.name,
+    (SELECT COUNT(*) FROM booking_rooms br
+     JOIN bookings b ON br.booking_id = b.id
+     WHERE br.room_id = r.id AND b.status IN ('confirmed', 'checked_in')
+     AND CURDATE() BETWEEN b.check_in_date AND b.check_out_date) AS is_currently_booked
+FROM rooms r
+JOIN room_types rt ON r.room_type_id = rt.id
+WHERE r.hotel_id = :hotelId AND r.is_active = TRUE
+ORDER BY r.floor, r.room_number
+
+-- name: rooms held by type today (RoomService.getRooms)
+SELECT br.room_type_id, COUNT(*)
+FROM booking_rooms br
+JOIN bookings b ON br.booking_id = b.id
+JOIN room_types rt ON br.room_type_id = rt.id
+WHERE rt.hotel_id = :hotelId AND br.room_id IS NULL
+AND b.status IN ('confirmed', 'checked_in')
+AND CURDATE() BETWEEN b.check_in_date AND b.check_out_date
+GROUP BY br.room_type_id
+
+-- name: hotel tariffs (RoomService.getTariffs)
+SELECT t.*, rt.name FROM tariffs t
+JOIN room_types rt ON t.room_type_id = rt.id
+WHERE rt.hotel_id = :hotelId
+ORDER BY t.start_date DESC
+
+-- name: price calendar bookings (PriceCalendarService)
+SELECT COALESCE(br.room_type_id, r.room_type_id), br.check_in_date, br.check_out_date, COUNT(*)
+FROM booking_rooms br
+JOIN bookings b ON br.booking_id = b.id
+LEFT JOIN rooms r ON br.room_id = r.id
+WHERE b.hotel_id = :hotelId
+AND b.status NOT IN ('cancelled', 'no_show')
+AND br.check_in_date < :checkOut AND br.check_out_date > :checkIn
+GROUP BY COALESCE(br.room_type_id, r.room_type_id), br.check_in_date, br.check_out_date
+
+-- name: hotel reviews (ReviewService.getHotelReviews)
+SELECT r.*, g.first_name, g.last_name, rt.name, a.full_name
+FROM reviews r
+JOIN guests g ON r.guest_id = g.id
+LEFT JOIN room_types rt ON r.room_type_id = rt.id
+LEFT JOIN administrators a ON r.response_by = a.id
+WHERE r.hotel_id = :hotelId AND r.is_approved = TRUE
+ORDER BY r.created_at DESC LIMIT :limit OFFSET :offset
+
+-- name: hotel review stats (ReviewService.getHotelReviews)
+SELECT COUNT(*), ROUND(AVG(rating), 2) FROM reviews
+WHERE hotel_id = :hotelId AND is_approved = TRUE
+
+-- name: guest bookings (BookingService.findBookingsByGuest)
+SELECT b.id, h.name, CONCAT(g.first_name, ' ', g.last_name), COUNT(br.id), GROUP_CONCAT(r.room_number)
+FROM bookings b
+JOIN hotels h ON b.hotel_id = h.id
+JOIN guests g ON b.guest_id = g.id
+LEFT JOIN booking_rooms br ON b.id = br.booking_id
+LEFT JOIN rooms r ON br.room_id = r.id
+WHERE b.guest_id = :guestId
+GROUP BY b.id ORDER BY b.created_at DESC
+
+-- name: hotel bookings (BookingService.findAllBookings)
+SELECT b.id, h.name, CONCAT(g.first_name, ' ', g.last_name), COUNT(br.id), GROUP_CONCAT(r.room_number)
+FROM bookings b
+JOIN hotels h ON b.hotel_id = h.id
+JOIN guests g ON b.guest_id = g.id
+LEFT JOIN booking_rooms br ON b.id = br.booking_id
+LEFT JOIN rooms r ON br.room_id = r.id
+WHERE b.hotel_id = :hotelId
+GROUP BY b.id ORDER BY b.created_at DESC LIMIT 50
+
+-- name: all bookings (BookingService.findAllBookings, super admin)
+-- scan-ok: b
+SELECT b.id, h.name, CONCAT(g.first_name, ' ', g.last_name), COUNT(br.id), GROUP_CONCAT(r.room_number)
+FROM bookings b
+JOIN hotels h ON b.hotel_id = h.id
+JOIN guests g ON b.guest_id = g.id
+LEFT JOIN booking_rooms br ON b.id = br.booking_id
+LEFT JOIN rooms r ON br.room_id = r.id
+WHERE 1=1
+GROUP BY b.id ORDER BY b.created_at DESC LIMIT 50
+
+-- name: booking rooms (BookingService.getBookingById)
+SELECT r.room_number, rt.name, br.total_price
+FROM booking_rooms br
+LEFT JOIN rooms r ON br.room_id = r.id
+LEFT JOIN room_types rt ON rt.id = COALESCE(br.room_type_id, r.room_type_id)
+WHERE br.booking_id = :bookingId
+
+-- name: booking payments (BookingService.getBookingById)
+SELECT id, amount, status, payment_date FROM payments
+WHERE booking_id = :bookingId
+ORDER BY payment_date DESC
+
+-- name: hotel payments (PaymentService.queryPayments)
+SELECT p.*, h.name, CONCAT(g.first_name, ' ', g.last_name)
+FROM payments p
+JOIN bookings b ON p.booking_id = b.id
+JOIN hotels h ON b.hotel_id = h.id
+JOIN guests g ON b.guest_id = g.id
+WHERE 1=1 AND b.hotel_id = :hotelId
+ORDER BY p.payment_date DESC LIMIT :limit OFFSET :offset
+
+-- name: all payments (PaymentService.queryPayments, super admin)
+SELECT p.*, h.name, CONCAT(g.first_name, ' ', g.last_name)
+FROM payments p
+JOIN bookings b ON p.booking_id = b.id
+JOIN hotels h ON b.hotel_id = h.id
+JOIN guests g ON b.guest_id = g.id
+WHERE 1=1
+ORDER BY p.payment_date DESC LIMIT :limit OFFSET :offset
+
+-- name: recent bookings (DashboardService, hotel admin)
+SELECT b.id, b.created_at, CONCAT(g.first_name, ' ', g.last_name), h.name, b.status
+FROM bookings b
+JOIN guests g ON b.guest_id = g.id
+JOIN hotels h ON b.hotel_id = h.id
+WHERE 1=1 AND b.hotel_id = :hotelId
+ORDER BY b.created_at DESC LIMIT :limit
+
+-- name: recent bookings (DashboardService, super admin)
+SELECT b.id, b.created_at, CONCAT(g.first_name, ' ', g.last_name), h.name, b.status
+FROM bookings b
+JOIN guests g ON b.guest_id = g.id
+JOIN hotels h ON b.hotel_id = h.id
+WHERE 1=1
+ORDER BY b.created_at DESC LIMIT :limit
+
+-- name: recent reviews (DashboardService, hotel admin)
+SELECT r.id, r.created_at, CONCAT(g.first_name, ' ', g.last_name), h.name, r.rating
+FROM reviews r
+JOIN guests g ON r.guest_id = g.id
+JOIN hotels h ON r.hotel_id = h.id
+WHERE 1=1 AND r.hotel_id = :hotelId
+ORDER BY r.created_at DESC LIMIT :limit
+
+-- name: recent reviews (DashboardService, super admin)
+SELECT r.id, r.created_at, CONCAT(g.first_name, ' ', g.last_name), h.name, r.rating
+FROM reviews r
+JOIN guests g ON r.guest_id = g.id
+JOIN hotels h ON r.hotel_id = h.id
+WHERE 1=1
+ORDER BY r.created_at DESC LIMIT :limit
+
+-- name: dashboard guest count (DashboardService)
+SELECT COUNT(DISTINCT guest_id) FROM bookings WHERE hotel_id = :hotelId
+
+-- name: pending holds (HoldExpiryService)
+SELECT id, created_at FROM bookings WHERE status = 'pending_payment'
+
+-- name: rollup changes (RollupService.refresh)
+SELECT hotel_id, DATE(created_at) FROM bookings
+WHERE updated_at >= :since
+UNION
+SELECT hotel_id, DATE(COALESCE(cancelled_at, updated_at)) FROM bookings
+WHERE updated_at >= :since AND status = 'cancelled'
+UNION
+SELECT b.hotel_id, DATE(p.payment_date) FROM payments p
+JOIN bookings b ON p.booking_id = b.id
+WHERE p.updated_at >= :since
+
+-- name: rollup day (RollupService.rebuild)
+SELECT
+    (SELECT COUNT(*) FROM bookings b
+     WHERE b.hotel_id = :hotelId AND b.created_at >= :day AND b.created_at < :next),
+    (SELECT COALESCE(SUM(DATEDIFF(br.check_out_date, br.check_in_date)), 0)
+     FROM booking_rooms br JOIN bookings b ON br.booking_id = b.id
+     WHERE b.hotel_id = :hotelId AND b.created_at >= :day AND b.created_at < :next),
+    (SELECT COUNT(*) FROM payments p JOIN bookings b ON p.booking_id = b.id
+     WHERE b.hotel_id = :hotelId AND p.payment_date >= :day AND p.payment_date < :next)
+
+-- name: analytics changes (AnalyticsService.readChanges)
+SELECT b.id, b.hotel_id, COALESCE(br.room_type_id, r.room_type_id), br.check_in_date, br.check_out_date
+FROM bookings b
+JOIN booking_rooms br ON br.booking_id = b.id
+LEFT JOIN rooms r ON br.room_id = r.id
+WHERE b.updated_at >= :since
+ORDER BY b.id
+
+-- name: guest list (UserService.getAllUsers)
+SELECT id, first_name, last_name, email FROM guests WHERE 1=1
+ORDER BY registration_date DESC LIMIT 50
+EOF
+
+cat > "$WORK/check.jsh" <<EOF
+import java.nio.file.*;
+import java.sql.*;
+import java.util.*;
+import java.util.regex.*;
+import org.flywaydb.core.Flyway;
+
+String url = "$DB_URL", user = "$DB_USER", password = "$DB_PASSWORD";
+int hotels = $HOTELS, roomsPerHotel = $ROOMS_PER_HOTEL, guests = $GUESTS, bookings = $BOOKINGS, minRows = $MIN_ROWS;
+boolean skipSeed = $SKIP_SEED == 1;
+
+Connection connection = DriverManager.getConnection(url, user, password);
+Statement statement = connection.createStatement();
+
+void exec(String sql) throws SQLException {
+    statement.execute(sql);
+}
+
+if (!skipSeed) {
+    Flyway flyway = Flyway.configure().dataSource(url, user, password)
+            .locations("filesystem:src/main/resources/db/migration").cleanDisabled(false).load();
+    flyway.clean();
+    flyway.migrate();
+
+    long started = System.nanoTime();
+    int rooms = hotels * roomsPerHotel;
+    int maxN = Math.max(Math.max(bookings, guests), Math.max(rooms, hotels * 4));
+    exec("SET SESSION cte_max_recursion_depth = " + (maxN + 1));
+    exec("DROP TABLE IF EXISTS plan_seq");
+    exec("CREATE TABLE plan_seq (n INT PRIMARY KEY)");
+    exec("INSERT INTO plan_seq WITH RECURSIVE s (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM s WHERE n < " + maxN + ") SELECT n FROM s");
+
+    exec("INSERT INTO hotels (id, name, city, country, star_rating, is_active) "
+            + "SELECT CONCAT('hotel-', n), CONCAT('Hotel ', n), CONCAT('City ', n % 50), 'Country', 1 + n % 5, n % 20 != 0 "
+            + "FROM plan_seq WHERE n <= " + hotels);
+    // Four room types per hotel, rooms spread over them, two tariffs per type (last year, next year)
+    exec("INSERT INTO room_types (id, hotel_id, name, max_occupancy, base_price, is_active) "
+            + "SELECT CONCAT('type-', n), CONCAT('hotel-', (n - 1) DIV 4 + 1), CONCAT('Type ', n % 4), 1 + n % 4, 100, TRUE "
+            + "FROM plan_seq WHERE n <= " + hotels * 4);
+    exec("INSERT INTO rooms (id, hotel_id, room_type_id, room_number, floor, status, is_active) "
+            + "SELECT CONCAT('room-', n), CONCAT('hotel-', (n - 1) DIV " + roomsPerHotel + " + 1), "
+            + "CONCAT('type-', ((n - 1) DIV " + roomsPerHotel + ") * 4 + (n - 1) % 4 + 1), "
+            + "CAST(n AS CHAR), CAST(n % 10 AS CHAR), IF(n % 25 = 0, 'maintenance', 'available'), TRUE "
+            + "FROM plan_seq WHERE n <= " + rooms);
+    exec("INSERT INTO tariffs (id, room_type_id, price, start_date, end_date) "
+            + "SELECT CONCAT('tariff-', n), CONCAT('type-', (n - 1) DIV 2 + 1), 80 + n % 120, "
+            + "IF(n % 2 = 0, CURDATE(), CURDATE() - INTERVAL 365 DAY), IF(n % 2 = 0, CURDATE() + INTERVAL 365 DAY, CURDATE() - INTERVAL 1 DAY) "
+            + "FROM plan_seq WHERE n <= " + hotels * 8);
+    exec("INSERT INTO guests (id, first_name, last_name, email, registration_date) "
+            + "SELECT CONCAT('guest-', n), CONCAT('First', n), CONCAT('Last', n), CONCAT('guest', n, '@example.com'), "
+            + "NOW() - INTERVAL n MINUTE FROM plan_seq WHERE n <= " + guests);
+    exec("INSERT INTO administrators (id, username, password_hash, email, full_name, role, hotel_id) "
+            + "SELECT CONCAT('admin-', n), CONCAT('admin', n), 'x', CONCAT('admin', n, '@example.com'), CONCAT('Admin ', n), "
+            + "'hotel_admin', CONCAT('hotel-', n) FROM plan_seq WHERE n <= " + hotels);
+
+    // Bookings over two years around today, one room each; every other one a legacy room booking
+    exec("INSERT INTO bookings (id, guest_id, hotel_id, check_in_date, check_out_date, status, total_amount, "
+            + "final_amount, created_at, updated_at) "
+            + "SELECT CONCAT('booking-', n), CONCAT('guest-', n % " + guests + " + 1), CONCAT('hotel-', n % " + hotels + " + 1), "
+            + "CURDATE() - INTERVAL 365 DAY + INTERVAL (n % 730) DAY, "
+            + "CURDATE() - INTERVAL 365 DAY + INTERVAL (n % 730 + 1 + n % 5) DAY, "
+            + "ELT(1 + n % 10, 'confirmed', 'confirmed', 'checked_out', 'checked_out', 'checked_out', 'checked_out', "
+            + "'checked_in', 'cancelled', 'no_show', IF(n % 100 = 9, 'pending_payment', 'confirmed')), "
+            + "200, 200, NOW() - INTERVAL n MINUTE, NOW() - INTERVAL n MINUTE "
+            + "FROM plan_seq WHERE n <= " + bookings);
+    exec("INSERT INTO booking_rooms (id, booking_id, room_id, room_type_id, check_in_date, check_out_date, "
+            + "price_per_night, number_of_nights, total_price) "
+            + "SELECT CONCAT('br-', s.n), b.id, r.id, IF(s.n % 2 = 0, NULL, r.room_type_id), b.check_in_date, b.check_out_date, "
+            + "100, DATEDIFF(b.check_out_date, b.check_in_date), 100 * DATEDIFF(b.check_out_date, b.check_in_date) "
+            + "FROM plan_seq s JOIN bookings b ON b.id = CONCAT('booking-', s.n) "
+            + "JOIN rooms r ON r.id = CONCAT('room-', (s.n % " + hotels + ") * " + roomsPerHotel + " + (s.n DIV " + hotels + ") % " + roomsPerHotel + " + 1) "
+            + "WHERE s.n <= " + bookings);
+    exec("INSERT INTO payments (id, booking_id, payment_date, amount, payment_method, transaction_id, status) "
+            + "SELECT CONCAT('payment-', b.id), b.id, b.created_at, b.final_amount, 'credit_card', CONCAT('TX_', b.id), 'paid' "
+            + "FROM bookings b WHERE b.status != 'pending_payment'");
+    exec("INSERT INTO reviews (id, booking_id, guest_id, hotel_id, rating, is_approved, created_at) "
+            + "SELECT CONCAT('review-', b.id), b.id, b.guest_id, b.hotel_id, 1 + CRC32(b.id) % 5, CRC32(b.id) % 10 != 0, b.created_at "
+            + "FROM bookings b WHERE b.status = 'checked_out' AND CRC32(b.id) % 2 = 0");
+    exec("DROP TABLE plan_seq");
+
+    for (String table : List.of("hotels", "room_types", "rooms", "tariffs", "guests", "administrators",
+            "bookings", "booking_rooms", "payments", "reviews")) {
+        exec("ANALYZE TABLE " + table);
+    }
+    System.out.printf("seeded %d hotels, %d rooms, %d guests, %d bookings in %.1f s%n",
+            hotels, rooms, guests, bookings, (System.nanoTime() - started) / 1e9);
+}
+
+String first(String sql) throws SQLException {
+    try (ResultSet rs = statement.executeQuery(sql)) {
+        if (!rs.next()) {
+            throw new IllegalStateException("No seeded row for: " + sql);
+        }
+        return rs.getString(1);
+    }
+}
+
+// Bind each named parameter to a literal from the seeded data; an unknown name stops the check
+String hotelId = first("SELECT id FROM hotels WHERE is_active = TRUE ORDER BY id LIMIT 1");
+String roomTypeId = first("SELECT id FROM room_types WHERE hotel_id = '" + hotelId + "' ORDER BY id LIMIT 1");
+String roomId = first("SELECT id FROM rooms WHERE room_type_id = '" + roomTypeId + "' ORDER BY id LIMIT 1");
+String bookingId = first("SELECT b.id FROM bookings b JOIN booking_rooms br ON br.booking_id = b.id "
+        + "JOIN payments p ON p.booking_id = b.id WHERE b.hotel_id = '" + hotelId + "' ORDER BY b.id LIMIT 1");
+String guestId = first("SELECT guest_id FROM bookings WHERE id = '" + bookingId + "'");
+
+Map<String, String> values = Map.ofEntries(
+        Map.entry("hotelId", "'" + hotelId + "'"),
+        Map.entry("roomTypeId", "'" + roomTypeId + "'"),
+        Map.entry("roomId", "'" + roomId + "'"),
+        Map.entry("bookingId", "'" + bookingId + "'"),
+        Map.entry("guestId", "'" + guestId + "'"),
+        Map.entry("checkIn", "CURDATE()"),
+        Map.entry("checkOut", "CURDATE() + INTERVAL 3 DAY"),
+        Map.entry("since", "NOW() - INTERVAL 1 HOUR"),
+        Map.entry("day", "CURDATE() - INTERVAL 1 DAY"),
+        Map.entry("next", "CURDATE()"),
+        Map.entry("limit", "20"),
+        Map.entry("offset", "0"));
+
+String bind(String sql) {
+    Matcher matcher = Pattern.compile(":(\\\\w+)").matcher(sql);
+    StringBuilder bound = new StringBuilder();
+    while (matcher.find()) {
+        String value = values.get(matcher.group(1));
+        if (value == null) {
+            throw new IllegalStateException("No value for parameter :" + matcher.group(1));
+        }
+        matcher.appendReplacement(bound, Matcher.quoteReplacement(value));
+    }
+    matcher.appendTail(bound);
+    return bound.toString();
+}
+
+int failed = 0, checked = 0;
+for (String block : Files.readString(Path.of("$WORK/queries.sql")).split("(?m)^-- name: ")) {
+    if (block.isBlank()) {
+        continue;
+    }
+    String name = block.substring(0, block.indexOf('\n')).trim();
+    Set<String> scanOk = new HashSet<>();
+    StringBuilder sql = new StringBuilder();
+    for (String line : block.substring(block.indexOf('\n') + 1).split("\n")) {
+        if (line.startsWith("-- scan-ok:")) {
+            scanOk.addAll(Arrays.asList(line.substring("-- scan-ok:".length()).trim().split("\\\\s*,\\\\s*")));
+        } else {
+            sql.append(line).append('\n');
+        }
+    }
+
+    List<String> plan = new ArrayList<>();
+    List<String> scans = new ArrayList<>();
+    try (ResultSet rs = statement.executeQuery("EXPLAIN " + bind(sql.toString()))) {
+        while (rs.next()) {
+            String table = rs.getString("table");
+            String type = rs.getString("type");
+            long rows = rs.getLong("rows");
+            plan.add(String.format("    %-16s %-7s key=%-36s rows=%-8d %s", table, type, rs.getString("key"), rows,
+                    Objects.toString(rs.getString("Extra"), "")));
+            // <derivedN> / <unionN> are this query's own temporary results, not stored tables
+            if (("ALL".equals(type) || "index".equals(type)) && rows >= minRows
+                    && table != null && !table.startsWith("<") && !scanOk.contains(table)) {
+                scans.add(table + " (" + type + ", ~" + rows + " rows)");
+            }
+        }
+    }
+    checked++;
+    if (scans.isEmpty()) {
+        System.out.println("ok    " + name);
+    } else {
+        failed++;
+        System.out.println("FAIL  " + name + ": full scan of " + String.join(", ", scans));
+        plan.forEach(System.out::println);
+    }
+}
+
+System.out.println(checked + " queries checked, " + failed + " with a full scan");
+connection.close();
+/exit
+EOF
+
+jshell --class-path "$CLASSPATH" -R-Xmx1g "$WORK/check.jsh" | tee "$WORK/report.txt"
+grep -q '^[0-9]* queries checked, 0 with a full scan$' "$WORK/report.txt"
@@ -0,0 +1,76 @@
+#!/usr/bin/env bash
+# Three local MySQL instances for the sharded profile (application-sharded.properties).
+#
+#   ./scripts/sharding-local.sh up       # start shard0..2 on ports 3307-3309
+#   mvn spring-boot:run -Dspring-boot.run.profiles=sharded
+#   ./scripts/sharding-local.sh status   # hotels owned and bookings per shard
+#   ./scripts/sharding-local.sh sync     # copy hotels/guests/hotel_shards from shard0 to the others
+#   ./scripts/sharding-local.sh down     # remove the containers and their data
+#
+# The app migrates every shard with Flyway on startup. "sync" is for data that
+# was loaded into shard0 directly (e.g. a dump of an unsharded database): new
+# hotels and guests registered through the API are copied by the app itself.
+
+set -euo pipefail
+
+PORTS=(3307 3308 3309)
+PASSWORD=${MYSQL_PASSWORD:-manager}
+DB=hotel_booking_system
+IMAGE=${MYSQL_IMAGE:-mysql:8.0}
+
+mysql_on() {
+    local i=$1
+    shift
+    docker exec -i "hotel-shard$i" mysql -uroot -p"$PASSWORD" "$@" 2>/dev/null
+}
+
+case "${1:-}" in
+    up)
+        for i in "${!PORTS[@]}"; do
+            if ! docker ps -a --format '{{.Names}}' | grep -qx "hotel-shard$i"; then
+                docker run -d --name "hotel-shard$i" -p "${PORTS[$i]}:3306" \
+                    -e MYSQL_ROOT_PASSWORD="$PASSWORD" -e MYSQL_DATABASE="$DB" "$IMAGE" >/dev/null
+            else
+                docker start "hotel-shard$i" >/dev/null
+            fi
+        done
+        for i in "${!PORTS[@]}"; do
+            printf 'Waiting for shard%d (port %d)' "$i" "${PORTS[$i]}"
+            until mysql_on "$i" -e 'SELECT 1' >/dev/null; do
+                printf '.'
+                sleep 2
+            done
+            echo ' ready'
+        done
+        ;;
+    sync)
+        for i in "${!PORTS[@]}"; do
+            [ "$i" -eq 0 ] && continue
+            # INSERT IGNORE, never REPLACE: replacing a hotel or guest row cascades to its bookings
+            docker exec hotel-shard0 mysqldump -uroot -p"$PASSWORD" --no-create-info --insert-ignore \
+                "$DB" hotels guests hotel_shards 2>/dev/null | mysql_on "$i" "$DB"
+            echo "shard$i: reference tables copied from shard0"
+        done
+        ;;
+    status)
+        for i in "${!PORTS[@]}"; do
+            mysql_on "$i" -N "$DB" -e "
+                SELECT 'shard$i',
+                       (SELECT COUNT(*) FROM hotel_shards WHERE shard = 'shard$i') AS hotels_owned,
+                       (SELECT COUNT(*) FROM hotels) AS hotel_rows,
+                       (SELECT COUNT(*) FROM guests) AS guest_rows,
+                       (SELECT COUNT(*) FROM bookings) AS bookings,
+                       (SELECT COUNT(*) FROM booking_rooms) AS booking_rooms" \
+                | awk '{ printf "%-7s hotels owned %6s  hotel rows %6s  guests %7s  bookings %8s  booking_rooms %8s\n", $1, $2, $3, $4, $5, $6 }'
+        done
+        ;;
+    down)
+        for i in "${!PORTS[@]}"; do
+            docker rm -f "hotel-shard$i" >/dev/null 2>&1 || true
+        done
+        ;;
+    *)
+        echo "usage: $0 up|sync|status|down" >&2
+        exit 1
+        ;;
+esac
@@ -0,0 +1,52 @@
+#!/usr/bin/env bash
+# Time-to-first-request report: starts the app RUNS times per mode and measures
+# from process launch until GET /health first answers 200.
+#
+#   default    fat jar, ddl-auto=update, no AOT/CDS
+#   faststart  thin jar, Flyway only, AOT + AppCDS (run scripts/faststart.sh first)
+#
+#   RUNS=5 PORT=5000 ./scripts/startup-report.sh
+
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+RUNS=${RUNS:-5}
+PORT=${PORT:-5000}
+
+start_default() {
+    java -jar "$(ls target/*.jar | grep -v original | head -1)" > /dev/null 2>&1 &
+}
+
+start_faststart() {
+    ./scripts/faststart.sh --run > /dev/null 2>&1 &
+}
+
+measure() {
+    local mode=$1 start pid elapsed
+    start=$(date +%s%N)
+    "start_$mode"
+    pid=$!
+    until curl -sf -o /dev/null "http://localhost:$PORT/health"; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "error: $mode exited before serving a request" >&2
+            return 1
+        fi
+        sleep 0.05
+    done
+    elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+    pkill -P "$pid" 2> /dev/null || true
+    kill "$pid" 2> /dev/null || true
+    wait "$pid" 2> /dev/null || true
+    echo "$elapsed"
+}
+
+echo "| mode | runs | min ms | median ms | max ms |"
+echo "|------|------|--------|-----------|--------|"
+for mode in default faststart; do
+    samples=()
+    for _ in $(seq "$RUNS"); do
+        samples+=("$(measure "$mode")")
+    done
+    sorted=($(printf '%s\n' "${samples[@]}" | sort -n))
+    echo "| $mode | $RUNS | ${sorted[0]} | ${sorted[$(( RUNS / 2 ))]} | ${sorted[$(( RUNS - 1 ))]} |"
+done
@@ -0,0 +1,235 @@
+#!/usr/bin/env bash
+# Traffic replay: re-drives requests recorded by the capture filter
+# (capture.enabled=true, files in capture.dir) against a test instance, keeping
+# the recorded inter-arrival times divided by SPEED, and prints latency
+# percentiles per endpoint. Requests are sent open-loop on schedule, so a slow
+# backend shows up as latency, not as a lower request rate.
+#
+#   BASE_URL=http://localhost:5000 CAPTURE_DIR=data/capture SPEED=10 \
+#     GUEST_TOKEN=... HOTEL_ADMIN_TOKEN=... SUPER_ADMIN_TOKEN=... \
+#     OUT=after.csv BASELINE=before.csv ./scripts/traffic-replay.sh
+#
+# Captures hold no bodies, so only METHODS (default GET) are replayed; other
+# requests are counted as skipped. Requests made with a role get that role's
+# token from *_TOKEN (skipped when unset). Paths are rebuilt from the route
+# pattern: hotel ids are the recorded ones, other path variables and redacted
+# parameters are sent with the value REDACTED_VALUE. Replay against a copy of
+# the production hotels for meaningful hit rates; requests that matched no
+# route are skipped.
+#
+# OUT keeps one line per request (endpoint, status, ms). With BASELINE set to
+# an earlier run's OUT file, p50/p99 are printed side by side with the change.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+BASE_URL=${BASE_URL:-http://localhost:5000}
+CAPTURE_DIR=${CAPTURE_DIR:-data/capture}
+SPEED=${SPEED:-1}
+METHODS=${METHODS:-GET}
+LIMIT=${LIMIT:-0}
+REDACTED_VALUE=${REDACTED_VALUE:-x}
+OUT=${OUT:-replay-$(date +%Y%m%d-%H%M%S).csv}
+BASELINE=${BASELINE:-}
+
+mvn -B -q compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+CLASSPATH="target/classes:$(cat target/classpath.txt)"
+
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+cat > "$WORK/replay.jsh" <<EOF
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.*;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+String baseUrl = "$BASE_URL";
+double speed = $SPEED;
+long limit = $LIMIT;
+Set<String> methods = Set.of("$METHODS".split(","));
+Map<String, String> tokens = new HashMap<>();
+tokens.put("guest", "${GUEST_TOKEN:-}");
+tokens.put("hotel_admin", "${HOTEL_ADMIN_TOKEN:-}");
+tokens.put("super_admin", "${SUPER_ADMIN_TOKEN:-}");
+ObjectMapper json = new ObjectMapper();
+
+record Planned(long at, String endpoint, HttpRequest request) {
+}
+
+String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+}
+
+// Route variables such as {id} or {id:[0-9]+}; kept ones get their recorded value, the rest the placeholder
+Pattern routeVariable = Pattern.compile("\\\\{([^}:]+)(:[^}]*)?\\\\}");
+
+String expand(String pattern, JsonNode variables) {
+    return routeVariable.matcher(pattern).replaceAll(match -> encode(variables.has(match.group(1))
+            ? variables.get(match.group(1)).asText() : "$REDACTED_VALUE").replace("+", "%20"));
+}
+
+// Capture files sort by name in time order; lines within a file are in arrival order
+List<Path> files;
+try (var listing = Files.list(Path.of("$CAPTURE_DIR"))) {
+    files = listing.filter(p -> p.getFileName().toString().matches("capture-.*\\\\.jsonl\\\\.gz")).sorted().toList();
+}
+
+List<Planned> planned = new ArrayList<>();
+Map<String, Integer> skipped = new TreeMap<>();
+for (Path file : files) {
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+            new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = reader.readLine()) != null && (limit <= 0 || planned.size() < limit)) {
+            JsonNode node;
+            try {
+                node = json.readTree(line);
+            } catch (IOException e) {
+                skipped.merge("unreadable line (file cut off?)", 1, Integer::sum);
+                continue;
+            }
+            String method = node.path("method").asText();
+            if (!node.hasNonNull("pattern")) {
+                skipped.merge("no matching route", 1, Integer::sum);
+                continue;
+            }
+            String pattern = node.path("pattern").asText();
+            String endpoint = method + " " + pattern;
+            if (!methods.contains(method)) {
+                skipped.merge(method + " (no body captured)", 1, Integer::sum);
+                continue;
+            }
+            HttpRequest.Builder request = HttpRequest.newBuilder().timeout(Duration.ofSeconds(60));
+            String role = node.path("role").isNull() ? null : node.path("role").asText();
+            if (role != null) {
+                String token = tokens.getOrDefault(role, "");
+                if (token.isEmpty()) {
+                    skipped.merge("role " + role + " (no token)", 1, Integer::sum);
+                    continue;
+                }
+                request.header("Authorization", "Bearer " + token);
+            }
+
+            StringJoiner query = new StringJoiner("&");
+            node.path("params").fields().forEachRemaining(param -> param.getValue()
+                    .forEach(value -> query.add(encode(param.getKey()) + "=" + encode(value.asText()))));
+            node.path("redacted").forEach(name -> query.add(encode(name.asText()) + "=" + encode("$REDACTED_VALUE")));
+            String uri = baseUrl + expand(pattern, node.path("variables")) + (query.length() > 0 ? "?" + query : "");
+            planned.add(new Planned(node.path("at").asLong(), endpoint, request.uri(URI.create(uri)).method(method,
+                    HttpRequest.BodyPublishers.noBody()).build()));
+        }
+    }
+}
+if (planned.isEmpty()) {
+    System.out.println("No replayable requests in $CAPTURE_DIR");
+    System.exit(1);
+}
+
+long span = planned.get(planned.size() - 1).at() - planned.get(0).at();
+System.out.printf("replaying %d requests from %d files, captured over %.1f min, at %sx (%.1f min)%n",
+        planned.size(), files.size(), span / 60000.0, speed, span / speed / 60000.0);
+skipped.forEach((reason, count) -> System.out.printf("  skipped %d: %s%n", count, reason));
+
+// Open loop: each request goes out at its scaled arrival time whether or not earlier ones have answered
+HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).executor(
+        Executors.newCachedThreadPool()).build();
+ConcurrentLinkedQueue<String> results = new ConcurrentLinkedQueue<>();
+List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+AtomicLong late = new AtomicLong();
+long firstAt = planned.get(0).at();
+long started = 0;
+for (Planned p : planned) {
+    if (started == 0) {
+        started = System.nanoTime();
+    }
+    long dueNanos = started + (long) ((p.at() - firstAt) * 1_000_000 / speed);
+    long wait = dueNanos - System.nanoTime();
+    if (wait > 0) {
+        TimeUnit.NANOSECONDS.sleep(wait);
+    } else if (wait < -100_000_000) {
+        late.incrementAndGet();
+    }
+    long sent = System.nanoTime();
+    inFlight.add(client.sendAsync(p.request(), HttpResponse.BodyHandlers.discarding())
+            .handle((response, error) -> {
+                results.add(p.endpoint() + "," + (error != null ? 0 : response.statusCode()) + ","
+                        + (System.nanoTime() - sent) / 1_000_000.0);
+                return null;
+            }));
+}
+CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).get(120, TimeUnit.SECONDS);
+if (late.get() > 0) {
+    System.out.printf("  %d requests went out more than 100 ms behind schedule (replay host saturated?)%n", late.get());
+}
+
+try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Path.of("$OUT")))) {
+    out.println("endpoint,status,ms");
+    results.forEach(out::println);
+}
+
+Map<String, List<Double>> latencies(List<String> lines) {
+    Map<String, List<Double>> byEndpoint = new TreeMap<>();
+    for (String line : lines) {
+        int last = line.lastIndexOf(','), status = line.lastIndexOf(',', last - 1);
+        byEndpoint.computeIfAbsent(line.substring(0, status), k -> new ArrayList<>())
+                .add(Double.parseDouble(line.substring(last + 1)));
+        byEndpoint.computeIfAbsent("(all)", k -> new ArrayList<>()).add(Double.parseDouble(line.substring(last + 1)));
+    }
+    byEndpoint.values().forEach(Collections::sort);
+    return byEndpoint;
+}
+
+double pct(List<Double> sorted, double p) {
+    return sorted.isEmpty() ? Double.NaN : sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(p * sorted.size()) - 1));
+}
+
+Map<String, Integer> errors = new HashMap<>();
+for (String line : results) {
+    int last = line.lastIndexOf(','), status = line.lastIndexOf(',', last - 1);
+    int code = Integer.parseInt(line.substring(status + 1, last));
+    if (code == 0 || code >= 500) {
+        errors.merge(line.substring(0, status), 1, Integer::sum);
+        errors.merge("(all)", 1, Integer::sum);
+    }
+}
+
+Map<String, List<Double>> current = latencies(new ArrayList<>(results));
+String baselinePath = "$BASELINE";
+Map<String, List<Double>> baseline = baselinePath.isEmpty() ? Map.of() : latencies(
+        Files.readAllLines(Path.of(baselinePath)).stream().skip(1).toList());
+
+System.out.println();
+if (baseline.isEmpty()) {
+    System.out.printf("%-52s %7s %6s %9s %9s %9s %9s%n", "endpoint", "count", "errors", "p50 ms", "p90 ms", "p99 ms", "max ms");
+    current.forEach((endpoint, sorted) -> System.out.printf("%-52s %7d %6d %9.1f %9.1f %9.1f %9.1f%n", endpoint,
+            sorted.size(), errors.getOrDefault(endpoint, 0), pct(sorted, 0.5), pct(sorted, 0.9), pct(sorted, 0.99),
+            sorted.get(sorted.size() - 1)));
+} else {
+    System.out.printf("%-52s %7s %6s %9s %9s %7s %9s %9s %7s%n", "endpoint", "count", "errors",
+            "p50 base", "p50 now", "change", "p99 base", "p99 now", "change");
+    current.forEach((endpoint, sorted) -> {
+        List<Double> before = baseline.getOrDefault(endpoint, List.of());
+        double p50 = pct(sorted, 0.5), p99 = pct(sorted, 0.99);
+        double b50 = pct(before, 0.5), b99 = pct(before, 0.99);
+        System.out.printf("%-52s %7d %6d %9.1f %9.1f %+6.0f%% %9.1f %9.1f %+6.0f%%%n", endpoint, sorted.size(),
+                errors.getOrDefault(endpoint, 0), b50, p50, 100 * (p50 - b50) / b50, b99, p99, 100 * (p99 - b99) / b99);
+    });
+}
+System.out.println("\nper-request results: $OUT");
+/exit
+EOF
+
+# stdin closed so jshell exits instead of waiting at its prompt when the script stops early
+jshell --class-path "$CLASSPATH" -R-Xmx2g "$WORK/replay.jsh" < /dev/null
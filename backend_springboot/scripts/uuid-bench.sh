@@ -0,0 +1,103 @@
+#!/usr/bin/env bash
+# Primary-key layout benchmark: inserts the same rows into three scratch
+# tables - VARCHAR(36) random (v4) ids, VARCHAR(36) time-ordered ids from
+# UuidV7 (what the entities use now) and BINARY(16) time-ordered ids - and
+# prints insert throughput, data and index size, and (when the account may
+# read INNODB_METRICS) the B-tree page splits each one caused.
+#
+#   DB_URL='jdbc:mysql://localhost:3306/uuid_bench?createDatabaseIfNotExist=true&rewriteBatchedStatements=true' \
+#     DB_USER=root DB_PASSWORD=manager ROWS=1000000 BATCH=1000 ./scripts/uuid-bench.sh
+#
+# Use a scratch schema: the tables are dropped and recreated on every run.
+# Each table carries a secondary index on a timestamp, like bookings, so the
+# index-size column also shows what the wider key costs every other index.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+DB_URL=${DB_URL:-'jdbc:mysql://localhost:3306/uuid_bench?createDatabaseIfNotExist=true&useSSL=false&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true'}
+DB_USER=${DB_USER:-root}
+DB_PASSWORD=${DB_PASSWORD:-manager}
+ROWS=${ROWS:-1000000}
+BATCH=${BATCH:-1000}
+
+mvn -B -q compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+CLASSPATH="target/classes:$(cat target/classpath.txt)"
+
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+cat > "$WORK/bench.jsh" <<EOF
+import com.hotelbooking.model.UuidV7;
+import java.sql.*;
+import java.util.*;
+
+Connection connection = DriverManager.getConnection("$DB_URL", "$DB_USER", "$DB_PASSWORD");
+Statement statement = connection.createStatement();
+int rows = $ROWS, batch = $BATCH;
+
+long pageSplits() {
+    try (ResultSet rs = statement.executeQuery(
+            "SELECT COUNT FROM information_schema.INNODB_METRICS WHERE NAME = 'index_page_splits'")) {
+        return rs.next() ? rs.getLong(1) : -1;
+    } catch (SQLException e) {
+        return -1;
+    }
+}
+
+try {
+    statement.execute("SET GLOBAL innodb_monitor_enable = 'index_page_splits'");
+} catch (SQLException e) {
+    System.out.println("(page splits unavailable: " + e.getMessage() + ")");
+}
+
+void run(String name, String idType, boolean ordered, boolean binary) throws SQLException {
+    statement.execute("DROP TABLE IF EXISTS bench_" + name);
+    statement.execute("CREATE TABLE bench_" + name + " (id " + idType + " PRIMARY KEY, "
+            + "payload VARCHAR(100) NOT NULL, created_at DATETIME(6) NOT NULL, KEY idx_created (created_at))");
+    connection.setAutoCommit(false);
+    long splitsBefore = pageSplits();
+    long started = System.nanoTime();
+    try (PreparedStatement insert = connection.prepareStatement(
+            "INSERT INTO bench_" + name + " (id, payload, created_at) VALUES (?, ?, NOW(6))")) {
+        for (int i = 1; i <= rows; i++) {
+            UUID id = ordered ? UuidV7.generate() : UUID.randomUUID();
+            if (binary) {
+                insert.setBytes(1, UuidV7.toBytes(id.toString()));
+            } else {
+                insert.setString(1, id.toString());
+            }
+            insert.setString(2, "guest-" + i);
+            insert.addBatch();
+            if (i % batch == 0) {
+                insert.executeBatch();
+                connection.commit();
+            }
+        }
+        insert.executeBatch();
+        connection.commit();
+    }
+    double seconds = (System.nanoTime() - started) / 1e9;
+    long splitsAfter = pageSplits();
+    connection.setAutoCommit(true);
+
+    statement.execute("ANALYZE TABLE bench_" + name);
+    try (ResultSet rs = statement.executeQuery("SELECT DATA_LENGTH, INDEX_LENGTH FROM information_schema.TABLES "
+            + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'bench_" + name + "'")) {
+        rs.next();
+        System.out.printf("%-14s %10.0f rows/s   data %7.1f MB   index %7.1f MB   page splits %s%n",
+                name, rows / seconds, rs.getLong(1) / 1048576.0, rs.getLong(2) / 1048576.0,
+                splitsBefore < 0 ? "n/a" : String.valueOf(splitsAfter - splitsBefore));
+    }
+}
+
+System.out.println(rows + " rows, batches of " + batch);
+run("char36_v4", "VARCHAR(36)", false, false);
+run("char36_v7", "VARCHAR(36)", true, false);
+run("binary16_v7", "BINARY(16)", true, true);
+connection.close();
+/exit
+EOF
+
+jshell --class-path "$CLASSPATH" -R-Xmx1g "$WORK/bench.jsh"
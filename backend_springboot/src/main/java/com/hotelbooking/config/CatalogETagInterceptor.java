@@ -0,0 +1,65 @@
+package com.hotelbooking.config;
+
+import com.hotelbooking.service.CatalogVersionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Conditional GET for the public catalog endpoints. The ETag is derived from
+ * the hotel's content version, so a matching If-None-Match is answered with
+ * 304 before the controller (and any query) runs.
+ */
+@Component
+public class CatalogETagInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Value("${catalog.cache.max-age-seconds:0}")
+    private long maxAgeSeconds;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod())) {
+            return true;
+        }
+
+        String etag;
+        String hotelId = extractHotelId(request);
+        if (hotelId != null) {
+            etag = catalogVersionService.hotelETag(hotelId);
+        } else {
+            etag = catalogVersionService.listingETag();
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds))
+                .cachePublic()
+                .mustRevalidate()
+                .getHeaderValue());
+
+        // Sets the ETag header and, on a match, the 304 status
+        return !new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+
+    @SuppressWarnings("unchecked")
+    private String extractHotelId(HttpServletRequest request) {
+        Map<String, String> vars = (Map<String, String>) request
+                .getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (vars == null) {
+            return null;
+        }
+        // /api/hotels/{id}/... vs /api/rooms/types/{hotelId} and /api/reviews/hotel/{hotelId}
+        return vars.containsKey("hotelId") ? vars.get("hotelId") : vars.get("id");
+    }
+}
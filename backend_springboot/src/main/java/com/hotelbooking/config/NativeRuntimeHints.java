@@ -0,0 +1,78 @@
+package com.hotelbooking.config;
+
+import com.hotelbooking.service.TrafficCaptureService;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+
+import java.sql.*;
+
+/**
+ * Reflection and resource hints for the GraalVM native image (-Pnative).
+ *
+ * Spring AOT covers beans, repositories and controller signatures, but not
+ * what only Jackson or jjwt reach reflectively: the Lombok-generated accessors
+ * of entities and DTOs nested inside ApiResponse payloads, and the jjwt
+ * implementation classes it loads by name. Native queries map to Object[] rows
+ * and need no hints beyond the migration scripts Flyway reads.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final String[] JSON_PACKAGES = { "com.hotelbooking.model", "com.hotelbooking.dto" };
+
+    private static final String[] JJWT_CLASSES = {
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParser",
+            "io.jsonwebtoken.impl.DefaultClaims",
+            "io.jsonwebtoken.impl.DefaultHeader",
+            "io.jsonwebtoken.impl.DefaultJwsHeader",
+            "io.jsonwebtoken.impl.compression.DeflateCompressionCodec",
+            "io.jsonwebtoken.impl.compression.GzipCompressionCodec",
+            "io.jsonwebtoken.impl.io.RuntimeClasspathSerializerLocator",
+            "io.jsonwebtoken.impl.io.RuntimeClasspathDeserializerLocator",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer",
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition beanDefinition) {
+                return true; // nested classes, enums and abstract types too
+            }
+        };
+        scanner.addIncludeFilter(new AssignableTypeFilter(Object.class));
+
+        for (String basePackage : JSON_PACKAGES) {
+            for (BeanDefinition candidate : scanner.findCandidateComponents(basePackage)) {
+                hints.reflection().registerType(TypeReference.of(candidate.getBeanClassName()), MemberCategory.values());
+            }
+        }
+
+        for (String className : JJWT_CLASSES) {
+            hints.reflection().registerType(TypeReference.of(className), MemberCategory.values());
+        }
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+
+        hints.resources().registerPattern("db/migration/*.sql");
+
+        // sharding.shards[n] entries are bound onto this bean at runtime
+        hints.reflection().registerType(ShardingConfig.ShardProperties.class, MemberCategory.values());
+
+        // Serialized by Jackson into the traffic capture files
+        hints.reflection().registerType(TrafficCaptureService.CapturedRequest.class, MemberCategory.values());
+
+        // JDBC wrappers of QueryLoggingDataSource
+        for (Class<?> jdbcType : new Class<?>[] { Connection.class, Statement.class, PreparedStatement.class,
+                CallableStatement.class, ResultSet.class }) {
+            hints.proxies().registerJdkProxy(jdbcType);
+        }
+    }
+}
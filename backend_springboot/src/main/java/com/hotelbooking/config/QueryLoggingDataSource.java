@@ -0,0 +1,206 @@
+package com.hotelbooking.config;
+
+import com.hotelbooking.service.QueryLogService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+
+/**
+ * Wraps the application DataSource so every JDBC statement (Hibernate, native
+ * queries, JdbcTemplate, Flyway) reports its SQL, bind count, execution time
+ * and row count to {@link QueryLogService}. Replaces spring.jpa.show-sql.
+ *
+ * Query rows are counted as the ResultSet is read and reported when it (or
+ * its statement) is closed; updates report their update count directly.
+ */
+public class QueryLoggingDataSource extends DelegatingDataSource {
+
+    private final ObjectProvider<QueryLogService> queryLogService;
+
+    public QueryLoggingDataSource(DataSource target, ObjectProvider<QueryLogService> queryLogService) {
+        super(target);
+        this.queryLogService = queryLogService;
+    }
+
+    /** Wraps the DataSource bean once it is initialised. */
+    @Component
+    public static class PostProcessor implements BeanPostProcessor {
+
+        private final ObjectProvider<QueryLogService> queryLogService;
+
+        public PostProcessor(ObjectProvider<QueryLogService> queryLogService) {
+            this.queryLogService = queryLogService;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof QueryLoggingDataSource)) {
+                return new QueryLoggingDataSource(dataSource, queryLogService);
+            }
+            return bean;
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(super.getConnection(username, password));
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        QueryLogService log = queryLogService.getIfAvailable();
+        if (log == null || !log.isEnabled()) {
+            return connection;
+        }
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof CallableStatement statement && method.getName().equals("prepareCall")) {
+                return proxy(CallableStatement.class, statement, new StatementHandler(statement, (String) args[0], log));
+            }
+            if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                return proxy(PreparedStatement.class, statement, new StatementHandler(statement, (String) args[0], log));
+            }
+            if (result instanceof Statement statement && method.getName().equals("createStatement")) {
+                return proxy(Statement.class, statement, new StatementHandler(statement, null, log));
+            }
+            return result;
+        });
+    }
+
+    /** Times executions of one statement and counts binds, batches and rows. */
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final QueryLogService log;
+        private String sql;
+        private int binds;
+        private int batches;
+
+        // Pending query execution, reported once its ResultSet has been read
+        private String pendingSql;
+        private long pendingNanos = -1;
+        private int pendingBinds;
+        private long pendingRows;
+
+        StatementHandler(Statement target, String sql, QueryLogService log) {
+            this.target = target;
+            this.sql = sql;
+            this.log = log;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                binds = Math.max(binds, index);
+                return QueryLoggingDataSource.invoke(target, method, args);
+            }
+            if (name.equals("addBatch")) {
+                batches++;
+                if (args != null && args.length == 1 && args[0] instanceof String batchSql) {
+                    sql = batchSql;
+                }
+                return QueryLoggingDataSource.invoke(target, method, args);
+            }
+            if (name.equals("clearParameters")) {
+                binds = 0;
+                return QueryLoggingDataSource.invoke(target, method, args);
+            }
+            if (name.equals("close")) {
+                flush();
+                return QueryLoggingDataSource.invoke(target, method, args);
+            }
+            if (!name.startsWith("execute")) {
+                Object result = QueryLoggingDataSource.invoke(target, method, args);
+                if (result instanceof ResultSet rs && name.equals("getResultSet")) {
+                    return wrapResultSet(rs);
+                }
+                return result;
+            }
+
+            flush();
+            String executedSql = args != null && args.length > 0 && args[0] instanceof String s ? s : sql;
+            long start = System.nanoTime();
+            Object result = QueryLoggingDataSource.invoke(target, method, args);
+            long nanos = System.nanoTime() - start;
+
+            if (result instanceof ResultSet rs) {
+                pendingSql = executedSql;
+                pendingNanos = nanos;
+                pendingBinds = binds;
+                pendingRows = 0;
+                return wrapResultSet(rs);
+            }
+            long rows;
+            if (result instanceof int[] counts) {
+                rows = 0;
+                for (int c : counts) {
+                    rows += Math.max(c, 0);
+                }
+            } else if (result instanceof long[] counts) {
+                rows = 0;
+                for (long c : counts) {
+                    rows += Math.max(c, 0);
+                }
+            } else if (result instanceof Number count) {
+                rows = count.longValue();
+            } else {
+                // execute(): a ResultSet may follow through getResultSet()
+                pendingSql = executedSql;
+                pendingNanos = nanos;
+                pendingBinds = binds;
+                pendingRows = Boolean.TRUE.equals(result) ? 0 : Math.max(target.getUpdateCount(), 0);
+                return result;
+            }
+            String label = batches > 1 ? executedSql + " /* batch x" + batches + " */" : executedSql;
+            batches = 0;
+            log.record(label, binds, nanos, rows);
+            return result;
+        }
+
+        private ResultSet wrapResultSet(ResultSet rs) {
+            return proxy(ResultSet.class, rs, (proxy, method, args) -> {
+                Object result = QueryLoggingDataSource.invoke(rs, method, args);
+                if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                    pendingRows++;
+                } else if (method.getName().equals("close")) {
+                    flush();
+                }
+                return result;
+            });
+        }
+
+        private void flush() {
+            if (pendingNanos >= 0) {
+                log.record(pendingSql, pendingBinds, pendingNanos, pendingRows);
+                pendingNanos = -1;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(QueryLoggingDataSource.class.getClassLoader(), new Class<?>[] { type },
+                handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
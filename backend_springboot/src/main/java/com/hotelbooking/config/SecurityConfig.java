@@ -3,6 +3,7 @@ package com.hotelbooking.config;
 import com.hotelbooking.security.CustomUserDetailsService;
 import com.hotelbooking.security.JwtAuthenticationFilter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -28,6 +29,9 @@ public class SecurityConfig {
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    @Value("${auth.bcrypt.cost:10}")
+    private int bcryptCost;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -35,6 +39,8 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(org.springframework.http.HttpMethod.OPTIONS, "/**").permitAll()
+                        // Async re-dispatches (SSE streams) continue a request that was already authorised
+                        .dispatcherTypeMatchers(jakarta.servlet.DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/auth/**").permitAll() // Login/Register
                         .requestMatchers("/api/hotels/**").permitAll() // Public hotel viewing
                         .requestMatchers("/api/rooms/**").permitAll() // Public room viewing
@@ -68,6 +74,7 @@ public class SecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        // Existing hashes below this cost are upgraded on their next successful login
+        return new BCryptPasswordEncoder(bcryptCost);
     }
 }
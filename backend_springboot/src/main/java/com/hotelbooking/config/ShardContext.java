@@ -0,0 +1,63 @@
+package com.hotelbooking.config;
+
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * The shard the current thread's queries go to, read by
+ * ShardRoutingDataSource when a connection is opened. No shard means the
+ * default (directory) shard.
+ *
+ * Set per request by ShardRoutingInterceptor and per task by ShardRouter.
+ * It has to be in place before a transaction starts: the connection is bound
+ * for the rest of the transaction.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    static void set(String shard) {
+        CURRENT.set(shard);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    /** Runs work on the given shard, restoring the previous one afterwards. */
+    public static <T> T call(String shard, Supplier<T> work) {
+        String previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public static void run(String shard, Runnable work) {
+        call(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /** An executor whose tasks run on the shard that was current when they were submitted. */
+    public static Executor propagating(Executor executor) {
+        return command -> {
+            String shard = CURRENT.get();
+            executor.execute(() -> run(shard, command));
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package com.hotelbooking.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The application DataSource when sharding is enabled: each connection comes
+ * from the shard in {@link ShardContext}, or the default shard when none is
+ * set. An unknown shard name fails instead of quietly using the default.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    public ShardRoutingDataSource(Map<String, DataSource> shards, String defaultShard) {
+        setTargetDataSources(new HashMap<>(shards));
+        setDefaultTargetDataSource(shards.get(defaultShard));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+}
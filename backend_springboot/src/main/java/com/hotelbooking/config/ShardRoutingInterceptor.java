@@ -0,0 +1,108 @@
+package com.hotelbooking.config;
+
+import com.hotelbooking.security.CustomUserDetails;
+import com.hotelbooking.service.ShardRouter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Picks the shard for a request before the controller (and its transaction)
+ * runs, from the first of: a hotelId path variable, the id in an
+ * /api/hotels/{id} path, the booking, room, payment etc. id in the path
+ * (located by ShardRouter), a hotel_id query parameter, or the hotel of a
+ * signed-in hotel admin. Requests with none of these stay on the default
+ * shard; reads across all hotels fan out in the services themselves.
+ *
+ * Writes whose hotel is only in the request body (new bookings, rooms,
+ * reviews, payments) are routed by their controllers.
+ */
+@Component
+public class ShardRoutingInterceptor implements AsyncHandlerInterceptor {
+
+    // Path prefix -> table whose id the {id} variable is; first match wins, so longer prefixes come first
+    private static final Map<String, String> ID_TABLES = new LinkedHashMap<>();
+
+    static {
+        ID_TABLES.put("/api/rooms/types/", "room_types");
+        ID_TABLES.put("/api/rooms/tariffs/", "tariffs");
+        ID_TABLES.put("/api/rooms/", "rooms");
+        ID_TABLES.put("/api/bookings/", "bookings");
+        ID_TABLES.put("/api/payments/", "payments");
+        ID_TABLES.put("/api/reviews/", "reviews");
+    }
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ShardContext.clear();
+        if (shardRouter.isEnabled()) {
+            String shard = resolve(request);
+            if (shard != null) {
+                ShardContext.set(shard);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        ShardContext.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        ShardContext.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private String resolve(HttpServletRequest request) {
+        Map<String, String> vars = (Map<String, String>) request
+                .getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+        if (vars != null && pattern != null) {
+            if (vars.containsKey("hotelId")) {
+                return shardRouter.shardOfHotel(vars.get("hotelId"));
+            }
+            if (vars.containsKey("bookingId")) {
+                return shardRouter.locate("bookings", vars.get("bookingId"));
+            }
+            String id = vars.get("id");
+            if (id != null) {
+                if (pattern.startsWith("/api/hotels/")) {
+                    return shardRouter.shardOfHotel(id);
+                }
+                for (Map.Entry<String, String> entry : ID_TABLES.entrySet()) {
+                    if (pattern.startsWith(entry.getKey())) {
+                        return shardRouter.locate(entry.getValue(), id);
+                    }
+                }
+            }
+        }
+
+        String hotelId = request.getParameter("hotel_id");
+        if (hotelId != null && !hotelId.isEmpty()) {
+            return shardRouter.shardOfHotel(hotelId);
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails user
+                && "hotel_admin".equals(user.getRole()) && user.getHotelId() != null) {
+            return shardRouter.shardOfHotel(user.getHotelId());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,124 @@
+package com.hotelbooking.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Data;
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hotel-keyed sharding (sharding.enabled=true, see application-sharded.properties).
+ *
+ * Every shard is a complete database with the same Flyway schema. A hotel's
+ * rooms, bookings, payments, reviews, tariffs and inventory live on the shard
+ * the directory (hotel_shards) assigns it to; hotels, guests and the
+ * directory itself are copied to every shard so foreign keys hold locally.
+ * The first configured shard is the default: administrators, idempotency
+ * keys and hotels without a directory entry stay there, so an existing
+ * single database becomes the first shard unchanged.
+ *
+ * The application DataSource routes by {@link ShardContext}; see ShardRouter
+ * for how requests pick their shard and how cross-shard reads fan out.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardingConfig.class);
+
+    @Value("${sharding.pool-size:10}")
+    private int poolSize;
+
+    @Value("${spring.datasource.driver-class-name:com.mysql.cj.jdbc.Driver}")
+    private String driverClassName;
+
+    @Value("${spring.flyway.enabled:true}")
+    private boolean flywayEnabled;
+
+    @Value("${spring.flyway.baseline-on-migrate:true}")
+    private boolean baselineOnMigrate;
+
+    @Value("${spring.flyway.baseline-version:1}")
+    private String baselineVersion;
+
+    @Data
+    public static class ShardProperties {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+    }
+
+    /** The shard DataSources in configuration order; the first one is the default shard. */
+    public record Shards(String defaultShard, Map<String, DataSource> dataSources) {
+
+        /** Called by the container on shutdown (inferred destroy method). */
+        public void close() {
+            dataSources.values().forEach(dataSource -> ((HikariDataSource) dataSource).close());
+        }
+    }
+
+    @Bean
+    public Shards shards(Environment environment) {
+        List<ShardProperties> configured = Binder.get(environment)
+                .bind("sharding.shards", Bindable.listOf(ShardProperties.class))
+                .orElse(List.of());
+        if (configured.isEmpty()) {
+            throw new IllegalStateException("sharding.enabled is set but no sharding.shards are configured");
+        }
+
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        for (ShardProperties shard : configured) {
+            if (shard.getName() == null || dataSources.containsKey(shard.getName())) {
+                throw new IllegalStateException("Every shard needs a unique name: " + shard.getName());
+            }
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("shard-" + shard.getName());
+            dataSource.setJdbcUrl(shard.getUrl());
+            dataSource.setUsername(shard.getUsername());
+            dataSource.setPassword(shard.getPassword());
+            dataSource.setDriverClassName(driverClassName);
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSources.put(shard.getName(), dataSource);
+        }
+
+        String defaultShard = configured.get(0).getName();
+
+        // Spring Boot's Flyway run only sees the routing DataSource's default; migrate the rest here
+        if (flywayEnabled) {
+            dataSources.forEach((name, dataSource) -> {
+                if (!name.equals(defaultShard)) {
+                    Flyway.configure()
+                            .dataSource(dataSource)
+                            .baselineOnMigrate(baselineOnMigrate)
+                            .baselineVersion(baselineVersion)
+                            .load()
+                            .migrate();
+                }
+            });
+        }
+
+        log.info("Sharding enabled over {} (default {})", dataSources.keySet(), defaultShard);
+        return new Shards(defaultShard, Collections.unmodifiableMap(dataSources));
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(Shards shards) {
+        return new ShardRoutingDataSource(shards.dataSources(), shards.defaultShard());
+    }
+}
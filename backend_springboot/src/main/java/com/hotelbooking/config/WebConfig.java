@@ -1,11 +1,13 @@
 package com.hotelbooking.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.util.Arrays;
@@ -14,13 +16,34 @@ import java.util.List;
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    @Autowired
+    private CatalogETagInterceptor catalogETagInterceptor;
+
+    @Autowired
+    private ShardRoutingInterceptor shardRoutingInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Hotel-owned data; a no-op unless sharding.enabled
+        registry.addInterceptor(shardRoutingInterceptor)
+                .addPathPatterns("/api/hotels/**", "/api/rooms/**", "/api/bookings/**", "/api/reviews/**",
+                        "/api/payments/**", "/api/dashboard/**");
+
+        // Public catalog reads that can be answered with 304 from the content version
+        registry.addInterceptor(catalogETagInterceptor)
+                .addPathPatterns("/api/hotels", "/api/hotels/*", "/api/hotels/*/room-types",
+                        "/api/rooms/types/*", "/api/reviews/hotel/*")
+                // Depends on live availability, which does not bump the catalog version
+                .excludePathPatterns("/api/hotels/nearby");
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
                 .allowedOriginPatterns("http://localhost:*", "http://127.0.0.1:*")
                 .allowedMethods("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
-                .exposedHeaders("Authorization")
+                .exposedHeaders("Authorization", "ETag")
                 .allowCredentials(true)
                 .maxAge(3600);
     }
@@ -31,7 +54,7 @@ public class WebConfig implements WebMvcConfigurer {
         configuration.setAllowedOriginPatterns(Arrays.asList("http://localhost:*", "http://127.0.0.1:*"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(List.of("*"));
-        configuration.setExposedHeaders(List.of("Authorization"));
+        configuration.setExposedHeaders(List.of("Authorization", "ETag"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
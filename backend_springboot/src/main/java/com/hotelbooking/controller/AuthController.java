@@ -8,6 +8,7 @@ import com.hotelbooking.model.Administrator;
 import com.hotelbooking.repository.GuestRepository;
 import com.hotelbooking.repository.AdministratorRepository;
 import com.hotelbooking.service.AuthService;
+import com.hotelbooking.service.PasswordHashingService;
 import com.hotelbooking.security.CustomUserDetails;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -40,6 +41,8 @@ public class AuthController {
             data.put("user", response.getUser());
             data.put("token", response.getToken());
             return ResponseEntity.ok(ApiResponse.success(data, "Login successful"));
+        } catch (PasswordHashingService.BusyException e) {
+            return ResponseEntity.status(503).header("Retry-After", "1").body(ApiResponse.error(e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.status(401).body(ApiResponse.error(e.getMessage()));
         }
@@ -59,6 +62,8 @@ public class AuthController {
 
             AuthResponse response = authService.registerGuest(guest, password);
             return ResponseEntity.status(201).body(ApiResponse.success(response, "Guest registered successfully"));
+        } catch (PasswordHashingService.BusyException e) {
+            return ResponseEntity.status(503).header("Retry-After", "1").body(ApiResponse.error(e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.status(409).body(ApiResponse.error(e.getMessage()));
         }
@@ -3,6 +3,8 @@ package com.hotelbooking.controller;
 import com.hotelbooking.dto.ApiResponse;
 import com.hotelbooking.dto.CreateBookingRequest;
 import com.hotelbooking.service.BookingService;
+import com.hotelbooking.service.IdempotencyService;
+import com.hotelbooking.service.ShardRouter;
 import com.hotelbooking.security.CustomUserDetails;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -19,6 +21,12 @@ public class BookingController {
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
     @GetMapping
     public ApiResponse<List<Map<String, Object>>> getAllBookings(
             @RequestParam(required = false) String status,
@@ -46,21 +54,40 @@ public class BookingController {
         return ApiResponse.success(bookingService.getBookingsByGuest(guestId, status));
     }
 
+    @PostMapping("/quote")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> quoteBooking(@RequestBody CreateBookingRequest request) {
+        try {
+            Map<String, Object> quote = shardRouter.onHotel(request.getHotel_id(),
+                    () -> bookingService.quoteBooking(request));
+            return ResponseEntity.ok(ApiResponse.success(quote));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(409).body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @PostMapping
     public ResponseEntity<ApiResponse<Map<String, Object>>> createBooking(
             @RequestBody CreateBookingRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @AuthenticationPrincipal CustomUserDetails userDetails) {
         // Force guest_id to be the logged-in user's ID for guests
         if (userDetails != null && "guest".equals(userDetails.getRole())) {
             request.setGuest_id(userDetails.getId());
         }
 
-        try {
-            Map<String, Object> booking = bookingService.createBooking(request);
-            return ResponseEntity.status(201).body(ApiResponse.success(booking, "Booking created successfully"));
-        } catch (RuntimeException e) {
-            return ResponseEntity.status(409).body(ApiResponse.error(e.getMessage()));
-        }
+        String callerId = userDetails != null ? userDetails.getId() : null;
+        // The hotel is only in the body, so the request was not routed to its shard yet; the
+        // idempotency key is claimed there too, in the booking's transaction
+        return shardRouter.onHotel(request.getHotel_id(),
+                () -> idempotencyService.execute("booking", callerId, idempotencyKey, request, () -> {
+                    try {
+                        Map<String, Object> booking = bookingService.createBooking(request);
+                        return ResponseEntity.status(201)
+                                .body(ApiResponse.success(booking, "Booking created successfully"));
+                    } catch (RuntimeException e) {
+                        return ResponseEntity.status(409).body(ApiResponse.error(e.getMessage()));
+                    }
+                }));
     }
 
     @PatchMapping("/{id}/status")
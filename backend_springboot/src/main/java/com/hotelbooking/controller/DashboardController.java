@@ -2,12 +2,19 @@ package com.hotelbooking.controller;
 
 import com.hotelbooking.dto.ApiResponse;
 import com.hotelbooking.security.CustomUserDetails;
+import com.hotelbooking.service.ActivityStreamService;
+import com.hotelbooking.service.AnalyticsService;
 import com.hotelbooking.service.DashboardService;
+import com.hotelbooking.service.QueryLogService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -18,6 +25,15 @@ public class DashboardController {
     @Autowired
     private DashboardService dashboardService;
 
+    @Autowired
+    private ActivityStreamService activityStreamService;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private QueryLogService queryLogService;
+
     @GetMapping("/stats")
     public ResponseEntity<ApiResponse<Object>> getDashboardStats(
             @AuthenticationPrincipal CustomUserDetails userDetails) {
@@ -43,4 +59,113 @@ public class DashboardController {
                 userDetails.getHotelId());
         return ResponseEntity.ok(ApiResponse.success(activity));
     }
+
+    /**
+     * Live activity as server-sent events (booking, booking_status, payment,
+     * review). Reconnects resume from Last-Event-ID; see ActivityStreamService.
+     */
+    @GetMapping("/activity/stream")
+    public ResponseEntity<?> streamActivity(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestHeader(name = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(name = "last_event_id", required = false) String lastEventIdParam) {
+        if (userDetails == null) {
+            return ResponseEntity.status(401).body(ApiResponse.error("Unauthorized"));
+        }
+        boolean superAdmin = "super_admin".equals(userDetails.getRole());
+        boolean hotelAdmin = "hotel_admin".equals(userDetails.getRole()) && userDetails.getHotelId() != null;
+        if (!superAdmin && !hotelAdmin) {
+            return ResponseEntity.status(403).body(ApiResponse.error("Access denied"));
+        }
+
+        String lastEventId = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+        try {
+            SseEmitter emitter = activityStreamService.subscribe(
+                    superAdmin ? null : userDetails.getHotelId(),
+                    lastEventId != null ? Long.valueOf(lastEventId) : null);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.TEXT_EVENT_STREAM)
+                    .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                    .header("X-Accel-Buffering", "no")
+                    .body(emitter);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Invalid Last-Event-ID"));
+        } catch (ActivityStreamService.BusyException e) {
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "30")
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/daily-stats")
+    public ResponseEntity<ApiResponse<Object>> getDailyStats(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestParam(name = "start_date", required = false) String startDate,
+            @RequestParam(name = "end_date", required = false) String endDate) {
+        if (userDetails == null) {
+            return ResponseEntity.status(401).body(ApiResponse.error("Unauthorized"));
+        }
+        boolean hotelAdmin = "hotel_admin".equals(userDetails.getRole()) && userDetails.getHotelId() != null;
+        if (!"super_admin".equals(userDetails.getRole()) && !hotelAdmin) {
+            return ResponseEntity.status(403).body(ApiResponse.error("Access denied"));
+        }
+
+        try {
+            LocalDate to = endDate != null ? LocalDate.parse(endDate) : LocalDate.now();
+            LocalDate from = startDate != null ? LocalDate.parse(startDate) : to.minusDays(29);
+            List<Map<String, Object>> days = dashboardService.getDailyStats(
+                    userDetails.getRole(),
+                    userDetails.getHotelId(),
+                    from, to);
+            return ResponseEntity.ok(ApiResponse.success(days));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/analytics")
+    public ResponseEntity<ApiResponse<Object>> getAnalytics(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestParam(name = "start_date", required = false) String startDate,
+            @RequestParam(name = "end_date", required = false) String endDate,
+            @RequestParam(name = "group_by", defaultValue = "hotel") String groupBy,
+            @RequestParam(name = "hotel_id", required = false) String hotelId) {
+        if (userDetails == null) {
+            return ResponseEntity.status(401).body(ApiResponse.error("Unauthorized"));
+        }
+        boolean hotelAdmin = "hotel_admin".equals(userDetails.getRole()) && userDetails.getHotelId() != null;
+        if (!"super_admin".equals(userDetails.getRole()) && !hotelAdmin) {
+            return ResponseEntity.status(403).body(ApiResponse.error("Access denied"));
+        }
+
+        try {
+            LocalDate to = endDate != null ? LocalDate.parse(endDate) : LocalDate.now();
+            LocalDate from = startDate != null ? LocalDate.parse(startDate) : to.minusDays(29);
+            if (from.isAfter(to) || from.plusYears(3).isBefore(to)) {
+                return ResponseEntity.badRequest().body(ApiResponse.error("Invalid date range"));
+            }
+            AnalyticsService.GroupBy group = AnalyticsService.GroupBy.valueOf(groupBy.toUpperCase());
+
+            // Hotel admins only ever see their own hotel
+            String scope = hotelAdmin ? userDetails.getHotelId() : hotelId;
+            List<Map<String, Object>> rows = analyticsService.query(from, to, group, scope);
+            return ResponseEntity.ok(ApiResponse.success(rows));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/queries/top")
+    public ResponseEntity<ApiResponse<Object>> getTopQueries(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (userDetails == null) {
+            return ResponseEntity.status(401).body(ApiResponse.error("Unauthorized"));
+        }
+        if (!"super_admin".equals(userDetails.getRole())) {
+            return ResponseEntity.status(403).body(ApiResponse.error("Access denied"));
+        }
+
+        Map<String, Object> top = queryLogService.getTopByTotalTime(Math.max(1, Math.min(limit, 200)));
+        return ResponseEntity.ok(ApiResponse.success(top));
+    }
 }
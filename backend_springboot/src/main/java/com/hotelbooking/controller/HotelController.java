@@ -4,11 +4,14 @@ import com.hotelbooking.dto.ApiResponse;
 import com.hotelbooking.dto.HotelDTO;
 import com.hotelbooking.model.Hotel;
 import com.hotelbooking.service.HotelService;
+import com.hotelbooking.service.PriceCalendarService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
 
@@ -16,9 +19,14 @@ import java.util.Map;
 @RequestMapping("/api/hotels")
 public class HotelController {
 
+    private static final double MAX_RADIUS_KM = 500;
+
     @Autowired
     private HotelService hotelService;
 
+    @Autowired
+    private PriceCalendarService priceCalendarService;
+
     @GetMapping
     public ApiResponse<Object> getAllHotels(
             @RequestParam(required = false) String city,
@@ -33,6 +41,36 @@ public class HotelController {
         return ApiResponse.success(result.getContent(), pagination);
     }
 
+    @GetMapping("/nearby")
+    public ResponseEntity<ApiResponse<Object>> searchNearby(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(name = "radius_km", defaultValue = "10") double radiusKm,
+            @RequestParam(required = false, name = "star_rating") Integer starRating,
+            @RequestParam(required = false, name = "check_in") String checkIn,
+            @RequestParam(required = false, name = "check_out") String checkOut,
+            @RequestParam(required = false) Integer guests,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("lat must be within [-90, 90] and lon within [-180, 180]"));
+        }
+        if (radiusKm <= 0 || radiusKm > MAX_RADIUS_KM) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("radius_km must be between 0 and " + MAX_RADIUS_KM));
+        }
+        if ((checkIn == null) != (checkOut == null)) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("check_in and check_out must be given together"));
+        }
+
+        Page<HotelDTO> result = hotelService.searchNearby(lat, lon, radiusKm, starRating,
+                checkIn, checkOut, guests, page, limit);
+
+        ApiResponse.PaginationMetadata pagination = new ApiResponse.PaginationMetadata(
+                page, limit, result.getTotalElements(), result.getTotalPages());
+
+        return ResponseEntity.ok(ApiResponse.success(result.getContent(), pagination));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<HotelDTO>> getHotelById(@PathVariable String id) {
         return hotelService.getHotelById(id)
@@ -54,6 +92,22 @@ public class HotelController {
         return ApiResponse.success(hotelService.searchAvailableRooms(id, checkIn, checkOut, guests));
     }
 
+    @GetMapping("/{id}/price-calendar")
+    public ResponseEntity<ApiResponse<Object>> getPriceCalendar(
+            @PathVariable String id,
+            @RequestParam(required = false, name = "start_date") String startDate,
+            @RequestParam(defaultValue = "" + PriceCalendarService.MAX_DAYS) int days,
+            @RequestParam(required = false) Integer guests) {
+        try {
+            LocalDate from = startDate != null ? LocalDate.parse(startDate) : LocalDate.now();
+            return ResponseEntity.ok(ApiResponse.success(priceCalendarService.getCalendar(id, from, days, guests)));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("start_date must be YYYY-MM-DD"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @PostMapping
     public ApiResponse<Hotel> createHotel(@RequestBody Hotel hotel) {
         Hotel created = hotelService.createHotel(hotel);
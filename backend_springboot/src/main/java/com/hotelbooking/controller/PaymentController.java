@@ -2,7 +2,9 @@ package com.hotelbooking.controller;
 
 import com.hotelbooking.dto.ApiResponse;
 import com.hotelbooking.security.CustomUserDetails;
+import com.hotelbooking.service.IdempotencyService;
 import com.hotelbooking.service.PaymentService;
+import com.hotelbooking.service.ShardRouter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -18,6 +20,12 @@ public class PaymentController {
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
     @GetMapping
     public ApiResponse<Object> getAllPayments(
             @RequestParam(defaultValue = "50") int limit,
@@ -31,13 +39,22 @@ public class PaymentController {
     }
 
     @PostMapping
-    public ResponseEntity<ApiResponse<Object>> createPayment(@RequestBody Map<String, Object> payload) {
-        try {
-            Map<String, Object> result = paymentService.createPayment(payload);
-            return ResponseEntity.status(201).body(ApiResponse.success(result, "Payment processed successfully"));
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
-        }
+    public ResponseEntity<ApiResponse<Object>> createPayment(
+            @RequestBody Map<String, Object> payload,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        String callerId = userDetails != null ? userDetails.getId() : null;
+        // Runs on the booking's shard so the idempotency key is claimed in the payment's transaction
+        return shardRouter.onEntity("bookings", (String) payload.get("booking_id"),
+                () -> idempotencyService.execute("payment", callerId, idempotencyKey, payload, () -> {
+                    try {
+                        Map<String, Object> result = paymentService.createPayment(payload);
+                        return ResponseEntity.status(201)
+                                .body(ApiResponse.success(result, "Payment processed successfully"));
+                    } catch (RuntimeException e) {
+                        return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+                    }
+                }));
     }
 
     @GetMapping("/booking/{bookingId}")
@@ -3,6 +3,7 @@ package com.hotelbooking.controller;
 import com.hotelbooking.dto.ApiResponse;
 import com.hotelbooking.security.CustomUserDetails;
 import com.hotelbooking.service.ReviewService;
+import com.hotelbooking.service.ShardRouter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -17,6 +18,9 @@ public class ReviewController {
     @Autowired
     private ReviewService reviewService;
 
+    @Autowired
+    private ShardRouter shardRouter;
+
     @GetMapping("/hotel/{hotelId}")
     public ApiResponse<Object> getHotelReviews(
             @PathVariable String hotelId,
@@ -34,7 +38,8 @@ public class ReviewController {
             if (userDetails == null) {
                 return ResponseEntity.status(401).body(ApiResponse.error("Unauthorized"));
             }
-            Map<String, Object> result = reviewService.createReview(payload, userDetails.getId());
+            Map<String, Object> result = shardRouter.onEntity("bookings", (String) payload.get("booking_id"),
+                    () -> reviewService.createReview(payload, userDetails.getId()));
             return ResponseEntity.status(201).body(ApiResponse.success(result, "Review created successfully"));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
@@ -3,11 +3,17 @@ package com.hotelbooking.controller;
 import com.hotelbooking.dto.ApiResponse;
 import com.hotelbooking.model.Room;
 import com.hotelbooking.model.RoomType;
+import com.hotelbooking.security.CustomUserDetails;
+import com.hotelbooking.service.RoomImportService;
 import com.hotelbooking.service.RoomService;
+import com.hotelbooking.service.ShardRouter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -18,6 +24,12 @@ public class RoomController {
     @Autowired
     private RoomService roomService;
 
+    @Autowired
+    private RoomImportService roomImportService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
     // ==================== ROOM TYPES ====================
 
     @GetMapping("/types/{hotelId}")
@@ -28,7 +40,8 @@ public class RoomController {
     @PostMapping("/types")
     public ResponseEntity<ApiResponse<RoomType>> createRoomType(@RequestBody Map<String, Object> payload) {
         try {
-            RoomType roomType = roomService.createRoomType(payload);
+            RoomType roomType = shardRouter.onHotel((String) payload.get("hotel_id"),
+                    () -> roomService.createRoomType(payload));
             return ResponseEntity.status(201).body(ApiResponse.success(roomType, "Room type created successfully"));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
@@ -66,7 +79,8 @@ public class RoomController {
     @PostMapping
     public ResponseEntity<ApiResponse<Room>> createRoom(@RequestBody Map<String, Object> payload) {
         try {
-            Room room = roomService.createRoom(payload);
+            Room room = shardRouter.onHotel((String) payload.get("hotel_id"),
+                    () -> roomService.createRoom(payload));
             return ResponseEntity.status(201).body(ApiResponse.success(room, "Room created successfully"));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
@@ -94,6 +108,35 @@ public class RoomController {
         }
     }
 
+    // ==================== BULK IMPORT ====================
+
+    @PostMapping("/import/{hotelId}")
+    public ResponseEntity<ApiResponse<Object>> importRooms(@PathVariable String hotelId,
+            @RequestParam("file") MultipartFile file,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        // /api/rooms/** is open for browsing, so the import guards itself
+        if (userDetails == null) {
+            return ResponseEntity.status(401).body(ApiResponse.error("Unauthorized"));
+        }
+        boolean ownHotel = "hotel_admin".equals(userDetails.getRole()) && hotelId.equals(userDetails.getHotelId());
+        if (!"super_admin".equals(userDetails.getRole()) && !ownHotel) {
+            return ResponseEntity.status(403).body(ApiResponse.error("Access denied"));
+        }
+
+        String name = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase() : "";
+        RoomImportService.Format format = name.endsWith(".jsonl") || name.endsWith(".ndjson")
+                ? RoomImportService.Format.JSON_LINES
+                : RoomImportService.Format.CSV;
+        try {
+            Map<String, Object> result = roomImportService.importRooms(hotelId, file.getInputStream(), format);
+            return ResponseEntity.ok(ApiResponse.success(result, "Import finished"));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Could not read upload: " + e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     // ==================== TARIFFS ====================
 
     @GetMapping("/tariffs/{hotelId}")
@@ -104,7 +147,10 @@ public class RoomController {
     @PostMapping("/tariffs")
     public ResponseEntity<ApiResponse<Object>> createTariff(@RequestBody Map<String, Object> payload) {
         try {
-            roomService.createTariff(payload);
+            shardRouter.onEntity("room_types", (String) payload.get("room_type_id"), () -> {
+                roomService.createTariff(payload);
+                return null;
+            });
             return ResponseEntity.status(201).body(ApiResponse.success(null, "Tariff created successfully"));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
@@ -14,4 +14,5 @@ public class CreateBookingRequest {
     private Integer number_of_guests;
     private String special_requests;
     private String discount_code;
+    private String quote_token; // From POST /api/bookings/quote; books at the quoted prices
 }
@@ -23,10 +23,13 @@ public class HotelDTO {
     private String checkInTime;
     private String checkOutTime;
     private Boolean isActive;
+    private Double latitude;
+    private Double longitude;
 
     // Computed fields
     private Long totalRooms;
     private Double startingPrice;
     private Double avgRating;
     private Long reviewCount;
+    private Double distanceKm; // only set by the radius search
 }
@@ -4,7 +4,6 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.GenericGenerator;
 
 @Entity
 @Table(name = "administrators")
@@ -14,8 +13,7 @@ import org.hibernate.annotations.GenericGenerator;
 public class Administrator {
 
     @Id
-    @GeneratedValue(generator = "uuid2")
-    @GenericGenerator(name = "uuid2", strategy = "uuid2")
+    @TimeOrderedId
     @Column(columnDefinition = "VARCHAR(36)")
     private String id;
 
@@ -4,30 +4,44 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.GenericGenerator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.time.LocalDate;
 import java.util.List;
 
 @Entity
 @Table(name = "bookings")
+// Fetch plans per use case - every association is LAZY, the repository method picks the graph
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = "Booking.statusUpdate", attributeNodes = {
+                @NamedAttributeNode("guest"),
+                @NamedAttributeNode("hotel")
+        }),
+        @NamedEntityGraph(name = "Booking.payment", attributeNodes = {
+                @NamedAttributeNode("guest"),
+                @NamedAttributeNode("hotel")
+        }),
+        @NamedEntityGraph(name = "Booking.review", attributeNodes = @NamedAttributeNode("guest")),
+        @NamedEntityGraph(name = "Booking.summary", attributeNodes = {
+                @NamedAttributeNode("guest"),
+                @NamedAttributeNode("hotel")
+        })
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Booking {
 
     @Id
-    @GeneratedValue(generator = "uuid2")
-    @GenericGenerator(name = "uuid2", strategy = "uuid2")
+    @TimeOrderedId
     @Column(columnDefinition = "VARCHAR(36)")
     private String id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "guest_id", nullable = false)
     @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler", "passwordHash" })
     private Guest guest;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "hotel_id", nullable = false)
     @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler", "roomTypes", "rooms" })
     private Hotel hotel;
@@ -50,7 +64,7 @@ public class Booking {
     @Column(name = "final_amount")
     private Double finalAmount;
 
-    @OneToMany(mappedBy = "booking", cascade = CascadeType.ALL)
+    @OneToMany(mappedBy = "booking", fetch = FetchType.LAZY)
     @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler", "booking" })
     private List<BookingRoom> bookingRooms;
 }
@@ -4,7 +4,6 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.GenericGenerator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.LocalDate;
 
@@ -16,8 +15,7 @@ import java.time.LocalDate;
 public class BookingRoom {
 
     @Id
-    @GeneratedValue(generator = "uuid2")
-    @GenericGenerator(name = "uuid2", strategy = "uuid2")
+    @TimeOrderedId
     @Column(columnDefinition = "VARCHAR(36)")
     private String id;
 
@@ -26,10 +24,16 @@ public class BookingRoom {
     @JsonIgnore
     private Booking booking;
 
+    // Null until check-in when the booking was made by room type
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "room_id", nullable = false)
+    @JoinColumn(name = "room_id")
     private Room room;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "room_type_id")
+    @JsonIgnore
+    private RoomType roomType;
+
     @Column(name = "check_in_date")
     private LocalDate checkInDate;
 
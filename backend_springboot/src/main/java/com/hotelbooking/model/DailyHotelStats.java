@@ -0,0 +1,64 @@
+package com.hotelbooking.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Per-hotel, per-day rollup of bookings and payments. Rows are rebuilt by
+ * RollupService whenever a booking or payment touching that day changes, so
+ * dashboard totals are sums over days x hotels instead of over raw rows.
+ */
+@Entity
+@Table(name = "daily_hotel_stats")
+@IdClass(DailyHotelStats.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyHotelStats {
+
+    @Id
+    @Column(name = "hotel_id", columnDefinition = "VARCHAR(36)")
+    private String hotelId;
+
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate statDate;
+
+    @Column(name = "bookings_created", nullable = false)
+    private Long bookingsCreated; // by created_at
+
+    @Column(name = "nights_sold", nullable = false)
+    private Long nightsSold; // room-nights of revenue bookings created that day
+
+    @Column(nullable = false)
+    private Double revenue; // final_amount of revenue bookings created that day
+
+    @Column(nullable = false)
+    private Long cancellations; // by cancelled_at
+
+    @Column(name = "payments_count", nullable = false)
+    private Long paymentsCount; // every payment row, refunds included
+
+    @Column(name = "payments_amount", nullable = false)
+    private Double paymentsAmount;
+
+    @Column(nullable = false)
+    private Double refunds;
+
+    @Column(name = "refreshed_at", nullable = false)
+    private LocalDateTime refreshedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String hotelId;
+        private LocalDate statDate;
+    }
+}
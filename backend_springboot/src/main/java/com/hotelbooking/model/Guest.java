@@ -4,7 +4,6 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.GenericGenerator;
 import java.time.LocalDate;
 
 @Entity
@@ -15,8 +14,7 @@ import java.time.LocalDate;
 public class Guest {
 
     @Id
-    @GeneratedValue(generator = "uuid2")
-    @GenericGenerator(name = "uuid2", strategy = "uuid2")
+    @TimeOrderedId
     @Column(columnDefinition = "VARCHAR(36)")
     private String id;
 
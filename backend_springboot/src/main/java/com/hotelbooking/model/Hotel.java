@@ -4,7 +4,6 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.GenericGenerator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.util.List;
@@ -17,8 +16,7 @@ import java.util.List;
 public class Hotel {
 
     @Id
-    @GeneratedValue(generator = "uuid2")
-    @GenericGenerator(name = "uuid2", strategy = "uuid2")
+    @TimeOrderedId
     @Column(columnDefinition = "VARCHAR(36)")
     private String id;
 
@@ -26,6 +24,7 @@ public class Hotel {
     private String name;
 
     private String city;
+    private String state;
     private String country;
 
     @Column(name = "star_rating")
@@ -56,4 +55,8 @@ public class Hotel {
 
     @Column(name = "check_out_time")
     private String checkOutTime;
+
+    // WGS84 degrees; both null when the hotel has not been geocoded
+    private Double latitude;
+    private Double longitude;
 }
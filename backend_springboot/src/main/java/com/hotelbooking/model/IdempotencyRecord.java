@@ -0,0 +1,33 @@
+package com.hotelbooking.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_keys")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    // operation:caller:Idempotency-Key
+    @Id
+    @Column(name = "id", length = 255)
+    private String id;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "status_code", nullable = false)
+    private Integer statusCode;
+
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody; // ApiResponse as JSON
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
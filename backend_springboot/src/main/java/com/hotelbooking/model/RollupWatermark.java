@@ -0,0 +1,24 @@
+package com.hotelbooking.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "rollup_watermarks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupWatermark {
+
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    // Source rows updated at or after this instant have not been rolled up yet
+    @Column(name = "watermark", nullable = false)
+    private LocalDateTime watermark;
+}
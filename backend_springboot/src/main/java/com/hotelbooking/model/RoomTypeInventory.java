@@ -0,0 +1,44 @@
+package com.hotelbooking.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Sellable count per room type and night. Rows are created lazily the first
+ * time a night is booked and then only moved by atomic conditional UPDATEs.
+ */
+@Entity
+@Table(name = "room_type_inventory")
+@IdClass(RoomTypeInventory.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomTypeInventory {
+
+    @Id
+    @Column(name = "room_type_id", columnDefinition = "VARCHAR(36)")
+    private String roomTypeId;
+
+    @Id
+    @Column(name = "stay_date")
+    private LocalDate stayDate;
+
+    @Column(name = "total_rooms", nullable = false)
+    private Integer totalRooms;
+
+    @Column(nullable = false)
+    private Integer remaining;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String roomTypeId;
+        private LocalDate stayDate;
+    }
+}
@@ -0,0 +1,19 @@
+package com.hotelbooking.model;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a String id that Hibernate fills with a time-ordered UUID
+ * ({@link UuidV7}) on insert, in place of the random uuid2 generator. The
+ * column stays VARCHAR(36) and the API keeps the same string ids.
+ */
+@IdGeneratorType(TimeOrderedIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.FIELD, ElementType.METHOD })
+public @interface TimeOrderedId {
+}
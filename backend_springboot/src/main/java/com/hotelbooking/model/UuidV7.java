@@ -0,0 +1,70 @@
+package com.hotelbooking.model;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered (version 7, RFC 9562) UUIDs for primary keys.
+ *
+ * The first 48 bits are the Unix time in milliseconds and the next 12 a
+ * counter, so ids generated by this JVM are strictly increasing - also within
+ * one millisecond - and the canonical lowercase string sorts the same way.
+ * New rows therefore land at the right edge of the primary-key B-tree instead
+ * of at a random page. The remaining 62 bits come from SecureRandom, like
+ * UUID.randomUUID(), so ids stay unguessable.
+ *
+ * toBytes/fromBytes give the 16-byte big-endian form for BINARY(16) columns
+ * (the same layout as MySQL's UUID_TO_BIN without the swap flag). No table
+ * uses it yet - ids are still stored as VARCHAR(36) - so for now only
+ * scripts/uuid-bench.sh does; moving bookings, booking_rooms and payments to
+ * BINARY(16) is separate work.
+ */
+public final class UuidV7 {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // Last issued (millis << 12 | counter); counter overflow carries into the next millisecond
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private UuidV7() {
+    }
+
+    public static UUID generate() {
+        long candidate = System.currentTimeMillis() << 12;
+        long stamp = LAST.updateAndGet(previous -> Math.max(previous + 1, candidate));
+
+        long mostSig = (stamp >>> 12) << 16 | 0x7000L | (stamp & 0xFFFL);
+        long leastSig = RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(mostSig, leastSig);
+    }
+
+    /** A new id in the canonical 36-character form used by the entities and the API. */
+    public static String next() {
+        return generate().toString();
+    }
+
+    /** Creation time encoded in a version 7 id, or null for other versions (e.g. older random ids). */
+    public static Instant timestamp(String id) {
+        UUID uuid = UUID.fromString(id);
+        return uuid.version() == 7 ? Instant.ofEpochMilli(uuid.getMostSignificantBits() >>> 16) : null;
+    }
+
+    public static byte[] toBytes(String id) {
+        UUID uuid = UUID.fromString(id);
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    public static String fromBytes(byte[] bytes) {
+        if (bytes.length != 16) {
+            throw new IllegalArgumentException("A binary UUID has 16 bytes, got " + bytes.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong()).toString();
+    }
+}
@@ -2,7 +2,11 @@ package com.hotelbooking.repository;
 
 import com.hotelbooking.model.Administrator;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -11,4 +15,10 @@ public interface AdministratorRepository extends JpaRepository<Administrator, St
     Optional<Administrator> findByUsername(String username);
 
     Optional<Administrator> findByEmail(String email);
+
+    // Only replaces the hash it was computed from, so a concurrent password change wins
+    @Modifying
+    @Transactional
+    @Query("UPDATE Administrator a SET a.passwordHash = :newHash WHERE a.id = :id AND a.passwordHash = :oldHash")
+    int updatePasswordHash(@Param("id") String id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
 }
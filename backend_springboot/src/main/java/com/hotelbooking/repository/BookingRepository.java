@@ -1,21 +1,42 @@
 package com.hotelbooking.repository;
 
 import com.hotelbooking.model.Booking;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, String> {
 
+    @EntityGraph("Booking.summary")
     @Query("SELECT b FROM Booking b WHERE b.guest.id = :guestId ORDER BY b.checkInDate DESC")
     List<Booking> findByGuestId(@Param("guestId") String guestId);
 
+    @EntityGraph("Booking.summary")
     @Query("SELECT b FROM Booking b WHERE b.hotel.id = :hotelId ORDER BY b.checkInDate DESC")
     List<Booking> findByHotelId(@Param("hotelId") String hotelId);
 
     List<Booking> findByStatus(String status);
+
+    // Use-case specific loaders - each one names the fetch plan it needs
+
+    @EntityGraph("Booking.statusUpdate")
+    Optional<Booking> findForStatusUpdateById(String id);
+
+    // Row lock serialises payment confirmation against hold expiry. Locked by alias (FOR UPDATE OF) so the
+    // fetched guest and hotel rows are read, not locked - @Lock would lock every joined row
+    @EntityGraph("Booking.payment")
+    @QueryHints(@QueryHint(name = "org.hibernate.lockMode.b", value = "pessimistic_write"))
+    @Query("SELECT b FROM Booking b WHERE b.id = :id")
+    Optional<Booking> findForPaymentById(@Param("id") String id);
+
+    @EntityGraph("Booking.review")
+    Optional<Booking> findForReviewById(String id);
 }
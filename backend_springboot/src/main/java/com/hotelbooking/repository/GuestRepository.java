@@ -2,11 +2,21 @@ package com.hotelbooking.repository;
 
 import com.hotelbooking.model.Guest;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 @Repository
 public interface GuestRepository extends JpaRepository<Guest, String> {
     Optional<Guest> findByEmail(String email);
+
+    // Only replaces the hash it was computed from, so a concurrent password change wins
+    @Modifying
+    @Transactional
+    @Query("UPDATE Guest g SET g.passwordHash = :newHash WHERE g.id = :id AND g.passwordHash = :oldHash")
+    int updatePasswordHash(@Param("id") String id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
 }
@@ -1,14 +1,20 @@
 package com.hotelbooking.repository;
 
 import com.hotelbooking.model.Payment;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, String> {
     List<Payment> findByBookingIdOrderByPaymentDateDesc(String bookingId);
 
     List<Payment> findByBookingId(String bookingId);
+
+    // The refund copies the booking and publishes its guest and hotel
+    @EntityGraph(attributePaths = {"booking", "booking.guest", "booking.hotel"})
+    Optional<Payment> findForRefundById(String id);
 }
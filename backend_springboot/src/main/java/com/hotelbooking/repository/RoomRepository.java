@@ -1,12 +1,13 @@
 package com.hotelbooking.repository;
 
 import com.hotelbooking.model.Room;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -19,21 +20,17 @@ public interface RoomRepository extends JpaRepository<Room, String> {
 
     long countByRoomTypeId(String roomTypeId);
 
+    @EntityGraph(attributePaths = "roomType")
+    List<Room> findWithRoomTypeByIdIn(Collection<String> ids);
+
+    // Rooms of a type that can take a guest; RoomAllocator decides who is free by date overlap,
+    // so a room whose guest leaves today still counts while it shows as occupied
     @Query(value = """
                 SELECT * FROM rooms r
                 WHERE r.room_type_id = :roomTypeId
                 AND r.hotel_id = :hotelId
-                AND r.status = 'available'
-                AND r.id NOT IN (
-                    SELECT br.room_id FROM booking_rooms br
-                    JOIN bookings b ON br.booking_id = b.id
-                    WHERE b.status NOT IN ('cancelled', 'no_show')
-                    AND NOT (br.check_out_date <= :checkIn OR br.check_in_date >= :checkOut)
-                )
-                LIMIT 1
+                AND r.status NOT IN ('maintenance', 'blocked')
+                AND r.is_active = TRUE
             """, nativeQuery = true)
-    Room findAvailableRoom(@Param("roomTypeId") String roomTypeId,
-            @Param("hotelId") String hotelId,
-            @Param("checkIn") LocalDate checkIn,
-            @Param("checkOut") LocalDate checkOut);
+    List<Room> findAllocatableRooms(@Param("roomTypeId") String roomTypeId, @Param("hotelId") String hotelId);
 }
@@ -0,0 +1,231 @@
+package com.hotelbooking.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelbooking.dto.ApiResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Admission control for the public read endpoints (/api/hotels/**,
+ * /api/rooms/**). Every request is charged to a token bucket per remote IP,
+ * and requests with a valid bearer token also to a bucket per signed-in user,
+ * so neither made-up tokens nor one account spread over many addresses get
+ * extra budget. Each request costs tokens according to how heavy its query
+ * is. Throttled clients get 429, except that cheap catalog reads are answered
+ * from a short-lived response cache when one is available.
+ *
+ * Write paths (bookings, payments) are never throttled here, so a scraper
+ * exhausting its budget cannot take DB connections away from them.
+ *
+ * The IP bucket is keyed by {@code getRemoteAddr()}. Behind a reverse proxy
+ * or load balancer that is the proxy's address, and every client would share
+ * one bucket; set {@code server.forward-headers-strategy} so the address is
+ * taken from X-Forwarded-For - and only when the proxy overwrites that header,
+ * or clients can pick their own bucket.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    enum CostClass {
+        CHEAP, MODERATE, EXPENSIVE
+    }
+
+    private static final AntPathMatcher PATHS = new AntPathMatcher();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Value("${admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${admission.ip.capacity:60}")
+    private double ipCapacity;
+
+    @Value("${admission.ip.refill-per-second:20}")
+    private double ipRefillPerSecond;
+
+    @Value("${admission.token.capacity:120}")
+    private double tokenCapacity;
+
+    @Value("${admission.token.refill-per-second:40}")
+    private double tokenRefillPerSecond;
+
+    @Value("${admission.cost.cheap:1}")
+    private double cheapCost;
+
+    @Value("${admission.cost.moderate:3}")
+    private double moderateCost;
+
+    @Value("${admission.cost.expensive:10}")
+    private double expensiveCost;
+
+    @Value("${admission.cache-ttl-seconds:30}")
+    private long cacheTtlSeconds;
+
+    @Value("${admission.cache-max-entries:1000}")
+    private int cacheMaxEntries;
+
+    @Value("${admission.max-tracked-clients:100000}")
+    private int maxTrackedClients;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private final Map<String, CachedResponse> cheapResponses = new ConcurrentHashMap<>();
+
+    private record CachedResponse(byte[] body, String contentType, long storedAt) {
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !enabled
+                || !"GET".equals(request.getMethod())
+                || !(path.startsWith("/api/hotels") || path.startsWith("/api/rooms"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        CostClass costClass = classify(request.getRequestURI());
+        double cost = costOf(costClass);
+        String userId = verifiedUserId(request);
+
+        TokenBucket ipBucket = buckets.computeIfAbsent("ip:" + request.getRemoteAddr(),
+                k -> new TokenBucket(ipCapacity, ipRefillPerSecond));
+        TokenBucket userBucket = userId != null
+                ? buckets.computeIfAbsent("u:" + userId, k -> new TokenBucket(tokenCapacity, tokenRefillPerSecond))
+                : null;
+
+        TokenBucket exhausted = null;
+        if (userBucket != null && !userBucket.tryConsume(cost)) {
+            exhausted = userBucket;
+        } else if (!ipBucket.tryConsume(cost)) {
+            if (userBucket != null) {
+                userBucket.refund(cost);
+            }
+            exhausted = ipBucket;
+        }
+
+        if (exhausted == null) {
+            if (buckets.size() > maxTrackedClients) {
+                buckets.values().removeIf(TokenBucket::isFull);
+            }
+            if (costClass == CostClass.CHEAP) {
+                passThroughAndCache(request, response, filterChain);
+            } else {
+                filterChain.doFilter(request, response);
+            }
+            return;
+        }
+
+        String clientType = userId != null ? "token" : "ip";
+        if (costClass == CostClass.CHEAP && serveFromCache(request, response)) {
+            meterRegistry.counter("admission.throttled.cache_hits", "client", clientType).increment();
+            return;
+        }
+
+        meterRegistry.counter("admission.rejected", "cost_class", costClass.name().toLowerCase(),
+                "client", clientType).increment();
+        response.setStatus(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, exhausted.secondsUntil(cost))));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.error("Too many requests, slow down"));
+    }
+
+    /** The signed-in user's id, only when the bearer token verifies; the filter runs before authentication. */
+    private String verifiedUserId(HttpServletRequest request) {
+        String authorization = request.getHeader("Authorization");
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            return jwtUtil.extractId(authorization.substring(7));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    CostClass classify(String path) {
+        if (PATHS.match("/api/hotels/*/available-rooms", path) || "/api/hotels/nearby".equals(path)
+                || PATHS.match("/api/rooms/availability/*", path)) {
+            return CostClass.EXPENSIVE;
+        }
+        if ("/api/hotels".equals(path) || PATHS.match("/api/hotels/*/price-calendar", path)
+                || PATHS.match("/api/rooms/tariffs/*", path)
+                || PATHS.match("/api/rooms/*", path)) {
+            return CostClass.MODERATE;
+        }
+        return CostClass.CHEAP;
+    }
+
+    private double costOf(CostClass costClass) {
+        return switch (costClass) {
+            case CHEAP -> cheapCost;
+            case MODERATE -> moderateCost;
+            case EXPENSIVE -> expensiveCost;
+        };
+    }
+
+    private void passThroughAndCache(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, wrapper);
+            if (wrapper.getStatus() == 200) {
+                cheapResponses.put(cacheKey(request), new CachedResponse(wrapper.getContentAsByteArray(),
+                        wrapper.getContentType(), System.currentTimeMillis()));
+                if (cheapResponses.size() > cacheMaxEntries) {
+                    long cutoff = System.currentTimeMillis() - cacheTtlSeconds * 1000;
+                    cheapResponses.values().removeIf(cached -> cached.storedAt() < cutoff);
+                    if (cheapResponses.size() > cacheMaxEntries) {
+                        cheapResponses.clear();
+                    }
+                }
+            }
+        } finally {
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private boolean serveFromCache(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        CachedResponse cached = cheapResponses.get(cacheKey(request));
+        if (cached == null || System.currentTimeMillis() - cached.storedAt() > cacheTtlSeconds * 1000) {
+            return false;
+        }
+        response.setStatus(200);
+        response.setContentType(cached.contentType());
+        response.setHeader("X-Served-From-Cache", "true");
+        response.getOutputStream().write(cached.body());
+        return true;
+    }
+
+    private String cacheKey(HttpServletRequest request) {
+        return request.getQueryString() != null
+                ? request.getRequestURI() + "?" + request.getQueryString()
+                : request.getRequestURI();
+    }
+}
@@ -0,0 +1,69 @@
+package com.hotelbooking.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Signs and verifies booking quote tokens. A quote token pins the prices of
+ * a quoted stay for booking.quote-ttl-seconds so createBooking can redeem it
+ * without pricing again.
+ *
+ * The signing key is derived from jwt.secret but differs from the login
+ * token key, so neither kind of token verifies as the other.
+ */
+@Component
+public class QuoteTokenUtil {
+
+    private static final String SUBJECT = "booking-quote";
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    @Value("${booking.quote-ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private Key getSigningKey() {
+        return Keys.hmacShaKeyFor((secret + ":" + SUBJECT).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public String sign(Map<String, Object> claims, Date expiresAt) {
+        return Jwts.builder()
+                .setClaims(claims)
+                .setSubject(SUBJECT)
+                .setIssuedAt(new Date())
+                .setExpiration(expiresAt)
+                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .compact();
+    }
+
+    /** Returns the quote's claims, or throws if the token is expired, altered or not a quote. */
+    public Claims verify(String token) {
+        try {
+            return Jwts.parserBuilder()
+                    .setSigningKey(getSigningKey())
+                    .requireSubject(SUBJECT)
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
+        } catch (ExpiredJwtException e) {
+            throw new RuntimeException("Quote has expired, please request a new one");
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new RuntimeException("Invalid quote token");
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.hotelbooking.security;
+
+/**
+ * Classic token bucket: refills continuously at {@code refillPerSecond} up to
+ * {@code capacity}; a request is admitted if its cost can be taken.
+ */
+class TokenBucket {
+
+    private final double capacity;
+    private final double refillPerNano;
+
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(double capacity, double refillPerSecond) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    synchronized boolean tryConsume(double cost) {
+        refill();
+        if (tokens >= cost) {
+            tokens -= cost;
+            return true;
+        }
+        return false;
+    }
+
+    /** Gives back tokens taken for a request that was not admitted after all. */
+    synchronized void refund(double cost) {
+        tokens = Math.min(capacity, tokens + cost);
+    }
+
+    /** Seconds until {@code cost} tokens are available again. */
+    synchronized long secondsUntil(double cost) {
+        refill();
+        double missing = cost - tokens;
+        if (missing <= 0) {
+            return 0;
+        }
+        return (long) Math.ceil(missing / refillPerNano / 1_000_000_000d);
+    }
+
+    /** True once the bucket has been idle long enough to refill completely. */
+    synchronized boolean isFull() {
+        refill();
+        return tokens >= capacity;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+        lastRefill = now;
+    }
+}
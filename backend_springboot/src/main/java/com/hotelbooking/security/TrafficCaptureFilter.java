@@ -0,0 +1,103 @@
+package com.hotelbooking.security;
+
+import com.hotelbooking.service.TrafficCaptureService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Hands sampled API requests to TrafficCaptureService (off unless
+ * capture.enabled). Runs first, so arrival times are the real ones and
+ * requests rejected by admission control are captured too.
+ *
+ * The caller is recorded by role only, read from the bearer token; login,
+ * registration and the activity stream are not captured. The path is
+ * recorded as its route pattern plus path variables, never as the raw URI,
+ * so the service can drop ids of guests, bookings and the like. Requests
+ * turned away before dispatch are matched against the routes here.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TrafficCaptureFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private TrafficCaptureService trafficCaptureService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    private HandlerMapping handlerMapping;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !path.startsWith("/api/")
+                || path.startsWith("/api/auth/")
+                || path.equals("/api/dashboard/activity/stream")
+                || !trafficCaptureService.sample();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long at = System.currentTimeMillis();
+        long started = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!request.isAsyncStarted()) {
+                String pattern = pattern(request);
+                trafficCaptureService.record(at, request.getMethod(), pattern, pathVariables(request),
+                        request.getParameterMap(), role(request), response.getStatus(), System.nanoTime() - started);
+            }
+        }
+    }
+
+    // Route the request matched, or null when it matches none
+    private String pattern(HttpServletRequest request) {
+        if (request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) == null) {
+            // Rejected before dispatch (admission control, security); looking the route up sets the attributes
+            try {
+                if (!ServletRequestPathUtils.hasParsedRequestPath(request)) {
+                    ServletRequestPathUtils.parseAndCache(request);
+                }
+                handlerMapping.getHandler(request);
+            } catch (Exception e) {
+                return null;
+            }
+        }
+        return (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> pathVariables(HttpServletRequest request) {
+        Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        return variables != null ? (Map<String, String>) variables : Map.of();
+    }
+
+    private String role(HttpServletRequest request) {
+        String authorization = request.getHeader("Authorization");
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            return jwtUtil.extractRole(authorization.substring(7));
+        } catch (Exception e) {
+            return "invalid";
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.hotelbooking.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Live dashboard activity over server-sent events.
+ *
+ * Services publish booking, status-change, payment and review events; each
+ * is stamped with an increasing id once its transaction commits, kept in a
+ * bounded replay buffer and pushed to the open streams that may see it (all
+ * for super admins, their own hotel for hotel admins).
+ *
+ * A reconnecting client sends Last-Event-ID and gets the events it missed
+ * from the buffer. If they have already been evicted (or the server
+ * restarted, which starts the ids past every earlier one) it gets a single
+ * "reset" event and should reload GET /api/dashboard/activity once.
+ *
+ * All writes to clients happen on one thread, so each stream sees events in
+ * id order and exactly once; a slow or dead client costs that thread at most
+ * one failed write before it is dropped.
+ */
+@Service
+public class ActivityStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(ActivityStreamService.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${dashboard.stream.replay-size:500}")
+    private int replaySize;
+
+    @Value("${dashboard.stream.max-subscribers:500}")
+    private int maxSubscribers;
+
+    @Value("${dashboard.stream.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    @Value("${dashboard.stream.heartbeat-seconds:20}")
+    private long heartbeatSeconds;
+
+    private record Event(long id, String type, String hotelId, Map<String, Object> data) {
+    }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final String hotelId; // null = every hotel
+        long lastSentId;
+
+        Subscriber(SseEmitter emitter, String hotelId) {
+            this.emitter = emitter;
+            this.hotelId = hotelId;
+        }
+    }
+
+    // Guarded by this; ids start at the boot time so they keep growing across restarts
+    private final Deque<Event> replay = new ArrayDeque<>();
+    private long lastId = System.currentTimeMillis();
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService sender;
+
+    /** Thrown when the stream limit is reached; the controller answers 503. */
+    public static class BusyException extends RuntimeException {
+        public BusyException() {
+            super("Too many open activity streams, fall back to polling");
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        sender = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "activity-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sender.scheduleAtFixedRate(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        Gauge.builder("dashboard.stream.subscribers", subscribers, List::size).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * Queues an event for the hotel's streams. Inside a transaction it is
+     * only published after commit, so rolled-back work never shows up.
+     */
+    public void publish(String type, String hotelId, Map<String, Object> data) {
+        Map<String, Object> payload = new HashMap<>(data);
+        payload.put("type", type);
+        payload.put("hotel_id", hotelId);
+        payload.putIfAbsent("created_at", Instant.now().toString());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    append(type, hotelId, payload);
+                }
+            });
+        } else {
+            append(type, hotelId, payload);
+        }
+    }
+
+    /** Publishes a booking_status event for each booking, e.g. after a bulk cancel. */
+    public void publishStatusChanges(Collection<String> bookingIds, String status) {
+        if (bookingIds.isEmpty()) {
+            return;
+        }
+        Query query = entityManager.createNativeQuery("""
+                    SELECT b.id, b.hotel_id, h.name, CONCAT(g.first_name, ' ', g.last_name)
+                    FROM bookings b
+                    JOIN hotels h ON b.hotel_id = h.id
+                    JOIN guests g ON b.guest_id = g.id
+                    WHERE b.id IN (:ids)
+                """);
+        query.setParameter("ids", bookingIds);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+        for (Object[] row : rows) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("id", row[0]);
+            data.put("hotel_name", row[2]);
+            data.put("user_name", row[3]);
+            data.put("status", status);
+            publish("booking_status", (String) row[1], data);
+        }
+    }
+
+    /**
+     * Opens a stream limited to one hotel (or all hotels when hotelId is
+     * null), first replaying what came after lastEventId if one is given.
+     */
+    public SseEmitter subscribe(String hotelId, Long lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new BusyException();
+        }
+
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes));
+        Subscriber subscriber = new Subscriber(emitter, hotelId);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        // Snapshot and registration under the same lock as append, so no event falls in between
+        synchronized (this) {
+            List<Event> missed = new ArrayList<>();
+            boolean reset = false;
+            if (lastEventId != null) {
+                long oldestKept = replay.isEmpty() ? lastId + 1 : replay.peekFirst().id();
+                reset = lastEventId > lastId || lastEventId + 1 < oldestKept;
+                if (!reset) {
+                    for (Event event : replay) {
+                        if (event.id() > lastEventId) {
+                            missed.add(event);
+                        }
+                    }
+                }
+            }
+            // Live sends skip everything up to here; the missed part is replayed below instead
+            subscriber.lastSentId = lastId;
+            subscribers.add(subscriber);
+
+            boolean sendReset = reset;
+            long resetId = lastId;
+            sender.execute(() -> {
+                if (sendReset) {
+                    send(subscriber, SseEmitter.event().id(Long.toString(resetId)).name("reset")
+                            .data(Map.of("reason", "Missed events are no longer buffered"), MediaType.APPLICATION_JSON));
+                } else {
+                    send(subscriber, SseEmitter.event().comment("connected"));
+                }
+                missed.forEach(event -> deliver(subscriber, event, true));
+            });
+        }
+        return emitter;
+    }
+
+    private void append(String type, String hotelId, Map<String, Object> data) {
+        synchronized (this) {
+            Event event = new Event(++lastId, type, hotelId, data);
+            replay.addLast(event);
+            while (replay.size() > replaySize) {
+                replay.removeFirst();
+            }
+            sender.execute(() -> subscribers.forEach(subscriber -> deliver(subscriber, event, false)));
+        }
+    }
+
+    private void deliver(Subscriber subscriber, Event event, boolean replaying) {
+        if ((!replaying && event.id() <= subscriber.lastSentId)
+                || (subscriber.hotelId != null && !subscriber.hotelId.equals(event.hotelId()))) {
+            return;
+        }
+        if (send(subscriber, SseEmitter.event()
+                .id(Long.toString(event.id()))
+                .name(event.type())
+                .data(event.data(), MediaType.APPLICATION_JSON))) {
+            subscriber.lastSentId = Math.max(subscriber.lastSentId, event.id());
+        }
+    }
+
+    private boolean send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        try {
+            subscriber.emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private void heartbeat() {
+        try {
+            subscribers.forEach(subscriber -> send(subscriber, SseEmitter.event().comment("ping")));
+        } catch (Exception e) {
+            log.warn("Activity stream heartbeat failed", e);
+        }
+    }
+}
@@ -0,0 +1,597 @@
+package com.hotelbooking.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Revenue and occupancy analytics (occupancy %, ADR, RevPAR) served from an
+ * in-memory column store instead of ad-hoc SQL on the primary.
+ *
+ * Every sold room-night is one row across parallel primitive arrays (hotel,
+ * room type, epoch day, nightly amount). Queries are group-by scans over a
+ * date range, split across the fork-join pool. The store refreshes
+ * incrementally: bookings changed since the last watermark have their old
+ * rows tombstoned and their current nights appended; the arrays are compacted
+ * once tombstones pile up. Like the rollup job, each scan reaches back
+ * rollup.overlap-seconds before the watermark so a transaction that commits
+ * late with an older updated_at is still picked up; re-applying a booking is
+ * harmless because its previous rows are tombstoned first.
+ *
+ * With analytics.snapshot.path set, the store is refreshed and written to an
+ * AnalyticsSnapshot every analytics.snapshot.interval-seconds (and on
+ * shutdown) when it changed. On startup the snapshot is mapped back in and
+ * only bookings changed since its per-shard watermarks are read, so a restart
+ * does not rescan the whole booking history.
+ */
+@Service
+public class AnalyticsService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalyticsService.class);
+
+    private static final Set<String> REVENUE_STATUSES = Set.of("confirmed", "checked_in", "checked_out", "completed");
+
+    private static final int SCAN_THRESHOLD = 1 << 16;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${analytics.refresh-seconds:30}")
+    private long refreshSeconds;
+
+    @Value("${rollup.overlap-seconds:120}")
+    private long overlapSeconds;
+
+    @Value("${analytics.snapshot.path:}")
+    private String snapshotPath;
+
+    @Value("${analytics.snapshot.interval-seconds:300}")
+    private long snapshotSeconds;
+
+    // Recorded in the snapshot so one taken from another database is not restored
+    @Value("${spring.datasource.url:}")
+    private String datasourceUrl;
+
+    public enum GroupBy {
+        HOTEL, ROOM_TYPE, DAY
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Columns - one entry per sold room-night
+    private int size;
+    private int[] hotelCol = new int[1024];
+    private int[] roomTypeCol = new int[1024];
+    private int[] dayCol = new int[1024];
+    private double[] amountCol = new double[1024];
+    private BitSet dead = new BitSet();
+    private int deadCount;
+
+    // Dictionaries
+    private final Map<String, Integer> hotelIndex = new HashMap<>();
+    private final List<String> hotelIds = new ArrayList<>();
+    private final Map<String, Integer> roomTypeIndex = new HashMap<>();
+    private final List<String> roomTypeIds = new ArrayList<>();
+    private final Map<String, String> names = new HashMap<>();
+
+    // Booking id -> its row range [start, end)
+    private final Map<String, int[]> bookingRows = new HashMap<>();
+
+    // Sellable rooms per hotel and per room type (dictionary index)
+    private int[] hotelRooms = new int[0];
+    private int[] roomTypeRooms = new int[0];
+    private int[] roomTypeHotel = new int[0];
+
+    // Per shard: each shard's bookings carry their own updated_at clock
+    private final Map<String, Timestamp> watermarks = new HashMap<>();
+    private volatile long lastRefresh;
+
+    // Set when a refresh changed the store, cleared when a snapshot is taken
+    private volatile boolean dirty;
+
+    private ScheduledExecutorService snapshotScheduler;
+
+    public List<Map<String, Object>> query(LocalDate from, LocalDate to, GroupBy groupBy, String hotelId) {
+        refreshIfStale();
+
+        lock.readLock().lock();
+        try {
+            int fromDay = (int) from.toEpochDay();
+            int toDay = (int) to.toEpochDay();
+            int days = toDay - fromDay + 1;
+            int hotelFilter = hotelId != null ? hotelIndex.getOrDefault(hotelId, -2) : -1;
+            if (hotelFilter == -2 || days <= 0) {
+                return new ArrayList<>();
+            }
+
+            int groups = switch (groupBy) {
+                case HOTEL -> hotelIds.size();
+                case ROOM_TYPE -> roomTypeIds.size();
+                case DAY -> days;
+            };
+            Partial total = ForkJoinPool.commonPool()
+                    .invoke(new Scan(0, size, fromDay, toDay, hotelFilter, groupBy, groups));
+
+            return toRows(total, groupBy, fromDay, days, hotelFilter);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Map<String, Object>> toRows(Partial total, GroupBy groupBy, int fromDay, int days, int hotelFilter) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int g = 0; g < total.nights.length; g++) {
+            long capacityPerDay;
+            long span = days;
+            String key;
+            switch (groupBy) {
+                case HOTEL -> {
+                    if (hotelFilter >= 0 && g != hotelFilter) {
+                        continue;
+                    }
+                    key = hotelIds.get(g);
+                    capacityPerDay = hotelRooms.length > g ? hotelRooms[g] : 0;
+                }
+                case ROOM_TYPE -> {
+                    if (hotelFilter >= 0 && (roomTypeHotel.length <= g || roomTypeHotel[g] != hotelFilter)) {
+                        continue;
+                    }
+                    key = roomTypeIds.get(g);
+                    capacityPerDay = roomTypeRooms.length > g ? roomTypeRooms[g] : 0;
+                }
+                default -> {
+                    key = LocalDate.ofEpochDay(fromDay + g).toString();
+                    capacityPerDay = hotelFilter >= 0 ? hotelRooms[hotelFilter] : Arrays.stream(hotelRooms).sum();
+                    span = 1;
+                }
+            }
+
+            long available = capacityPerDay * span;
+            if (available == 0 && total.nights[g] == 0) {
+                continue;
+            }
+
+            Map<String, Object> row = new HashMap<>();
+            row.put("key", key);
+            if (groupBy != GroupBy.DAY) {
+                row.put("name", names.get(key));
+            }
+            row.put("room_nights_sold", total.nights[g]);
+            row.put("available_room_nights", available);
+            row.put("revenue", round(total.revenue[g]));
+            row.put("occupancy_pct", available > 0 ? round(100.0 * total.nights[g] / available) : null);
+            row.put("adr", total.nights[g] > 0 ? round(total.revenue[g] / total.nights[g]) : null);
+            row.put("revpar", available > 0 ? round(total.revenue[g] / available) : null);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    private static final class Partial {
+        final double[] revenue;
+        final long[] nights;
+
+        Partial(int groups) {
+            revenue = new double[groups];
+            nights = new long[groups];
+        }
+
+        Partial merge(Partial other) {
+            for (int i = 0; i < revenue.length; i++) {
+                revenue[i] += other.revenue[i];
+                nights[i] += other.nights[i];
+            }
+            return this;
+        }
+    }
+
+    private final class Scan extends RecursiveTask<Partial> {
+        final int lo, hi, fromDay, toDay, hotelFilter, groups;
+        final GroupBy groupBy;
+
+        Scan(int lo, int hi, int fromDay, int toDay, int hotelFilter, GroupBy groupBy, int groups) {
+            this.lo = lo;
+            this.hi = hi;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+            this.hotelFilter = hotelFilter;
+            this.groupBy = groupBy;
+            this.groups = groups;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (hi - lo > SCAN_THRESHOLD) {
+                int mid = (lo + hi) >>> 1;
+                Scan left = new Scan(lo, mid, fromDay, toDay, hotelFilter, groupBy, groups);
+                left.fork();
+                Partial right = new Scan(mid, hi, fromDay, toDay, hotelFilter, groupBy, groups).compute();
+                return right.merge(left.join());
+            }
+
+            Partial partial = new Partial(groups);
+            for (int i = lo; i < hi; i++) {
+                int day = dayCol[i];
+                if (day < fromDay || day > toDay || (hotelFilter >= 0 && hotelCol[i] != hotelFilter) || dead.get(i)) {
+                    continue;
+                }
+                int g = switch (groupBy) {
+                    case HOTEL -> hotelCol[i];
+                    case ROOM_TYPE -> roomTypeCol[i];
+                    case DAY -> day - fromDay;
+                };
+                partial.revenue[g] += amountCol[i];
+                partial.nights[g]++;
+            }
+            return partial;
+        }
+    }
+
+    // ==================== REFRESH ====================
+
+    private void refreshIfStale() {
+        if (System.currentTimeMillis() - lastRefresh < refreshSeconds * 1000) {
+            return;
+        }
+        synchronized (this) {
+            if (System.currentTimeMillis() - lastRefresh < refreshSeconds * 1000) {
+                return;
+            }
+            try {
+                refresh();
+            } catch (Exception e) {
+                log.error("Error refreshing analytics store", e);
+            }
+            lastRefresh = System.currentTimeMillis();
+        }
+    }
+
+    private record ShardRows(List<Object[]> changed, List<Object[]> capacity, List<Object[]> labels) {
+    }
+
+    /** Returns the number of changed booking rows applied. */
+    private int refresh() {
+        // Read outside the write lock so queries keep running during the DB round trips
+        Map<String, ShardRows> shardRows = shardRouter.scatter(
+                shard -> readChanges(watermarks.getOrDefault(shard, new Timestamp(0))));
+
+        int changedRows = 0;
+        lock.writeLock().lock();
+        try {
+            List<Object[]> capacity = new ArrayList<>();
+            for (Map.Entry<String, ShardRows> entry : shardRows.entrySet()) {
+                ShardRows rows = entry.getValue();
+                for (Object[] label : rows.labels()) {
+                    names.put((String) label[0], (String) label[1]);
+                }
+                Timestamp watermark = watermarks.getOrDefault(entry.getKey(), new Timestamp(0));
+                watermarks.put(entry.getKey(), applyChanges(rows.changed(), watermark));
+                capacity.addAll(rows.capacity());
+                // Rows re-read from the overlap alone do not count as a change
+                changedRows += (int) rows.changed().stream()
+                        .filter(row -> !(row[7] instanceof Timestamp updatedAt) || updatedAt.after(watermark))
+                        .count();
+            }
+
+            int[] newHotelRooms = new int[hotelIds.size() + capacity.size()];
+            int[] newRoomTypeRooms = new int[roomTypeIds.size() + capacity.size()];
+            int[] newRoomTypeHotel = new int[roomTypeIds.size() + capacity.size()];
+            for (Object[] row : capacity) {
+                int h = intern(hotelIndex, hotelIds, (String) row[0]);
+                int t = intern(roomTypeIndex, roomTypeIds, (String) row[1]);
+                int rooms = ((Number) row[2]).intValue();
+                newHotelRooms[h] += rooms;
+                newRoomTypeRooms[t] += rooms;
+                newRoomTypeHotel[t] = h;
+            }
+            hotelRooms = Arrays.copyOf(newHotelRooms, hotelIds.size());
+            roomTypeRooms = Arrays.copyOf(newRoomTypeRooms, roomTypeIds.size());
+            roomTypeHotel = Arrays.copyOf(newRoomTypeHotel, roomTypeIds.size());
+
+            if (deadCount > size / 4) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (changedRows > 0) {
+            dirty = true;
+        }
+        log.debug("Analytics store refreshed: {} booking rows changed, {} live room-nights", changedRows,
+                size - deadCount);
+        return changedRows;
+    }
+
+    // ==================== SNAPSHOT ====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (snapshotPath.isBlank()) {
+            return;
+        }
+        restore(Path.of(snapshotPath));
+
+        snapshotScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "analytics-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotScheduler.scheduleWithFixedDelay(() -> {
+            refreshIfStale();
+            snapshot();
+        }, snapshotSeconds, snapshotSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+            snapshot();
+        }
+    }
+
+    /**
+     * Loads the snapshot and replays the bookings changed since it was taken.
+     * Runs before the application reports ready; without a usable snapshot
+     * the store is left to build on first use as before.
+     */
+    private void restore(Path path) {
+        if (!Files.exists(path)) {
+            log.info("No analytics snapshot at {}; the store is built on first use", path);
+            return;
+        }
+        long started = System.nanoTime();
+        AnalyticsSnapshot.Contents contents;
+        try {
+            contents = AnalyticsSnapshot.read(path);
+        } catch (IOException e) {
+            log.warn("Ignoring analytics snapshot {}: {}", path, e.getMessage());
+            return;
+        }
+        if (!datasourceUrl.equals(contents.source())
+                || !contents.watermarks().keySet().equals(new HashSet<>(shardRouter.shards()))) {
+            log.warn("Ignoring analytics snapshot {}: taken from another database or shard set", path);
+            return;
+        }
+
+        synchronized (this) {
+            lock.writeLock().lock();
+            try {
+                install(contents);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            long mapped = System.nanoTime();
+
+            int replayed = 0;
+            try {
+                replayed = refresh();
+            } catch (Exception e) {
+                log.error("Error replaying analytics changes after the snapshot", e);
+            }
+            lastRefresh = System.currentTimeMillis();
+            log.info("Analytics store restored from {}: {} room-nights loaded in {} ms, {} changed booking rows "
+                            + "replayed in {} ms", path, contents.size(), (mapped - started) / 1_000_000, replayed,
+                    (System.nanoTime() - mapped) / 1_000_000);
+        }
+    }
+
+    /** Replaces the store with snapshot contents. Caller holds the write lock. */
+    private void install(AnalyticsSnapshot.Contents contents) {
+        size = contents.size();
+        hotelCol = contents.hotelCol();
+        roomTypeCol = contents.roomTypeCol();
+        dayCol = contents.dayCol();
+        amountCol = contents.amountCol();
+        dead = new BitSet();
+        deadCount = 0;
+
+        hotelIndex.clear();
+        hotelIds.clear();
+        contents.hotelIds().forEach(id -> intern(hotelIndex, hotelIds, id));
+        roomTypeIndex.clear();
+        roomTypeIds.clear();
+        contents.roomTypeIds().forEach(id -> intern(roomTypeIndex, roomTypeIds, id));
+
+        bookingRows.clear();
+        int row = 0;
+        for (AnalyticsSnapshot.BookingRows booking : contents.bookings()) {
+            bookingRows.put(booking.bookingId(), new int[] { row, row + booking.rows() });
+            row += booking.rows();
+        }
+
+        watermarks.clear();
+        watermarks.putAll(contents.watermarks());
+        dirty = false;
+    }
+
+    /** Writes the store to the snapshot file if it changed since the last one. */
+    private void snapshot() {
+        if (!dirty) {
+            return;
+        }
+        long started = System.nanoTime();
+        // Compact under the write lock, then downgrade so queries run while the file is written
+        lock.writeLock().lock();
+        lock.readLock().lock();
+        try {
+            try {
+                if (deadCount > 0) {
+                    compact();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            dirty = false;
+
+            List<AnalyticsSnapshot.BookingRows> bookings = bookingRows.entrySet().stream()
+                    .sorted(Comparator.comparingInt(e -> e.getValue()[0]))
+                    .map(e -> new AnalyticsSnapshot.BookingRows(e.getKey(), e.getValue()[1] - e.getValue()[0]))
+                    .toList();
+            AnalyticsSnapshot.write(Path.of(snapshotPath), new AnalyticsSnapshot.Contents(datasourceUrl,
+                    new LinkedHashMap<>(watermarks), hotelIds, roomTypeIds, bookings, size,
+                    hotelCol, roomTypeCol, dayCol, amountCol));
+            log.debug("Analytics snapshot written: {} room-nights in {} ms", size,
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (Exception e) {
+            dirty = true;
+            log.error("Error writing analytics snapshot {}", snapshotPath, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private ShardRows readChanges(Timestamp watermark) {
+        Query changedQuery = entityManager.createNativeQuery("""
+                    SELECT b.id, b.hotel_id, COALESCE(br.room_type_id, r.room_type_id),
+                           br.check_in_date, br.check_out_date, br.price_per_night, b.status, b.updated_at
+                    FROM bookings b
+                    JOIN booking_rooms br ON br.booking_id = b.id
+                    LEFT JOIN rooms r ON br.room_id = r.id
+                    WHERE b.updated_at >= :watermark
+                    ORDER BY b.id
+                """);
+        long since = Math.max(0L, watermark.getTime() - overlapSeconds * 1000);
+        changedQuery.setParameter("watermark", new Timestamp(since));
+        @SuppressWarnings("unchecked")
+        List<Object[]> changed = changedQuery.getResultList();
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> capacity = entityManager.createNativeQuery("""
+                    SELECT r.hotel_id, r.room_type_id, COUNT(*)
+                    FROM rooms r
+                    WHERE r.is_active = TRUE AND r.status != 'blocked'
+                    GROUP BY r.hotel_id, r.room_type_id
+                """).getResultList();
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> labels = entityManager.createNativeQuery("""
+                    SELECT id, name FROM hotels
+                    UNION ALL
+                    SELECT id, name FROM room_types
+                """).getResultList();
+
+        return new ShardRows(changed, capacity, labels);
+    }
+
+    /** Applies one shard's changed booking rows; returns that shard's new watermark. Caller holds the write lock. */
+    private Timestamp applyChanges(List<Object[]> changed, Timestamp watermark) {
+        String current = null;
+        for (Object[] row : changed) {
+            String bookingId = (String) row[0];
+            if (!bookingId.equals(current)) {
+                current = bookingId;
+                tombstone(bookingId);
+            }
+            if (row[7] instanceof Timestamp updatedAt && updatedAt.after(watermark)) {
+                watermark = updatedAt;
+            }
+            if (!REVENUE_STATUSES.contains((String) row[6]) || row[2] == null) {
+                continue;
+            }
+            appendNights(bookingId, (String) row[1], (String) row[2], ((Date) row[3]).toLocalDate(),
+                    ((Date) row[4]).toLocalDate(), row[5] != null ? ((Number) row[5]).doubleValue() : 0.0);
+        }
+        return watermark;
+    }
+
+    private void tombstone(String bookingId) {
+        int[] range = bookingRows.remove(bookingId);
+        if (range != null) {
+            dead.set(range[0], range[1]);
+            deadCount += range[1] - range[0];
+        }
+    }
+
+    private void appendNights(String bookingId, String hotelId, String roomTypeId, LocalDate checkIn,
+            LocalDate checkOut, double pricePerNight) {
+        int h = intern(hotelIndex, hotelIds, hotelId);
+        int t = intern(roomTypeIndex, roomTypeIds, roomTypeId);
+        int start = bookingRows.containsKey(bookingId) ? bookingRows.get(bookingId)[0] : size;
+
+        for (long day = checkIn.toEpochDay(); day < checkOut.toEpochDay(); day++) {
+            ensureCapacity(size + 1);
+            hotelCol[size] = h;
+            roomTypeCol[size] = t;
+            dayCol[size] = (int) day;
+            amountCol[size] = pricePerNight;
+            size++;
+        }
+        // A booking's rooms arrive together (ORDER BY b.id), so its rows stay contiguous
+        bookingRows.put(bookingId, new int[] { start, size });
+    }
+
+    private void compact() {
+        int write = 0;
+        Map<String, int[]> moved = new HashMap<>();
+        List<Map.Entry<String, int[]>> ranges = new ArrayList<>(bookingRows.entrySet());
+        ranges.sort(Comparator.comparingInt(e -> e.getValue()[0]));
+        for (Map.Entry<String, int[]> entry : ranges) {
+            int[] range = entry.getValue();
+            int start = write;
+            for (int i = range[0]; i < range[1]; i++) {
+                hotelCol[write] = hotelCol[i];
+                roomTypeCol[write] = roomTypeCol[i];
+                dayCol[write] = dayCol[i];
+                amountCol[write] = amountCol[i];
+                write++;
+            }
+            moved.put(entry.getKey(), new int[] { start, write });
+        }
+        bookingRows.clear();
+        bookingRows.putAll(moved);
+        size = write;
+        dead = new BitSet();
+        deadCount = 0;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= hotelCol.length) {
+            return;
+        }
+        int grown = Math.max(needed, hotelCol.length * 2);
+        hotelCol = Arrays.copyOf(hotelCol, grown);
+        roomTypeCol = Arrays.copyOf(roomTypeCol, grown);
+        dayCol = Arrays.copyOf(dayCol, grown);
+        amountCol = Arrays.copyOf(amountCol, grown);
+    }
+
+    private static int intern(Map<String, Integer> index, List<String> ids, String id) {
+        Integer existing = index.get(id);
+        if (existing != null) {
+            return existing;
+        }
+        index.put(id, ids.size());
+        ids.add(id);
+        return ids.size() - 1;
+    }
+}
@@ -0,0 +1,214 @@
+package com.hotelbooking.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of the AnalyticsService column store, written and read
+ * through a memory-mapped file.
+ *
+ * Layout (big-endian): magic, version, the source it was taken from, the
+ * change position per shard (the bookings.updated_at watermark the store had
+ * applied), the hotel and room type dictionaries, each booking's id and row
+ * count in row order, then the four columns as raw int/double arrays and a
+ * CRC32 of everything before it. Only live rows are written, so a restored
+ * store starts compacted.
+ *
+ * A snapshot is written to a temporary file and moved over the old one, so a
+ * crash mid-write leaves the previous snapshot in place.
+ */
+public final class AnalyticsSnapshot {
+
+    private static final int MAGIC = 0x48424153; // "HBAS"
+
+    private static final int VERSION = 1;
+
+    private AnalyticsSnapshot() {
+    }
+
+    /** A booking's id and how many consecutive rows it owns. */
+    public record BookingRows(String bookingId, int rows) {
+    }
+
+    /** Store contents; columns may be longer than size. */
+    public record Contents(String source, Map<String, Timestamp> watermarks, List<String> hotelIds,
+                           List<String> roomTypeIds, List<BookingRows> bookings, int size,
+                           int[] hotelCol, int[] roomTypeCol, int[] dayCol, double[] amountCol) {
+    }
+
+    public static void write(Path path, Contents contents) throws IOException {
+        byte[] source = utf8(contents.source());
+        List<byte[]> shards = new ArrayList<>();
+        long length = 4 + 4 + 2 + source.length + 4;
+        for (String shard : contents.watermarks().keySet()) {
+            byte[] name = utf8(shard);
+            shards.add(name);
+            length += 2 + name.length + 8 + 4;
+        }
+        List<byte[]> hotels = encodeAll(contents.hotelIds());
+        List<byte[]> roomTypes = encodeAll(contents.roomTypeIds());
+        List<byte[]> bookings = encodeAll(contents.bookings().stream().map(BookingRows::bookingId).toList());
+        length += 4 + sizeOf(hotels) + 4 + sizeOf(roomTypes) + 4 + sizeOf(bookings) + 4L * bookings.size();
+        length += 4 + (long) contents.size() * (4 + 4 + 4 + 8) + 8;
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Analytics snapshot would be " + length + " bytes, over the 2 GB mapping limit");
+        }
+
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+                buffer.putInt(MAGIC).putInt(VERSION);
+                putString(buffer, source);
+
+                buffer.putInt(shards.size());
+                int s = 0;
+                for (Timestamp watermark : contents.watermarks().values()) {
+                    putString(buffer, shards.get(s++));
+                    buffer.putLong(watermark.getTime()).putInt(watermark.getNanos());
+                }
+
+                putStrings(buffer, hotels);
+                putStrings(buffer, roomTypes);
+                putStrings(buffer, bookings);
+                for (BookingRows booking : contents.bookings()) {
+                    buffer.putInt(booking.rows());
+                }
+
+                int size = contents.size();
+                buffer.putInt(size);
+                buffer.asIntBuffer().put(contents.hotelCol(), 0, size);
+                buffer.position(buffer.position() + size * 4);
+                buffer.asIntBuffer().put(contents.roomTypeCol(), 0, size);
+                buffer.position(buffer.position() + size * 4);
+                buffer.asIntBuffer().put(contents.dayCol(), 0, size);
+                buffer.position(buffer.position() + size * 4);
+                buffer.asDoubleBuffer().put(contents.amountCol(), 0, size);
+                buffer.position(buffer.position() + size * 8);
+
+                buffer.putLong(checksum(buffer, buffer.position()));
+                buffer.force();
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /** Reads a snapshot; IOException if it is missing, truncated, corrupt or from another format version. */
+    public static Contents read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < 16 || length > Integer.MAX_VALUE) {
+                throw new IOException("Analytics snapshot has an invalid length: " + length);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not an analytics snapshot of version " + VERSION);
+            }
+            if (buffer.getLong((int) length - 8) != checksum(buffer, (int) length - 8)) {
+                throw new IOException("Analytics snapshot checksum mismatch");
+            }
+
+            try {
+                String source = getString(buffer);
+
+                int shardCount = buffer.getInt();
+                Map<String, Timestamp> watermarks = new LinkedHashMap<>();
+                for (int i = 0; i < shardCount; i++) {
+                    String shard = getString(buffer);
+                    Timestamp watermark = new Timestamp(buffer.getLong());
+                    watermark.setNanos(buffer.getInt());
+                    watermarks.put(shard, watermark);
+                }
+
+                List<String> hotelIds = getStrings(buffer);
+                List<String> roomTypeIds = getStrings(buffer);
+                List<String> bookingIds = getStrings(buffer);
+                List<BookingRows> bookings = new ArrayList<>(bookingIds.size());
+                for (String bookingId : bookingIds) {
+                    bookings.add(new BookingRows(bookingId, buffer.getInt()));
+                }
+
+                int size = buffer.getInt();
+                int[] hotelCol = new int[size];
+                int[] roomTypeCol = new int[size];
+                int[] dayCol = new int[size];
+                double[] amountCol = new double[size];
+                buffer.asIntBuffer().get(hotelCol);
+                buffer.position(buffer.position() + size * 4);
+                buffer.asIntBuffer().get(roomTypeCol);
+                buffer.position(buffer.position() + size * 4);
+                buffer.asIntBuffer().get(dayCol);
+                buffer.position(buffer.position() + size * 4);
+                buffer.asDoubleBuffer().get(amountCol);
+
+                return new Contents(source, watermarks, hotelIds, roomTypeIds, bookings, size,
+                        hotelCol, roomTypeCol, dayCol, amountCol);
+            } catch (RuntimeException e) {
+                throw new IOException("Analytics snapshot is malformed", e);
+            }
+        }
+    }
+
+    private static long checksum(ByteBuffer buffer, int end) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(0).limit(end));
+        return crc.getValue();
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    private static List<byte[]> encodeAll(List<String> values) {
+        return values.stream().map(AnalyticsSnapshot::utf8).toList();
+    }
+
+    private static long sizeOf(List<byte[]> encoded) {
+        long size = 0;
+        for (byte[] value : encoded) {
+            size += 2 + value.length;
+        }
+        return size;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        buffer.putShort((short) value.length).put(value);
+    }
+
+    private static void putStrings(ByteBuffer buffer, List<byte[]> values) {
+        buffer.putInt(values.size());
+        values.forEach(value -> putString(buffer, value));
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] value = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> getStrings(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(getString(buffer));
+        }
+        return values;
+    }
+}
@@ -8,7 +8,6 @@ import com.hotelbooking.repository.AdministratorRepository;
 import com.hotelbooking.repository.GuestRepository;
 import com.hotelbooking.security.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -23,44 +22,23 @@ public class AuthService {
     private AdministratorRepository administratorRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
 
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private ShardRouter shardRouter;
+
     public AuthResponse login(AuthRequest request) {
         // 1. Check Guest
         Optional<Guest> guestOpt = guestRepository.findByEmail(request.getEmail());
         if (guestOpt.isPresent()) {
             Guest guest = guestOpt.get();
-            // Verify password (if present, legacy support might skip this but let's enforce
-            // or be lenient?)
-            // Node code didn't check PWD for guest. I will enforce it for NEW flow, but if
-            // hash is null, maybe fail?
-            // If the user was migrated from legacy Node backend without password, they
-            // can't login here securely.
-            // For now, let's assume we check password.
-
-            if (guest.getPasswordHash() != null
-                    && passwordEncoder.matches(request.getPassword(), guest.getPasswordHash())) {
-                String token = jwtUtil.generateToken(guest.getEmail(), "guest", guest.getId(), null);
-                return AuthResponse.builder()
-                        .token(token)
-                        .user(AuthResponse.UserDTO.builder()
-                                .id(guest.getId())
-                                .email(guest.getEmail())
-                                .firstName(guest.getFirstName())
-                                .lastName(guest.getLastName())
-                                .role("guest")
-                                .build())
-                        .build();
-            } else if (guest.getPasswordHash() == null) {
-                // FALLBACK for legacy (INSECURE BUT MATCHES NODE)
-                // If the user has no password hash set, we might let them in? Or force reset?
-                // Let's matching node logic: Just let them in?
-                // Node: "check in guests table... if found... generate token". It IGNORED
-                // password.
-                // Okay, implementing Node parity behavior for passwordless guests:
+            // Guests without a password hash (legacy Node imports) cannot log in until they set one
+            if (passwordHashingService.matches(request.getPassword(), guest.getPasswordHash())) {
+                passwordHashingService.upgradeIfNeeded(request.getPassword(), guest.getPasswordHash(),
+                        newHash -> guestRepository.updatePasswordHash(guest.getId(), guest.getPasswordHash(), newHash));
                 String token = jwtUtil.generateToken(guest.getEmail(), "guest", guest.getId(), null);
                 return AuthResponse.builder()
                         .token(token)
@@ -79,7 +57,10 @@ public class AuthService {
         Optional<Administrator> adminOpt = administratorRepository.findByEmail(request.getEmail());
         if (adminOpt.isPresent()) {
             Administrator admin = adminOpt.get();
-            if (passwordEncoder.matches(request.getPassword(), admin.getPasswordHash())) {
+            if (passwordHashingService.matches(request.getPassword(), admin.getPasswordHash())) {
+                passwordHashingService.upgradeIfNeeded(request.getPassword(), admin.getPasswordHash(),
+                        newHash -> administratorRepository.updatePasswordHash(admin.getId(), admin.getPasswordHash(),
+                                newHash));
                 String token = jwtUtil.generateToken(admin.getUsername(), admin.getRole(), admin.getId(),
                         admin.getHotelId());
 
@@ -108,8 +89,10 @@ public class AuthService {
             throw new RuntimeException("Email already registered");
         }
 
-        guest.setPasswordHash(passwordEncoder.encode(password));
+        guest.setPasswordHash(passwordHashingService.encode(password));
         Guest saved = guestRepository.save(guest);
+        // Bookings on any shard reference the guest
+        shardRouter.replicate("guests", saved.getId());
 
         String token = jwtUtil.generateToken(saved.getEmail(), "guest", saved.getId(), null);
 
@@ -1,27 +1,45 @@
 package com.hotelbooking.service;
 
+import com.hotelbooking.config.ShardContext;
 import com.hotelbooking.dto.CreateBookingRequest;
 import com.hotelbooking.model.*;
 import com.hotelbooking.repository.*;
 import com.hotelbooking.security.CustomUserDetails;
+import com.hotelbooking.security.QuoteTokenUtil;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class BookingService {
 
     private static final Logger log = LoggerFactory.getLogger(BookingService.class);
 
+    // Statuses that no longer hold inventory
+    private static final Set<String> RELEASED_STATUSES = Set.of("cancelled", "no_show");
+
     @Autowired
     private BookingRepository bookingRepository;
 
@@ -43,10 +61,73 @@ public class BookingService {
     @Autowired
     private HotelRepository hotelRepository;
 
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private HoldExpiryService holdExpiryService;
+
+    @Autowired
+    private PriceCalendarService priceCalendarService;
+
+    @Autowired
+    private QuoteTokenUtil quoteTokenUtil;
+
+    @Autowired
+    private RoomAllocator roomAllocator;
+
+    @Autowired
+    private ActivityStreamService activityStreamService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Value("${booking.detail-fetch-threads:8}")
+    private int detailFetchThreads;
+
+    // Runs the independent detail-view queries; callers run them inline when it is saturated
+    private ThreadPoolExecutor detailExecutor;
+
+    // detailExecutor with the caller's shard carried over to the worker threads
+    private Executor detailShardExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        detailExecutor = new ThreadPoolExecutor(detailFetchThreads, detailFetchThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(detailFetchThreads * 4),
+                r -> {
+                    Thread thread = new Thread(r, "booking-detail-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        detailShardExecutor = ShardContext.propagating(detailExecutor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        detailExecutor.shutdown();
+    }
+
     public List<Map<String, Object>> getAllBookings(String status, String hotelId) {
+        if (hotelId != null && !hotelId.isEmpty()) {
+            return findAllBookings(status, hotelId);
+        }
+        // Every hotel: the newest 50 of each shard, merged
+        return newestFirst(shardRouter.gatherAll(() -> findAllBookings(status, null)), 50);
+    }
+
+    private List<Map<String, Object>> findAllBookings(String status, String hotelId) {
         try {
             StringBuilder sql = new StringBuilder("""
                         SELECT b.id, b.check_in_date, b.check_out_date, b.status,
@@ -92,7 +173,12 @@ public class BookingService {
         }
     }
 
+    /** A guest can book hotels on any shard, so this reads them all. */
     public List<Map<String, Object>> getBookingsByGuest(String guestId, String status) {
+        return newestFirst(shardRouter.gatherAll(() -> findBookingsByGuest(guestId, status)), null);
+    }
+
+    private List<Map<String, Object>> findBookingsByGuest(String guestId, String status) {
         try {
             StringBuilder sql = new StringBuilder("""
                         SELECT b.id, b.check_in_date, b.check_out_date, b.status,
@@ -134,73 +220,73 @@ public class BookingService {
         }
     }
 
+    /**
+     * Booking detail view. Header, rooms and payments are independent lookups by
+     * booking id, so they run concurrently on separate connections instead of as
+     * one GROUP BY over six tables followed by a payments query.
+     */
     public Optional<Map<String, Object>> getBookingById(String id) {
         try {
-            String sql = """
-                        SELECT b.id, b.check_in_date, b.check_out_date, b.status,
-                               b.total_amount, b.discount_amount, b.final_amount,
-                               b.number_of_guests, b.special_requests, b.booking_date, b.created_at,
-                               h.name AS hotel_name, h.city, h.address, h.state, h.country, h.phone AS hotel_phone,
-                               g.first_name, g.last_name, g.email AS guest_email, g.phone AS guest_phone,
-                               COUNT(br.id) AS rooms_count,
-                               GROUP_CONCAT(DISTINCT r.room_number) AS room_numbers,
-                               GROUP_CONCAT(DISTINCT rt.name) AS room_types,
-                               SUM(br.total_price) AS rooms_total
-                        FROM bookings b
-                        JOIN hotels h ON b.hotel_id = h.id
-                        JOIN guests g ON b.guest_id = g.id
-                        LEFT JOIN booking_rooms br ON b.id = br.booking_id
-                        LEFT JOIN rooms r ON br.room_id = r.id
-                        LEFT JOIN room_types rt ON r.room_type_id = rt.id
-                        WHERE b.id = :id
-                        GROUP BY b.id
-                    """;
-
-            Query query = entityManager.createNativeQuery(sql);
-            query.setParameter("id", id);
+            CompletableFuture<List<Map<String, Object>>> headerFuture = CompletableFuture.supplyAsync(
+                    () -> jdbcTemplate.queryForList("""
+                                SELECT b.id, b.check_in_date, b.check_out_date, b.status,
+                                       b.total_amount, b.discount_amount, b.final_amount,
+                                       b.number_of_guests, b.special_requests, b.booking_date, b.created_at,
+                                       h.name AS hotel_name, h.city, h.address, h.state, h.country,
+                                       h.phone AS hotel_phone,
+                                       g.first_name, g.last_name, g.email AS guest_email, g.phone AS guest_phone
+                                FROM bookings b
+                                JOIN hotels h ON b.hotel_id = h.id
+                                JOIN guests g ON b.guest_id = g.id
+                                WHERE b.id = ?
+                            """, id),
+                    detailShardExecutor);
+
+            CompletableFuture<List<Map<String, Object>>> roomsFuture = CompletableFuture.supplyAsync(
+                    () -> jdbcTemplate.queryForList("""
+                                SELECT r.room_number, rt.name AS room_type, br.total_price
+                                FROM booking_rooms br
+                                LEFT JOIN rooms r ON br.room_id = r.id
+                                LEFT JOIN room_types rt ON rt.id = COALESCE(br.room_type_id, r.room_type_id)
+                                WHERE br.booking_id = ?
+                            """, id),
+                    detailShardExecutor);
+
+            CompletableFuture<List<Map<String, Object>>> paymentsFuture = CompletableFuture.supplyAsync(
+                    () -> jdbcTemplate.queryForList("""
+                                SELECT id, booking_id, amount, payment_method, transaction_id, status,
+                                       gateway_name, payment_date
+                                FROM payments
+                                WHERE booking_id = ?
+                                ORDER BY payment_date DESC
+                            """, id),
+                    detailShardExecutor);
+
+            List<Map<String, Object>> header = headerFuture.join();
+            if (header.isEmpty()) {
+                return Optional.empty();
+            }
 
-            @SuppressWarnings("unchecked")
-            List<Object[]> results = query.getResultList();
+            Map<String, Object> booking = new HashMap<>(header.get(0));
 
-            if (results.isEmpty()) {
-                return Optional.empty();
+            Set<String> roomNumbers = new TreeSet<>();
+            Set<String> roomTypes = new TreeSet<>();
+            BigDecimal roomsTotal = null;
+            List<Map<String, Object>> rooms = roomsFuture.join();
+            for (Map<String, Object> room : rooms) {
+                if (room.get("room_number") != null) {
+                    roomNumbers.add((String) room.get("room_number"));
+                }
+                if (room.get("room_type") != null) {
+                    roomTypes.add((String) room.get("room_type"));
+                }
+                if (room.get("total_price") instanceof BigDecimal price) {
+                    roomsTotal = roomsTotal == null ? price : roomsTotal.add(price);
+                }
             }
+            putRoomSummary(booking, rooms.size(), roomNumbers, roomTypes, roomsTotal);
 
-            Object[] row = results.get(0);
-            Map<String, Object> booking = new HashMap<>();
-            booking.put("id", row[0]);
-            booking.put("check_in_date", row[1]);
-            booking.put("check_out_date", row[2]);
-            booking.put("status", row[3]);
-            booking.put("total_amount", row[4]);
-            booking.put("discount_amount", row[5]);
-            booking.put("final_amount", row[6]);
-            booking.put("number_of_guests", row[7]);
-            booking.put("special_requests", row[8]);
-            booking.put("booking_date", row[9]);
-            booking.put("created_at", row[10]);
-            booking.put("hotel_name", row[11]);
-            booking.put("city", row[12]);
-            booking.put("address", row[13]);
-            booking.put("state", row[14]);
-            booking.put("country", row[15]);
-            booking.put("hotel_phone", row[16]);
-            booking.put("first_name", row[17]);
-            booking.put("last_name", row[18]);
-            booking.put("guest_email", row[19]);
-            booking.put("guest_phone", row[20]);
-            booking.put("rooms_count", row[21]);
-            booking.put("room_numbers", row[22]);
-            booking.put("room_types", row[23]);
-            booking.put("rooms_total", row[24]);
-
-            // Get payments
-            String paymentSql = "SELECT * FROM payments WHERE booking_id = :bookingId ORDER BY payment_date DESC";
-            Query paymentQuery = entityManager.createNativeQuery(paymentSql, Payment.class);
-            paymentQuery.setParameter("bookingId", id);
-            @SuppressWarnings("unchecked")
-            List<Payment> payments = paymentQuery.getResultList();
-            booking.put("payments", payments);
+            booking.put("payments", paymentsFuture.join());
 
             return Optional.of(booking);
         } catch (Exception e) {
@@ -209,6 +295,22 @@ public class BookingService {
         }
     }
 
+    // Same shape as the former GROUP_CONCAT(DISTINCT ...) columns
+    private void putRoomSummary(Map<String, Object> booking, long roomsCount, Set<String> roomNumbers,
+            Set<String> roomTypes, Object roomsTotal) {
+        booking.put("rooms_count", roomsCount);
+        booking.put("room_numbers", roomNumbers.isEmpty() ? null : String.join(",", roomNumbers));
+        booking.put("room_types", roomTypes.isEmpty() ? null : String.join(",", roomTypes));
+        booking.put("rooms_total", roomsTotal);
+    }
+
+    /** Merges per-shard results into one list ordered like a single query's ORDER BY created_at DESC. */
+    private static List<Map<String, Object>> newestFirst(List<Map<String, Object>> bookings, Integer limit) {
+        bookings.sort(Comparator.comparing((Map<String, Object> b) -> String.valueOf(b.get("created_at")))
+                .reversed());
+        return limit != null && bookings.size() > limit ? new ArrayList<>(bookings.subList(0, limit)) : bookings;
+    }
+
     private List<Map<String, Object>> mapBookingResults(List<Object[]> results, boolean includeGuest) {
         List<Map<String, Object>> bookings = new ArrayList<>();
         for (Object[] row : results) {
@@ -237,66 +339,119 @@ public class BookingService {
         return bookings;
     }
 
-    @Transactional
-    public Map<String, Object> createBooking(CreateBookingRequest request) {
-        // 1. Validate dates
-        if (!request.getCheck_out_date().isAfter(request.getCheck_in_date())) {
-            throw new RuntimeException("Check-out must be after check-in");
-        }
-
+    /**
+     * Prices a stay exactly as createBooking would and checks it is still
+     * available, without writing anything. The returned quote_token lets
+     * createBooking book the same rooms at these prices until it expires.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> quoteBooking(CreateBookingRequest request) {
+        validateDates(request);
         long nights = ChronoUnit.DAYS.between(request.getCheck_in_date(), request.getCheck_out_date());
 
-        // 2. Resolve Rooms
-        List<String> resolvedRoomIds = new ArrayList<>();
+        List<ResolvedItem> items = resolveItems(request);
 
-        for (String id : request.getRoom_ids()) {
-            boolean isRoomType = roomTypeRepository.existsById(id);
+        // Same sell-out rule as inventoryService.reserve, read from the ledger instead of decremented
+        Map<String, Integer> neededByType = new HashMap<>();
+        for (ResolvedItem item : items) {
+            neededByType.merge(item.roomType().getId(), 1, Integer::sum);
+        }
+        neededByType.forEach((roomTypeId, needed) -> {
+            if (inventoryService.minRemaining(roomTypeId, request.getCheck_in_date(), request.getCheck_out_date()) < needed) {
+                throw new RuntimeException("No available rooms for the selected room type and dates");
+            }
+        });
 
-            if (isRoomType) {
-                Room availableRoom = roomRepository.findAvailableRoom(
-                        id, request.getHotel_id(), request.getCheck_in_date(), request.getCheck_out_date());
+        double totalAmount = 0.0;
+        List<Map<String, Object>> rooms = new ArrayList<>();
+        List<Double> prices = new ArrayList<>();
+        List<String> tariffIds = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            ResolvedItem item = items.get(i);
+            Price price = priceFor(item.roomType(), request.getCheck_in_date());
+            double roomTotal = price.perNight() * nights;
+            totalAmount += roomTotal;
+            prices.add(price.perNight());
+            tariffIds.add(price.tariffId());
 
-                if (availableRoom == null) {
-                    throw new RuntimeException("No available rooms for the selected room type and dates");
-                }
-                resolvedRoomIds.add(availableRoom.getId());
-            } else {
-                resolvedRoomIds.add(id);
+            List<Map<String, Object>> breakdown = new ArrayList<>();
+            for (LocalDate night : request.getCheck_in_date().datesUntil(request.getCheck_out_date()).toList()) {
+                breakdown.add(Map.of("date", night.toString(), "price", price.perNight()));
             }
-        }
 
-        // 3. Conflict Check
-        for (String roomId : resolvedRoomIds) {
-            Long conflicts = bookingRoomRepository.countConflictingBookings(
-                    roomId, request.getCheck_in_date(), request.getCheck_out_date());
-            if (conflicts > 0) {
-                throw new RuntimeException("Room " + roomId + " is not available for selected dates");
-            }
+            Map<String, Object> room = new HashMap<>();
+            room.put("requested_id", request.getRoom_ids().get(i));
+            room.put("room_number", item.room() != null ? item.room().getRoomNumber() : null);
+            room.put("room_type_id", item.roomType().getId());
+            room.put("room_type", item.roomType().getName());
+            room.put("price_per_night", price.perNight());
+            room.put("number_of_nights", nights);
+            room.put("total_price", roomTotal);
+            room.put("nights", breakdown);
+            rooms.add(room);
         }
 
-        // 4. Calculate Price
+        Date expiresAt = new Date(System.currentTimeMillis() + quoteTokenUtil.getTtlSeconds() * 1000);
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("hotel_id", request.getHotel_id());
+        claims.put("check_in", request.getCheck_in_date().toString());
+        claims.put("check_out", request.getCheck_out_date().toString());
+        claims.put("room_ids", request.getRoom_ids());
+        claims.put("prices", prices);
+        claims.put("tariff_ids", tariffIds);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("hotel_id", request.getHotel_id());
+        result.put("check_in_date", request.getCheck_in_date());
+        result.put("check_out_date", request.getCheck_out_date());
+        result.put("number_of_nights", nights);
+        result.put("rooms", rooms);
+        result.put("total_amount", totalAmount);
+        result.put("quote_token", quoteTokenUtil.sign(claims, expiresAt));
+        result.put("expires_at", expiresAt.toInstant().toString());
+        return result;
+    }
+
+    @Transactional
+    public Map<String, Object> createBooking(CreateBookingRequest request) {
+        // 1. Validate dates
+        validateDates(request);
+
+        long nights = ChronoUnit.DAYS.between(request.getCheck_in_date(), request.getCheck_out_date());
+
+        // 2-3. Resolve requested items and check direct rooms for conflicts
+        List<ResolvedItem> items = resolveItems(request);
+
+        // A redeemed quote fixes the prices; otherwise price from the tariffs as of now
+        List<Price> prices = request.getQuote_token() != null
+                ? redeemQuote(request)
+                : items.stream().map(item -> priceFor(item.roomType(), request.getCheck_in_date())).toList();
+
+        // 4. Reserve type-level inventory and calculate price
         double totalAmount = 0.0;
         List<BookingRoom> bookingRooms = new ArrayList<>();
 
-        for (String roomId : resolvedRoomIds) {
-            Room room = roomRepository.findById(roomId).orElseThrow(() -> new RuntimeException("Room not found"));
-            RoomType rt = room.getRoomType();
+        for (int i = 0; i < items.size(); i++) {
+            Room room = items.get(i).room();
+            RoomType rt = items.get(i).roomType();
 
-            Optional<Tariff> tariff = tariffRepository.findByRoomTypeIdAndDate(rt.getId(), request.getCheck_in_date());
+            // Direct room bookings also consume the type's inventory
+            inventoryService.reserve(rt.getId(), request.getCheck_in_date(), request.getCheck_out_date());
 
-            double pricePerNight = tariff.map(Tariff::getPrice)
-                    .orElse(rt.getBasePrice() != null ? rt.getBasePrice() : 0.0);
+            Price price = prices.get(i);
+            double pricePerNight = price.perNight();
             double roomTotal = pricePerNight * nights;
             totalAmount += roomTotal;
 
             BookingRoom br = new BookingRoom();
             br.setRoom(room);
+            br.setRoomType(rt);
             br.setCheckInDate(request.getCheck_in_date());
             br.setCheckOutDate(request.getCheck_out_date());
             br.setPricePerNight(pricePerNight);
             br.setNumberOfNights((int) nights);
             br.setTotalPrice(roomTotal);
-            tariff.ifPresent(t -> br.setTariffId(t.getId()));
+            br.setTariffId(price.tariffId());
 
             bookingRooms.add(br);
         }
@@ -315,6 +470,8 @@ public class BookingService {
         booking.setStatus("pending_payment");
 
         Booking savedBooking = bookingRepository.save(booking);
+        holdExpiryService.register(savedBooking.getId());
+        priceCalendarService.invalidate(request.getHotel_id());
 
         // Save BookingRooms
         for (BookingRoom br : bookingRooms) {
@@ -322,18 +479,171 @@ public class BookingService {
             bookingRoomRepository.save(br);
         }
 
-        // Return the booking in the expected format
-        return getBookingById(savedBooking.getId()).orElse(Map.of("id", savedBooking.getId()));
+        // Same shape as getBookingById, built from what we just wrote instead of reading it back
+        Hotel hotel = savedBooking.getHotel();
+        Guest guest = savedBooking.getGuest();
+
+        Map<String, Object> activity = new HashMap<>();
+        activity.put("id", savedBooking.getId());
+        activity.put("user_name", guest.getFirstName() + " " + guest.getLastName());
+        activity.put("hotel_name", hotel.getName());
+        activity.put("status", savedBooking.getStatus());
+        activity.put("amount", totalAmount);
+        activityStreamService.publish("booking", hotel.getId(), activity);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("id", savedBooking.getId());
+        result.put("check_in_date", savedBooking.getCheckInDate());
+        result.put("check_out_date", savedBooking.getCheckOutDate());
+        result.put("status", savedBooking.getStatus());
+        result.put("total_amount", savedBooking.getTotalAmount());
+        result.put("discount_amount", savedBooking.getDiscountAmount());
+        result.put("final_amount", savedBooking.getFinalAmount());
+        result.put("number_of_guests", null); // not mapped on Booking, so not stored
+        result.put("special_requests", null);
+        result.put("booking_date", now);
+        result.put("created_at", now);
+        result.put("hotel_name", hotel.getName());
+        result.put("city", hotel.getCity());
+        result.put("address", hotel.getAddress());
+        result.put("state", hotel.getState());
+        result.put("country", hotel.getCountry());
+        result.put("hotel_phone", hotel.getPhone());
+        result.put("first_name", guest.getFirstName());
+        result.put("last_name", guest.getLastName());
+        result.put("guest_email", guest.getEmail());
+        result.put("guest_phone", guest.getPhone());
+
+        Set<String> roomNumbers = new TreeSet<>();
+        Set<String> roomTypes = new TreeSet<>();
+        for (BookingRoom br : bookingRooms) {
+            if (br.getRoom() != null) {
+                roomNumbers.add(br.getRoom().getRoomNumber());
+            }
+            roomTypes.add(br.getRoomType().getName());
+        }
+        putRoomSummary(result, bookingRooms.size(), roomNumbers, roomTypes, totalAmount);
+        result.put("payments", new ArrayList<>());
+
+        return result;
+    }
+
+    // A requested item: the concrete room (null when a room type was requested) and its type
+    private record ResolvedItem(Room room, RoomType roomType) {
+    }
+
+    private record Price(double perNight, String tariffId) {
+    }
+
+    private void validateDates(CreateBookingRequest request) {
+        if (!request.getCheck_out_date().isAfter(request.getCheck_in_date())) {
+            throw new RuntimeException("Check-out must be after check-in");
+        }
+    }
+
+    /**
+     * Resolves requested ids in request order - room type ids are sold from the
+     * type ledger and get a concrete room at check-in, room ids are booked
+     * directly and must be free for the dates.
+     */
+    private List<ResolvedItem> resolveItems(CreateBookingRequest request) {
+        Map<String, RoomType> requestedTypes = new HashMap<>();
+        for (RoomType rt : roomTypeRepository.findAllById(request.getRoom_ids())) {
+            requestedTypes.put(rt.getId(), rt);
+        }
+
+        List<String> directRoomIds = new ArrayList<>();
+        for (String id : request.getRoom_ids()) {
+            if (!requestedTypes.containsKey(id)) {
+                directRoomIds.add(id);
+            }
+        }
+
+        // Conflict Check
+        for (String roomId : directRoomIds) {
+            Long conflicts = bookingRoomRepository.countConflictingBookings(
+                    roomId, request.getCheck_in_date(), request.getCheck_out_date());
+            if (conflicts > 0) {
+                throw new RuntimeException("Room " + roomId + " is not available for selected dates");
+            }
+        }
+
+        // Rooms and their types in one query instead of a lookup per room
+        Map<String, Room> roomsById = new HashMap<>();
+        for (Room room : roomRepository.findWithRoomTypeByIdIn(directRoomIds)) {
+            roomsById.put(room.getId(), room);
+        }
+
+        List<ResolvedItem> items = new ArrayList<>();
+        for (String id : request.getRoom_ids()) {
+            RoomType rt = requestedTypes.get(id);
+            if (rt != null) {
+                items.add(new ResolvedItem(null, rt));
+                continue;
+            }
+            Room room = roomsById.get(id);
+            if (room == null) {
+                throw new RuntimeException("Room not found");
+            }
+            items.add(new ResolvedItem(room, room.getRoomType()));
+        }
+        return items;
+    }
+
+    // The check-in night's tariff applies to the whole stay, else the type's base price
+    private Price priceFor(RoomType rt, LocalDate checkIn) {
+        Optional<Tariff> tariff = tariffRepository.findByRoomTypeIdAndDate(rt.getId(), checkIn);
+        return new Price(tariff.map(Tariff::getPrice).orElse(rt.getBasePrice() != null ? rt.getBasePrice() : 0.0),
+                tariff.map(Tariff::getId).orElse(null));
+    }
+
+    private List<Price> redeemQuote(CreateBookingRequest request) {
+        Claims quote = quoteTokenUtil.verify(request.getQuote_token());
+        if (!Objects.equals(quote.get("hotel_id"), request.getHotel_id())
+                || !request.getCheck_in_date().toString().equals(quote.get("check_in"))
+                || !request.getCheck_out_date().toString().equals(quote.get("check_out"))
+                || !request.getRoom_ids().equals(quote.get("room_ids"))) {
+            throw new RuntimeException("Quote does not match the booking request");
+        }
+
+        List<?> prices = quote.get("prices", List.class);
+        List<?> tariffIds = quote.get("tariff_ids", List.class);
+        List<Price> result = new ArrayList<>();
+        for (int i = 0; i < prices.size(); i++) {
+            result.add(new Price(((Number) prices.get(i)).doubleValue(), (String) tariffIds.get(i)));
+        }
+        return result;
     }
 
     @Transactional
     public void updateBookingStatus(String id, String status, String notes, String changedBy) {
-        Booking booking = bookingRepository.findById(id).orElseThrow(() -> new RuntimeException("Booking not found"));
+        Booking booking = bookingRepository.findForStatusUpdateById(id)
+                .orElseThrow(() -> new RuntimeException("Booking not found"));
 
         String oldStatus = booking.getStatus();
         booking.setStatus(status);
         bookingRepository.save(booking);
 
+        Map<String, Object> activity = new HashMap<>();
+        activity.put("id", id);
+        activity.put("user_name", booking.getGuest().getFirstName() + " " + booking.getGuest().getLastName());
+        activity.put("hotel_name", booking.getHotel().getName());
+        activity.put("old_status", oldStatus);
+        activity.put("status", status);
+        activityStreamService.publish("booking_status", booking.getHotel().getId(), activity);
+
+        // Keep the room-type ledger in step with bookings entering or leaving the released states
+        boolean wasReleased = RELEASED_STATUSES.contains(oldStatus);
+        boolean isReleased = RELEASED_STATUSES.contains(status);
+        if (!wasReleased && isReleased) {
+            inventoryService.releaseBooking(id);
+            priceCalendarService.invalidate(booking.getHotel().getId());
+        } else if (wasReleased && !isReleased) {
+            inventoryService.reserveBooking(id);
+            priceCalendarService.invalidate(booking.getHotel().getId());
+        }
+
         // Log status change
         if (changedBy != null) {
             String logSql = """
@@ -341,7 +651,7 @@ public class BookingService {
                         VALUES (:id, :bookingId, :oldStatus, :newStatus, :changedBy, :notes)
                     """;
             Query logQuery = entityManager.createNativeQuery(logSql);
-            logQuery.setParameter("id", UUID.randomUUID().toString());
+            logQuery.setParameter("id", UuidV7.next());
             logQuery.setParameter("bookingId", id);
             logQuery.setParameter("oldStatus", oldStatus);
             logQuery.setParameter("newStatus", status);
@@ -352,6 +662,8 @@ public class BookingService {
 
         // Update room statuses
         if ("checked_in".equals(status)) {
+            assignDeferredRooms(booking);
+
             String updateSql = """
                         UPDATE rooms r
                         INNER JOIN booking_rooms br ON r.id = br.room_id
@@ -362,16 +674,58 @@ public class BookingService {
             updateQuery.setParameter("bookingId", id);
             updateQuery.executeUpdate();
         } else if ("checked_out".equals(status)) {
+            // The next guest may already be in a room given out on its departure day
             String updateSql = """
                         UPDATE rooms r
                         INNER JOIN booking_rooms br ON r.id = br.room_id
                         SET r.status = 'available'
                         WHERE br.booking_id = :bookingId
+                        AND NOT EXISTS (
+                            SELECT 1 FROM booking_rooms other
+                            JOIN bookings ob ON other.booking_id = ob.id
+                            WHERE other.room_id = r.id AND ob.status = 'checked_in' AND ob.id != :bookingId
+                        )
                     """;
             Query updateQuery = entityManager.createNativeQuery(updateSql);
             updateQuery.setParameter("bookingId", id);
             updateQuery.executeUpdate();
         }
+
+        // Room status feeds the public room-type listing
+        if ("checked_in".equals(status) || "checked_out".equals(status)) {
+            catalogVersionService.bump(booking.getHotel().getId());
+        }
+    }
+
+    /**
+     * Picks a concrete room for every booking room that was sold by type.
+     * Only assigned rooms block the per-room availability checks, so
+     * RoomAllocator sees exactly the rooms still free, including the ones
+     * assigned earlier in this loop.
+     */
+    private void assignDeferredRooms(Booking booking) {
+        Query pending = entityManager.createNativeQuery("""
+                    SELECT id, room_type_id, check_in_date, check_out_date
+                    FROM booking_rooms
+                    WHERE booking_id = :bookingId AND room_id IS NULL
+                """);
+        pending.setParameter("bookingId", booking.getId());
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = pending.getResultList();
+        for (Object[] row : rows) {
+            Room room = roomAllocator.allocate((String) row[1], booking.getHotel().getId(),
+                    ((java.sql.Date) row[2]).toLocalDate(), ((java.sql.Date) row[3]).toLocalDate());
+            if (room == null) {
+                throw new RuntimeException("No free room of the booked type is available for check-in");
+            }
+
+            Query assign = entityManager.createNativeQuery(
+                    "UPDATE booking_rooms SET room_id = :roomId WHERE id = :id");
+            assign.setParameter("roomId", room.getId());
+            assign.setParameter("id", row[0]);
+            assign.executeUpdate();
+        }
     }
 
     @Transactional
@@ -387,12 +741,16 @@ public class BookingService {
                         cancelled_at = NOW(),
                         cancelled_by = :cancelledBy,
                         cancellation_reason = :reason
-                    WHERE id = :id
+                    WHERE id = :id AND status NOT IN ('cancelled', 'no_show')
                 """;
         Query query = entityManager.createNativeQuery(sql);
         query.setParameter("id", id);
         query.setParameter("cancelledBy", cancelledBy);
         query.setParameter("reason", finalReason);
-        query.executeUpdate();
+        if (query.executeUpdate() > 0) {
+            inventoryService.releaseBooking(id);
+            priceCalendarService.invalidateForBookings(List.of(id));
+            activityStreamService.publishStatusChanges(List.of(id), "cancelled");
+        }
     }
 }
@@ -0,0 +1,112 @@
+package com.hotelbooking.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Tracks a content version per hotel for the public catalog endpoints.
+ * Any write to a hotel's rooms, room types, tariffs or reviews bumps that
+ * hotel's version (and the global one used by the hotel listing), so
+ * conditional GETs can be answered from the version alone.
+ *
+ * Versions are rows in catalog_versions, bumped in the same transaction as
+ * the write, so every node sees a change as soon as it commits. With
+ * sharding a hotel's row lives on its shard and the listing version is the
+ * sum of the global rows of all shards.
+ */
+@Service
+public class CatalogVersionService {
+
+    // catalog_versions.scope of the hotel listing
+    private static final String GLOBAL = "*";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    /**
+     * Marks the hotel's catalog as changed. Inside a transaction the bump is
+     * written just before commit, once per hotel, in key order so concurrent
+     * writers cannot deadlock on the version rows.
+     */
+    @SuppressWarnings("unchecked")
+    public void bump(String hotelId) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            new TransactionTemplate(transactionManager).executeWithoutResult(
+                    status -> increment(hotelId != null ? Set.of(hotelId) : Set.of()));
+            return;
+        }
+        Set<String> pending = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<String> scopes = new TreeSet<>();
+            TransactionSynchronizationManager.bindResource(this, scopes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    increment(scopes);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(CatalogVersionService.this);
+                }
+            });
+            pending = scopes;
+        }
+        if (hotelId != null) {
+            pending.add(hotelId);
+        }
+    }
+
+    /** Strong ETag for the hotel listing - changes whenever any hotel changes. */
+    public String listingETag() {
+        long version = shardRouter.gather(() -> version(GLOBAL)).stream().mapToLong(Long::longValue).sum();
+        return "\"" + version + "\"";
+    }
+
+    /** Strong ETag for everything published under one hotel. Runs on the hotel's shard. */
+    public String hotelETag(String hotelId) {
+        return "\"" + hotelId + "-" + hotelVersion(hotelId) + "\"";
+    }
+
+    /** Current content version of one hotel, for caches keyed on it. Runs on the hotel's shard. */
+    public long hotelVersion(String hotelId) {
+        return version(hotelId);
+    }
+
+    private long version(String scope) {
+        List<Long> found = jdbcTemplate.queryForList(
+                "SELECT version FROM catalog_versions WHERE scope = ?", Long.class, scope);
+        return found.isEmpty() ? 0L : found.get(0);
+    }
+
+    private void increment(Collection<String> hotelIds) {
+        // Hotel rows in key order, the global row always last
+        for (String hotelId : hotelIds) {
+            upsert(hotelId);
+        }
+        upsert(GLOBAL);
+    }
+
+    private void upsert(String scope) {
+        jdbcTemplate.update("""
+                    INSERT INTO catalog_versions (scope, version) VALUES (?, 1)
+                    ON DUPLICATE KEY UPDATE version = version + 1
+                """, scope);
+    }
+}
@@ -5,8 +5,10 @@ import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.util.*;
 
 @Service
@@ -17,25 +19,28 @@ public class DashboardService {
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
     public Map<String, Object> getDashboardStats(String role, String hotelId) {
         Map<String, Object> stats = new HashMap<>();
 
         boolean isHotelAdmin = "hotel_admin".equals(role) && hotelId != null;
 
+        // Booking and revenue totals come from the daily rollups (days x hotels, not raw bookings)
+        Map<String, Object> totals = null;
         try {
-            // 1. Total Bookings
-            String bookingCountSql = "SELECT COUNT(*) FROM bookings"
-                    + (isHotelAdmin ? " WHERE hotel_id = :hotelId" : "");
-            Query bookingQuery = entityManager.createNativeQuery(bookingCountSql);
-            if (isHotelAdmin)
-                bookingQuery.setParameter("hotelId", hotelId);
-            Number bookingCount = (Number) bookingQuery.getSingleResult();
-            stats.put("total_bookings", bookingCount != null ? bookingCount.longValue() : 0L);
+            totals = rollupService.getTotals(isHotelAdmin ? hotelId : null);
         } catch (Exception e) {
-            log.error("Error getting booking count", e);
-            stats.put("total_bookings", 0L);
+            log.error("Error getting rollup totals", e);
         }
 
+        // 1. Total Bookings
+        stats.put("total_bookings", totals != null ? totals.get("bookings_created") : 0L);
+
         try {
             // 2. Total Hotels
             if ("super_admin".equals(role)) {
@@ -70,35 +75,48 @@ public class DashboardService {
             stats.put("total_users", 0L);
         }
 
-        try {
-            // 4. Revenue
-            String revenueSql = """
-                        SELECT COALESCE(SUM(final_amount), 0)
-                        FROM bookings
-                        WHERE status IN ('confirmed', 'checked_in', 'checked_out', 'completed')
-                    """;
-            if (isHotelAdmin) {
-                revenueSql += " AND hotel_id = :hotelId";
-            }
-            Query revenueQuery = entityManager.createNativeQuery(revenueSql);
-            if (isHotelAdmin)
-                revenueQuery.setParameter("hotelId", hotelId);
-            Number revenue = (Number) revenueQuery.getSingleResult();
-            stats.put("revenue", revenue != null ? revenue.doubleValue() : 0.0);
-        } catch (Exception e) {
-            log.error("Error getting revenue", e);
-            stats.put("revenue", 0.0);
-        }
+        // 4. Revenue
+        stats.put("revenue", totals != null ? totals.get("revenue") : 0.0);
+        stats.put("refunds", totals != null ? totals.get("refunds") : 0.0);
+        stats.put("cancellations", totals != null ? totals.get("cancellations") : 0L);
 
         return stats;
     }
 
+    public List<Map<String, Object>> getDailyStats(String role, String hotelId, LocalDate from, LocalDate to) {
+        boolean isHotelAdmin = "hotel_admin".equals(role) && hotelId != null;
+        return rollupService.getDailyStats(isHotelAdmin ? hotelId : null, from, to);
+    }
+
     public List<Map<String, Object>> getRecentActivity(String role, String hotelId) {
-        List<Map<String, Object>> activities = new ArrayList<>();
         int limit = 10;
 
         boolean isHotelAdmin = "hotel_admin".equals(role) && hotelId != null;
 
+        // Super admins see every hotel: the newest of each shard, merged below
+        List<Map<String, Object>> activities = isHotelAdmin
+                ? collectRecentActivity(hotelId, limit)
+                : shardRouter.gatherAll(() -> collectRecentActivity(null, limit));
+
+        // Sort by created_at
+        activities.sort((a, b) -> {
+            Object dateA = a.get("created_at");
+            Object dateB = b.get("created_at");
+            if (dateA == null)
+                return 1;
+            if (dateB == null)
+                return -1;
+            return dateB.toString().compareTo(dateA.toString());
+        });
+
+        // Return top N
+        return activities.stream().limit(limit).toList();
+    }
+
+    private List<Map<String, Object>> collectRecentActivity(String hotelId, int limit) {
+        List<Map<String, Object>> activities = new ArrayList<>();
+        boolean isHotelAdmin = hotelId != null;
+
         try {
             // 1. Recent Bookings
             String bookingSql = """
@@ -139,62 +157,44 @@ public class DashboardService {
         }
 
         try {
-            // 2. Recent Reviews - Check if reviews table has data first
-            String reviewCountSql = "SELECT COUNT(*) FROM reviews";
-            Query countQuery = entityManager.createNativeQuery(reviewCountSql);
-            Number reviewCount = (Number) countQuery.getSingleResult();
-
-            if (reviewCount != null && reviewCount.longValue() > 0) {
-                String reviewSql = """
-                            SELECT
-                                r.id, 'review' as type, r.created_at,
-                                CONCAT(g.first_name, ' ', g.last_name) as user_name,
-                                h.name as hotel_name,
-                                r.rating
-                            FROM reviews r
-                            JOIN guests g ON r.guest_id = g.id
-                            JOIN hotels h ON r.hotel_id = h.id
-                            WHERE 1=1
-                        """;
-                if (isHotelAdmin) {
-                    reviewSql += " AND r.hotel_id = :hotelId";
-                }
-                reviewSql += " ORDER BY r.created_at DESC LIMIT :limit";
-
-                Query reviewQuery = entityManager.createNativeQuery(reviewSql);
-                if (isHotelAdmin)
-                    reviewQuery.setParameter("hotelId", hotelId);
-                reviewQuery.setParameter("limit", limit);
-
-                @SuppressWarnings("unchecked")
-                List<Object[]> reviewResults = reviewQuery.getResultList();
-                for (Object[] row : reviewResults) {
-                    Map<String, Object> activity = new HashMap<>();
-                    activity.put("id", row[0]);
-                    activity.put("type", row[1]);
-                    activity.put("created_at", row[2]);
-                    activity.put("user_name", row[3]);
-                    activity.put("hotel_name", row[4]);
-                    activity.put("rating", row[5]);
-                    activities.add(activity);
-                }
+            // 2. Recent Reviews (an empty table just yields no rows, no COUNT(*) pre-check needed)
+            String reviewSql = """
+                        SELECT
+                            r.id, 'review' as type, r.created_at,
+                            CONCAT(g.first_name, ' ', g.last_name) as user_name,
+                            h.name as hotel_name,
+                            r.rating
+                        FROM reviews r
+                        JOIN guests g ON r.guest_id = g.id
+                        JOIN hotels h ON r.hotel_id = h.id
+                        WHERE 1=1
+                    """;
+            if (isHotelAdmin) {
+                reviewSql += " AND r.hotel_id = :hotelId";
+            }
+            reviewSql += " ORDER BY r.created_at DESC LIMIT :limit";
+
+            Query reviewQuery = entityManager.createNativeQuery(reviewSql);
+            if (isHotelAdmin)
+                reviewQuery.setParameter("hotelId", hotelId);
+            reviewQuery.setParameter("limit", limit);
+
+            @SuppressWarnings("unchecked")
+            List<Object[]> reviewResults = reviewQuery.getResultList();
+            for (Object[] row : reviewResults) {
+                Map<String, Object> activity = new HashMap<>();
+                activity.put("id", row[0]);
+                activity.put("type", row[1]);
+                activity.put("created_at", row[2]);
+                activity.put("user_name", row[3]);
+                activity.put("hotel_name", row[4]);
+                activity.put("rating", row[5]);
+                activities.add(activity);
             }
         } catch (Exception e) {
             log.error("Error getting recent reviews", e);
         }
 
-        // Sort by created_at
-        activities.sort((a, b) -> {
-            Object dateA = a.get("created_at");
-            Object dateB = b.get("created_at");
-            if (dateA == null)
-                return 1;
-            if (dateB == null)
-                return -1;
-            return dateB.toString().compareTo(dateA.toString());
-        });
-
-        // Return top N
-        return activities.stream().limit(limit).toList();
+        return activities;
     }
 }
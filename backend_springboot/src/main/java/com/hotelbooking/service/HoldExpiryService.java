@@ -0,0 +1,238 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.config.ShardContext;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expires pending_payment bookings whose payment hold has run out.
+ *
+ * Every pending booking has a deadline in an in-memory delay queue (rebuilt
+ * from the bookings table on startup). A single worker thread takes expired
+ * holds, batches them and cancels them with their inventory released. The
+ * cancel only applies to rows still pending_payment under a row lock, and
+ * createPayment confirms under the same lock, so a payment racing the expiry
+ * either wins completely or sees the cancellation.
+ */
+@Service
+public class HoldExpiryService {
+
+    private static final Logger log = LoggerFactory.getLogger(HoldExpiryService.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private PriceCalendarService priceCalendarService;
+
+    @Autowired
+    private ActivityStreamService activityStreamService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${booking.hold-minutes:15}")
+    private long holdMinutes;
+
+    @Value("${booking.hold-expiry-batch-size:100}")
+    private int batchSize;
+
+    private final DelayQueue<Hold> queue = new DelayQueue<>();
+
+    // Live hold per booking; a queued Hold no longer in this map was cancelled
+    private final Map<String, Hold> holds = new ConcurrentHashMap<>();
+
+    private Thread worker;
+
+    private static final class Hold implements Delayed {
+        final String bookingId;
+        final String shard;
+        final long deadlineMillis;
+
+        Hold(String bookingId, String shard, long deadlineMillis) {
+            this.bookingId = bookingId;
+            this.shard = shard;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(deadlineMillis, ((Hold) other).deadlineMillis);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            Map<String, List<Object[]>> pendingByShard = shardRouter.scatter(shard -> {
+                Query pending = entityManager.createNativeQuery(
+                        "SELECT id, created_at FROM bookings WHERE status = 'pending_payment'");
+                @SuppressWarnings("unchecked")
+                List<Object[]> rows = pending.getResultList();
+                return rows;
+            });
+            int tracked = 0;
+            for (Map.Entry<String, List<Object[]>> entry : pendingByShard.entrySet()) {
+                for (Object[] row : entry.getValue()) {
+                    Instant createdAt = row[1] instanceof Timestamp ts ? ts.toInstant() : Instant.now();
+                    long deadline = createdAt.plus(Duration.ofMinutes(holdMinutes)).toEpochMilli();
+                    track((String) row[0], entry.getKey(), deadline);
+                    tracked++;
+                }
+            }
+            log.info("Tracking {} pending payment holds", tracked);
+        } catch (Exception e) {
+            log.error("Error loading pending payment holds", e);
+        }
+
+        worker = new Thread(this::run, "hold-expiry");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /** Starts the hold clock for a new booking once its transaction commits. */
+    public void register(String bookingId) {
+        long deadline = System.currentTimeMillis() + Duration.ofMinutes(holdMinutes).toMillis();
+        // Called on the booking's shard; the expiry has to run there too
+        String shard = ShardContext.current() != null ? ShardContext.current() : shardRouter.defaultShard();
+        afterCommit(() -> track(bookingId, shard, deadline));
+    }
+
+    /** Stops the hold clock, e.g. after a successful payment. */
+    public void cancel(String bookingId) {
+        afterCommit(() -> holds.remove(bookingId));
+    }
+
+    private void track(String bookingId, String shard, long deadlineMillis) {
+        Hold hold = new Hold(bookingId, shard, deadlineMillis);
+        holds.put(bookingId, hold);
+        queue.add(hold);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                List<Hold> batch = new ArrayList<>();
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+
+                Map<String, List<String>> bookingIdsByShard = new HashMap<>();
+                for (Hold hold : batch) {
+                    // Skip holds that were cancelled or replaced since they were queued
+                    if (holds.remove(hold.bookingId, hold)) {
+                        bookingIdsByShard.computeIfAbsent(hold.shard, s -> new ArrayList<>()).add(hold.bookingId);
+                    }
+                }
+                bookingIdsByShard.forEach((shard, bookingIds) -> {
+                    try {
+                        ShardContext.run(shard, () -> expire(bookingIds));
+                    } catch (Exception e) {
+                        log.error("Error expiring payment holds, retrying in a minute", e);
+                        long retryAt = System.currentTimeMillis() + Duration.ofMinutes(1).toMillis();
+                        bookingIds.forEach(id -> holds.computeIfAbsent(id, k -> {
+                            Hold retry = new Hold(k, shard, retryAt);
+                            queue.add(retry);
+                            return retry;
+                        }));
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Error expiring payment holds", e);
+            }
+        }
+    }
+
+    private void expire(List<String> bookingIds) {
+        Integer expired = new TransactionTemplate(transactionManager).execute(status -> {
+            Query lock = entityManager.createNativeQuery("""
+                        SELECT id FROM bookings
+                        WHERE id IN (:ids) AND status = 'pending_payment'
+                        FOR UPDATE
+                    """);
+            lock.setParameter("ids", bookingIds);
+            @SuppressWarnings("unchecked")
+            List<String> stillPending = lock.getResultList();
+            if (stillPending.isEmpty()) {
+                return 0;
+            }
+
+            Query cancel = entityManager.createNativeQuery("""
+                        UPDATE bookings
+                        SET status = 'cancelled',
+                            cancelled_at = NOW(),
+                            cancellation_reason = 'Payment hold expired'
+                        WHERE id IN (:ids)
+                    """);
+            cancel.setParameter("ids", stillPending);
+            cancel.executeUpdate();
+
+            for (String bookingId : stillPending) {
+                inventoryService.releaseBooking(bookingId);
+            }
+            priceCalendarService.invalidateForBookings(stillPending);
+            activityStreamService.publishStatusChanges(stillPending, "cancelled");
+            return stillPending.size();
+        });
+        if (expired != null && expired > 0) {
+            log.info("Expired {} payment holds", expired);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.hotelbooking.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory spatial index over the active hotels that have coordinates.
+ *
+ * Hotels are bucketed into a fixed lat/lon grid (geo.cell-degrees per cell).
+ * A radius query only visits the cells overlapping the query's bounding box,
+ * checks the exact great-circle distance for the hotels in them and returns
+ * the matches nearest first, so it never touches the database.
+ *
+ * Each cell holds an immutable array that is replaced on write, so readers
+ * need no locking. The index is loaded on startup and kept current by
+ * HotelService on create, update and delete; hotels written by another node
+ * show up here after a restart.
+ */
+@Service
+public class HotelGeoIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(HotelGeoIndex.class);
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${geo.cell-degrees:0.5}")
+    private double cellDegrees;
+
+    public record Entry(String hotelId, double latitude, double longitude, Integer starRating) {
+    }
+
+    public record Match(String hotelId, double distanceKm) {
+    }
+
+    private final Map<Long, Entry[]> cells = new ConcurrentHashMap<>();
+
+    private final Map<String, Entry> byHotel = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            @SuppressWarnings("unchecked")
+            List<Object[]> rows = entityManager.createNativeQuery("""
+                        SELECT id, latitude, longitude, star_rating
+                        FROM hotels
+                        WHERE is_active = TRUE AND latitude IS NOT NULL AND longitude IS NOT NULL
+                    """).getResultList();
+            for (Object[] row : rows) {
+                put((String) row[0], ((Number) row[1]).doubleValue(), ((Number) row[2]).doubleValue(),
+                        row[3] != null ? ((Number) row[3]).intValue() : null);
+            }
+            log.info("Spatial index loaded with {} hotels", byHotel.size());
+        } catch (Exception e) {
+            log.error("Error loading hotel coordinates into the spatial index", e);
+        }
+    }
+
+    /** Adds or moves a hotel; null coordinates remove it from the index. */
+    public void put(String hotelId, Double latitude, Double longitude, Integer starRating) {
+        if (latitude == null || longitude == null) {
+            remove(hotelId);
+            return;
+        }
+        Entry entry = new Entry(hotelId, latitude, normalizeLongitude(longitude), starRating);
+        synchronized (this) {
+            Entry previous = byHotel.put(hotelId, entry);
+            if (previous != null) {
+                cells.computeIfPresent(cellOf(previous), (cell, entries) -> without(entries, hotelId));
+            }
+            cells.merge(cellOf(entry), new Entry[]{entry}, HotelGeoIndex::concat);
+        }
+    }
+
+    public void remove(String hotelId) {
+        synchronized (this) {
+            Entry previous = byHotel.remove(hotelId);
+            if (previous != null) {
+                cells.computeIfPresent(cellOf(previous), (cell, entries) -> without(entries, hotelId));
+            }
+        }
+    }
+
+    public int size() {
+        return byHotel.size();
+    }
+
+    /**
+     * Hotels within radiusKm of the point, nearest first. A non-null
+     * starRating keeps only hotels with exactly that rating, as the listing does.
+     */
+    public List<Match> within(double latitude, double longitude, double radiusKm, Integer starRating) {
+        longitude = normalizeLongitude(longitude);
+        int rows = (int) Math.ceil(180 / cellDegrees);
+        int cols = (int) Math.ceil(360 / cellDegrees);
+
+        double latSpan = radiusKm / KM_PER_DEGREE;
+        int rowFrom = Math.max(0, row(latitude - latSpan));
+        int rowTo = Math.min(rows - 1, row(latitude + latSpan));
+
+        // Widest longitude span is at the box edge nearest a pole; near the poles scan every column
+        double edgeLat = Math.min(90, Math.abs(latitude) + latSpan);
+        double cosEdge = Math.cos(Math.toRadians(edgeLat));
+        double lonSpan = cosEdge > 1e-6 ? latSpan / cosEdge : 360;
+        int colFrom;
+        int colCount;
+        if (lonSpan >= 180) {
+            colFrom = 0;
+            colCount = cols;
+        } else {
+            colFrom = col(longitude - lonSpan);
+            colCount = Math.min(cols, col(longitude + lonSpan) - colFrom + 1);
+        }
+
+        double lat1 = Math.toRadians(latitude);
+        double cosLat1 = Math.cos(lat1);
+        List<Match> matches = new ArrayList<>();
+        for (int r = rowFrom; r <= rowTo; r++) {
+            for (int i = 0; i < colCount; i++) {
+                Entry[] entries = cells.get(key(r, Math.floorMod(colFrom + i, cols)));
+                if (entries == null) {
+                    continue;
+                }
+                for (Entry entry : entries) {
+                    if (starRating != null && !starRating.equals(entry.starRating())) {
+                        continue;
+                    }
+                    double distance = haversineKm(lat1, cosLat1, longitude, entry.latitude(), entry.longitude());
+                    if (distance <= radiusKm) {
+                        matches.add(new Match(entry.hotelId(), distance));
+                    }
+                }
+            }
+        }
+        matches.sort(Comparator.comparingDouble(Match::distanceKm));
+        return matches;
+    }
+
+    private static double haversineKm(double lat1, double cosLat1, double lon1, double latitude2, double lon2) {
+        double lat2 = Math.toRadians(latitude2);
+        double sinDLat = Math.sin((lat2 - lat1) / 2);
+        double sinDLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+        double a = sinDLat * sinDLat + cosLat1 * Math.cos(lat2) * sinDLon * sinDLon;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private long cellOf(Entry entry) {
+        return key(row(entry.latitude()), col(entry.longitude()));
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor((Math.max(-90, Math.min(90 - 1e-9, latitude)) + 90) / cellDegrees);
+    }
+
+    // Not wrapped here; callers wrap with floorMod so a box can cross the antimeridian
+    private int col(double longitude) {
+        return (int) Math.floor((longitude + 180) / cellDegrees);
+    }
+
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    private static double normalizeLongitude(double longitude) {
+        return ((longitude + 180) % 360 + 360) % 360 - 180;
+    }
+
+    private static Entry[] concat(Entry[] existing, Entry[] added) {
+        Entry[] merged = Arrays.copyOf(existing, existing.length + added.length);
+        System.arraycopy(added, 0, merged, existing.length, added.length);
+        return merged;
+    }
+
+    // Returning null drops the cell from the map once it is empty
+    private static Entry[] without(Entry[] entries, String hotelId) {
+        Entry[] kept = Arrays.stream(entries)
+                .filter(entry -> !entry.hotelId().equals(hotelId))
+                .toArray(Entry[]::new);
+        return kept.length == 0 ? null : kept;
+    }
+}
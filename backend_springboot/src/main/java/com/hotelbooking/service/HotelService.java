@@ -14,7 +14,9 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 public class HotelService {
@@ -24,95 +26,282 @@ public class HotelService {
     @Autowired
     private HotelRepository hotelRepository;
 
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private HotelGeoIndex hotelGeoIndex;
+
+    @Autowired
+    private SingleFlightService singleFlightService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private InventoryService inventoryService;
+
     @PersistenceContext
     private EntityManager entityManager;
 
-    public Page<HotelDTO> getAllHotels(String city, Integer starRating, int page, int limit) {
-        try {
-            StringBuilder sql = new StringBuilder("""
-                        SELECT h.id, h.name, h.city, h.country, h.star_rating, h.address,
-                               h.description, h.phone, h.email, h.website, h.check_in_time,
-                               h.check_out_time, h.is_active,
-                               COUNT(DISTINCT r.id) AS total_rooms,
-                               MIN(t.price) AS starting_price,
-                               ROUND(AVG(rev.rating), 2) AS avg_rating,
-                               COUNT(DISTINCT rev.id) AS review_count
-                        FROM hotels h
-                        LEFT JOIN rooms r ON h.id = r.hotel_id AND r.is_active = TRUE
-                        LEFT JOIN room_types rt ON r.room_type_id = rt.id
-                        LEFT JOIN tariffs t ON rt.id = t.room_type_id AND CURDATE() BETWEEN t.start_date AND t.end_date
-                        LEFT JOIN reviews rev ON h.id = rev.hotel_id AND rev.is_approved = TRUE
-                        WHERE h.is_active = TRUE
-                    """);
+    private static final int AVAILABILITY_CHUNK = 1000;
+
+    // Listing columns shared by getAllHotels and searchNearby; mapped by toListingDTO
+    private static final String LISTING_SELECT = """
+                SELECT h.id, h.name, h.city, h.country, h.star_rating, h.address,
+                       h.description, h.phone, h.email, h.website, h.check_in_time,
+                       h.check_out_time, h.is_active,
+                       COUNT(DISTINCT r.id) AS total_rooms,
+                       MIN(t.price) AS starting_price,
+                       ROUND(AVG(rev.rating), 2) AS avg_rating,
+                       COUNT(DISTINCT rev.id) AS review_count,
+                       h.latitude, h.longitude
+                FROM hotels h
+                LEFT JOIN rooms r ON h.id = r.hotel_id AND r.is_active = TRUE
+                LEFT JOIN room_types rt ON r.room_type_id = rt.id
+                LEFT JOIN tariffs t ON rt.id = t.room_type_id AND CURDATE() BETWEEN t.start_date AND t.end_date
+                LEFT JOIN reviews rev ON h.id = rev.hotel_id AND rev.is_approved = TRUE
+                WHERE h.is_active = TRUE
+            """;
+
+    // Listing sort, also used to merge the per-shard pages; NULLs last like MySQL's DESC
+    private static final Comparator<HotelDTO> LISTING_ORDER = Comparator
+            .comparing(HotelDTO::getStarRating, Comparator.nullsLast(Comparator.<Integer>reverseOrder()))
+            .thenComparing(HotelDTO::getAvgRating, Comparator.nullsLast(Comparator.<Double>reverseOrder()));
+
+    private record ListingSlice(List<HotelDTO> hotels, long total) {
+    }
 
-            Map<String, Object> params = new HashMap<>();
+    /** Identical concurrent listing requests share one query (see SingleFlightService). */
+    public Page<HotelDTO> getAllHotels(String city, Integer starRating, int page, int limit) {
+        // The catalog version is part of the key so a reused page never outlives a hotel change
+        return singleFlightService.execute("hotel_listing", () -> loadHotels(city, starRating, page, limit),
+                city, starRating, page, limit, catalogVersionService.listingETag());
+    }
 
-            if (city != null && !city.isEmpty()) {
-                sql.append(" AND h.city = :city");
-                params.put("city", city);
+    private Page<HotelDTO> loadHotels(String city, Integer starRating, int page, int limit) {
+        try {
+            int offset = (page - 1) * limit;
+            if (!shardRouter.isEnabled()) {
+                ListingSlice slice = queryListing(city, starRating, null, limit, offset);
+                return new PageImpl<>(slice.hotels(), PageRequest.of(page - 1, limit), slice.total());
             }
 
-            if (starRating != null) {
-                sql.append(" AND h.star_rating = :starRating");
-                params.put("starRating", starRating);
+            // Every shard returns its own hotels' first offset + limit rows; the page is cut from the merge
+            List<ListingSlice> slices = new ArrayList<>(shardRouter.scatter(
+                    shard -> queryListing(city, starRating, shard, offset + limit, 0)).values());
+            List<HotelDTO> merged = new ArrayList<>();
+            long total = 0;
+            for (ListingSlice slice : slices) {
+                merged.addAll(slice.hotels());
+                total += slice.total();
             }
+            merged.sort(LISTING_ORDER);
+            List<HotelDTO> hotels = merged.subList(Math.min(offset, merged.size()),
+                    Math.min(offset + limit, merged.size()));
+            return new PageImpl<>(new ArrayList<>(hotels), PageRequest.of(page - 1, limit), total);
+        } catch (Exception e) {
+            log.error("Error getting hotels", e);
+            return new PageImpl<>(Collections.emptyList(), PageRequest.of(page - 1, limit), 0);
+        }
+    }
 
-            sql.append(" GROUP BY h.id ORDER BY h.star_rating DESC, avg_rating DESC");
+    /** One listing page; with a shard, only the hotels that shard owns. */
+    private ListingSlice queryListing(String city, Integer starRating, String shard, int limit, int offset) {
+        StringBuilder sql = new StringBuilder(LISTING_SELECT);
+        String countSql = "SELECT COUNT(*) FROM hotels h WHERE h.is_active = TRUE";
 
-            // Get total count first
-            String countSql = "SELECT COUNT(*) FROM hotels h WHERE h.is_active = TRUE";
-            if (city != null && !city.isEmpty()) {
-                countSql += " AND h.city = :city";
-            }
-            if (starRating != null) {
-                countSql += " AND h.star_rating = :starRating";
+        Map<String, Object> params = new HashMap<>();
+
+        if (city != null && !city.isEmpty()) {
+            sql.append(" AND h.city = :city");
+            countSql += " AND h.city = :city";
+            params.put("city", city);
+        }
+
+        if (starRating != null) {
+            sql.append(" AND h.star_rating = :starRating");
+            countSql += " AND h.star_rating = :starRating";
+            params.put("starRating", starRating);
+        }
+
+        if (shard != null) {
+            String owned = " AND " + shardRouter.ownsHotelCondition(shard);
+            sql.append(owned);
+            countSql += owned;
+            params.put("shard", shard);
+        }
+
+        sql.append(" GROUP BY h.id ORDER BY h.star_rating DESC, avg_rating DESC");
+
+        // Get total count first
+        Query countQuery = entityManager.createNativeQuery(countSql);
+        params.forEach(countQuery::setParameter);
+        Number total = (Number) countQuery.getSingleResult();
+
+        // Add pagination
+        sql.append(" LIMIT :limit OFFSET :offset");
+        params.put("limit", limit);
+        params.put("offset", offset);
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        params.forEach(query::setParameter);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> results = query.getResultList();
+
+        List<HotelDTO> hotels = new ArrayList<>();
+        for (Object[] row : results) {
+            hotels.add(toListingDTO(row));
+        }
+        return new ListingSlice(hotels, total.longValue());
+    }
+
+    /**
+     * Hotels within radiusKm of a point, nearest first. Candidates come from
+     * the in-memory spatial index (which also applies the star rating); when
+     * check-in/check-out are given, one query drops the hotels with no free
+     * room for the stay, using the same conflict rule as searchAvailableRooms.
+     * Only the requested page is then loaded with the listing columns.
+     */
+    public Page<HotelDTO> searchNearby(double latitude, double longitude, double radiusKm, Integer starRating,
+                                       String checkIn, String checkOut, Integer guests, int page, int limit) {
+        try {
+            List<HotelGeoIndex.Match> matches = hotelGeoIndex.within(latitude, longitude, radiusKm, starRating);
+
+            if (checkIn != null && checkOut != null && !matches.isEmpty()) {
+                List<String> candidates = matches.stream().map(HotelGeoIndex.Match::hotelId).toList();
+                // Rooms and bookings only exist on each hotel's own shard, so the union is exact
+                Set<String> available = new HashSet<>(shardRouter.gatherAll(
+                        () -> List.copyOf(findHotelsWithFreeRoom(candidates, checkIn, checkOut, guests))));
+                matches = matches.stream().filter(m -> available.contains(m.hotelId())).toList();
             }
-            Query countQuery = entityManager.createNativeQuery(countSql);
-            params.forEach(countQuery::setParameter);
-            Number total = (Number) countQuery.getSingleResult();
 
-            // Add pagination
             int offset = (page - 1) * limit;
-            sql.append(" LIMIT :limit OFFSET :offset");
-            params.put("limit", limit);
-            params.put("offset", offset);
-
-            Query query = entityManager.createNativeQuery(sql.toString());
-            params.forEach(query::setParameter);
+            if (offset >= matches.size()) {
+                return new PageImpl<>(Collections.emptyList(), PageRequest.of(page - 1, limit), matches.size());
+            }
+            List<HotelGeoIndex.Match> pageMatches = matches.subList(offset, Math.min(matches.size(), offset + limit));
 
-            @SuppressWarnings("unchecked")
-            List<Object[]> results = query.getResultList();
+            List<String> ids = pageMatches.stream().map(HotelGeoIndex.Match::hotelId).toList();
+            Map<String, HotelDTO> byId = new HashMap<>();
+            shardRouter.scatter(shard -> queryListingByIds(ids, shard)).values()
+                    .forEach(dtos -> dtos.forEach(dto -> byId.put(dto.getId(), dto)));
 
+            // Keep the index's distance order; a hotel deactivated on another node simply drops out
             List<HotelDTO> hotels = new ArrayList<>();
-            for (Object[] row : results) {
-                HotelDTO dto = new HotelDTO();
-                dto.setId((String) row[0]);
-                dto.setName((String) row[1]);
-                dto.setCity((String) row[2]);
-                dto.setCountry((String) row[3]);
-                dto.setStarRating(row[4] != null ? ((Number) row[4]).intValue() : null);
-                dto.setAddress((String) row[5]);
-                dto.setDescription((String) row[6]);
-                dto.setPhone((String) row[7]);
-                dto.setEmail((String) row[8]);
-                dto.setWebsite((String) row[9]);
-                dto.setCheckInTime((String) row[10]);
-                dto.setCheckOutTime((String) row[11]);
-                dto.setIsActive(row[12] != null ? (Boolean) row[12] : true);
-                dto.setTotalRooms(row[13] != null ? ((Number) row[13]).longValue() : 0L);
-                dto.setStartingPrice(row[14] != null ? ((Number) row[14]).doubleValue() : null);
-                dto.setAvgRating(row[15] != null ? ((Number) row[15]).doubleValue() : null);
-                dto.setReviewCount(row[16] != null ? ((Number) row[16]).longValue() : 0L);
-                hotels.add(dto);
+            for (HotelGeoIndex.Match match : pageMatches) {
+                HotelDTO dto = byId.get(match.hotelId());
+                if (dto != null) {
+                    dto.setDistanceKm(Math.round(match.distanceKm() * 100) / 100.0);
+                    hotels.add(dto);
+                }
             }
 
-            return new PageImpl<>(hotels, PageRequest.of(page - 1, limit), total.longValue());
+            return new PageImpl<>(hotels, PageRequest.of(page - 1, limit), matches.size());
         } catch (Exception e) {
-            log.error("Error getting hotels", e);
+            log.error("Error searching hotels nearby", e);
             return new PageImpl<>(Collections.emptyList(), PageRequest.of(page - 1, limit), 0);
         }
     }
 
+    private List<HotelDTO> queryListingByIds(List<String> ids, String shard) {
+        String sql = LISTING_SELECT + " AND h.id IN (:ids)";
+        if (shardRouter.isEnabled()) {
+            sql += " AND " + shardRouter.ownsHotelCondition(shard);
+        }
+        Query query = entityManager.createNativeQuery(sql + " GROUP BY h.id");
+        query.setParameter("ids", ids);
+        if (shardRouter.isEnabled()) {
+            query.setParameter("shard", shard);
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> results = query.getResultList();
+        return results.stream().map(this::toListingDTO).toList();
+    }
+
+    private Set<String> findHotelsWithFreeRoom(List<String> hotelIds, String checkIn, String checkOut,
+                                               Integer guests) {
+        StringBuilder sql = new StringBuilder("""
+                    SELECT r.hotel_id, r.room_type_id, COUNT(*)
+                    FROM rooms r
+                    JOIN room_types rt ON r.room_type_id = rt.id
+                    WHERE r.hotel_id IN (:hotelIds)
+                        AND r.status = 'available'
+                        AND r.is_active = TRUE
+                """);
+
+        if (guests != null) {
+            sql.append(" AND rt.max_occupancy >= :guests");
+        }
+
+        sql.append("""
+                        AND NOT EXISTS (
+                            SELECT 1
+                            FROM booking_rooms br
+                            JOIN bookings b ON br.booking_id = b.id
+                            WHERE br.room_id = r.id
+                                AND b.status NOT IN ('cancelled', 'no_show')
+                                AND br.check_in_date < :checkOut AND br.check_out_date > :checkIn
+                        )
+                    GROUP BY r.hotel_id, r.room_type_id
+                """);
+
+        // Wide radii can match thousands of hotels; keep each IN list to a sane size
+        Set<String> available = new HashSet<>();
+        for (int from = 0; from < hotelIds.size(); from += AVAILABILITY_CHUNK) {
+            Query query = entityManager.createNativeQuery(sql.toString());
+            query.setParameter("hotelIds", hotelIds.subList(from, Math.min(hotelIds.size(), from + AVAILABILITY_CHUNK)));
+            query.setParameter("checkIn", checkIn);
+            query.setParameter("checkOut", checkOut);
+            if (guests != null) {
+                query.setParameter("guests", guests);
+            }
+
+            @SuppressWarnings("unchecked")
+            List<Object[]> freeByType = query.getResultList();
+            if (freeByType.isEmpty()) {
+                continue;
+            }
+
+            // Unassigned room-type bookings hold no room yet; the type's ledger counts them
+            Map<String, Integer> remaining = inventoryService.minRemaining(
+                    freeByType.stream().map(row -> (String) row[1]).collect(Collectors.toSet()),
+                    LocalDate.parse(checkIn), LocalDate.parse(checkOut));
+            for (Object[] row : freeByType) {
+                if (((Number) row[2]).intValue() > 0 && remaining.get((String) row[1]) > 0) {
+                    available.add((String) row[0]);
+                }
+            }
+        }
+        return available;
+    }
+
+    private HotelDTO toListingDTO(Object[] row) {
+        HotelDTO dto = new HotelDTO();
+        dto.setId((String) row[0]);
+        dto.setName((String) row[1]);
+        dto.setCity((String) row[2]);
+        dto.setCountry((String) row[3]);
+        dto.setStarRating(row[4] != null ? ((Number) row[4]).intValue() : null);
+        dto.setAddress((String) row[5]);
+        dto.setDescription((String) row[6]);
+        dto.setPhone((String) row[7]);
+        dto.setEmail((String) row[8]);
+        dto.setWebsite((String) row[9]);
+        dto.setCheckInTime((String) row[10]);
+        dto.setCheckOutTime((String) row[11]);
+        dto.setIsActive(row[12] != null ? (Boolean) row[12] : true);
+        dto.setTotalRooms(row[13] != null ? ((Number) row[13]).longValue() : 0L);
+        dto.setStartingPrice(row[14] != null ? ((Number) row[14]).doubleValue() : null);
+        dto.setAvgRating(row[15] != null ? ((Number) row[15]).doubleValue() : null);
+        dto.setReviewCount(row[16] != null ? ((Number) row[16]).longValue() : 0L);
+        dto.setLatitude(row[17] != null ? ((Number) row[17]).doubleValue() : null);
+        dto.setLongitude(row[18] != null ? ((Number) row[18]).doubleValue() : null);
+        return dto;
+    }
+
     public Optional<HotelDTO> getHotelById(String id) {
         try {
             String sql = """
@@ -121,7 +310,8 @@ public class HotelService {
                                h.check_out_time, h.is_active,
                                COUNT(DISTINCT r.id) AS total_rooms,
                                ROUND(AVG(rev.rating), 2) AS avg_rating,
-                               COUNT(DISTINCT rev.id) AS review_count
+                               COUNT(DISTINCT rev.id) AS review_count,
+                               h.latitude, h.longitude
                         FROM hotels h
                         LEFT JOIN rooms r ON h.id = r.hotel_id
                         LEFT JOIN reviews rev ON h.id = rev.hotel_id AND rev.is_approved = TRUE
@@ -157,6 +347,8 @@ public class HotelService {
             dto.setTotalRooms(row[13] != null ? ((Number) row[13]).longValue() : 0L);
             dto.setAvgRating(row[14] != null ? ((Number) row[14]).doubleValue() : null);
             dto.setReviewCount(row[15] != null ? ((Number) row[15]).longValue() : 0L);
+            dto.setLatitude(row[16] != null ? ((Number) row[16]).doubleValue() : null);
+            dto.setLongitude(row[17] != null ? ((Number) row[17]).doubleValue() : null);
 
             return Optional.of(dto);
         } catch (Exception e) {
@@ -218,7 +410,14 @@ public class HotelService {
         }
     }
 
+    /** Identical concurrent searches share one query (see SingleFlightService). */
     public Map<String, Object> searchAvailableRooms(String hotelId, String checkIn, String checkOut, Integer guests) {
+        return singleFlightService.execute("available_rooms",
+                () -> findAvailableRooms(hotelId, checkIn, checkOut, guests),
+                hotelId, checkIn, checkOut, guests, catalogVersionService.hotelVersion(hotelId));
+    }
+
+    private Map<String, Object> findAvailableRooms(String hotelId, String checkIn, String checkOut, Integer guests) {
         try {
             StringBuilder sql = new StringBuilder("""
                         SELECT r.id, r.room_number, r.floor, r.status,
@@ -238,12 +437,13 @@ public class HotelService {
             }
 
             sql.append("""
-                            AND r.id NOT IN (
-                                SELECT br.room_id
+                            AND NOT EXISTS (
+                                SELECT 1
                                 FROM booking_rooms br
                                 JOIN bookings b ON br.booking_id = b.id
-                                WHERE b.status NOT IN ('cancelled', 'no_show')
-                                    AND NOT (br.check_out_date <= :checkIn OR br.check_in_date >= :checkOut)
+                                WHERE br.room_id = r.id
+                                    AND b.status NOT IN ('cancelled', 'no_show')
+                                    AND br.check_in_date < :checkOut AND br.check_out_date > :checkIn
                             )
                         ORDER BY t.price
                     """);
@@ -259,8 +459,17 @@ public class HotelService {
             @SuppressWarnings("unchecked")
             List<Object[]> results = query.getResultList();
 
+            // Rooms sold by type are assigned at check-in, so no room above is held by them yet:
+            // list at most as many rooms of each type as its ledger has left for the stay
+            Map<String, Integer> remaining = inventoryService.minRemaining(
+                    results.stream().map(row -> (String) row[4]).collect(Collectors.toSet()),
+                    LocalDate.parse(checkIn), LocalDate.parse(checkOut));
+
             List<Map<String, Object>> rooms = new ArrayList<>();
             for (Object[] row : results) {
+                if (remaining.merge((String) row[4], -1, Integer::sum) < 0) {
+                    continue;
+                }
                 Map<String, Object> room = new HashMap<>();
                 room.put("id", row[0]);
                 room.put("room_number", row[1]);
@@ -290,7 +499,14 @@ public class HotelService {
     }
 
     public Hotel createHotel(Hotel hotel) {
-        return hotelRepository.save(hotel);
+        Hotel saved = hotelRepository.save(hotel);
+        shardRouter.assignHotel(saved.getId());
+        shardRouter.replicate("hotels", saved.getId());
+        catalogVersionService.bump(saved.getId());
+        if (!Boolean.FALSE.equals(saved.getIsActive())) {
+            hotelGeoIndex.put(saved.getId(), saved.getLatitude(), saved.getLongitude(), saved.getStarRating());
+        }
+        return saved;
     }
 
     public Hotel updateHotel(String id, Hotel hotelDetails) {
@@ -303,12 +519,23 @@ public class HotelService {
         hotel.setPhone(hotelDetails.getPhone());
         hotel.setEmail(hotelDetails.getEmail());
         hotel.setStarRating(hotelDetails.getStarRating());
-        return hotelRepository.save(hotel);
+        hotel.setLatitude(hotelDetails.getLatitude());
+        hotel.setLongitude(hotelDetails.getLongitude());
+        Hotel saved = hotelRepository.save(hotel);
+        shardRouter.replicate("hotels", id);
+        catalogVersionService.bump(id);
+        if (!Boolean.FALSE.equals(saved.getIsActive())) {
+            hotelGeoIndex.put(id, saved.getLatitude(), saved.getLongitude(), saved.getStarRating());
+        }
+        return saved;
     }
 
     public void deleteHotel(String id) {
         Hotel hotel = hotelRepository.findById(id).orElseThrow(() -> new RuntimeException("Hotel not found"));
         hotel.setIsActive(false);
         hotelRepository.save(hotel);
+        shardRouter.replicate("hotels", id);
+        catalogVersionService.bump(id);
+        hotelGeoIndex.remove(id);
     }
 }
@@ -0,0 +1,235 @@
+package com.hotelbooking.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hotelbooking.dto.ApiResponse;
+import com.hotelbooking.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key handling for non-idempotent POSTs (bookings, payments).
+ *
+ * The key is claimed by inserting its idempotency_keys row in the same
+ * transaction as the write, and the response is stored in that row before
+ * commit. A retry on any node blocks on the uncommitted row until the first
+ * attempt commits (and is replayed) or rolls back (and the retry runs), so
+ * the action commits at most once per key even across nodes and crashes.
+ * Only 2xx responses are kept - a failed attempt rolls back its claim and
+ * can be retried with the same key.
+ *
+ * Callers run execute on the shard the action writes to, so the key row and
+ * the write share a transaction. Completed responses are also cached in
+ * memory, so most retries cost one map lookup.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    private final Map<String, StoredResponse> completed = new ConcurrentHashMap<>();
+
+    private final AtomicInteger storesSincePurge = new AtomicInteger();
+
+    private record StoredResponse(String requestHash, int statusCode, ApiResponse<?> body, LocalDateTime createdAt) {
+    }
+
+    // Outcome of one attempt: either a stored response to replay or the action's own response
+    private record Attempt<T>(StoredResponse replayed, ResponseEntity<ApiResponse<T>> response, StoredResponse stored) {
+    }
+
+    /**
+     * Runs {@code action} at most once per (operation, caller, key). A missing
+     * key runs the action unprotected, matching the old behaviour. The action
+     * joins the transaction that holds the key.
+     */
+    public <T> ResponseEntity<ApiResponse<T>> execute(String operation, String callerId, String key, Object request,
+            Supplier<ResponseEntity<ApiResponse<T>>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > 128) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Idempotency-Key must be at most 128 characters"));
+        }
+
+        String id = operation + ":" + (callerId != null ? callerId : "anonymous") + ":" + key;
+        String requestHash = hash(request);
+
+        StoredResponse cached = completed.get(id);
+        if (cached != null && !isExpired(cached)) {
+            return replay(cached, requestHash);
+        }
+
+        Attempt<T> attempt;
+        try {
+            attempt = new TransactionTemplate(transactionManager).execute(status -> {
+                if (!claim(id, requestHash)) {
+                    StoredResponse stored = loadClaimed(id);
+                    if (stored != null) {
+                        return new Attempt<T>(stored, null, null);
+                    }
+                }
+
+                ResponseEntity<ApiResponse<T>> response = action.get();
+                if (!response.getStatusCode().is2xxSuccessful()) {
+                    // Releases the claim together with whatever the action did
+                    status.setRollbackOnly();
+                    return new Attempt<>(null, response, null);
+                }
+                StoredResponse stored = new StoredResponse(requestHash, response.getStatusCode().value(),
+                        response.getBody(), LocalDateTime.now());
+                complete(id, stored);
+                return new Attempt<>(null, response, stored);
+            });
+        } catch (TransactionException | DataAccessException e) {
+            // Lock wait timeout behind a stuck attempt, or the write failed to commit; safe to retry
+            log.warn("Idempotent {} with key {} did not complete: {}", operation, key, e.getMessage());
+            return ResponseEntity.status(409)
+                    .body(ApiResponse.error("Request could not be completed, retry with the same " + HEADER));
+        }
+
+        if (attempt.replayed() != null) {
+            completed.put(id, attempt.replayed());
+            return replay(attempt.replayed(), requestHash);
+        }
+        if (attempt.stored() != null) {
+            completed.put(id, attempt.stored());
+            if (completed.size() > maxEntries || storesSincePurge.incrementAndGet() >= 1000) {
+                purgeExpired();
+            }
+        }
+        return attempt.response();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<ApiResponse<T>> replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            return ResponseEntity.status(422)
+                    .body(ApiResponse.error("Idempotency-Key was already used with a different request"));
+        }
+        return ResponseEntity.status(stored.statusCode())
+                .header(REPLAYED_HEADER, "true")
+                .body((ApiResponse<T>) stored.body());
+    }
+
+    /**
+     * Inserts the key's row, or returns false if it already exists. Waits
+     * while another transaction holds an uncommitted claim on the same key.
+     */
+    private boolean claim(String id, String requestHash) {
+        return jdbcTemplate.update("""
+                    INSERT IGNORE INTO idempotency_keys (id, request_hash, status_code, created_at)
+                    VALUES (?, ?, 0, ?)
+                """, id, requestHash, LocalDateTime.now()) == 1;
+    }
+
+    /**
+     * The committed response of an existing key, or null when that response
+     * has expired - the row is then taken over for this attempt.
+     */
+    private StoredResponse loadClaimed(String id) {
+        StoredResponse stored = jdbcTemplate.queryForObject("""
+                    SELECT request_hash, status_code, response_body, created_at
+                    FROM idempotency_keys
+                    WHERE id = ?
+                    FOR SHARE
+                """, (rs, rowNum) -> new StoredResponse(rs.getString("request_hash"), rs.getInt("status_code"),
+                readBody(id, rs.getString("response_body")), rs.getObject("created_at", LocalDateTime.class)), id);
+        return isExpired(stored) ? null : stored;
+    }
+
+    private ApiResponse<?> readBody(String id, String json) {
+        try {
+            return objectMapper.readValue(json, ApiResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable idempotency record: " + id, e);
+        }
+    }
+
+    private void complete(String id, StoredResponse stored) {
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(stored.body());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not store idempotent response: " + id, e);
+        }
+        jdbcTemplate.update("""
+                    UPDATE idempotency_keys
+                    SET request_hash = ?, status_code = ?, response_body = ?, created_at = ?
+                    WHERE id = ?
+                """, stored.requestHash(), stored.statusCode(), body, stored.createdAt(), id);
+    }
+
+    private void purgeExpired() {
+        storesSincePurge.set(0);
+        completed.entrySet().removeIf(e -> isExpired(e.getValue()));
+        if (completed.size() > maxEntries) {
+            // Still over budget with live entries - the table keeps them durable
+            completed.clear();
+        }
+        try {
+            idempotencyRecordRepository.deleteOlderThan(LocalDateTime.now().minus(Duration.ofHours(ttlHours)));
+        } catch (Exception e) {
+            log.error("Error purging idempotency records", e);
+        }
+    }
+
+    private boolean isExpired(StoredResponse stored) {
+        return stored.createdAt().isBefore(LocalDateTime.now().minus(Duration.ofHours(ttlHours)));
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] json = objectMapper.writer()
+                    .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                    .writeValueAsString(request)
+                    .getBytes(StandardCharsets.UTF_8);
+            return HexFormat.of().formatHex(digest.digest(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new RuntimeException("Could not fingerprint request", e);
+        }
+    }
+}
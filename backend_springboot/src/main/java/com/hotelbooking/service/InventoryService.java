@@ -0,0 +1,264 @@
+package com.hotelbooking.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Room-type inventory ledger (room_type_inventory): remaining sellable rooms
+ * per type and night.
+ *
+ * A reservation is one conditional UPDATE over the stay's nights
+ * ({@code remaining > 0}); if fewer rows than nights were decremented the
+ * type is sold out on some night and the caller's transaction rolls back.
+ * Because the check and the decrement are a single statement, sell-outs hold
+ * across any number of app nodes.
+ */
+@Service
+public class InventoryService {
+
+    // Live stays of the room types overlapping [:from, :to). Room-type bookings carry room_type_id, older
+    // ones only a room; one branch each instead of COALESCE so both can use their booking_rooms index.
+    private static final String TYPE_STAYS = """
+                SELECT br.room_type_id, br.check_in_date, br.check_out_date FROM booking_rooms br
+                JOIN bookings b ON br.booking_id = b.id
+                WHERE br.room_type_id IN (:roomTypeIds)
+                AND b.status NOT IN ('cancelled', 'no_show')
+                AND br.check_in_date < :to AND br.check_out_date > :from
+                UNION ALL
+                SELECT r.room_type_id, br.check_in_date, br.check_out_date FROM rooms r
+                JOIN booking_rooms br ON br.room_id = r.id
+                JOIN bookings b ON br.booking_id = b.id
+                WHERE r.room_type_id IN (:roomTypeIds) AND br.room_type_id IS NULL
+                AND b.status NOT IN ('cancelled', 'no_show')
+                AND br.check_in_date < :to AND br.check_out_date > :from
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Takes one room of the type for every night in [checkIn, checkOut).
+     * Must run inside the booking transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(String roomTypeId, LocalDate checkIn, LocalDate checkOut) {
+        ensureRows(roomTypeId, checkIn, checkOut);
+
+        Query update = entityManager.createNativeQuery("""
+                    UPDATE room_type_inventory
+                    SET remaining = remaining - 1
+                    WHERE room_type_id = :roomTypeId
+                    AND stay_date >= :checkIn AND stay_date < :checkOut
+                    AND remaining > 0
+                """);
+        update.setParameter("roomTypeId", roomTypeId);
+        update.setParameter("checkIn", checkIn);
+        update.setParameter("checkOut", checkOut);
+        int updated = update.executeUpdate();
+
+        long nights = checkIn.datesUntil(checkOut).count();
+        if (updated < nights) {
+            throw new RuntimeException("No available rooms for the selected room type and dates");
+        }
+    }
+
+    /** Re-takes the nights of a booking brought back from a released state. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserveBooking(String bookingId) {
+        for (Object[] row : bookingRoomStays(bookingId)) {
+            reserve((String) row[0], ((Date) row[1]).toLocalDate(), ((Date) row[2]).toLocalDate());
+        }
+    }
+
+    /** Gives back every night held by a booking's rooms (cancellation, no-show, expiry). */
+    @Transactional
+    public void releaseBooking(String bookingId) {
+        for (Object[] row : bookingRoomStays(bookingId)) {
+            Query release = entityManager.createNativeQuery("""
+                        UPDATE room_type_inventory
+                        SET remaining = LEAST(total_rooms, remaining + 1)
+                        WHERE room_type_id = :roomTypeId
+                        AND stay_date >= :checkIn AND stay_date < :checkOut
+                    """);
+            release.setParameter("roomTypeId", row[0]);
+            release.setParameter("checkIn", row[1]);
+            release.setParameter("checkOut", row[2]);
+            release.executeUpdate();
+        }
+    }
+
+    /** Rooms added to or removed from a type change its capacity on every future night. */
+    @Transactional
+    public void adjustCapacity(String roomTypeId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        Query update = entityManager.createNativeQuery("""
+                    UPDATE room_type_inventory
+                    SET total_rooms = GREATEST(0, total_rooms + :delta),
+                        remaining = GREATEST(0, remaining + :delta)
+                    WHERE room_type_id = :roomTypeId AND stay_date >= CURDATE()
+                """);
+        update.setParameter("roomTypeId", roomTypeId);
+        update.setParameter("delta", delta);
+        update.executeUpdate();
+    }
+
+    /**
+     * Fewest sellable rooms of the type on any night of [checkIn, checkOut),
+     * read without creating ledger rows: ledger nights as stored, missing
+     * nights computed the way ensureRows would initialise them.
+     */
+    @Transactional(readOnly = true)
+    public int minRemaining(String roomTypeId, LocalDate checkIn, LocalDate checkOut) {
+        return minRemaining(List.of(roomTypeId), checkIn, checkOut).get(roomTypeId);
+    }
+
+    /**
+     * minRemaining for several room types at once, in a fixed number of
+     * queries. Availability searches cap the free rooms they list per type at
+     * this, since rooms sold by type are only assigned at check-in.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Integer> minRemaining(Collection<String> roomTypeIds, LocalDate checkIn, LocalDate checkOut) {
+        Map<String, Integer> result = new HashMap<>();
+        List<LocalDate> nights = checkIn.datesUntil(checkOut).toList();
+        if (roomTypeIds.isEmpty() || nights.isEmpty()) {
+            roomTypeIds.forEach(id -> result.put(id, 0));
+            return result;
+        }
+
+        Query ledger = entityManager.createNativeQuery("""
+                    SELECT room_type_id, stay_date, remaining FROM room_type_inventory
+                    WHERE room_type_id IN (:roomTypeIds) AND stay_date >= :checkIn AND stay_date < :checkOut
+                """);
+        ledger.setParameter("roomTypeIds", roomTypeIds);
+        ledger.setParameter("checkIn", checkIn);
+        ledger.setParameter("checkOut", checkOut);
+
+        Map<String, Map<LocalDate, Integer>> remaining = new HashMap<>();
+        roomTypeIds.forEach(id -> remaining.put(id, new HashMap<>()));
+        for (Object row : ledger.getResultList()) {
+            Object[] cols = (Object[]) row;
+            remaining.get((String) cols[0]).put(toLocalDate(cols[1]), ((Number) cols[2]).intValue());
+        }
+
+        List<String> incomplete = roomTypeIds.stream()
+                .filter(id -> remaining.get(id).size() < nights.size())
+                .toList();
+        if (!incomplete.isEmpty()) {
+            Query capacity = entityManager.createNativeQuery("""
+                        SELECT room_type_id, COUNT(*) FROM rooms
+                        WHERE room_type_id IN (:roomTypeIds) AND is_active = TRUE AND status != 'blocked'
+                        GROUP BY room_type_id
+                    """);
+            capacity.setParameter("roomTypeIds", incomplete);
+            Map<String, Integer> totals = new HashMap<>();
+            for (Object row : capacity.getResultList()) {
+                Object[] cols = (Object[]) row;
+                totals.put((String) cols[0], ((Number) cols[1]).intValue());
+            }
+
+            Query stays = entityManager.createNativeQuery(TYPE_STAYS);
+            stays.setParameter("roomTypeIds", incomplete);
+            stays.setParameter("from", checkIn);
+            stays.setParameter("to", checkOut);
+            @SuppressWarnings("unchecked")
+            List<Object[]> stayRows = stays.getResultList();
+
+            for (String roomTypeId : incomplete) {
+                Map<LocalDate, Integer> typeRemaining = remaining.get(roomTypeId);
+                int total = totals.getOrDefault(roomTypeId, 0);
+                for (LocalDate night : nights) {
+                    if (typeRemaining.containsKey(night)) {
+                        continue;
+                    }
+                    int booked = 0;
+                    for (Object[] stay : stayRows) {
+                        LocalDate in = toLocalDate(stay[1]);
+                        LocalDate out = toLocalDate(stay[2]);
+                        if (roomTypeId.equals(stay[0]) && !in.isAfter(night) && out.isAfter(night)) {
+                            booked++;
+                        }
+                    }
+                    typeRemaining.put(night, Math.max(0, total - booked));
+                }
+            }
+        }
+
+        remaining.forEach((roomTypeId, byNight) -> result.put(roomTypeId,
+                byNight.values().stream().mapToInt(Integer::intValue).min().orElse(0)));
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> bookingRoomStays(String bookingId) {
+        Query rooms = entityManager.createNativeQuery("""
+                    SELECT COALESCE(br.room_type_id, r.room_type_id), br.check_in_date, br.check_out_date
+                    FROM booking_rooms br
+                    LEFT JOIN rooms r ON br.room_id = r.id
+                    WHERE br.booking_id = :bookingId
+                """);
+        rooms.setParameter("bookingId", bookingId);
+        return rooms.getResultList();
+    }
+
+    /**
+     * Creates missing ledger rows for the range from the current rooms and
+     * bookings. INSERT IGNORE makes concurrent initialisation harmless.
+     */
+    private void ensureRows(String roomTypeId, LocalDate checkIn, LocalDate checkOut) {
+        Query existing = entityManager.createNativeQuery("""
+                    SELECT stay_date FROM room_type_inventory
+                    WHERE room_type_id = :roomTypeId AND stay_date >= :checkIn AND stay_date < :checkOut
+                """);
+        existing.setParameter("roomTypeId", roomTypeId);
+        existing.setParameter("checkIn", checkIn);
+        existing.setParameter("checkOut", checkOut);
+
+        Set<LocalDate> present = new HashSet<>();
+        for (Object value : existing.getResultList()) {
+            present.add(toLocalDate(value));
+        }
+
+        for (LocalDate night : checkIn.datesUntil(checkOut).toList()) {
+            if (present.contains(night)) {
+                continue;
+            }
+            Query insert = entityManager.createNativeQuery("""
+                        INSERT IGNORE INTO room_type_inventory (room_type_id, stay_date, total_rooms, remaining)
+                        SELECT :roomTypeId, :night, cap.total, GREATEST(0, cap.total - (
+                            SELECT COUNT(*) FROM (""" + TYPE_STAYS + """
+                            ) stays
+                        ))
+                        FROM (
+                            SELECT COUNT(*) AS total FROM rooms
+                            WHERE room_type_id = :roomTypeId AND is_active = TRUE AND status != 'blocked'
+                        ) cap
+                    """);
+            insert.setParameter("roomTypeId", roomTypeId);
+            insert.setParameter("roomTypeIds", List.of(roomTypeId));
+            insert.setParameter("night", night);
+            insert.setParameter("from", night);
+            insert.setParameter("to", night.plusDays(1));
+            insert.executeUpdate();
+        }
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof Date d ? d.toLocalDate() : LocalDate.parse(value.toString());
+    }
+}
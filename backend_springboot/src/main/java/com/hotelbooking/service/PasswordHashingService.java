@@ -0,0 +1,135 @@
+package com.hotelbooking.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs BCrypt on a small dedicated pool instead of Tomcat request threads.
+ *
+ * The pool is sized to the cores we are willing to spend on hashing and has a
+ * short bounded queue; when both are full new logins fail fast with
+ * {@link BusyException} (503) rather than piling up and starving browsing
+ * and booking traffic. Hashes below the configured cost are upgraded in the
+ * background after a successful login.
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    /** Thrown when the hashing pool is saturated; callers should answer 503. */
+    public static class BusyException extends RuntimeException {
+        public BusyException() {
+            super("Too many login attempts in progress, please retry shortly");
+        }
+    }
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${auth.hashing.threads:0}")
+    private int threads;
+
+    @Value("${auth.hashing.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Value("${auth.hashing.timeout-ms:3000}")
+    private long timeoutMs;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        int size = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("auth.hashing.queue.depth", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        log.info("Password hashing pool: {} threads, queue {}", size, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return false;
+        }
+        return await(submit(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    public String encode(String rawPassword) {
+        return await(submit(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    /**
+     * Re-hashes at the configured cost if the stored hash is weaker, handing
+     * the new hash to {@code store}. Best effort: skipped when the pool is busy,
+     * the next login tries again.
+     */
+    public void upgradeIfNeeded(String rawPassword, String encodedPassword, Consumer<String> store) {
+        if (!passwordEncoder.upgradeEncoding(encodedPassword)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    store.accept(passwordEncoder.encode(rawPassword));
+                } catch (Exception e) {
+                    log.warn("Error upgrading password hash", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            meterRegistry.counter("auth.hashing.rehash_skipped").increment();
+        }
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            meterRegistry.counter("auth.hashing.rejected").increment();
+            throw new BusyException();
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            meterRegistry.counter("auth.hashing.timeouts").increment();
+            throw new BusyException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusyException();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Password hashing failed", e.getCause());
+        }
+    }
+}
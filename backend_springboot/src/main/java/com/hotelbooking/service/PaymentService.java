@@ -13,6 +13,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,10 +29,51 @@ public class PaymentService {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private HoldExpiryService holdExpiryService;
+
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private ActivityStreamService activityStreamService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
     @PersistenceContext
     private EntityManager entityManager;
 
     public ApiResponse<Object> getAllPayments(int limit, int offset, String hotelId) {
+        List<Map<String, Object>> payments;
+        if (hotelId != null || !shardRouter.isEnabled()) {
+            payments = queryPayments(hotelId, limit, offset);
+        } else {
+            // Every hotel: each shard's first offset + limit payments, merged and cut to the page
+            List<Map<String, Object>> merged = shardRouter.gatherAll(() -> queryPayments(null, offset + limit, 0));
+            merged.sort(Comparator.comparing((Map<String, Object> p) -> String.valueOf(p.get("payment_date")))
+                    .reversed());
+            payments = new ArrayList<>(merged.subList(Math.min(offset, merged.size()),
+                    Math.min(offset + limit, merged.size())));
+        }
+
+        // Total comes from the daily rollups; they can trail the newest payments by a refresh interval
+        long total = Math.max((Long) rollupService.getTotals(hotelId).get("payments_count"),
+                offset + (long) payments.size());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("payments", payments);
+
+        ApiResponse.PaginationMetadata pagination = new ApiResponse.PaginationMetadata(
+                (offset / limit) + 1,
+                limit,
+                total,
+                (int) Math.ceil((double) total / limit));
+
+        return ApiResponse.success(payments, pagination);
+    }
+
+    private List<Map<String, Object>> queryPayments(String hotelId, int limit, int offset) {
         String sql = """
                     SELECT p.*,
                         b.id as booking_number,
@@ -43,30 +86,24 @@ public class PaymentService {
                     WHERE 1=1
                 """;
 
-        String countSql = "SELECT COUNT(*) FROM payments p JOIN bookings b ON p.booking_id = b.id WHERE 1=1";
-
         if (hotelId != null) {
             sql += " AND b.hotel_id = :hotelId";
-            countSql += " AND b.hotel_id = :hotelId";
         }
 
         sql += " ORDER BY p.payment_date DESC LIMIT :limit OFFSET :offset";
 
         Query query = entityManager.createNativeQuery(sql);
-        Query countQuery = entityManager.createNativeQuery(countSql);
 
         if (hotelId != null) {
             query.setParameter("hotelId", hotelId);
-            countQuery.setParameter("hotelId", hotelId);
         }
         query.setParameter("limit", limit);
         query.setParameter("offset", offset);
 
         @SuppressWarnings("unchecked")
         List<Object[]> results = query.getResultList();
-        Number total = (Number) countQuery.getSingleResult();
 
-        List<Map<String, Object>> payments = results.stream().map(row -> {
+        return results.stream().map(row -> {
             Map<String, Object> map = new HashMap<>();
             map.put("id", row[0]);
             map.put("booking_id", row[1]);
@@ -81,17 +118,6 @@ public class PaymentService {
             map.put("guest_name", row[10]);
             return map;
         }).toList();
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("payments", payments);
-
-        ApiResponse.PaginationMetadata pagination = new ApiResponse.PaginationMetadata(
-                (offset / limit) + 1,
-                limit,
-                total.longValue(),
-                (int) Math.ceil((double) total.longValue() / limit));
-
-        return ApiResponse.success(payments, pagination);
     }
 
     @Transactional
@@ -102,9 +128,13 @@ public class PaymentService {
         String transactionId = (String) payload.get("transaction_id");
         String gatewayName = (String) payload.get("gateway_name");
 
-        Booking booking = bookingRepository.findById(bookingId)
+        Booking booking = bookingRepository.findForPaymentById(bookingId)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
 
+        if ("cancelled".equals(booking.getStatus())) {
+            throw new RuntimeException("Booking has been cancelled or its payment hold expired");
+        }
+
         Payment payment = new Payment();
         payment.setBooking(booking);
         payment.setAmount(amount);
@@ -119,6 +149,8 @@ public class PaymentService {
         // Update booking status to confirmed
         booking.setStatus("confirmed");
         bookingRepository.save(booking);
+        holdExpiryService.cancel(bookingId);
+        publishPayment(saved, booking);
 
         Map<String, Object> result = new HashMap<>();
         result.put("payment_id", saved.getId());
@@ -129,6 +161,17 @@ public class PaymentService {
         return result;
     }
 
+    private void publishPayment(Payment payment, Booking booking) {
+        Map<String, Object> activity = new HashMap<>();
+        activity.put("id", payment.getId());
+        activity.put("booking_id", booking.getId());
+        activity.put("user_name", booking.getGuest().getFirstName() + " " + booking.getGuest().getLastName());
+        activity.put("hotel_name", booking.getHotel().getName());
+        activity.put("status", payment.getStatus());
+        activity.put("amount", payment.getAmount());
+        activityStreamService.publish("payment", booking.getHotel().getId(), activity);
+    }
+
     public List<Map<String, Object>> getBookingPayments(String bookingId) {
         List<Payment> payments = paymentRepository.findByBookingIdOrderByPaymentDateDesc(bookingId);
         return payments.stream().map(p -> {
@@ -147,7 +190,7 @@ public class PaymentService {
 
     @Transactional
     public Map<String, Object> processRefund(String id, Map<String, Object> payload) {
-        Payment payment = paymentRepository.findById(id)
+        Payment payment = paymentRepository.findForRefundById(id)
                 .orElseThrow(() -> new RuntimeException("Payment not found"));
 
         Double refundAmount = Double.parseDouble(payload.get("refund_amount").toString());
@@ -163,6 +206,7 @@ public class PaymentService {
         refundPayment.setPaymentDate(LocalDateTime.now());
 
         Payment savedRefund = paymentRepository.save(refundPayment);
+        publishPayment(savedRefund, payment.getBooking());
 
         // Update original payment status
         String newStatus = refundAmount >= payment.getAmount() ? "refunded" : "partially_refunded";
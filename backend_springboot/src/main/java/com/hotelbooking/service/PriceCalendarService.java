@@ -0,0 +1,305 @@
+package com.hotelbooking.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lowest-price calendar: for every night of a rolling window starting today,
+ * the cheapest room type with a free room and its nightly price.
+ *
+ * A hotel's window is built in one pass from four queries (room types with
+ * their capacity, tariffs overlapping the window, booked rooms per type and
+ * stay, and the inventory ledger rows already materialised) and kept as
+ * per-type price and free-room arrays, so the guests filter is applied when
+ * reading. The cached window is dropped when the hotel's catalog version
+ * moves (rooms, room types, tariffs), when one of its bookings changes, on
+ * the day rollover, or after price-calendar.ttl-seconds, which bounds how
+ * long bookings made on other nodes go unseen.
+ */
+@Service
+public class PriceCalendarService {
+
+    public static final int MAX_DAYS = 90;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Value("${price-calendar.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    // Bumped by invalidate(); a window computed across a bump is served but not cached
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private record Window(LocalDate start, long catalogVersion, long builtAtMillis, List<TypeNights> types) {
+    }
+
+    private record TypeNights(String id, String name, int maxOccupancy, String currency,
+                              double[] prices, int[] free) {
+    }
+
+    /**
+     * Cheapest bookable room type per night for [from, from + days), where the
+     * range must fall inside the window starting today. Guests, when given,
+     * limits the choice to room types that sleep that many.
+     */
+    public List<Map<String, Object>> getCalendar(String hotelId, LocalDate from, int days, Integer guests) {
+        LocalDate today = LocalDate.now();
+        if (from.isBefore(today)) {
+            throw new RuntimeException("start_date cannot be in the past");
+        }
+        int offset = (int) ChronoUnit.DAYS.between(today, from);
+        if (days < 1 || offset + days > MAX_DAYS) {
+            throw new RuntimeException("The calendar covers at most " + MAX_DAYS + " nights from today");
+        }
+
+        Window window = windowFor(hotelId, today);
+
+        List<Map<String, Object>> nights = new ArrayList<>(days);
+        for (int i = offset; i < offset + days; i++) {
+            TypeNights best = null;
+            int freeRooms = 0;
+            for (TypeNights type : window.types()) {
+                if (type.free()[i] <= 0 || (guests != null && type.maxOccupancy() < guests)) {
+                    continue;
+                }
+                freeRooms += type.free()[i];
+                if (best == null || type.prices()[i] < best.prices()[i]) {
+                    best = type;
+                }
+            }
+
+            Map<String, Object> night = new LinkedHashMap<>();
+            night.put("date", today.plusDays(i).toString());
+            night.put("room_type_id", best != null ? best.id() : null);
+            night.put("room_type", best != null ? best.name() : null);
+            night.put("price", best != null ? best.prices()[i] : null);
+            night.put("currency", best != null ? best.currency() : null);
+            night.put("available_rooms", freeRooms);
+            nights.add(night);
+        }
+        return nights;
+    }
+
+    /** Drops the hotel's cached window once the current transaction commits. */
+    public void invalidate(String hotelId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(hotelId);
+                }
+            });
+        } else {
+            evict(hotelId);
+        }
+    }
+
+    /** Same as invalidate(hotelId) for the hotels of the given bookings. */
+    public void invalidateForBookings(Collection<String> bookingIds) {
+        if (bookingIds.isEmpty()) {
+            return;
+        }
+        Query query = entityManager.createNativeQuery("SELECT DISTINCT hotel_id FROM bookings WHERE id IN (:ids)");
+        query.setParameter("ids", bookingIds);
+        for (Object hotelId : query.getResultList()) {
+            invalidate((String) hotelId);
+        }
+    }
+
+    private void evict(String hotelId) {
+        generations.computeIfAbsent(hotelId, id -> new AtomicLong()).incrementAndGet();
+        windows.remove(hotelId);
+    }
+
+    private Window windowFor(String hotelId, LocalDate today) {
+        long catalogVersion = catalogVersionService.hotelVersion(hotelId);
+        Window cached = windows.get(hotelId);
+        if (cached != null && cached.start().equals(today) && cached.catalogVersion() == catalogVersion
+                && System.currentTimeMillis() - cached.builtAtMillis() < ttlSeconds * 1000) {
+            return cached;
+        }
+
+        AtomicLong generation = generations.computeIfAbsent(hotelId, id -> new AtomicLong());
+        long before = generation.get();
+        Window built = build(hotelId, today, catalogVersion);
+        if (generation.get() == before) {
+            windows.put(hotelId, built);
+        }
+        return built;
+    }
+
+    private Window build(String hotelId, LocalDate start, long catalogVersion) {
+        LocalDate end = start.plusDays(MAX_DAYS);
+
+        // Room types with their sellable capacity, counted the way the inventory ledger counts it
+        Query typeQuery = entityManager.createNativeQuery("""
+                    SELECT rt.id, rt.name, rt.max_occupancy, rt.base_price,
+                           COUNT(r.id) AS capacity
+                    FROM room_types rt
+                    LEFT JOIN rooms r ON r.room_type_id = rt.id
+                        AND r.is_active = TRUE AND r.status != 'blocked'
+                    WHERE rt.hotel_id = :hotelId AND rt.is_active = TRUE
+                    GROUP BY rt.id, rt.name, rt.max_occupancy, rt.base_price
+                """);
+        typeQuery.setParameter("hotelId", hotelId);
+        @SuppressWarnings("unchecked")
+        List<Object[]> typeRows = typeQuery.getResultList();
+
+        Map<String, TypeNights> types = new HashMap<>();
+        Map<String, Integer> capacities = new HashMap<>();
+        for (Object[] row : typeRows) {
+            // Nights without a tariff fall back to the base price, as createBooking does
+            double[] prices = new double[MAX_DAYS];
+            Arrays.fill(prices, row[3] != null ? ((Number) row[3]).doubleValue() : 0.0);
+            int capacity = ((Number) row[4]).intValue();
+            int[] free = new int[MAX_DAYS];
+            Arrays.fill(free, capacity);
+            types.put((String) row[0], new TypeNights((String) row[0], (String) row[1],
+                    row[2] != null ? ((Number) row[2]).intValue() : 0, null, prices, free));
+            capacities.put((String) row[0], capacity);
+        }
+        if (types.isEmpty()) {
+            return new Window(start, catalogVersion, System.currentTimeMillis(), List.of());
+        }
+
+        // Tariffs: the cheapest tariff covering a night wins over the base price
+        Query tariffQuery = entityManager.createNativeQuery("""
+                    SELECT t.room_type_id, t.start_date, t.end_date, t.price, t.currency
+                    FROM tariffs t
+                    JOIN room_types rt ON t.room_type_id = rt.id
+                    WHERE rt.hotel_id = :hotelId
+                        AND t.start_date < :end AND t.end_date >= :start
+                """);
+        tariffQuery.setParameter("hotelId", hotelId);
+        tariffQuery.setParameter("start", start);
+        tariffQuery.setParameter("end", end);
+        @SuppressWarnings("unchecked")
+        List<Object[]> tariffRows = tariffQuery.getResultList();
+
+        Map<String, double[]> tariffPrices = new HashMap<>();
+        Map<String, String> currencies = new HashMap<>();
+        for (Object[] row : tariffRows) {
+            String typeId = (String) row[0];
+            if (!types.containsKey(typeId)) {
+                continue;
+            }
+            double[] best = tariffPrices.computeIfAbsent(typeId, id -> {
+                double[] prices = new double[MAX_DAYS];
+                Arrays.fill(prices, Double.NaN);
+                return prices;
+            });
+            double price = ((Number) row[3]).doubleValue();
+            // Tariff end dates are inclusive (BETWEEN start_date AND end_date)
+            int from = Math.max(0, dayIndex(start, row[1]));
+            int to = Math.min(MAX_DAYS - 1, dayIndex(start, row[2]));
+            for (int i = from; i <= to; i++) {
+                if (Double.isNaN(best[i]) || price < best[i]) {
+                    best[i] = price;
+                }
+            }
+            if (row[4] != null) {
+                currencies.putIfAbsent(typeId, (String) row[4]);
+            }
+        }
+
+        // Booked rooms per type as a difference array over the window, swept into per-night counts
+        Query bookedQuery = entityManager.createNativeQuery("""
+                    SELECT COALESCE(br.room_type_id, r.room_type_id), br.check_in_date, br.check_out_date, COUNT(*)
+                    FROM booking_rooms br
+                    JOIN bookings b ON br.booking_id = b.id
+                    LEFT JOIN rooms r ON br.room_id = r.id
+                    WHERE b.hotel_id = :hotelId
+                        AND b.status NOT IN ('cancelled', 'no_show')
+                        AND br.check_in_date < :end AND br.check_out_date > :start
+                    GROUP BY COALESCE(br.room_type_id, r.room_type_id), br.check_in_date, br.check_out_date
+                """);
+        bookedQuery.setParameter("hotelId", hotelId);
+        bookedQuery.setParameter("start", start);
+        bookedQuery.setParameter("end", end);
+        @SuppressWarnings("unchecked")
+        List<Object[]> bookedRows = bookedQuery.getResultList();
+
+        Map<String, int[]> deltas = new HashMap<>();
+        for (Object[] row : bookedRows) {
+            if (row[0] == null || !types.containsKey(row[0])) {
+                continue;
+            }
+            int[] delta = deltas.computeIfAbsent((String) row[0], id -> new int[MAX_DAYS + 1]);
+            int count = ((Number) row[3]).intValue();
+            delta[Math.max(0, dayIndex(start, row[1]))] += count;
+            delta[Math.min(MAX_DAYS, dayIndex(start, row[2]))] -= count;
+        }
+        deltas.forEach((typeId, delta) -> {
+            int[] free = types.get(typeId).free();
+            int booked = 0;
+            for (int i = 0; i < MAX_DAYS; i++) {
+                booked += delta[i];
+                free[i] = Math.max(0, capacities.get(typeId) - booked);
+            }
+        });
+
+        // Nights already in the ledger are what createBooking will actually accept
+        Query ledgerQuery = entityManager.createNativeQuery("""
+                    SELECT inv.room_type_id, inv.stay_date, inv.remaining
+                    FROM room_type_inventory inv
+                    JOIN room_types rt ON inv.room_type_id = rt.id
+                    WHERE rt.hotel_id = :hotelId
+                        AND inv.stay_date >= :start AND inv.stay_date < :end
+                """);
+        ledgerQuery.setParameter("hotelId", hotelId);
+        ledgerQuery.setParameter("start", start);
+        ledgerQuery.setParameter("end", end);
+        @SuppressWarnings("unchecked")
+        List<Object[]> ledgerRows = ledgerQuery.getResultList();
+        for (Object[] row : ledgerRows) {
+            TypeNights type = types.get(row[0]);
+            if (type != null) {
+                type.free()[dayIndex(start, row[1])] = Math.max(0, ((Number) row[2]).intValue());
+            }
+        }
+
+        List<TypeNights> result = new ArrayList<>(types.size());
+        for (TypeNights type : types.values()) {
+            double[] tariffs = tariffPrices.get(type.id());
+            if (tariffs != null) {
+                for (int i = 0; i < MAX_DAYS; i++) {
+                    if (!Double.isNaN(tariffs[i])) {
+                        type.prices()[i] = tariffs[i];
+                    }
+                }
+            }
+            result.add(new TypeNights(type.id(), type.name(), type.maxOccupancy(),
+                    currencies.get(type.id()), type.prices(), type.free()));
+        }
+        return new Window(start, catalogVersion, System.currentTimeMillis(), result);
+    }
+
+    private static int dayIndex(LocalDate start, Object date) {
+        LocalDate day = date instanceof Date d ? d.toLocalDate() : LocalDate.parse(date.toString());
+        return (int) ChronoUnit.DAYS.between(start, day);
+    }
+}
@@ -0,0 +1,199 @@
+package com.hotelbooking.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Structured SQL log and per-fingerprint statistics, fed by the JDBC wrapper
+ * in QueryLoggingDataSource.
+ *
+ * The calling thread only drops an event into a bounded ring buffer (and
+ * drops the event if the buffer is full). A background thread fingerprints
+ * the SQL, folds the event into the statistics and logs it: always above the
+ * slow threshold, otherwise at the sample rate.
+ */
+@Service
+public class QueryLogService {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryLogService.class);
+
+    // Separate logger so the structured lines can be routed or silenced on their own
+    private static final Logger sqlLog = LoggerFactory.getLogger("sql.query");
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Value("${query-log.enabled:true}")
+    private boolean enabled;
+
+    @Value("${query-log.slow-threshold-ms:200}")
+    private long slowThresholdMs;
+
+    @Value("${query-log.sample-rate:0.01}")
+    private double sampleRate;
+
+    @Value("${query-log.buffer-size:10000}")
+    private int bufferSize;
+
+    @Value("${query-log.max-fingerprints:2000}")
+    private int maxFingerprints;
+
+    private record QueryEvent(String sql, int binds, long nanos, long rows) {
+    }
+
+    private static final class Stats {
+        final String fingerprint;
+        long count;
+        long totalNanos;
+        long maxNanos;
+        long rows;
+        long slowCount;
+
+        Stats(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private BlockingQueue<QueryEvent> buffer;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Only touched by the worker thread and by snapshots under its lock
+    private final Map<String, Stats> stats = new HashMap<>();
+
+    private Thread worker;
+
+    @PostConstruct
+    public void start() {
+        buffer = new ArrayBlockingQueue<>(bufferSize);
+        worker = new Thread(this::run, "query-log");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.interrupt();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Called on the JDBC thread; never blocks. */
+    public void record(String sql, int binds, long nanos, long rows) {
+        if (!enabled || sql == null) {
+            return;
+        }
+        if (!buffer.offer(new QueryEvent(sql, binds, nanos, rows))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /** Fingerprints ordered by total time spent, heaviest first. */
+    public Map<String, Object> getTopByTotalTime(int limit) {
+        List<Map<String, Object>> top = new ArrayList<>();
+        long totalStatements = 0;
+        synchronized (stats) {
+            List<Stats> sorted = new ArrayList<>(stats.values());
+            sorted.sort(Comparator.comparingLong((Stats s) -> s.totalNanos).reversed());
+            for (Stats s : sorted) {
+                totalStatements += s.count;
+            }
+            for (Stats s : sorted.subList(0, Math.min(limit, sorted.size()))) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("fingerprint", s.fingerprint);
+                row.put("count", s.count);
+                row.put("total_ms", s.totalNanos / 1_000_000.0);
+                row.put("avg_ms", s.totalNanos / 1_000_000.0 / s.count);
+                row.put("max_ms", s.maxNanos / 1_000_000.0);
+                row.put("avg_rows", (double) s.rows / s.count);
+                row.put("slow_count", s.slowCount);
+                top.add(row);
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("queries", top);
+        result.put("statements_seen", totalStatements);
+        result.put("events_dropped", dropped.get());
+        result.put("slow_threshold_ms", slowThresholdMs);
+        return result;
+    }
+
+    private void run() {
+        List<QueryEvent> batch = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                QueryEvent first = buffer.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, 500);
+                for (QueryEvent event : batch) {
+                    process(event);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.warn("Error processing query log events", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(QueryEvent event) {
+        String fingerprint = fingerprint(event.sql());
+        boolean slow = event.nanos() >= slowThresholdMs * 1_000_000;
+
+        synchronized (stats) {
+            Stats s = stats.get(fingerprint);
+            if (s == null) {
+                // Unbounded distinct SQL (e.g. generated IN lists) folds into one bucket
+                fingerprint = stats.size() < maxFingerprints ? fingerprint : "(other)";
+                s = stats.computeIfAbsent(fingerprint, Stats::new);
+            }
+            s.count++;
+            s.totalNanos += event.nanos();
+            s.maxNanos = Math.max(s.maxNanos, event.nanos());
+            s.rows += Math.max(0, event.rows());
+            if (slow) {
+                s.slowCount++;
+            }
+        }
+
+        if (slow) {
+            sqlLog.warn("slow_query duration_ms={} rows={} binds={} fingerprint_id={} sql=\"{}\"",
+                    event.nanos() / 1_000_000, event.rows(), event.binds(),
+                    Integer.toHexString(fingerprint.hashCode()), fingerprint);
+        } else if (ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            sqlLog.info("sampled_query duration_ms={} rows={} binds={} fingerprint_id={} sql=\"{}\"",
+                    event.nanos() / 1_000_000.0, event.rows(), event.binds(),
+                    Integer.toHexString(fingerprint.hashCode()), fingerprint);
+        }
+    }
+
+    /** SQL with literals replaced by ?, IN lists collapsed and whitespace normalised. */
+    static String fingerprint(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = IN_LIST.matcher(normalized).replaceAll("(?+)");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+}
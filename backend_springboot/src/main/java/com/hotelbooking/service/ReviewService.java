@@ -4,7 +4,6 @@ import com.hotelbooking.model.Booking;
 import com.hotelbooking.model.Guest;
 import com.hotelbooking.model.Review;
 import com.hotelbooking.repository.BookingRepository;
-import com.hotelbooking.repository.GuestRepository;
 import com.hotelbooking.repository.ReviewRepository;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
@@ -28,7 +27,10 @@ public class ReviewService {
     private BookingRepository bookingRepository;
 
     @Autowired
-    private GuestRepository guestRepository;
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private ActivityStreamService activityStreamService;
 
     @PersistenceContext
     private EntityManager entityManager;
@@ -129,7 +131,7 @@ public class ReviewService {
     public Map<String, Object> createReview(Map<String, Object> payload, String guestId) {
         String bookingId = (String) payload.get("booking_id");
 
-        Booking booking = bookingRepository.findById(bookingId)
+        Booking booking = bookingRepository.findForReviewById(bookingId)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
 
         if (!booking.getGuest().getId().equals(guestId)) {
@@ -145,8 +147,8 @@ public class ReviewService {
             throw new RuntimeException("Review already exists for this booking");
         }
 
-        Guest guest = guestRepository.findById(guestId)
-                .orElseThrow(() -> new RuntimeException("Guest not found"));
+        // Guest is fetched with the booking (Booking.review graph)
+        Guest guest = booking.getGuest();
 
         Review review = new Review();
         review.setBooking(booking);
@@ -168,6 +170,14 @@ public class ReviewService {
             review.setValueRating(Integer.parseInt(payload.get("value_rating").toString()));
 
         Review saved = reviewRepository.save(review);
+        catalogVersionService.bump(saved.getHotelId());
+
+        Map<String, Object> activity = new HashMap<>();
+        activity.put("id", saved.getId());
+        activity.put("user_name", guest.getFirstName() + " " + guest.getLastName());
+        activity.put("hotel_name", booking.getHotel().getName());
+        activity.put("rating", saved.getRating());
+        activityStreamService.publish("review", saved.getHotelId(), activity);
 
         Map<String, Object> result = new HashMap<>();
         result.put("id", saved.getId());
@@ -182,6 +192,7 @@ public class ReviewService {
         review.setResponse(response);
         review.setResponseBy(adminId);
         reviewRepository.save(review);
+        catalogVersionService.bump(review.getHotelId());
     }
 
     @Transactional
@@ -191,6 +202,7 @@ public class ReviewService {
 
         review.setHelpfulCount((review.getHelpfulCount() != null ? review.getHelpfulCount() : 0) + 1);
         reviewRepository.save(review);
+        catalogVersionService.bump(review.getHotelId());
     }
 
     @Transactional
@@ -203,5 +215,6 @@ public class ReviewService {
         }
 
         reviewRepository.delete(review);
+        catalogVersionService.bump(review.getHotelId());
     }
 }
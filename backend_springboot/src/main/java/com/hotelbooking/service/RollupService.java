@@ -0,0 +1,298 @@
+package com.hotelbooking.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains daily_hotel_stats and answers dashboard/report totals from it.
+ *
+ * A background job collects the (hotel, day) pairs touched by bookings and
+ * payments updated since the stored watermark, recomputes exactly those rows
+ * from the raw tables, then advances the watermark. Recomputing a day is
+ * idempotent, so the scan window overlaps the previous run a little to cover
+ * transactions that committed late, and concurrent runs on several nodes are
+ * harmless. Totals lag writes by at most rollup.refresh-seconds.
+ */
+@Service
+public class RollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(RollupService.class);
+
+    private static final String WATERMARK = "daily_hotel_stats";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${rollup.refresh-seconds:60}")
+    private long refreshSeconds;
+
+    @Value("${rollup.overlap-seconds:120}")
+    private long overlapSeconds;
+
+    @Value("${rollup.batch-size:200}")
+    private int batchSize;
+
+    private ScheduledExecutorService scheduler;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "daily-rollup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (Exception e) {
+                log.error("Error refreshing daily hotel stats", e);
+            }
+        }, 0, refreshSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /** Rolls up everything changed since the last run. Returns the number of (hotel, day) rows rebuilt. */
+    public int refresh() {
+        // Each shard keeps the rollups and watermark of its own hotels
+        return shardRouter.gather(this::refreshShard).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    private int refreshShard() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        LocalDateTime runStartedAt = toLocalDateTime(entityManager.createNativeQuery("SELECT NOW()").getSingleResult());
+        LocalDateTime since = loadWatermark().minusSeconds(overlapSeconds);
+
+        Query changed = entityManager.createNativeQuery("""
+                    SELECT hotel_id, DATE(created_at) FROM bookings
+                    WHERE updated_at >= :since
+                    UNION
+                    SELECT hotel_id, DATE(COALESCE(cancelled_at, updated_at)) FROM bookings
+                    WHERE updated_at >= :since AND status = 'cancelled'
+                    UNION
+                    SELECT b.hotel_id, DATE(p.payment_date) FROM payments p
+                    JOIN bookings b ON p.booking_id = b.id
+                    WHERE p.updated_at >= :since
+                """);
+        changed.setParameter("since", since);
+        @SuppressWarnings("unchecked")
+        List<Object[]> keys = new ArrayList<>(changed.getResultList());
+        keys.removeIf(key -> key[0] == null || key[1] == null);
+
+        for (int from = 0; from < keys.size(); from += batchSize) {
+            List<Object[]> batch = keys.subList(from, Math.min(from + batchSize, keys.size()));
+            tx.executeWithoutResult(status -> batch.forEach(key -> rebuild((String) key[0], toLocalDate(key[1]))));
+        }
+
+        tx.executeWithoutResult(status -> {
+            Query advance = entityManager.createNativeQuery("""
+                        INSERT INTO rollup_watermarks (name, watermark) VALUES (:name, :watermark)
+                        ON DUPLICATE KEY UPDATE watermark = GREATEST(watermark, VALUES(watermark))
+                    """);
+            advance.setParameter("name", WATERMARK);
+            advance.setParameter("watermark", runStartedAt);
+            advance.executeUpdate();
+        });
+
+        if (!keys.isEmpty()) {
+            log.info("Rebuilt {} daily hotel stats rows", keys.size());
+        }
+        return keys.size();
+    }
+
+    private void rebuild(String hotelId, LocalDate day) {
+        Query rebuild = entityManager.createNativeQuery("""
+                    REPLACE INTO daily_hotel_stats
+                        (hotel_id, stat_date, bookings_created, nights_sold, revenue, cancellations,
+                         payments_count, payments_amount, refunds, refreshed_at)
+                    SELECT :hotelId, :day,
+                        (SELECT COUNT(*) FROM bookings b
+                         WHERE b.hotel_id = :hotelId AND b.created_at >= :day AND b.created_at < :next),
+                        (SELECT COALESCE(SUM(DATEDIFF(br.check_out_date, br.check_in_date)), 0)
+                         FROM booking_rooms br JOIN bookings b ON br.booking_id = b.id
+                         WHERE b.hotel_id = :hotelId AND b.created_at >= :day AND b.created_at < :next
+                         AND b.status IN ('confirmed', 'checked_in', 'checked_out', 'completed')),
+                        (SELECT COALESCE(SUM(b.final_amount), 0) FROM bookings b
+                         WHERE b.hotel_id = :hotelId AND b.created_at >= :day AND b.created_at < :next
+                         AND b.status IN ('confirmed', 'checked_in', 'checked_out', 'completed')),
+                        (SELECT COUNT(*) FROM bookings b
+                         WHERE b.hotel_id = :hotelId AND b.status = 'cancelled'
+                         AND COALESCE(b.cancelled_at, b.updated_at) >= :day
+                         AND COALESCE(b.cancelled_at, b.updated_at) < :next),
+                        (SELECT COUNT(*) FROM payments p JOIN bookings b ON p.booking_id = b.id
+                         WHERE b.hotel_id = :hotelId AND p.payment_date >= :day AND p.payment_date < :next),
+                        (SELECT COALESCE(SUM(p.amount), 0) FROM payments p JOIN bookings b ON p.booking_id = b.id
+                         WHERE b.hotel_id = :hotelId AND p.payment_date >= :day AND p.payment_date < :next
+                         AND (p.transaction_id IS NULL OR LEFT(p.transaction_id, 7) != 'REFUND_')),
+                        (SELECT COALESCE(SUM(p.amount), 0) FROM payments p JOIN bookings b ON p.booking_id = b.id
+                         WHERE b.hotel_id = :hotelId AND p.payment_date >= :day AND p.payment_date < :next
+                         AND LEFT(p.transaction_id, 7) = 'REFUND_'),
+                        NOW()
+                """);
+        rebuild.setParameter("hotelId", hotelId);
+        rebuild.setParameter("day", day);
+        rebuild.setParameter("next", day.plusDays(1));
+        rebuild.executeUpdate();
+    }
+
+    private LocalDateTime loadWatermark() {
+        Query query = entityManager.createNativeQuery("SELECT watermark FROM rollup_watermarks WHERE name = :name");
+        query.setParameter("name", WATERMARK);
+        List<?> result = query.getResultList();
+        return result.isEmpty() ? LocalDateTime.of(1970, 1, 2, 0, 0) : toLocalDateTime(result.get(0));
+    }
+
+    // ==================== READS ====================
+
+    /** All-time totals, optionally for one hotel (read on the current shard, which holds it). */
+    public Map<String, Object> getTotals(String hotelId) {
+        if (hotelId != null) {
+            return queryTotals(hotelId);
+        }
+        return sumStats(shardRouter.gather(() -> queryTotals(null)));
+    }
+
+    private Map<String, Object> queryTotals(String hotelId) {
+        String sql = """
+                    SELECT COALESCE(SUM(bookings_created), 0), COALESCE(SUM(nights_sold), 0),
+                           COALESCE(SUM(revenue), 0), COALESCE(SUM(cancellations), 0),
+                           COALESCE(SUM(payments_count), 0), COALESCE(SUM(payments_amount), 0),
+                           COALESCE(SUM(refunds), 0)
+                    FROM daily_hotel_stats
+                """;
+        if (hotelId != null) {
+            sql += " WHERE hotel_id = :hotelId";
+        }
+        Query query = entityManager.createNativeQuery(sql);
+        if (hotelId != null) {
+            query.setParameter("hotelId", hotelId);
+        }
+        return toStatsMap((Object[]) query.getSingleResult());
+    }
+
+    /** One row per day in [from, to], summed across hotels unless hotelId is given. */
+    public List<Map<String, Object>> getDailyStats(String hotelId, LocalDate from, LocalDate to) {
+        if (hotelId != null || !shardRouter.isEnabled()) {
+            return queryDailyStats(hotelId, from, to);
+        }
+        Map<String, List<Map<String, Object>>> byDate = new TreeMap<>();
+        for (Map<String, Object> day : shardRouter.gatherAll(() -> queryDailyStats(null, from, to))) {
+            byDate.computeIfAbsent((String) day.get("date"), d -> new ArrayList<>()).add(day);
+        }
+        List<Map<String, Object>> days = new ArrayList<>();
+        byDate.forEach((date, parts) -> {
+            Map<String, Object> day = sumStats(parts);
+            day.put("date", date);
+            days.add(day);
+        });
+        return days;
+    }
+
+    private List<Map<String, Object>> queryDailyStats(String hotelId, LocalDate from, LocalDate to) {
+        String sql = """
+                    SELECT SUM(bookings_created), SUM(nights_sold), SUM(revenue), SUM(cancellations),
+                           SUM(payments_count), SUM(payments_amount), SUM(refunds), stat_date
+                    FROM daily_hotel_stats
+                    WHERE stat_date >= :from AND stat_date <= :to
+                """;
+        if (hotelId != null) {
+            sql += " AND hotel_id = :hotelId";
+        }
+        sql += " GROUP BY stat_date ORDER BY stat_date";
+
+        Query query = entityManager.createNativeQuery(sql);
+        query.setParameter("from", from);
+        query.setParameter("to", to);
+        if (hotelId != null) {
+            query.setParameter("hotelId", hotelId);
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+        List<Map<String, Object>> days = new ArrayList<>();
+        for (Object[] row : rows) {
+            Map<String, Object> day = toStatsMap(row);
+            day.put("date", row[7] != null ? row[7].toString() : null);
+            days.add(day);
+        }
+        return days;
+    }
+
+    private Map<String, Object> toStatsMap(Object[] row) {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("bookings_created", toLong(row[0]));
+        stats.put("nights_sold", toLong(row[1]));
+        stats.put("revenue", toDouble(row[2]));
+        stats.put("cancellations", toLong(row[3]));
+        stats.put("payments_count", toLong(row[4]));
+        stats.put("payments_amount", toDouble(row[5]));
+        stats.put("refunds", toDouble(row[6]));
+        return stats;
+    }
+
+    /** Adds up stats maps from several shards. */
+    private static Map<String, Object> sumStats(List<Map<String, Object>> parts) {
+        Map<String, Object> sum = new HashMap<>();
+        for (Map<String, Object> part : parts) {
+            part.forEach((key, value) -> {
+                if (value instanceof Long l) {
+                    sum.merge(key, l, (a, b) -> (Long) a + (Long) b);
+                } else if (value instanceof Double d) {
+                    sum.merge(key, d, (a, b) -> (Double) a + (Double) b);
+                }
+            });
+        }
+        return sum;
+    }
+
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    private static double toDouble(Object value) {
+        return value != null ? ((Number) value).doubleValue() : 0.0;
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof Date d ? d.toLocalDate() : LocalDate.parse(value.toString());
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp ts) {
+            return ts.toLocalDateTime();
+        }
+        return value instanceof LocalDateTime ldt ? ldt : LocalDateTime.parse(value.toString().replace(' ', 'T'));
+    }
+}
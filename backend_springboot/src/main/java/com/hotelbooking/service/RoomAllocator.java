@@ -0,0 +1,141 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.model.Room;
+import com.hotelbooking.repository.RoomRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Picks the concrete room for a stay sold by room type, at check-in once the
+ * room-type ledger has admitted the booking by count.
+ *
+ * A room is free when none of its assigned stays overlaps the dates, whatever
+ * its current status says, so a room whose guest leaves today can be given
+ * out; only rooms in maintenance or blocked are left out. Instead of the
+ * first free room, every free room of the type is scored by the gaps the
+ * stay would leave to its neighbouring booked nights: the room with the
+ * smallest near-side gap wins (ideally the stay butts onto an existing one),
+ * then the smallest far-side gap, then the lowest room number. Packing stays
+ * against each other leaves long free runs in the other rooms instead of
+ * one- and two-night holes. Nights further than
+ * booking.allocation.horizon-nights away count as open.
+ *
+ * bestFit is pure so scripts/allocation-sim.sh can replay it against
+ * first-free allocation.
+ */
+@Service
+public class RoomAllocator {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Value("${booking.allocation.horizon-nights:30}")
+    private int horizonNights;
+
+    /** A free-for-sale room and its booked stays near the request, as [checkIn, checkOut) epoch days. */
+    public record Candidate(String roomId, String roomNumber, List<long[]> stays) {
+    }
+
+    /**
+     * Best-fit room of the type that is free for [checkIn, checkOut), or null
+     * when none is. Reads assignments made earlier in the same transaction.
+     */
+    public Room allocate(String roomTypeId, String hotelId, LocalDate checkIn, LocalDate checkOut) {
+        List<Room> rooms = roomRepository.findAllocatableRooms(roomTypeId, hotelId);
+        if (rooms.isEmpty()) {
+            return null;
+        }
+
+        Map<String, Candidate> candidates = new HashMap<>();
+        Map<String, Room> roomsById = new HashMap<>();
+        for (Room room : rooms) {
+            candidates.put(room.getId(), new Candidate(room.getId(), room.getRoomNumber(), new ArrayList<>()));
+            roomsById.put(room.getId(), room);
+        }
+
+        // Only stays within the horizon can change a room's score
+        Query stays = entityManager.createNativeQuery("""
+                    SELECT br.room_id, br.check_in_date, br.check_out_date
+                    FROM booking_rooms br
+                    JOIN bookings b ON br.booking_id = b.id
+                    WHERE br.room_id IN (:roomIds)
+                    AND b.status NOT IN ('cancelled', 'no_show')
+                    AND br.check_out_date > :from AND br.check_in_date < :to
+                """);
+        stays.setParameter("roomIds", roomsById.keySet());
+        stays.setParameter("from", checkIn.minusDays(horizonNights));
+        stays.setParameter("to", checkOut.plusDays(horizonNights));
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = stays.getResultList();
+        for (Object[] row : rows) {
+            candidates.get((String) row[0]).stays().add(new long[]{
+                    ((Date) row[1]).toLocalDate().toEpochDay(), ((Date) row[2]).toLocalDate().toEpochDay()});
+        }
+
+        Candidate best = bestFit(new ArrayList<>(candidates.values()),
+                checkIn.toEpochDay(), checkOut.toEpochDay(), horizonNights);
+        return best != null ? roomsById.get(best.roomId()) : null;
+    }
+
+    /** Best-scoring candidate free for [checkIn, checkOut), or null when every candidate conflicts. */
+    public static Candidate bestFit(List<Candidate> candidates, long checkIn, long checkOut, int horizonNights) {
+        Candidate best = null;
+        long bestNear = 0;
+        long bestFar = 0;
+        for (Candidate candidate : candidates) {
+            long previousEnd = checkIn - horizonNights;
+            long nextStart = checkOut + horizonNights;
+            boolean free = true;
+            for (long[] stay : candidate.stays()) {
+                if (stay[0] < checkOut && stay[1] > checkIn) {
+                    free = false;
+                    break;
+                }
+                if (stay[1] <= checkIn) {
+                    previousEnd = Math.max(previousEnd, stay[1]);
+                } else {
+                    nextStart = Math.min(nextStart, stay[0]);
+                }
+            }
+            if (!free) {
+                continue;
+            }
+
+            long before = checkIn - previousEnd;
+            long after = nextStart - checkOut;
+            long near = Math.min(before, after);
+            long far = Math.max(before, after);
+            if (best == null || near < bestNear
+                    || (near == bestNear && far < bestFar)
+                    || (near == bestNear && far == bestFar
+                        && compareRoomNumbers(candidate.roomNumber(), best.roomNumber()) < 0)) {
+                best = candidate;
+                bestNear = near;
+                bestFar = far;
+            }
+        }
+        return best;
+    }
+
+    private static int compareRoomNumbers(String a, String b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : 1) : -1;
+        }
+        return a.length() != b.length() ? Integer.compare(a.length(), b.length()) : a.compareTo(b);
+    }
+}
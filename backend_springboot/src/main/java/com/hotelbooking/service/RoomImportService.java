@@ -0,0 +1,361 @@
+package com.hotelbooking.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelbooking.model.UuidV7;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Bulk onboarding of room types, rooms and tariffs for one hotel.
+ *
+ * The upload (CSV with a header row, or JSON lines) is validated row by row
+ * while it streams in. Valid rows are buffered into chunks and written with
+ * JDBC batch inserts (rewritten into multi-row INSERTs by the MySQL driver),
+ * one transaction per chunk. IDs are generated in the application, so there
+ * is no per-row round trip. Invalid rows are reported with their line number
+ * and do not stop the import.
+ *
+ * Every row carries a {@code kind} of room_type, room or tariff. Rooms and
+ * tariffs reference their room type by name - either an existing type of the
+ * hotel or one defined on an earlier line of the same file.
+ */
+@Service
+public class RoomImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomImportService.class);
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Value("${import.chunk-size:500}")
+    private int chunkSize;
+
+    public enum Format {
+        CSV, JSON_LINES
+    }
+
+    private static class Chunk {
+        final List<Object[]> roomTypes = new ArrayList<>();
+        final List<Object[]> rooms = new ArrayList<>();
+        final List<Object[]> tariffs = new ArrayList<>();
+        final List<Integer> lines = new ArrayList<>();
+
+        int size() {
+            return lines.size();
+        }
+    }
+
+    private static class ImportState {
+        final String hotelId;
+        final Map<String, String> roomTypeIds = new HashMap<>(); // lower-case name -> id
+        final Set<String> roomNumbers = new HashSet<>();
+        final List<Map<String, Object>> errors = new ArrayList<>();
+        final Map<String, Integer> roomsAddedByType = new HashMap<>();
+        int rowsRead;
+        int errorCount;
+        int roomTypesCreated;
+        int roomsCreated;
+        int tariffsCreated;
+
+        ImportState(String hotelId) {
+            this.hotelId = hotelId;
+        }
+
+        void error(int line, String message) {
+            errorCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(Map.of("line", line, "error", message));
+            }
+        }
+    }
+
+    public Map<String, Object> importRooms(String hotelId, InputStream input, Format format) throws IOException {
+        Integer hotelCount = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM hotels WHERE id = ?", Integer.class, hotelId);
+        if (hotelCount == null || hotelCount == 0) {
+            throw new RuntimeException("Hotel not found");
+        }
+
+        ImportState state = new ImportState(hotelId);
+        jdbcTemplate.query("SELECT id, name FROM room_types WHERE hotel_id = ?",
+                rs -> {
+                    state.roomTypeIds.put(rs.getString("name").toLowerCase(), rs.getString("id"));
+                }, hotelId);
+        jdbcTemplate.query("SELECT room_number FROM rooms WHERE hotel_id = ?",
+                rs -> {
+                    state.roomNumbers.add(rs.getString("room_number"));
+                }, hotelId);
+
+        long start = System.currentTimeMillis();
+        Chunk chunk = new Chunk();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String[] header = null;
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                Map<String, String> row;
+                try {
+                    if (format == Format.CSV) {
+                        if (header == null) {
+                            header = splitCsv(line);
+                            continue;
+                        }
+                        row = toRow(header, splitCsv(line));
+                    } else {
+                        row = parseJsonLine(line);
+                    }
+                } catch (Exception e) {
+                    state.rowsRead++;
+                    state.error(lineNumber, "Malformed row: " + e.getMessage());
+                    continue;
+                }
+
+                state.rowsRead++;
+                String error = validateAndBuffer(row, lineNumber, state, chunk);
+                if (error != null) {
+                    state.error(lineNumber, error);
+                }
+
+                if (chunk.size() >= chunkSize) {
+                    flush(chunk, state);
+                    chunk = new Chunk();
+                }
+            }
+        }
+        flush(chunk, state);
+
+        // Ledger rows already created for existing types must grow with their new rooms
+        state.roomsAddedByType.forEach(inventoryService::adjustCapacity);
+
+        if (state.roomTypesCreated + state.roomsCreated + state.tariffsCreated > 0) {
+            catalogVersionService.bump(hotelId);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("rows_read", state.rowsRead);
+        result.put("room_types_created", state.roomTypesCreated);
+        result.put("rooms_created", state.roomsCreated);
+        result.put("tariffs_created", state.tariffsCreated);
+        result.put("error_count", state.errorCount);
+        result.put("errors", state.errors);
+        result.put("duration_ms", System.currentTimeMillis() - start);
+        return result;
+    }
+
+    private String validateAndBuffer(Map<String, String> row, int line, ImportState state, Chunk chunk) {
+        String kind = row.get("kind");
+        if (kind == null) {
+            return "Missing kind (room_type, room or tariff)";
+        }
+
+        try {
+            switch (kind.toLowerCase()) {
+                case "room_type" -> {
+                    String name = row.get("name");
+                    if (name == null) {
+                        return "Room type name is required";
+                    }
+                    if (state.roomTypeIds.containsKey(name.toLowerCase())) {
+                        return "Room type '" + name + "' already exists";
+                    }
+                    Integer maxOccupancy = parseInt(row.get("max_occupancy"));
+                    if (maxOccupancy == null || maxOccupancy < 1) {
+                        return "max_occupancy must be a positive number";
+                    }
+                    String id = UuidV7.next();
+                    state.roomTypeIds.put(name.toLowerCase(), id);
+                    chunk.roomTypes.add(new Object[] { id, state.hotelId, name, row.get("description"),
+                            maxOccupancy, row.get("bed_type"), row.get("amenities"),
+                            parseDouble(row.get("base_price")) });
+                }
+                case "room" -> {
+                    String roomTypeId = resolveRoomType(row, state);
+                    if (roomTypeId == null) {
+                        return "Unknown room type '" + row.get("room_type") + "'";
+                    }
+                    String roomNumber = row.get("room_number");
+                    if (roomNumber == null) {
+                        return "room_number is required";
+                    }
+                    if (!state.roomNumbers.add(roomNumber)) {
+                        return "Room number " + roomNumber + " already exists";
+                    }
+                    chunk.rooms.add(new Object[] { UuidV7.next(), state.hotelId, roomTypeId,
+                            roomNumber, row.get("floor"), "available", true });
+                }
+                case "tariff" -> {
+                    String roomTypeId = resolveRoomType(row, state);
+                    if (roomTypeId == null) {
+                        return "Unknown room type '" + row.get("room_type") + "'";
+                    }
+                    Double price = parseDouble(row.get("price"));
+                    if (price == null || price < 0) {
+                        return "price must be a non-negative number";
+                    }
+                    LocalDate startDate = LocalDate.parse(row.get("start_date"));
+                    LocalDate endDate = LocalDate.parse(row.get("end_date"));
+                    if (!endDate.isAfter(startDate)) {
+                        return "end_date must be after start_date";
+                    }
+                    chunk.tariffs.add(new Object[] { UuidV7.next(), roomTypeId, price,
+                            row.getOrDefault("currency", "USD"), Date.valueOf(startDate), Date.valueOf(endDate),
+                            Boolean.parseBoolean(row.get("is_weekend")) });
+                }
+                default -> {
+                    return "Unknown kind '" + kind + "'";
+                }
+            }
+        } catch (RuntimeException e) {
+            return "Invalid value: " + e.getMessage();
+        }
+
+        chunk.lines.add(line);
+        return null;
+    }
+
+    private String resolveRoomType(Map<String, String> row, ImportState state) {
+        String name = row.get("room_type");
+        return name != null ? state.roomTypeIds.get(name.toLowerCase()) : null;
+    }
+
+    /** Writes one chunk in its own transaction - types first so rooms and tariffs can reference them. */
+    private void flush(Chunk chunk, ImportState state) {
+        if (chunk.size() == 0) {
+            return;
+        }
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate("""
+                        INSERT INTO room_types (id, hotel_id, name, description, max_occupancy, bed_type, amenities, base_price)
+                        VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                        """, chunk.roomTypes);
+                jdbcTemplate.batchUpdate("""
+                        INSERT INTO rooms (id, hotel_id, room_type_id, room_number, floor, status, is_active)
+                        VALUES (?, ?, ?, ?, ?, ?, ?)
+                        """, chunk.rooms);
+                jdbcTemplate.batchUpdate("""
+                        INSERT INTO tariffs (id, room_type_id, price, currency, start_date, end_date, is_weekend)
+                        VALUES (?, ?, ?, ?, ?, ?, ?)
+                        """, chunk.tariffs);
+            });
+            state.roomTypesCreated += chunk.roomTypes.size();
+            state.roomsCreated += chunk.rooms.size();
+            for (Object[] room : chunk.rooms) {
+                state.roomsAddedByType.merge((String) room[2], 1, Integer::sum);
+            }
+            state.tariffsCreated += chunk.tariffs.size();
+        } catch (Exception e) {
+            log.error("Error writing import chunk for hotel: " + state.hotelId, e);
+            // Room types of a failed chunk were never written - later rows must not reference them
+            Set<Object> lostTypes = new HashSet<>();
+            for (Object[] roomType : chunk.roomTypes) {
+                lostTypes.add(roomType[0]);
+            }
+            state.roomTypeIds.values().removeIf(lostTypes::contains);
+            for (Object[] room : chunk.rooms) {
+                state.roomNumbers.remove((String) room[3]);
+            }
+            for (Integer line : chunk.lines) {
+                state.error(line, "Chunk rolled back: " + e.getMessage());
+            }
+        }
+    }
+
+    private Map<String, String> parseJsonLine(String line) throws IOException {
+        Map<String, Object> raw = objectMapper.readValue(line, new TypeReference<Map<String, Object>>() {
+        });
+        Map<String, String> row = new HashMap<>();
+        raw.forEach((k, v) -> {
+            if (v != null) {
+                row.put(k, v.toString());
+            }
+        });
+        return row;
+    }
+
+    private Map<String, String> toRow(String[] header, String[] values) {
+        Map<String, String> row = new HashMap<>();
+        for (int i = 0; i < header.length && i < values.length; i++) {
+            if (!values[i].isEmpty()) {
+                row.put(header[i].trim(), values[i]);
+            }
+        }
+        return row;
+    }
+
+    /** Splits one CSV line, honouring double-quoted fields with "" escapes. */
+    static String[] splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quote");
+        }
+        fields.add(current.toString().trim());
+        return fields.toArray(new String[0]);
+    }
+
+    private Integer parseInt(String value) {
+        return value != null ? Integer.parseInt(value.trim()) : null;
+    }
+
+    private Double parseDouble(String value) {
+        return value != null ? Double.parseDouble(value.trim()) : null;
+    }
+}
@@ -16,6 +16,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -34,6 +35,12 @@ public class RoomService {
     @Autowired
     private HotelRepository hotelRepository;
 
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
     @PersistenceContext
     private EntityManager entityManager;
 
@@ -72,7 +79,9 @@ public class RoomService {
                         : null);
         roomType.setAmenities((String) payload.get("amenities"));
 
-        return roomTypeRepository.save(roomType);
+        RoomType saved = roomTypeRepository.save(roomType);
+        catalogVersionService.bump(hotelId);
+        return saved;
     }
 
     @Transactional
@@ -90,6 +99,7 @@ public class RoomService {
             roomType.setAmenities((String) payload.get("amenities"));
 
         roomTypeRepository.save(roomType);
+        catalogVersionService.bump(roomType.getHotel().getId());
     }
 
     @Transactional
@@ -98,7 +108,10 @@ public class RoomService {
         if (roomCount > 0) {
             throw new RuntimeException("Cannot delete room type with existing rooms");
         }
-        roomTypeRepository.deleteById(id);
+        roomTypeRepository.findById(id).ifPresent(roomType -> {
+            roomTypeRepository.delete(roomType);
+            catalogVersionService.bump(roomType.getHotel().getId());
+        });
     }
 
     // ==================== ROOMS ====================
@@ -118,9 +131,41 @@ public class RoomService {
                 """;
         Query query = entityManager.createNativeQuery(sql);
         query.setParameter("hotelId", hotelId);
-        return convertToMapList(query.getResultList(),
+        List<Map<String, Object>> rooms = convertToMapList(query.getResultList(),
                 new String[] { "id", "hotel_id", "room_type_id", "room_number", "floor", "status", "notes", "is_active",
                         "type_name", "max_occupancy", "is_currently_booked" });
+
+        // Bookings sold by type get their room at check-in; until then each one holds some free
+        // room of its type, so mark that many of the type's free rooms as booked
+        String heldSql = """
+                    SELECT br.room_type_id, COUNT(*)
+                    FROM booking_rooms br
+                    JOIN bookings b ON br.booking_id = b.id
+                    JOIN room_types rt ON br.room_type_id = rt.id
+                    WHERE rt.hotel_id = :hotelId AND br.room_id IS NULL
+                    AND b.status IN ('confirmed', 'checked_in')
+                    AND CURDATE() BETWEEN b.check_in_date AND b.check_out_date
+                    GROUP BY br.room_type_id
+                """;
+        Query heldQuery = entityManager.createNativeQuery(heldSql);
+        heldQuery.setParameter("hotelId", hotelId);
+        Map<String, Integer> heldByType = new HashMap<>();
+        for (Object row : heldQuery.getResultList()) {
+            Object[] cols = (Object[]) row;
+            heldByType.put((String) cols[0], ((Number) cols[1]).intValue());
+        }
+        if (heldByType.isEmpty()) {
+            return rooms;
+        }
+        for (Map<String, Object> room : rooms) {
+            Integer held = heldByType.get((String) room.get("room_type_id"));
+            if (held != null && held > 0 && ((Number) room.get("is_currently_booked")).intValue() == 0
+                    && "available".equals(room.get("status"))) {
+                room.put("is_currently_booked", 1);
+                heldByType.put((String) room.get("room_type_id"), held - 1);
+            }
+        }
+        return rooms;
     }
 
     @Transactional
@@ -140,7 +185,10 @@ public class RoomService {
         room.setFloor((String) payload.get("floor"));
         room.setStatus("available");
 
-        return roomRepository.save(room);
+        Room saved = roomRepository.save(room);
+        inventoryService.adjustCapacity(roomTypeId, 1);
+        catalogVersionService.bump(hotelId);
+        return saved;
     }
 
     @Transactional
@@ -152,10 +200,20 @@ public class RoomService {
             room.setRoomNumber((String) payload.get("room_number"));
         if (payload.containsKey("floor"))
             room.setFloor((String) payload.get("floor"));
-        if (payload.containsKey("status"))
-            room.setStatus((String) payload.get("status"));
+        if (payload.containsKey("status")) {
+            String oldStatus = room.getStatus();
+            String newStatus = (String) payload.get("status");
+            room.setStatus(newStatus);
+            // Blocked rooms are not sellable
+            if (!"blocked".equals(oldStatus) && "blocked".equals(newStatus)) {
+                inventoryService.adjustCapacity(room.getRoomType().getId(), -1);
+            } else if ("blocked".equals(oldStatus) && !"blocked".equals(newStatus)) {
+                inventoryService.adjustCapacity(room.getRoomType().getId(), 1);
+            }
+        }
 
         roomRepository.save(room);
+        catalogVersionService.bump(room.getHotel().getId());
     }
 
     @Transactional
@@ -163,8 +221,12 @@ public class RoomService {
         // Soft delete
         Room room = roomRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Room not found"));
+        if (!"blocked".equals(room.getStatus())) {
+            inventoryService.adjustCapacity(room.getRoomType().getId(), -1);
+        }
         room.setStatus("blocked");
         roomRepository.save(room);
+        catalogVersionService.bump(room.getHotel().getId());
     }
 
     // ==================== TARIFFS ====================
@@ -197,6 +259,7 @@ public class RoomService {
         tariff.setEndDate(LocalDate.parse((String) payload.get("end_date")));
 
         tariffRepository.save(tariff);
+        catalogVersionService.bump(roomType.getHotel().getId());
     }
 
     @Transactional
@@ -212,37 +275,60 @@ public class RoomService {
             tariff.setEndDate(LocalDate.parse((String) payload.get("end_date")));
 
         tariffRepository.save(tariff);
+        catalogVersionService.bump(tariff.getRoomType().getHotel().getId());
     }
 
     @Transactional
     public void deleteTariff(String id) {
-        tariffRepository.deleteById(id);
+        tariffRepository.findById(id).ifPresent(tariff -> {
+            tariffRepository.delete(tariff);
+            catalogVersionService.bump(tariff.getRoomType().getHotel().getId());
+        });
     }
 
     // ==================== AVAILABILITY ====================
 
     public List<Map<String, Object>> getAvailabilityCalendar(String hotelId, String startDate, String endDate) {
+        // Bookings sold by type have no room until check-in; they are listed after the rooms
         String sql = """
-                    SELECT
-                        r.id, r.room_number, r.floor,
-                        rt.name as type_name,
-                        ab.booking_id,
-                        ab.check_in_date,
-                        ab.check_out_date,
-                        ab.status,
-                        CONCAT(g.first_name, ' ', g.last_name) as guest_name
-                    FROM rooms r
-                    JOIN room_types rt ON r.room_type_id = rt.id
-                    LEFT JOIN (
-                        SELECT br.room_id, b.id as booking_id, b.check_in_date, b.check_out_date, b.status, b.guest_id
+                    SELECT * FROM (
+                        SELECT
+                            r.id, r.room_number, r.floor,
+                            rt.name as type_name,
+                            ab.booking_id,
+                            ab.check_in_date,
+                            ab.check_out_date,
+                            ab.status,
+                            CONCAT(g.first_name, ' ', g.last_name) as guest_name
+                        FROM rooms r
+                        JOIN room_types rt ON r.room_type_id = rt.id
+                        LEFT JOIN (
+                            SELECT br.room_id, b.id as booking_id, b.check_in_date, b.check_out_date, b.status, b.guest_id
+                            FROM booking_rooms br
+                            JOIN bookings b ON br.booking_id = b.id
+                            WHERE b.status IN ('confirmed', 'checked_in')
+                            AND (b.check_in_date <= :endDate AND b.check_out_date >= :startDate)
+                        ) ab ON r.id = ab.room_id
+                        LEFT JOIN guests g ON ab.guest_id = g.id
+                        WHERE r.hotel_id = :hotelId AND r.is_active = TRUE
+                        UNION ALL
+                        SELECT
+                            NULL, NULL, NULL,
+                            rt.name,
+                            b.id,
+                            b.check_in_date,
+                            b.check_out_date,
+                            b.status,
+                            CONCAT(g.first_name, ' ', g.last_name)
                         FROM booking_rooms br
                         JOIN bookings b ON br.booking_id = b.id
-                        WHERE b.status IN ('confirmed', 'checked_in')
+                        JOIN room_types rt ON br.room_type_id = rt.id
+                        JOIN guests g ON b.guest_id = g.id
+                        WHERE rt.hotel_id = :hotelId AND br.room_id IS NULL
+                        AND b.status IN ('confirmed', 'checked_in')
                         AND (b.check_in_date <= :endDate AND b.check_out_date >= :startDate)
-                    ) ab ON r.id = ab.room_id
-                    LEFT JOIN guests g ON ab.guest_id = g.id
-                    WHERE r.hotel_id = :hotelId AND r.is_active = TRUE
-                    ORDER BY r.floor, r.room_number
+                    ) calendar
+                    ORDER BY calendar.id IS NULL, calendar.floor, calendar.room_number
                 """;
         Query query = entityManager.createNativeQuery(sql);
         query.setParameter("hotelId", hotelId);
@@ -0,0 +1,349 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.config.ShardContext;
+import com.hotelbooking.config.ShardingConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Shard routing on top of ShardingConfig: the hotel directory, locating the
+ * shard of a booking, room, payment etc. by id, scatter-gather for reads
+ * across all hotels, and copying the reference tables (hotels, guests) to
+ * every shard.
+ *
+ * With sharding disabled there is a single shard named "default" and every
+ * method simply runs its work on the one database.
+ */
+@Service
+public class ShardRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRouter.class);
+
+    public static final String DEFAULT_SHARD = "default";
+
+    // Hotel-owned tables that can be looked up by id
+    private static final Set<String> LOCATABLE = Set.of("bookings", "rooms", "room_types", "tariffs", "reviews",
+            "payments");
+
+    // Kept on every shard so the hotel-owned rows have their foreign keys locally
+    private static final Set<String> REPLICATED = Set.of("hotels", "guests");
+
+    @Autowired
+    private ObjectProvider<ShardingConfig.Shards> shardsProvider;
+
+    @Value("${sharding.scatter-threads:16}")
+    private int scatterThreads;
+
+    @Value("${sharding.scatter-timeout-ms:10000}")
+    private long scatterTimeoutMs;
+
+    @Value("${sharding.locate-cache-size:100000}")
+    private int locateCacheSize;
+
+    private ShardingConfig.Shards shards;
+
+    private List<String> shardNames = List.of(DEFAULT_SHARD);
+
+    private final Map<String, JdbcTemplate> jdbc = new LinkedHashMap<>();
+
+    // Directory cache; an assignment never changes, so entries never go stale
+    private final Map<String, String> hotelShards = new ConcurrentHashMap<>();
+
+    // "table:id" -> shard, least recently used evicted first
+    private Map<String, String> located;
+
+    private ThreadPoolExecutor scatterExecutor;
+
+    @PostConstruct
+    public void init() {
+        shards = shardsProvider.getIfAvailable();
+        if (shards == null) {
+            return;
+        }
+        shardNames = List.copyOf(shards.dataSources().keySet());
+        shards.dataSources().forEach((name, dataSource) -> jdbc.put(name, new JdbcTemplate(dataSource)));
+        located = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > locateCacheSize;
+            }
+        });
+
+        AtomicInteger counter = new AtomicInteger();
+        scatterExecutor = new ThreadPoolExecutor(scatterThreads, scatterThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(scatterThreads * 4),
+                r -> {
+                    Thread thread = new Thread(r, "shard-scatter-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scatterExecutor != null) {
+            scatterExecutor.shutdown();
+        }
+    }
+
+    public boolean isEnabled() {
+        return shards != null;
+    }
+
+    public List<String> shards() {
+        return shardNames;
+    }
+
+    public String defaultShard() {
+        return isEnabled() ? shards.defaultShard() : DEFAULT_SHARD;
+    }
+
+    // ==================== DIRECTORY ====================
+
+    /** The shard holding the hotel's data. Hotels without a directory entry live on the default shard. */
+    public String shardOfHotel(String hotelId) {
+        if (!isEnabled() || hotelId == null) {
+            return defaultShard();
+        }
+        String cached = hotelShards.get(hotelId);
+        if (cached != null) {
+            return cached;
+        }
+        List<String> found = jdbc.get(defaultShard()).queryForList(
+                "SELECT shard FROM hotel_shards WHERE hotel_id = ?", String.class, hotelId);
+        if (found.isEmpty()) {
+            // Not cached: unknown ids must not be able to fill the map
+            return defaultShard();
+        }
+        String shard = found.get(0);
+        if (!jdbc.containsKey(shard)) {
+            throw new IllegalStateException("Hotel " + hotelId + " is mapped to unknown shard " + shard);
+        }
+        hotelShards.put(hotelId, shard);
+        return shard;
+    }
+
+    /**
+     * Places a new hotel on the shard with the fewest hotels and records it in
+     * every shard's copy of the directory. Returns the chosen shard.
+     */
+    public String assignHotel(String hotelId) {
+        if (!isEnabled()) {
+            return DEFAULT_SHARD;
+        }
+        Map<String, Long> load = new HashMap<>();
+        jdbc.get(defaultShard()).query("""
+                    SELECT COALESCE(hs.shard, ?), COUNT(*)
+                    FROM hotels h
+                    LEFT JOIN hotel_shards hs ON hs.hotel_id = h.id
+                    WHERE h.id != ?
+                    GROUP BY 1
+                """, rs -> {
+            load.put(rs.getString(1), rs.getLong(2));
+        }, defaultShard(), hotelId);
+
+        String shard = shardNames.stream()
+                .min(Comparator.comparingLong(name -> load.getOrDefault(name, 0L)))
+                .orElse(defaultShard());
+        for (JdbcTemplate template : jdbc.values()) {
+            template.update("INSERT INTO hotel_shards (hotel_id, shard) VALUES (?, ?)", hotelId, shard);
+        }
+        hotelShards.put(hotelId, shard);
+        log.info("Hotel {} assigned to shard {}", hotelId, shard);
+        return shard;
+    }
+
+    /**
+     * SQL condition on hotels aliased h, with a :shard parameter, keeping the
+     * hotels that shard owns. Every shard has every hotel row, so per-shard
+     * hotel listings need it to not return each hotel once per shard.
+     */
+    public String ownsHotelCondition(String shard) {
+        return shard.equals(defaultShard())
+                ? "NOT EXISTS (SELECT 1 FROM hotel_shards hs WHERE hs.hotel_id = h.id AND hs.shard != :shard)"
+                : "EXISTS (SELECT 1 FROM hotel_shards hs WHERE hs.hotel_id = h.id AND hs.shard = :shard)";
+    }
+
+    // ==================== ROUTING ====================
+
+    /** Runs work on the hotel's shard. Must be called outside a transaction. */
+    public <T> T onHotel(String hotelId, Supplier<T> work) {
+        return onShard(shardOfHotel(hotelId), work);
+    }
+
+    /** Runs work on the shard holding the row table.id (see locate). Must be called outside a transaction. */
+    public <T> T onEntity(String table, String id, Supplier<T> work) {
+        return onShard(locate(table, id), work);
+    }
+
+    public <T> T onShard(String shard, Supplier<T> work) {
+        if (!isEnabled()) {
+            return work.get();
+        }
+        String current = ShardContext.current() != null ? ShardContext.current() : defaultShard();
+        if (!shard.equals(current) && TransactionSynchronizationManager.isActualTransactionActive()) {
+            // The transaction's connection is already bound to the current shard
+            throw new IllegalStateException("Cannot switch from shard " + current + " to " + shard
+                    + " inside a transaction");
+        }
+        return ShardContext.call(shard, work);
+    }
+
+    /**
+     * The shard holding the row with this id in a hotel-owned table, found by
+     * asking every shard in parallel once and cached after that. Rows that
+     * exist nowhere map to the default shard, where the caller gets its usual
+     * "not found".
+     */
+    public String locate(String table, String id) {
+        if (!isEnabled() || id == null) {
+            return defaultShard();
+        }
+        if (!LOCATABLE.contains(table)) {
+            throw new IllegalArgumentException("Cannot locate rows of " + table);
+        }
+        String key = table + ":" + id;
+        String cached = located.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        Map<String, Boolean> found = scatter(shard -> !jdbc.get(shard)
+                .queryForList("SELECT 1 FROM " + table + " WHERE id = ?", Integer.class, id).isEmpty());
+        for (Map.Entry<String, Boolean> entry : found.entrySet()) {
+            if (entry.getValue()) {
+                located.put(key, entry.getKey());
+                return entry.getKey();
+            }
+        }
+        return defaultShard();
+    }
+
+    // ==================== SCATTER-GATHER ====================
+
+    /**
+     * Runs work once per shard, in parallel, each on its own shard, and
+     * returns the results by shard in configuration order. Fails as a whole
+     * if any shard fails or sharding.scatter-timeout-ms passes: a partial
+     * answer would look complete to the caller.
+     */
+    public <T> Map<String, T> scatter(Function<String, T> work) {
+        Map<String, T> results = new LinkedHashMap<>();
+        if (!isEnabled()) {
+            results.put(DEFAULT_SHARD, work.apply(DEFAULT_SHARD));
+            return results;
+        }
+
+        Map<String, CompletableFuture<T>> futures = new LinkedHashMap<>();
+        for (String shard : shardNames) {
+            futures.put(shard, CompletableFuture.supplyAsync(
+                    () -> ShardContext.call(shard, () -> work.apply(shard)), scatterExecutor));
+        }
+        try {
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+                    .orTimeout(scatterTimeoutMs, TimeUnit.MILLISECONDS)
+                    .join();
+        } catch (CompletionException e) {
+            futures.values().forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof TimeoutException) {
+                throw new IllegalStateException("Shard query timed out after " + scatterTimeoutMs + " ms");
+            }
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+        futures.forEach((shard, future) -> results.put(shard, future.join()));
+        return results;
+    }
+
+    /** scatter for work that does not need the shard name: one result per shard. */
+    public <T> List<T> gather(Supplier<T> work) {
+        return new ArrayList<>(scatter(shard -> work.get()).values());
+    }
+
+    /** gather for list results, concatenated. Callers sort and trim the merged list. */
+    public <T> List<T> gatherAll(Supplier<List<T>> work) {
+        return gather(work).stream().flatMap(List::stream).collect(Collectors.toList());
+    }
+
+    // ==================== REFERENCE TABLES ====================
+
+    /**
+     * Copies the row table.id from the current shard to every other shard
+     * (or deletes it there when it no longer exists), after the current
+     * transaction commits. Used for hotels and guests, which every shard
+     * needs for its foreign keys.
+     */
+    public void replicate(String table, String id) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (!REPLICATED.contains(table)) {
+            throw new IllegalArgumentException(table + " is not a replicated table");
+        }
+        String source = ShardContext.current() != null ? ShardContext.current() : defaultShard();
+        Runnable copy = () -> copyRow(table, id, source);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    copy.run();
+                }
+            });
+        } else {
+            copy.run();
+        }
+    }
+
+    private void copyRow(String table, String id, String source) {
+        try {
+            List<Map<String, Object>> rows = jdbc.get(source).queryForList(
+                    "SELECT * FROM " + table + " WHERE id = ?", id);
+            String sql;
+            Object[] args;
+            if (rows.isEmpty()) {
+                sql = "DELETE FROM " + table + " WHERE id = ?";
+                args = new Object[]{id};
+            } else {
+                // Upsert, never REPLACE: deleting the old row would cascade to its bookings
+                Map<String, Object> row = rows.get(0);
+                String columns = row.keySet().stream().map(c -> "`" + c + "`").collect(Collectors.joining(", "));
+                String placeholders = row.keySet().stream().map(c -> "?").collect(Collectors.joining(", "));
+                String updates = row.keySet().stream().map(c -> "`" + c + "` = VALUES(`" + c + "`)")
+                        .collect(Collectors.joining(", "));
+                sql = "INSERT INTO " + table + " (" + columns + ") VALUES (" + placeholders + ")"
+                        + " ON DUPLICATE KEY UPDATE " + updates;
+                args = row.values().toArray();
+            }
+            for (Map.Entry<String, JdbcTemplate> target : jdbc.entrySet()) {
+                if (!target.getKey().equals(source)) {
+                    target.getValue().update(sql, args);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not copy {} {} from shard {} to the other shards", table, id, source, e);
+            throw new IllegalStateException("Could not replicate " + table + " " + id, e);
+        }
+    }
+}
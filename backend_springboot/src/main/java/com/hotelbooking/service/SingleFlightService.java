@@ -0,0 +1,129 @@
+package com.hotelbooking.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution for hot read paths: concurrent calls with the same
+ * group and arguments share one execution and its result instead of each
+ * running the query.
+ *
+ * The first caller for a key runs the supplier; callers arriving while it is
+ * in flight wait for and receive the same result (or exception). With
+ * singleflight.reuse-millis above zero a finished result is also handed to
+ * identical calls for that long afterwards. Results are shared as-is, so
+ * callers must treat them as read-only.
+ *
+ * Metrics per group: singleflight.calls{outcome=executed|joined|reused} and
+ * the gauge singleflight.coalescing.ratio (share of calls that did not run
+ * their own query since startup).
+ */
+@Service
+public class SingleFlightService {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${singleflight.reuse-millis:0}")
+    private long reuseMillis;
+
+    @Value("${singleflight.max-reused-entries:1000}")
+    private int maxReusedEntries;
+
+    private record Key(String group, List<Object> args) {
+    }
+
+    private record Reused(Object value, long expiresAtMillis) {
+    }
+
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<Key, Reused> reused = new ConcurrentHashMap<>();
+
+    private final Map<String, GroupStats> stats = new ConcurrentHashMap<>();
+
+    private static final class GroupStats {
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong executed = new AtomicLong();
+
+        double ratio() {
+            long total = calls.get();
+            return total == 0 ? 0.0 : 1.0 - (double) executed.get() / total;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String group, Supplier<T> supplier, Object... args) {
+        Key key = new Key(group, Arrays.asList(args));
+        GroupStats groupStats = statsFor(group);
+        groupStats.calls.incrementAndGet();
+
+        if (reuseMillis > 0) {
+            Reused recent = reused.get(key);
+            if (recent != null && recent.expiresAtMillis() > System.currentTimeMillis()) {
+                meterRegistry.counter("singleflight.calls", "group", group, "outcome", "reused").increment();
+                return (T) recent.value();
+            }
+        }
+
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, mine);
+        if (leader != null) {
+            meterRegistry.counter("singleflight.calls", "group", group, "outcome", "joined").increment();
+            try {
+                return (T) leader.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+
+        meterRegistry.counter("singleflight.calls", "group", group, "outcome", "executed").increment();
+        groupStats.executed.incrementAndGet();
+        try {
+            T value = supplier.get();
+            if (reuseMillis > 0) {
+                remember(key, value);
+            }
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private void remember(Key key, Object value) {
+        long now = System.currentTimeMillis();
+        if (reused.size() >= maxReusedEntries) {
+            reused.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+            if (reused.size() >= maxReusedEntries) {
+                return;
+            }
+        }
+        reused.put(key, new Reused(value, now + reuseMillis));
+    }
+
+    private GroupStats statsFor(String group) {
+        return stats.computeIfAbsent(group, g -> {
+            GroupStats groupStats = new GroupStats();
+            Gauge.builder("singleflight.coalescing.ratio", groupStats, GroupStats::ratio)
+                    .tag("group", g)
+                    .register(meterRegistry);
+            return groupStats;
+        });
+    }
+}
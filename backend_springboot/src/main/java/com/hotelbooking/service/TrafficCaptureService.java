@@ -0,0 +1,255 @@
+package com.hotelbooking.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Request capture for replay benchmarks (scripts/traffic-replay.sh), fed by
+ * TrafficCaptureFilter.
+ *
+ * Each captured request is one JSON line: arrival time, method, route
+ * pattern, path variables, query parameters, caller role, status and
+ * duration. Bodies, headers, tokens, client addresses and raw paths are never
+ * recorded. Path variables keep their value only when they hold a hotel id;
+ * other path variables and query parameters outside a fixed allow-list keep
+ * their name with the value dropped, and coordinates are rounded to about
+ * 10 km. Requests matching no route are recorded without a pattern. Lines go to gzip files in capture.dir that roll
+ * over by size and age, keeping the newest capture.max-files.
+ *
+ * Like the query log, the request thread only offers the event to a bounded
+ * buffer (dropping it when full); a background thread writes the files.
+ */
+@Service
+public class TrafficCaptureService {
+
+    private static final Logger log = LoggerFactory.getLogger(TrafficCaptureService.class);
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    // Query parameters whose values describe the request shape and carry no personal data
+    private static final Set<String> KEPT_PARAMS = Set.of(
+            "city", "star_rating", "check_in", "check_out", "guests", "page", "limit", "offset", "sort",
+            "status", "hotel", "hotel_id", "start_date", "end_date", "start", "end", "days", "group_by",
+            "radius_km", "role");
+
+    // Kept at one decimal so a search point is only known to a ~10 km cell
+    private static final Set<String> ROUNDED_PARAMS = Set.of("lat", "lon");
+
+    // Path variables holding hotel ids, which are public catalog keys; "id" is only one under /api/hotels/
+    private static final Set<String> KEPT_PATH_VARIABLES = Set.of("hotelId");
+    private static final String HOTEL_ID_PREFIX = "/api/hotels/{id}";
+
+    @Value("${capture.enabled:false}")
+    private boolean enabled;
+
+    @Value("${capture.dir:data/capture}")
+    private String dir;
+
+    @Value("${capture.sample-rate:1.0}")
+    private double sampleRate;
+
+    @Value("${capture.buffer-size:10000}")
+    private int bufferSize;
+
+    @Value("${capture.max-file-mb:64}")
+    private long maxFileMb;
+
+    @Value("${capture.rotate-minutes:60}")
+    private long rotateMinutes;
+
+    @Value("${capture.max-files:48}")
+    private int maxFiles;
+
+    private final ObjectMapper json = new ObjectMapper();
+
+    public record CapturedRequest(long at, String method, String pattern, Map<String, String> variables,
+                                  List<String> redactedVariables, Map<String, List<String>> params,
+                                  List<String> redacted, String role, int status, double ms) {
+    }
+
+    private BlockingQueue<CapturedRequest> buffer;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private Thread worker;
+
+    // Only touched by the worker thread
+    private Writer out;
+    private long written;
+    private long openedAt;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        buffer = new ArrayBlockingQueue<>(bufferSize);
+        worker = new Thread(this::run, "traffic-capture");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("Capturing request shapes to {} (sample rate {})", dir, sampleRate);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (worker != null) {
+            worker.interrupt();
+            worker.join(5000);
+        }
+    }
+
+    /** Whether this request should be captured; decided before it runs so only sampled ones are timed. */
+    public boolean sample() {
+        return enabled && (sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    /** Called on the request thread; never blocks. Path variable and parameter values are sanitized here. */
+    public void record(long at, String method, String pattern, Map<String, String> pathVariables,
+                       Map<String, String[]> parameters, String role, int status, long nanos) {
+        Map<String, String> variables = new TreeMap<>();
+        List<String> redactedVariables = new ArrayList<>();
+        pathVariables.forEach((name, value) -> {
+            if (KEPT_PATH_VARIABLES.contains(name)
+                    || (name.equals("id") && pattern != null && pattern.startsWith(HOTEL_ID_PREFIX))) {
+                variables.put(name, value);
+            } else {
+                redactedVariables.add(name);
+            }
+        });
+
+        Map<String, List<String>> params = new TreeMap<>();
+        List<String> redacted = new ArrayList<>();
+        parameters.forEach((name, values) -> {
+            if (KEPT_PARAMS.contains(name)) {
+                params.put(name, List.of(values));
+            } else if (ROUNDED_PARAMS.contains(name)) {
+                params.put(name, Arrays.stream(values).map(TrafficCaptureService::roundCoordinate).toList());
+            } else {
+                redacted.add(name);
+            }
+        });
+        CapturedRequest request = new CapturedRequest(at, method, pattern, variables, redactedVariables, params,
+                redacted, role, status, nanos / 1_000_000.0);
+        if (!buffer.offer(request)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private static String roundCoordinate(String value) {
+        try {
+            return String.valueOf(Math.round(Double.parseDouble(value) * 10) / 10.0);
+        } catch (NumberFormatException e) {
+            return "";
+        }
+    }
+
+    private void run() {
+        List<CapturedRequest> batch = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                CapturedRequest first = buffer.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    buffer.drainTo(batch, 500);
+                    write(batch);
+                } else if (out != null) {
+                    out.flush();
+                }
+                rollIfDue();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.warn("Error writing captured requests", e);
+            } finally {
+                batch.clear();
+            }
+        }
+
+        // Shutting down: write what is still buffered and finish the gzip stream
+        try {
+            buffer.drainTo(batch);
+            write(batch);
+            close();
+        } catch (IOException e) {
+            log.warn("Error closing traffic capture file", e);
+        }
+        if (dropped.get() > 0) {
+            log.warn("Traffic capture dropped {} requests (buffer full)", dropped.get());
+        }
+    }
+
+    private void write(List<CapturedRequest> batch) throws IOException {
+        for (CapturedRequest request : batch) {
+            if (out == null) {
+                open();
+            }
+            String line = json.writeValueAsString(request);
+            out.write(line);
+            out.write('\n');
+            written += line.length() + 1;
+        }
+    }
+
+    private void rollIfDue() throws IOException {
+        if (out != null && (written >= maxFileMb * 1024 * 1024
+                || System.currentTimeMillis() - openedAt >= rotateMinutes * 60_000)) {
+            close();
+        }
+    }
+
+    private void open() throws IOException {
+        Path directory = Path.of(dir);
+        Files.createDirectories(directory);
+        Path file = directory.resolve("capture-" + LocalDateTime.now().format(FILE_TIME) + ".jsonl.gz");
+        for (int n = 1; Files.exists(file); n++) {
+            file = directory.resolve("capture-" + LocalDateTime.now().format(FILE_TIME) + "-" + n + ".jsonl.gz");
+        }
+        out = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(file), 64 * 1024, true), StandardCharsets.UTF_8));
+        written = 0;
+        openedAt = System.currentTimeMillis();
+        pruneOldFiles(directory);
+    }
+
+    private void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    private void pruneOldFiles(Path directory) throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(p -> p.getFileName().toString().matches("capture-.*\\.jsonl\\.gz"))
+                    .sorted()
+                    .toList();
+        }
+        for (int i = 0; i < files.size() - maxFiles; i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+}
@@ -0,0 +1,427 @@
+-- Baseline schema: the legacy tables from backend/hotel_booking_queries.sql plus
+-- the columns and tables the Spring Boot entities and services depend on.
+-- Databases that already have this schema (ddl-auto=update plus
+-- db/schema-updates.sql) are baselined at version 1 instead of running it.
+
+-- Table: hotels
+CREATE TABLE hotels (
+    id VARCHAR(36) PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    address VARCHAR(500),
+    city VARCHAR(100),
+    state VARCHAR(100),
+    country VARCHAR(100),
+    zip_code VARCHAR(20),
+    phone VARCHAR(20),
+    email VARCHAR(100) UNIQUE,
+    description TEXT,
+    star_rating INT CHECK (star_rating BETWEEN 1 AND 5),
+    website VARCHAR(255),
+    check_in_time VARCHAR(20),
+    check_out_time VARCHAR(20),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    is_active BOOLEAN DEFAULT TRUE,
+    INDEX idx_city_country (city, country),
+    INDEX idx_email (email)
+);
+
+-- Table: room_types
+CREATE TABLE room_types (
+    id VARCHAR(36) PRIMARY KEY,
+    hotel_id VARCHAR(36) NOT NULL,
+    name VARCHAR(100) NOT NULL,
+    description TEXT,
+    max_occupancy INT NOT NULL,
+    bed_type VARCHAR(50),
+    amenities TEXT,
+    base_price DECIMAL(10, 2),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    is_active BOOLEAN DEFAULT TRUE,
+    FOREIGN KEY (hotel_id) REFERENCES hotels(id) ON DELETE CASCADE,
+    INDEX idx_hotel_id (hotel_id)
+);
+
+-- Table: rooms
+CREATE TABLE rooms (
+    id VARCHAR(36) PRIMARY KEY,
+    hotel_id VARCHAR(36) NOT NULL,
+    room_type_id VARCHAR(36) NOT NULL,
+    room_number VARCHAR(20) NOT NULL,
+    floor VARCHAR(10),
+    status VARCHAR(20) NOT NULL DEFAULT 'available',
+    last_maintenance_date TIMESTAMP,
+    notes TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    is_active BOOLEAN DEFAULT TRUE,
+    FOREIGN KEY (hotel_id) REFERENCES hotels(id) ON DELETE CASCADE,
+    FOREIGN KEY (room_type_id) REFERENCES room_types(id) ON DELETE RESTRICT,
+    UNIQUE KEY unique_room_number (hotel_id, room_number),
+    INDEX idx_hotel_id (hotel_id),
+    INDEX idx_room_type_id (room_type_id),
+    INDEX idx_status (status),
+    CHECK (status IN ('available', 'occupied', 'maintenance', 'blocked'))
+);
+
+-- Table: tariffs (hotel_id is implied by room_type_id and not written by the API)
+CREATE TABLE tariffs (
+    id VARCHAR(36) PRIMARY KEY,
+    hotel_id VARCHAR(36),
+    room_type_id VARCHAR(36) NOT NULL,
+    price DECIMAL(10, 2) NOT NULL,
+    currency VARCHAR(10) DEFAULT 'USD',
+    start_date DATE NOT NULL,
+    end_date DATE NOT NULL,
+    description VARCHAR(255),
+    is_weekend BOOLEAN DEFAULT FALSE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    is_active BOOLEAN DEFAULT TRUE,
+    FOREIGN KEY (hotel_id) REFERENCES hotels(id) ON DELETE CASCADE,
+    FOREIGN KEY (room_type_id) REFERENCES room_types(id) ON DELETE CASCADE,
+    INDEX idx_hotel_room_type (hotel_id, room_type_id),
+    INDEX idx_dates (start_date, end_date),
+    CHECK (end_date > start_date)
+);
+
+-- Table: guests
+CREATE TABLE guests (
+    id VARCHAR(36) PRIMARY KEY,
+    first_name VARCHAR(100) NOT NULL,
+    last_name VARCHAR(100) NOT NULL,
+    email VARCHAR(100) NOT NULL UNIQUE,
+    password_hash VARCHAR(255),
+    phone VARCHAR(20),
+    address VARCHAR(500),
+    city VARCHAR(100),
+    state VARCHAR(100),
+    country VARCHAR(100),
+    zip_code VARCHAR(20),
+    date_of_birth DATE,
+    id_proof_type VARCHAR(50),
+    id_proof_number VARCHAR(100),
+    registration_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    last_login TIMESTAMP,
+    is_active BOOLEAN DEFAULT TRUE,
+    INDEX idx_email (email),
+    INDEX idx_phone (phone)
+);
+
+-- Table: discounts
+CREATE TABLE discounts (
+    id VARCHAR(36) PRIMARY KEY,
+    code VARCHAR(50) NOT NULL UNIQUE,
+    description VARCHAR(255),
+    amount DECIMAL(10, 2) NOT NULL,
+    amount_type VARCHAR(20) NOT NULL,
+    min_booking_amount DECIMAL(10, 2),
+    max_discount_amount DECIMAL(10, 2),
+    valid_from DATE NOT NULL,
+    valid_to DATE NOT NULL,
+    usage_limit INT,
+    usage_count INT DEFAULT 0,
+    is_active BOOLEAN DEFAULT TRUE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    INDEX idx_code (code),
+    INDEX idx_dates (valid_from, valid_to),
+    CHECK (amount_type IN ('percentage', 'fixed'))
+);
+
+-- Table: special_offers
+CREATE TABLE special_offers (
+    id VARCHAR(36) PRIMARY KEY,
+    hotel_id VARCHAR(36),
+    room_type_id VARCHAR(36),
+    name VARCHAR(255) NOT NULL,
+    description TEXT,
+    discount_id VARCHAR(36) NOT NULL,
+    valid_from DATE NOT NULL,
+    valid_to DATE NOT NULL,
+    min_nights INT,
+    is_active BOOLEAN DEFAULT TRUE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (hotel_id) REFERENCES hotels(id) ON DELETE CASCADE,
+    FOREIGN KEY (room_type_id) REFERENCES room_types(id) ON DELETE CASCADE,
+    FOREIGN KEY (discount_id) REFERENCES discounts(id) ON DELETE RESTRICT,
+    INDEX idx_hotel_id (hotel_id),
+    INDEX idx_dates (valid_from, valid_to)
+);
+
+-- Table: administrators
+CREATE TABLE administrators (
+    id VARCHAR(36) PRIMARY KEY,
+    username VARCHAR(100) NOT NULL UNIQUE,
+    password_hash VARCHAR(255) NOT NULL,
+    email VARCHAR(100) NOT NULL UNIQUE,
+    full_name VARCHAR(200) NOT NULL,
+    role VARCHAR(50) NOT NULL,
+    hotel_id VARCHAR(36),
+    permissions TEXT,
+    is_active BOOLEAN DEFAULT TRUE,
+    last_login TIMESTAMP,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    created_by VARCHAR(36),
+    FOREIGN KEY (hotel_id) REFERENCES hotels(id) ON DELETE SET NULL,
+    FOREIGN KEY (created_by) REFERENCES administrators(id) ON DELETE SET NULL,
+    INDEX idx_username (username),
+    INDEX idx_email (email),
+    INDEX idx_hotel_id (hotel_id),
+    CHECK (role IN ('super_admin', 'hotel_admin', 'manager', 'staff'))
+);
+
+-- Table: bookings
+CREATE TABLE bookings (
+    id VARCHAR(36) PRIMARY KEY,
+    guest_id VARCHAR(36) NOT NULL,
+    hotel_id VARCHAR(36) NOT NULL,
+    check_in_date DATE NOT NULL,
+    check_out_date DATE NOT NULL,
+    booking_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    status VARCHAR(30) NOT NULL DEFAULT 'confirmed',
+    total_amount DECIMAL(10, 2) NOT NULL,
+    discount_amount DECIMAL(10, 2) DEFAULT 0,
+    final_amount DECIMAL(10, 2) NOT NULL,
+    discount_id VARCHAR(36),
+    special_offer_id VARCHAR(36),
+    special_requests TEXT,
+    number_of_guests INT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    cancelled_at TIMESTAMP,
+    cancelled_by VARCHAR(36),
+    cancellation_reason TEXT,
+    FOREIGN KEY (guest_id) REFERENCES guests(id) ON DELETE RESTRICT,
+    FOREIGN KEY (hotel_id) REFERENCES hotels(id) ON DELETE RESTRICT,
+    FOREIGN KEY (discount_id) REFERENCES discounts(id) ON DELETE SET NULL,
+    FOREIGN KEY (special_offer_id) REFERENCES special_offers(id) ON DELETE SET NULL,
+    FOREIGN KEY (cancelled_by) REFERENCES administrators(id) ON DELETE SET NULL,
+    INDEX idx_guest_id (guest_id),
+    INDEX idx_hotel_id (hotel_id),
+    INDEX idx_status (status),
+    INDEX idx_dates (check_in_date, check_out_date),
+    INDEX idx_bookings_updated_at (updated_at),
+    INDEX idx_bookings_hotel_created (hotel_id, created_at),
+    CHECK (check_out_date > check_in_date),
+    CHECK (status IN ('pending_payment', 'confirmed', 'checked_in', 'checked_out', 'cancelled', 'no_show'))
+);
+
+-- Table: booking_rooms (room-type bookings get room_id at check-in)
+CREATE TABLE booking_rooms (
+    id VARCHAR(36) PRIMARY KEY,
+    booking_id VARCHAR(36) NOT NULL,
+    room_id VARCHAR(36),
+    room_type_id VARCHAR(36),
+    check_in_date DATE NOT NULL,
+    check_out_date DATE NOT NULL,
+    price_per_night DECIMAL(10, 2) NOT NULL,
+    number_of_nights INT NOT NULL,
+    total_price DECIMAL(10, 2) NOT NULL,
+    tariff_id VARCHAR(36),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (booking_id) REFERENCES bookings(id) ON DELETE CASCADE,
+    FOREIGN KEY (room_id) REFERENCES rooms(id) ON DELETE RESTRICT,
+    FOREIGN KEY (room_type_id) REFERENCES room_types(id) ON DELETE RESTRICT,
+    FOREIGN KEY (tariff_id) REFERENCES tariffs(id) ON DELETE SET NULL,
+    INDEX idx_booking_id (booking_id),
+    INDEX idx_room_id (room_id),
+    INDEX idx_room_dates (room_id, check_in_date, check_out_date),
+    INDEX idx_room_type_id (room_type_id)
+);
+
+-- Table: payments
+CREATE TABLE payments (
+    id VARCHAR(36) PRIMARY KEY,
+    booking_id VARCHAR(36) NOT NULL,
+    payment_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    amount DECIMAL(10, 2) NOT NULL,
+    payment_method VARCHAR(50) NOT NULL,
+    transaction_id VARCHAR(100) UNIQUE,
+    status VARCHAR(30) NOT NULL,
+    failure_reason TEXT,
+    refund_id VARCHAR(36),
+    refund_amount DECIMAL(10, 2),
+    refund_date TIMESTAMP,
+    gateway_name VARCHAR(50),
+    gateway_response TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (booking_id) REFERENCES bookings(id) ON DELETE RESTRICT,
+    FOREIGN KEY (refund_id) REFERENCES payments(id) ON DELETE SET NULL,
+    INDEX idx_booking_id (booking_id),
+    INDEX idx_transaction_id (transaction_id),
+    INDEX idx_status (status),
+    INDEX idx_payment_date (payment_date),
+    INDEX idx_payments_updated_at (updated_at),
+    CHECK (status IN ('pending', 'processing', 'paid', 'failed', 'refunded', 'partially_refunded')),
+    CHECK (payment_method IN ('credit_card', 'debit_card', 'online_wallet', 'bank_transfer', 'cash'))
+);
+
+-- Table: reviews
+CREATE TABLE reviews (
+    id VARCHAR(36) PRIMARY KEY,
+    booking_id VARCHAR(36) NOT NULL UNIQUE,
+    guest_id VARCHAR(36) NOT NULL,
+    hotel_id VARCHAR(36) NOT NULL,
+    room_type_id VARCHAR(36),
+    rating INT NOT NULL,
+    cleanliness_rating INT,
+    service_rating INT,
+    location_rating INT,
+    value_rating INT,
+    title VARCHAR(255),
+    comment TEXT,
+    response TEXT,
+    response_by VARCHAR(36),
+    response_date TIMESTAMP,
+    is_verified BOOLEAN DEFAULT FALSE,
+    is_approved BOOLEAN DEFAULT TRUE,
+    helpful_count INT DEFAULT 0,
+    date DATE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (booking_id) REFERENCES bookings(id) ON DELETE CASCADE,
+    FOREIGN KEY (guest_id) REFERENCES guests(id) ON DELETE CASCADE,
+    FOREIGN KEY (hotel_id) REFERENCES hotels(id) ON DELETE CASCADE,
+    FOREIGN KEY (room_type_id) REFERENCES room_types(id) ON DELETE SET NULL,
+    FOREIGN KEY (response_by) REFERENCES administrators(id) ON DELETE SET NULL,
+    INDEX idx_booking_id (booking_id),
+    INDEX idx_guest_id (guest_id),
+    INDEX idx_hotel_id (hotel_id),
+    INDEX idx_rating (rating),
+    INDEX idx_created_at (created_at),
+    CHECK (rating BETWEEN 1 AND 5),
+    CHECK (cleanliness_rating IS NULL OR cleanliness_rating BETWEEN 1 AND 5),
+    CHECK (service_rating IS NULL OR service_rating BETWEEN 1 AND 5),
+    CHECK (location_rating IS NULL OR location_rating BETWEEN 1 AND 5),
+    CHECK (value_rating IS NULL OR value_rating BETWEEN 1 AND 5)
+);
+
+-- Table: room_availability_calendar
+CREATE TABLE room_availability_calendar (
+    id VARCHAR(36) PRIMARY KEY,
+    room_id VARCHAR(36) NOT NULL,
+    date DATE NOT NULL,
+    is_available BOOLEAN DEFAULT TRUE,
+    blocked_reason VARCHAR(50),
+    booking_room_id VARCHAR(36),
+    notes TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (room_id) REFERENCES rooms(id) ON DELETE CASCADE,
+    FOREIGN KEY (booking_room_id) REFERENCES booking_rooms(id) ON DELETE SET NULL,
+    UNIQUE KEY unique_room_date (room_id, date),
+    INDEX idx_room_id (room_id),
+    INDEX idx_date (date),
+    INDEX idx_availability (is_available),
+    CHECK (blocked_reason IS NULL OR blocked_reason IN ('booking', 'maintenance', 'hold', 'management_block'))
+);
+
+-- Table: booking_status_history
+CREATE TABLE booking_status_history (
+    id VARCHAR(36) PRIMARY KEY,
+    booking_id VARCHAR(36) NOT NULL,
+    old_status VARCHAR(30),
+    new_status VARCHAR(30) NOT NULL,
+    changed_by VARCHAR(36),
+    changed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    notes TEXT,
+    FOREIGN KEY (booking_id) REFERENCES bookings(id) ON DELETE CASCADE,
+    FOREIGN KEY (changed_by) REFERENCES administrators(id) ON DELETE SET NULL,
+    INDEX idx_booking_id (booking_id),
+    INDEX idx_changed_at (changed_at)
+);
+
+-- Table: room_maintenance_log
+CREATE TABLE room_maintenance_log (
+    id VARCHAR(36) PRIMARY KEY,
+    room_id VARCHAR(36) NOT NULL,
+    maintenance_type VARCHAR(50),
+    start_date TIMESTAMP NOT NULL,
+    end_date TIMESTAMP,
+    description TEXT,
+    cost DECIMAL(10, 2),
+    performed_by VARCHAR(100),
+    status VARCHAR(30),
+    created_by VARCHAR(36),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (room_id) REFERENCES rooms(id) ON DELETE CASCADE,
+    FOREIGN KEY (created_by) REFERENCES administrators(id) ON DELETE SET NULL,
+    INDEX idx_room_id (room_id),
+    INDEX idx_status (status),
+    INDEX idx_dates (start_date, end_date),
+    CHECK (maintenance_type IS NULL OR maintenance_type IN ('routine', 'repair', 'deep_clean', 'renovation')),
+    CHECK (status IS NULL OR status IN ('scheduled', 'in_progress', 'completed', 'cancelled'))
+);
+
+-- Table: guest_preferences
+CREATE TABLE guest_preferences (
+    id VARCHAR(36) PRIMARY KEY,
+    guest_id VARCHAR(36) NOT NULL UNIQUE,
+    preferred_room_type VARCHAR(100),
+    preferred_floor VARCHAR(10),
+    smoking_preference BOOLEAN,
+    bed_preference VARCHAR(50),
+    special_requirements TEXT,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (guest_id) REFERENCES guests(id) ON DELETE CASCADE,
+    INDEX idx_guest_id (guest_id)
+);
+
+-- Table: notification_preferences
+CREATE TABLE notification_preferences (
+    id VARCHAR(36) PRIMARY KEY,
+    guest_id VARCHAR(36) NOT NULL UNIQUE,
+    email_notifications BOOLEAN DEFAULT TRUE,
+    sms_notifications BOOLEAN DEFAULT FALSE,
+    promotional_emails BOOLEAN DEFAULT TRUE,
+    booking_reminders BOOLEAN DEFAULT TRUE,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (guest_id) REFERENCES guests(id) ON DELETE CASCADE,
+    INDEX idx_guest_id (guest_id)
+);
+
+-- Table: idempotency_keys (Idempotency-Key replay store)
+CREATE TABLE idempotency_keys (
+    id VARCHAR(255) PRIMARY KEY,
+    request_hash VARCHAR(64) NOT NULL,
+    status_code INT NOT NULL,
+    response_body TEXT,
+    created_at DATETIME(6) NOT NULL,
+    INDEX idx_created_at (created_at)
+);
+
+-- Table: room_type_inventory (sellable rooms per type and night)
+CREATE TABLE room_type_inventory (
+    room_type_id VARCHAR(36) NOT NULL,
+    stay_date DATE NOT NULL,
+    total_rooms INT NOT NULL,
+    remaining INT NOT NULL,
+    PRIMARY KEY (room_type_id, stay_date)
+);
+
+-- Table: daily_hotel_stats (per hotel per day rollups)
+CREATE TABLE daily_hotel_stats (
+    hotel_id VARCHAR(36) NOT NULL,
+    stat_date DATE NOT NULL,
+    bookings_created BIGINT NOT NULL,
+    nights_sold BIGINT NOT NULL,
+    revenue DECIMAL(14, 2) NOT NULL,
+    cancellations BIGINT NOT NULL,
+    payments_count BIGINT NOT NULL,
+    payments_amount DECIMAL(14, 2) NOT NULL,
+    refunds DECIMAL(14, 2) NOT NULL,
+    refreshed_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (hotel_id, stat_date),
+    INDEX idx_stat_date (stat_date)
+);
+
+-- Table: rollup_watermarks
+CREATE TABLE rollup_watermarks (
+    name VARCHAR(64) PRIMARY KEY,
+    watermark DATETIME(6) NOT NULL
+);
@@ -0,0 +1,5 @@
+-- Hotel coordinates for the radius search (/api/hotels/nearby).
+-- Nullable: hotels without coordinates are simply left out of the spatial index.
+ALTER TABLE hotels
+    ADD COLUMN latitude DOUBLE NULL,
+    ADD COLUMN longitude DOUBLE NULL;
@@ -0,0 +1,9 @@
+-- Hotel -> shard directory for hotel-keyed sharding (sharding.enabled, see ShardingConfig).
+-- Every shard keeps a full copy. Hotels without a row live on the default (first) shard,
+-- so existing single-database installs need no entries.
+CREATE TABLE hotel_shards (
+    hotel_id VARCHAR(36) PRIMARY KEY,
+    shard VARCHAR(64) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_hotel_shards_shard (shard)
+);
@@ -0,0 +1,68 @@
+-- Index pack: one index for every access pattern of the native queries in the services.
+-- Databases created by ddl-auto=update were baselined at V1 and never got V1's indexes,
+-- so each index is created only when the table exists and no index already starts with
+-- the same columns (under any name). Built in place without blocking writes.
+-- scripts/plan-check.sh EXPLAINs the hot queries against a seeded schema; keep the two in step.
+
+DROP PROCEDURE IF EXISTS ensure_index;
+
+DELIMITER //
+CREATE PROCEDURE ensure_index(IN table_name_in VARCHAR(64), IN index_name_in VARCHAR(64), IN columns_in VARCHAR(255))
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.TABLES
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = table_name_in)
+       AND NOT EXISTS (
+           SELECT 1 FROM (
+               SELECT INDEX_NAME, CONCAT(GROUP_CONCAT(COLUMN_NAME ORDER BY SEQ_IN_INDEX), ',') AS index_columns
+               FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = table_name_in
+               GROUP BY INDEX_NAME
+           ) existing
+           WHERE existing.INDEX_NAME = index_name_in
+              OR LEFT(existing.index_columns, CHAR_LENGTH(columns_in) + 1) = CONCAT(columns_in, ',')
+       ) THEN
+        SET @ddl = CONCAT('ALTER TABLE ', table_name_in, ' ADD INDEX ', index_name_in,
+                          ' (', columns_in, '), ALGORITHM=INPLACE, LOCK=NONE');
+        PREPARE ddl_statement FROM @ddl;
+        EXECUTE ddl_statement;
+        DEALLOCATE PREPARE ddl_statement;
+    END IF;
+END //
+DELIMITER ;
+
+-- hotels: active listing ordered by stars
+CALL ensure_index('hotels', 'idx_hotels_active_stars', 'is_active,star_rating');
+
+-- room_types / rooms / tariffs: per-hotel catalog, allocation and inventory capacity
+CALL ensure_index('room_types', 'idx_room_types_hotel_active', 'hotel_id,is_active');
+CALL ensure_index('rooms', 'idx_hotel_id', 'hotel_id');
+CALL ensure_index('rooms', 'idx_rooms_type_status', 'room_type_id,status');
+CALL ensure_index('tariffs', 'idx_tariffs_type_dates', 'room_type_id,start_date,end_date');
+
+-- bookings: per guest and per hotel newest first, recent activity, hold expiry, rollups
+CALL ensure_index('bookings', 'idx_bookings_guest_created', 'guest_id,created_at');
+CALL ensure_index('bookings', 'idx_bookings_hotel_created', 'hotel_id,created_at');
+CALL ensure_index('bookings', 'idx_bookings_created_at', 'created_at');
+CALL ensure_index('bookings', 'idx_bookings_status_created', 'status,created_at');
+CALL ensure_index('bookings', 'idx_bookings_updated_at', 'updated_at');
+
+-- booking_rooms: overlap checks per room and per room type, rooms of a booking
+CALL ensure_index('booking_rooms', 'idx_room_dates', 'room_id,check_in_date,check_out_date');
+CALL ensure_index('booking_rooms', 'idx_booking_rooms_type_dates', 'room_type_id,check_in_date,check_out_date');
+CALL ensure_index('booking_rooms', 'idx_booking_id', 'booking_id');
+
+-- payments: a booking's payments newest first, payment listing, rollups
+CALL ensure_index('payments', 'idx_payments_booking_date', 'booking_id,payment_date');
+CALL ensure_index('payments', 'idx_payment_date', 'payment_date');
+CALL ensure_index('payments', 'idx_payments_updated_at', 'updated_at');
+
+-- reviews: a hotel's approved reviews newest first, recent activity
+CALL ensure_index('reviews', 'idx_reviews_hotel_approved_created', 'hotel_id,is_approved,created_at');
+CALL ensure_index('reviews', 'idx_created_at', 'created_at');
+
+-- guests / administrators / booking_status_history: user listings and booking detail
+CALL ensure_index('guests', 'idx_guests_registration_date', 'registration_date');
+CALL ensure_index('administrators', 'idx_administrators_created_at', 'created_at');
+CALL ensure_index('booking_status_history', 'idx_booking_id', 'booking_id');
+
+DROP PROCEDURE ensure_index;
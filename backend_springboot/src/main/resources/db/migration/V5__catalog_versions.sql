@@ -0,0 +1,6 @@
+-- Catalog content versions behind the public ETags (CatalogVersionService).
+-- One row per hotel plus the "*" row for the hotel listing; a missing row is version 0.
+CREATE TABLE catalog_versions (
+    scope VARCHAR(36) PRIMARY KEY,
+    version BIGINT NOT NULL
+);
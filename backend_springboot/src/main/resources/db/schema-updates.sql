@@ -0,0 +1,12 @@
+-- Schema changes that spring.jpa.hibernate.ddl-auto=update cannot apply on its own.
+-- Run once against databases created before Flyway was introduced, before their
+-- first start with Flyway (they are then baselined at db/migration/V1).
+-- New schema changes go into db/migration as versioned migrations.
+
+-- Room-type bookings get their concrete room at check-in (room type inventory ledger)
+ALTER TABLE booking_rooms MODIFY room_id VARCHAR(36) NULL;
+
+-- Daily rollups pick up changed rows by updated_at
+CREATE INDEX idx_bookings_updated_at ON bookings (updated_at);
+CREATE INDEX idx_payments_updated_at ON payments (updated_at);
+CREATE INDEX idx_bookings_hotel_created ON bookings (hotel_id, created_at);
@@ -0,0 +1,163 @@
+package com.hotelbooking.config;
+
+import com.hotelbooking.service.QueryLogService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The DataSource wrapper installed by QueryLoggingDataSource.PostProcessor,
+ * over mocked JDBC objects: statements still reach the driver with their
+ * binds and results, QueryLogService receives them under their normalised
+ * fingerprint, and a full event buffer drops events rather than holding up
+ * the JDBC caller.
+ */
+class QueryLoggingDataSourceTest {
+
+    private final DataSource target = mock(DataSource.class);
+    private final Connection connection = mock(Connection.class);
+    private final PreparedStatement select = mock(PreparedStatement.class);
+    private final PreparedStatement update = mock(PreparedStatement.class);
+    private final ResultSet resultSet = mock(ResultSet.class);
+
+    private final QueryLogService queryLogService = new QueryLogService();
+
+    private DataSource dataSource;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(queryLogService, "enabled", true);
+        ReflectionTestUtils.setField(queryLogService, "slowThresholdMs", 60_000L);
+        ReflectionTestUtils.setField(queryLogService, "sampleRate", 0.0);
+        ReflectionTestUtils.setField(queryLogService, "bufferSize", 100);
+        ReflectionTestUtils.setField(queryLogService, "maxFingerprints", 100);
+
+        ObjectProvider<QueryLogService> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(queryLogService);
+        QueryLoggingDataSource.PostProcessor postProcessor = new QueryLoggingDataSource.PostProcessor(provider);
+        dataSource = (DataSource) postProcessor.postProcessAfterInitialization(target, "dataSource");
+
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            return sql.startsWith("SELECT") ? select : update;
+        });
+        when(select.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getString("name")).thenReturn("Grand", "Plaza");
+        when(update.executeUpdate()).thenReturn(3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (ReflectionTestUtils.getField(queryLogService, "worker") != null) {
+            queryLogService.stop();
+        }
+    }
+
+    @Test
+    void postProcessorWrapsDataSourcesOnce() {
+        QueryLoggingDataSource.PostProcessor postProcessor = new QueryLoggingDataSource.PostProcessor(null);
+
+        assertThat(dataSource).isInstanceOf(QueryLoggingDataSource.class);
+        assertThat(postProcessor.postProcessAfterInitialization(dataSource, "dataSource")).isSameAs(dataSource);
+        Object other = new Object();
+        assertThat(postProcessor.postProcessAfterInitialization(other, "other")).isSameAs(other);
+    }
+
+    @Test
+    void statementsExecuteAndReportNormalisedEvents() throws Exception {
+        queryLogService.start();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement query = conn.prepareStatement(
+                     "SELECT name FROM hotels WHERE city = ?   AND stars >= 4 AND country = 'India'")) {
+            query.setString(1, "Pune");
+            try (ResultSet rs = query.executeQuery()) {
+                assertThat(rs.next()).isTrue();
+                assertThat(rs.getString("name")).isEqualTo("Grand");
+                assertThat(rs.next()).isTrue();
+                assertThat(rs.getString("name")).isEqualTo("Plaza");
+                assertThat(rs.next()).isFalse();
+            }
+
+            PreparedStatement cancel = conn.prepareStatement(
+                    "UPDATE bookings SET status = 'cancelled' WHERE id IN (?, ?, ?)");
+            cancel.setString(1, "b-1");
+            cancel.setString(2, "b-2");
+            cancel.setString(3, "b-3");
+            assertThat(cancel.executeUpdate()).isEqualTo(3);
+        }
+
+        verify(select).setString(1, "Pune");
+        verify(select).executeQuery();
+        verify(update).executeUpdate();
+
+        Map<String, Map<String, Object>> byFingerprint = awaitFingerprints(2);
+        Map<String, Object> selectStats = byFingerprint.get(
+                "SELECT name FROM hotels WHERE city = ? AND stars >= ? AND country = ?");
+        assertThat(selectStats).isNotNull();
+        assertThat(selectStats.get("count")).isEqualTo(1L);
+        assertThat(selectStats.get("avg_rows")).isEqualTo(2.0);
+        Map<String, Object> updateStats = byFingerprint.get("UPDATE bookings SET status = ? WHERE id IN (?+)");
+        assertThat(updateStats).isNotNull();
+        assertThat(updateStats.get("avg_rows")).isEqualTo(3.0);
+    }
+
+    @Test
+    void fullBufferDropsEventsWithoutBlockingTheCaller() throws Exception {
+        // No worker draining it, so the buffer stays full after two events
+        ReflectionTestUtils.setField(queryLogService, "buffer", new ArrayBlockingQueue<>(2));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+            try (Connection conn = dataSource.getConnection()) {
+                for (int i = 0; i < 5; i++) {
+                    try (PreparedStatement statement = conn.prepareStatement("UPDATE rooms SET floor = ?")) {
+                        statement.setInt(1, i);
+                        statement.executeUpdate();
+                    }
+                }
+            }
+        });
+
+        verify(update, times(5)).executeUpdate();
+        assertThat(queryLogService.getTopByTotalTime(10).get("events_dropped")).isEqualTo(3L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Map<String, Object>> awaitFingerprints(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (true) {
+            Map<String, Object> top = queryLogService.getTopByTotalTime(10);
+            if ((Long) top.get("statements_seen") >= expected || System.currentTimeMillis() > deadline) {
+                Map<String, Map<String, Object>> byFingerprint = new HashMap<>();
+                for (Map<String, Object> row : (List<Map<String, Object>>) top.get("queries")) {
+                    byFingerprint.put((String) row.get("fingerprint"), row);
+                }
+                return byFingerprint;
+            }
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.hotelbooking.config;
+
+import com.hotelbooking.security.CustomUserDetails;
+import com.hotelbooking.service.ShardRouter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The order in which ShardRoutingInterceptor picks a request's shard: path
+ * variables first, then the hotel_id parameter, then the signed-in hotel
+ * admin's hotel. The router is mocked to name the shard after what it was
+ * asked for.
+ */
+class ShardRoutingInterceptorTest {
+
+    private final ShardRouter shardRouter = mock(ShardRouter.class);
+
+    private final ShardRoutingInterceptor interceptor = new ShardRoutingInterceptor();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(interceptor, "shardRouter", shardRouter);
+        when(shardRouter.isEnabled()).thenReturn(true);
+        when(shardRouter.shardOfHotel(anyString())).thenAnswer(invocation -> "hotel:" + invocation.getArgument(0));
+        when(shardRouter.locate(anyString(), anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(0) + ":" + invocation.getArgument(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ShardContext.clear();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void hotelIdPathVariableComesFirst() {
+        signInHotelAdmin("hotel-9");
+        MockHttpServletRequest request = request("/api/rooms/import/{hotelId}", Map.of("hotelId", "hotel-1"));
+        request.setParameter("hotel_id", "hotel-2");
+
+        assertThat(shardFor(request)).isEqualTo("hotel:hotel-1");
+    }
+
+    @Test
+    void bookingIdPathVariableIsLocated() {
+        MockHttpServletRequest request = request("/api/payments/booking/{bookingId}", Map.of("bookingId", "b-1"));
+        request.setParameter("hotel_id", "hotel-2");
+
+        assertThat(shardFor(request)).isEqualTo("bookings:b-1");
+    }
+
+    @Test
+    void hotelPathIdIsAHotel() {
+        assertThat(shardFor(request("/api/hotels/{id}", Map.of("id", "hotel-1")))).isEqualTo("hotel:hotel-1");
+    }
+
+    @Test
+    void pathIdIsLocatedByLongestMatchingPrefix() {
+        assertThat(shardFor(request("/api/rooms/types/{id}", Map.of("id", "t-1")))).isEqualTo("room_types:t-1");
+        assertThat(shardFor(request("/api/rooms/tariffs/{id}", Map.of("id", "f-1")))).isEqualTo("tariffs:f-1");
+        assertThat(shardFor(request("/api/rooms/{id}", Map.of("id", "r-1")))).isEqualTo("rooms:r-1");
+        assertThat(shardFor(request("/api/bookings/{id}", Map.of("id", "b-1")))).isEqualTo("bookings:b-1");
+    }
+
+    @Test
+    void hotelIdParameterComesBeforeTheSignedInAdmin() {
+        signInHotelAdmin("hotel-9");
+        MockHttpServletRequest request = request("/api/bookings", Map.of());
+        request.setParameter("hotel_id", "hotel-2");
+
+        assertThat(shardFor(request)).isEqualTo("hotel:hotel-2");
+    }
+
+    @Test
+    void hotelAdminFallsBackToOwnHotel() {
+        signInHotelAdmin("hotel-9");
+
+        assertThat(shardFor(request("/api/bookings", Map.of()))).isEqualTo("hotel:hotel-9");
+    }
+
+    @Test
+    void requestWithoutHotelStaysOnDefaultShard() {
+        assertThat(shardFor(request("/api/bookings", Map.of()))).isNull();
+    }
+
+    @Test
+    void disabledShardingNeverResolves() {
+        when(shardRouter.isEnabled()).thenReturn(false);
+
+        assertThat(shardFor(request("/api/hotels/{id}", Map.of("id", "hotel-1")))).isNull();
+        verify(shardRouter, never()).shardOfHotel(anyString());
+    }
+
+    @Test
+    void shardIsClearedAfterCompletion() {
+        MockHttpServletRequest request = request("/api/hotels/{id}", Map.of("id", "hotel-1"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, new Object());
+
+        interceptor.afterCompletion(request, response, new Object(), null);
+
+        assertThat(ShardContext.current()).isNull();
+    }
+
+    private String shardFor(MockHttpServletRequest request) {
+        interceptor.preHandle(request, new MockHttpServletResponse(), new Object());
+        return ShardContext.current();
+    }
+
+    private static MockHttpServletRequest request(String pattern, Map<String, String> vars) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, vars);
+        return request;
+    }
+
+    private static void signInHotelAdmin(String hotelId) {
+        List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_HOTEL_ADMIN"));
+        CustomUserDetails user = new CustomUserDetails("user-1", "admin@example.com", "", authorities, hotelId,
+                "hotel_admin");
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(user, null, authorities));
+    }
+}
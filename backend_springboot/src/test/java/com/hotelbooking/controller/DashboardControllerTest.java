@@ -0,0 +1,108 @@
+package com.hotelbooking.controller;
+
+import com.hotelbooking.security.CustomUserDetails;
+import com.hotelbooking.service.DashboardService;
+import com.hotelbooking.service.RollupService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.method.annotation.AuthenticationPrincipalArgumentResolver;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Who may read /api/dashboard/daily-stats: admins only, and a hotel admin
+ * only for their own hotel.
+ */
+class DashboardControllerTest {
+
+    private final RollupService rollupService = mock(RollupService.class);
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        DashboardService dashboardService = new DashboardService();
+        ReflectionTestUtils.setField(dashboardService, "rollupService", rollupService);
+        DashboardController controller = new DashboardController();
+        ReflectionTestUtils.setField(controller, "dashboardService", dashboardService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setCustomArgumentResolvers(new AuthenticationPrincipalArgumentResolver())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void dailyStatsRequireSignIn() throws Exception {
+        mockMvc.perform(get("/api/dashboard/daily-stats")).andExpect(status().isUnauthorized());
+        verifyNoInteractions(rollupService);
+    }
+
+    @Test
+    void guestsCannotReadDailyStats() throws Exception {
+        signIn("guest", null);
+
+        mockMvc.perform(get("/api/dashboard/daily-stats")).andExpect(status().isForbidden());
+        verifyNoInteractions(rollupService);
+    }
+
+    @Test
+    void hotelAdminWithoutAHotelCannotReadDailyStats() throws Exception {
+        signIn("hotel_admin", null);
+
+        mockMvc.perform(get("/api/dashboard/daily-stats")).andExpect(status().isForbidden());
+        verifyNoInteractions(rollupService);
+    }
+
+    @Test
+    void hotelAdminSeesOnlyTheirOwnHotel() throws Exception {
+        signIn("hotel_admin", "hotel-1");
+        when(rollupService.getDailyStats(eq("hotel-1"), any(), any()))
+                .thenReturn(List.of(Map.of("date", "2026-03-01", "bookings", 2)));
+
+        mockMvc.perform(get("/api/dashboard/daily-stats")
+                        .param("start_date", "2026-03-01")
+                        .param("end_date", "2026-03-07"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].bookings").value(2));
+        verify(rollupService).getDailyStats("hotel-1", LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 7));
+    }
+
+    @Test
+    void superAdminSeesEveryHotel() throws Exception {
+        signIn("super_admin", null);
+
+        mockMvc.perform(get("/api/dashboard/daily-stats")).andExpect(status().isOk());
+        verify(rollupService).getDailyStats(isNull(), any(), any());
+    }
+
+    private static void signIn(String role, String hotelId) {
+        CustomUserDetails user = new CustomUserDetails("user-1", "user@example.com", "",
+                List.of(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase())), hotelId, role);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
@@ -0,0 +1,102 @@
+package com.hotelbooking.controller;
+
+import com.hotelbooking.security.CustomUserDetails;
+import com.hotelbooking.service.RoomImportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.method.annotation.AuthenticationPrincipalArgumentResolver;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Who may bulk-import rooms: /api/rooms/** is public for browsing, so the
+ * import itself only admits a super admin or the admin of that hotel.
+ */
+class RoomControllerTest {
+
+    private static final MockMultipartFile FILE = new MockMultipartFile("file", "rooms.jsonl",
+            "application/x-ndjson", "{\"kind\":\"room_type\",\"name\":\"Standard\",\"max_occupancy\":2}\n".getBytes());
+
+    private final RoomImportService roomImportService = mock(RoomImportService.class);
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        RoomController controller = new RoomController();
+        ReflectionTestUtils.setField(controller, "roomImportService", roomImportService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setCustomArgumentResolvers(new AuthenticationPrincipalArgumentResolver())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void importRequiresSignIn() throws Exception {
+        mockMvc.perform(multipart("/api/rooms/import/hotel-1").file(FILE)).andExpect(status().isUnauthorized());
+        verifyNoInteractions(roomImportService);
+    }
+
+    @Test
+    void guestsCannotImport() throws Exception {
+        signIn("guest", null);
+
+        mockMvc.perform(multipart("/api/rooms/import/hotel-1").file(FILE)).andExpect(status().isForbidden());
+        verifyNoInteractions(roomImportService);
+    }
+
+    @Test
+    void hotelAdminCannotImportIntoAnotherHotel() throws Exception {
+        signIn("hotel_admin", "hotel-2");
+
+        mockMvc.perform(multipart("/api/rooms/import/hotel-1").file(FILE)).andExpect(status().isForbidden());
+        verifyNoInteractions(roomImportService);
+    }
+
+    @Test
+    void hotelAdminImportsIntoOwnHotel() throws Exception {
+        signIn("hotel_admin", "hotel-1");
+        when(roomImportService.importRooms(eq("hotel-1"), any(), any())).thenReturn(Map.of("rows_read", 1));
+
+        mockMvc.perform(multipart("/api/rooms/import/hotel-1").file(FILE)).andExpect(status().isOk());
+        verify(roomImportService).importRooms(eq("hotel-1"), any(), eq(RoomImportService.Format.JSON_LINES));
+    }
+
+    @Test
+    void superAdminImportsIntoAnyHotel() throws Exception {
+        signIn("super_admin", null);
+        when(roomImportService.importRooms(eq("hotel-1"), any(), any())).thenReturn(Map.of("rows_read", 1));
+
+        mockMvc.perform(multipart("/api/rooms/import/hotel-1").file(FILE)).andExpect(status().isOk());
+        verify(roomImportService).importRooms(eq("hotel-1"), any(), eq(RoomImportService.Format.JSON_LINES));
+    }
+
+    private static void signIn(String role, String hotelId) {
+        List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()));
+        CustomUserDetails user = new CustomUserDetails("user-1", "user@example.com", "", authorities, hotelId, role);
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(user, null, authorities));
+    }
+}
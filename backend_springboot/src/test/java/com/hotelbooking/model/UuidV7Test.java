@@ -0,0 +1,96 @@
+package com.hotelbooking.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * UuidV7: ids increase (also within one millisecond), carry the version 7 and
+ * RFC variant bits, and survive the 16-byte binary form unchanged.
+ */
+class UuidV7Test {
+
+    @Test
+    void idsIncreaseWithinOneMillisecond() {
+        // Generating 10k ids takes a few milliseconds, so many of them share a timestamp
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(UuidV7.next());
+        }
+
+        assertThat(ids).isSortedAccordingTo(String::compareTo);
+        assertThat(new HashSet<>(ids)).hasSize(ids.size());
+        long sameMillisecond = 0;
+        for (int i = 1; i < ids.size(); i++) {
+            if (UuidV7.timestamp(ids.get(i)).equals(UuidV7.timestamp(ids.get(i - 1)))) {
+                sameMillisecond++;
+            }
+        }
+        assertThat(sameMillisecond).isPositive();
+    }
+
+    @Test
+    void canonicalStringSortsLikeTheUuid() {
+        UUID first = UuidV7.generate();
+        UUID second = UuidV7.generate();
+
+        assertThat(Long.compareUnsigned(first.getMostSignificantBits(), second.getMostSignificantBits()))
+                .isNegative();
+        assertThat(first.toString()).isLessThan(second.toString());
+    }
+
+    @Test
+    void carriesVersionSevenAndTheRfcVariant() {
+        for (int i = 0; i < 1_000; i++) {
+            UUID uuid = UuidV7.generate();
+
+            assertThat(uuid.version()).isEqualTo(7);
+            assertThat(uuid.variant()).isEqualTo(2);
+            assertThat(uuid.toString().charAt(14)).isEqualTo('7');
+            assertThat(uuid.toString().charAt(19)).isIn('8', '9', 'a', 'b');
+        }
+    }
+
+    @Test
+    void timestampIsTheCreationTimeAndNullForRandomIds() {
+        long before = System.currentTimeMillis();
+        String id = UuidV7.next();
+        long after = System.currentTimeMillis();
+
+        // The counter may run ahead of the clock by a millisecond or so under load, never behind
+        assertThat(UuidV7.timestamp(id)).isBetween(Instant.ofEpochMilli(before), Instant.ofEpochMilli(after + 1000));
+        assertThat(UuidV7.timestamp(UUID.randomUUID().toString())).isNull();
+    }
+
+    @Test
+    void bytesRoundTripAndKeepTheOrder() {
+        String first = UuidV7.next();
+        String second = UuidV7.next();
+        byte[] firstBytes = UuidV7.toBytes(first);
+
+        assertThat(firstBytes).hasSize(16);
+        assertThat(UuidV7.fromBytes(firstBytes)).isEqualTo(first);
+        // Big-endian, so BINARY(16) comparison orders the same as the string form
+        assertThat(Arrays.compareUnsigned(firstBytes, UuidV7.toBytes(second))).isNegative();
+
+        String random = UUID.randomUUID().toString();
+        assertThat(UuidV7.fromBytes(UuidV7.toBytes(random))).isEqualTo(random);
+        // Upper-case input comes back in canonical form
+        assertThat(UuidV7.fromBytes(UuidV7.toBytes(first.toUpperCase()))).isEqualTo(first);
+    }
+
+    @Test
+    void fromBytesRejectsWrongLengths() {
+        assertThatThrownBy(() -> UuidV7.fromBytes(new byte[15]))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("got 15");
+    }
+}
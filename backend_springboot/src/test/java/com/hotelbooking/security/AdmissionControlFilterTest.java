@@ -0,0 +1,179 @@
+package com.hotelbooking.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelbooking.security.AdmissionControlFilter.CostClass;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * AdmissionControlFilter with buckets that barely refill: how requests are
+ * classified, the 429 once a bucket is empty, the throttled fallback to a
+ * cached cheap response, and the separate per-IP and per-user buckets.
+ */
+class AdmissionControlFilterTest {
+
+    private static final String USER_TOKEN = "user-token";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JwtUtil jwtUtil = mock(JwtUtil.class);
+
+    private final AdmissionControlFilter filter = new AdmissionControlFilter();
+
+    // Requests that reached the controller
+    private final AtomicInteger served = new AtomicInteger();
+
+    private final FilterChain chain = (request, response) -> {
+        served.incrementAndGet();
+        response.setContentType("application/json");
+        response.getOutputStream().write("{\"success\":true}".getBytes(StandardCharsets.UTF_8));
+    };
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(filter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(filter, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "ipCapacity", 10d);
+        ReflectionTestUtils.setField(filter, "ipRefillPerSecond", 0.01);
+        ReflectionTestUtils.setField(filter, "tokenCapacity", 20d);
+        ReflectionTestUtils.setField(filter, "tokenRefillPerSecond", 0.01);
+        ReflectionTestUtils.setField(filter, "cheapCost", 5d);
+        ReflectionTestUtils.setField(filter, "moderateCost", 5d);
+        ReflectionTestUtils.setField(filter, "expensiveCost", 10d);
+        ReflectionTestUtils.setField(filter, "cacheTtlSeconds", 30L);
+        ReflectionTestUtils.setField(filter, "cacheMaxEntries", 1000);
+        ReflectionTestUtils.setField(filter, "maxTrackedClients", 100000);
+
+        when(jwtUtil.extractId(USER_TOKEN)).thenReturn("user-1");
+        when(jwtUtil.extractId("forged")).thenThrow(new RuntimeException("bad signature"));
+    }
+
+    @Test
+    void classifiesRequestsByQueryWeight() {
+        assertThat(filter.classify("/api/hotels/h-1/available-rooms")).isEqualTo(CostClass.EXPENSIVE);
+        assertThat(filter.classify("/api/hotels/nearby")).isEqualTo(CostClass.EXPENSIVE);
+        assertThat(filter.classify("/api/rooms/availability/h-1")).isEqualTo(CostClass.EXPENSIVE);
+        assertThat(filter.classify("/api/hotels")).isEqualTo(CostClass.MODERATE);
+        assertThat(filter.classify("/api/hotels/h-1/price-calendar")).isEqualTo(CostClass.MODERATE);
+        assertThat(filter.classify("/api/rooms/tariffs/h-1")).isEqualTo(CostClass.MODERATE);
+        assertThat(filter.classify("/api/rooms/h-1")).isEqualTo(CostClass.MODERATE);
+        assertThat(filter.classify("/api/hotels/h-1")).isEqualTo(CostClass.CHEAP);
+        assertThat(filter.classify("/api/rooms/types/h-1")).isEqualTo(CostClass.CHEAP);
+    }
+
+    @Test
+    void emptyBucketIsRejectedWithRetryAfter() throws Exception {
+        assertThat(send(get("/api/hotels/nearby", "10.0.0.1")).getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse rejected = send(get("/api/hotels/nearby", "10.0.0.1"));
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        // 10 tokens missing at 0.01 per second
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1000");
+        assertThat(rejected.getContentAsString()).contains("Too many requests");
+        assertThat(served).hasValue(1);
+        assertThat(meterRegistry.counter("admission.rejected", "cost_class", "expensive", "client", "ip").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void throttledCheapReadIsAnsweredFromCache() throws Exception {
+        send(get("/api/hotels/h-1", "10.0.0.1"));
+        send(get("/api/hotels/h-1", "10.0.0.1"));
+
+        MockHttpServletResponse cached = send(get("/api/hotels/h-1", "10.0.0.1"));
+
+        assertThat(cached.getStatus()).isEqualTo(200);
+        assertThat(cached.getHeader("X-Served-From-Cache")).isEqualTo("true");
+        assertThat(cached.getContentAsString()).isEqualTo("{\"success\":true}");
+        assertThat(served).hasValue(2);
+        assertThat(meterRegistry.counter("admission.throttled.cache_hits", "client", "ip").count()).isEqualTo(1);
+    }
+
+    @Test
+    void throttledCheapReadWithoutCachedCopyIsRejected() throws Exception {
+        send(get("/api/hotels/h-1", "10.0.0.1"));
+        send(get("/api/hotels/h-1", "10.0.0.1"));
+
+        assertThat(send(get("/api/hotels/h-2", "10.0.0.1")).getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void eachIpHasItsOwnBucket() throws Exception {
+        send(get("/api/hotels/nearby", "10.0.0.1"));
+
+        assertThat(send(get("/api/hotels/nearby", "10.0.0.1")).getStatus()).isEqualTo(429);
+        assertThat(send(get("/api/hotels/nearby", "10.0.0.2")).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void signedInUserIsLimitedAcrossAddresses() throws Exception {
+        assertThat(send(signedIn(get("/api/hotels/nearby", "10.0.0.1"))).getStatus()).isEqualTo(200);
+        assertThat(send(signedIn(get("/api/hotels/nearby", "10.0.0.2"))).getStatus()).isEqualTo(200);
+
+        // A fresh address does not give the user more budget
+        assertThat(send(signedIn(get("/api/hotels/nearby", "10.0.0.3"))).getStatus()).isEqualTo(429);
+        assertThat(meterRegistry.counter("admission.rejected", "cost_class", "expensive", "client", "token").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void userBudgetIsRefundedWhenTheIpRefuses() throws Exception {
+        send(signedIn(get("/api/hotels/nearby", "10.0.0.1")));
+        assertThat(send(signedIn(get("/api/hotels/nearby", "10.0.0.1"))).getStatus()).isEqualTo(429);
+
+        // The refused request did not cost the user anything
+        assertThat(send(signedIn(get("/api/hotels/nearby", "10.0.0.2"))).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void unverifiedTokenOnlyCountsAgainstTheIp() throws Exception {
+        MockHttpServletRequest request = get("/api/hotels/nearby", "10.0.0.1");
+        request.addHeader("Authorization", "Bearer forged");
+        send(request);
+
+        assertThat(send(get("/api/hotels/nearby", "10.0.0.1")).getStatus()).isEqualTo(429);
+        assertThat(meterRegistry.counter("admission.rejected", "cost_class", "expensive", "client", "ip").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void writesAndOtherPathsAreNotThrottled() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest post = get("/api/hotels/nearby", "10.0.0.1");
+            post.setMethod("POST");
+            assertThat(send(post).getStatus()).isEqualTo(200);
+            assertThat(send(get("/api/bookings", "10.0.0.1")).getStatus()).isEqualTo(200);
+        }
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest get(String path, String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+
+    private static MockHttpServletRequest signedIn(MockHttpServletRequest request) {
+        request.addHeader("Authorization", "Bearer " + USER_TOKEN);
+        return request;
+    }
+}
@@ -0,0 +1,91 @@
+package com.hotelbooking.security;
+
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Quote tokens verify only as issued: altered, expired, login tokens and
+ * tokens signed with another secret are all refused.
+ */
+class QuoteTokenUtilTest {
+
+    private static final String SECRET = "quote-token-test-secret-that-is-long-enough-for-an-hs512-signing-key";
+
+    private final QuoteTokenUtil quoteTokenUtil = new QuoteTokenUtil();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(quoteTokenUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(quoteTokenUtil, "ttlSeconds", 600L);
+    }
+
+    @Test
+    void verifiesItsOwnTokenAndReturnsTheClaims() {
+        String token = quoteTokenUtil.sign(Map.of("room_type_id", "rt-1", "total", 300), inSeconds(60));
+
+        Claims claims = quoteTokenUtil.verify(token);
+
+        assertThat(claims.get("room_type_id", String.class)).isEqualTo("rt-1");
+        assertThat(claims.get("total", Integer.class)).isEqualTo(300);
+    }
+
+    @Test
+    void rejectsATokenWhosePayloadWasChanged() {
+        String token = quoteTokenUtil.sign(Map.of("total", 300), inSeconds(60));
+        String[] parts = token.split("\\.");
+        String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8);
+        String cheaper = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(payload.replace("300", "3").getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> quoteTokenUtil.verify(parts[0] + "." + cheaper + "." + parts[2]))
+                .hasMessage("Invalid quote token");
+    }
+
+    @Test
+    void rejectsATokenWithAnAlteredSignature() {
+        String token = quoteTokenUtil.sign(Map.of("total", 300), inSeconds(60));
+        // Change a character inside the signature; the last one partly encodes padding bits
+        int at = token.lastIndexOf('.') + 10;
+        String altered = token.substring(0, at) + (token.charAt(at) == 'A' ? 'B' : 'A') + token.substring(at + 1);
+
+        assertThatThrownBy(() -> quoteTokenUtil.verify(altered)).hasMessage("Invalid quote token");
+        assertThatThrownBy(() -> quoteTokenUtil.verify("not-a-token")).hasMessage("Invalid quote token");
+    }
+
+    @Test
+    void rejectsAnExpiredQuote() {
+        String token = quoteTokenUtil.sign(Map.of("total", 300), inSeconds(-1));
+
+        assertThatThrownBy(() -> quoteTokenUtil.verify(token))
+                .hasMessage("Quote has expired, please request a new one");
+    }
+
+    @Test
+    void rejectsLoginTokensAndQuotesSignedWithAnotherSecret() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 60_000L);
+        String loginToken = jwtUtil.generateToken("guest@example.com", "guest", "user-1", null);
+
+        QuoteTokenUtil otherNode = new QuoteTokenUtil();
+        ReflectionTestUtils.setField(otherNode, "secret", SECRET + "-rotated");
+        String foreignQuote = otherNode.sign(Map.of("total", 300), inSeconds(60));
+
+        assertThatThrownBy(() -> quoteTokenUtil.verify(loginToken)).hasMessage("Invalid quote token");
+        assertThatThrownBy(() -> quoteTokenUtil.verify(foreignQuote)).hasMessage("Invalid quote token");
+    }
+
+    private static Date inSeconds(long seconds) {
+        return new Date(System.currentTimeMillis() + seconds * 1000);
+    }
+}
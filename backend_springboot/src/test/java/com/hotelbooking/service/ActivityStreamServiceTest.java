@@ -0,0 +1,144 @@
+package com.hotelbooking.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reconnects with Last-Event-ID: missed events come from the replay buffer,
+ * and a client whose events are gone (evicted, or ids from before a restart)
+ * gets a single reset event instead.
+ */
+class ActivityStreamServiceTest {
+
+    private static final long FIRST_ID = 1000;
+
+    private final ActivityStreamService activityStream = new ActivityStreamService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(activityStream, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(activityStream, "replaySize", 3);
+        ReflectionTestUtils.setField(activityStream, "maxSubscribers", 10);
+        ReflectionTestUtils.setField(activityStream, "timeoutMinutes", 5L);
+        ReflectionTestUtils.setField(activityStream, "heartbeatSeconds", 3600L);
+        ReflectionTestUtils.setField(activityStream, "lastId", FIRST_ID);
+        activityStream.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        activityStream.shutdown();
+    }
+
+    @Test
+    void replaysOnlyTheMissedEventsOfTheSubscribersHotel() throws Exception {
+        publish("hotel-1", "hotel-1", "hotel-2", "hotel-1");
+
+        SseEmitter emitter = activityStream.subscribe("hotel-1", FIRST_ID + 1);
+
+        assertThat(sent(emitter)).containsExactly(":connected", "id:1002 booking_created", "id:1004 booking_created");
+    }
+
+    @Test
+    void replayIsFollowedByLiveEventsWithoutDuplicates() throws Exception {
+        publish("hotel-1", "hotel-1");
+
+        SseEmitter emitter = activityStream.subscribe(null, FIRST_ID + 1);
+        publish("hotel-2");
+
+        assertThat(sent(emitter)).containsExactly(":connected", "id:1002 booking_created", "id:1003 booking_created");
+    }
+
+    @Test
+    void resetsWhenTheMissedEventsWereEvicted() throws Exception {
+        publish("hotel-1", "hotel-1", "hotel-1", "hotel-1", "hotel-1");
+
+        // The buffer holds 1003 to 1005; 1002 is gone
+        SseEmitter evicted = activityStream.subscribe(null, FIRST_ID + 1);
+        SseEmitter justInTime = activityStream.subscribe(null, FIRST_ID + 2);
+
+        assertThat(sent(evicted)).containsExactly("id:1005 reset");
+        assertThat(sent(justInTime)).containsExactly(":connected",
+                "id:1003 booking_created", "id:1004 booking_created", "id:1005 booking_created");
+    }
+
+    @Test
+    void resetsWhenTheLastEventIdIsAheadOfTheServer() throws Exception {
+        publish("hotel-1");
+
+        // An id from before a restart, when the clock-based ids had run further
+        SseEmitter emitter = activityStream.subscribe("hotel-1", FIRST_ID + 50);
+        publish("hotel-1");
+
+        assertThat(sent(emitter)).containsExactly("id:1001 reset", "id:1002 booking_created");
+    }
+
+    @Test
+    void newStreamWithoutLastEventIdGetsOnlyLiveEvents() throws Exception {
+        publish("hotel-1");
+
+        SseEmitter emitter = activityStream.subscribe(null, null);
+        publish("hotel-1");
+
+        assertThat(sent(emitter)).containsExactly(":connected", "id:1002 booking_created");
+    }
+
+    private void publish(String... hotelIds) {
+        for (String hotelId : hotelIds) {
+            activityStream.publish("booking_created", hotelId, Map.of("id", "booking-" + hotelId));
+        }
+    }
+
+    /**
+     * What the emitter was asked to send, one "id:N name" line per event and
+     * ":comment" for comments. The emitter is not attached to a response, so
+     * sends are held in its early-send buffer.
+     */
+    private List<String> sent(SseEmitter emitter) throws Exception {
+        // Sends happen on the stream's single sender thread; wait until it has drained
+        ScheduledExecutorService sender =
+                (ScheduledExecutorService) ReflectionTestUtils.getField(activityStream, "sender");
+        sender.submit(() -> { }).get(5, TimeUnit.SECONDS);
+
+        @SuppressWarnings("unchecked")
+        Collection<ResponseBodyEmitter.DataWithMediaType> parts = (Collection<ResponseBodyEmitter.DataWithMediaType>)
+                ReflectionTestUtils.getField(emitter, "earlySendAttempts");
+        StringBuilder stream = new StringBuilder();
+        for (ResponseBodyEmitter.DataWithMediaType part : parts) {
+            stream.append(part.getData() instanceof String text ? text : "{json}");
+        }
+
+        List<String> events = new ArrayList<>();
+        for (String block : stream.toString().split("\n\n")) {
+            String id = null;
+            String name = null;
+            for (String line : block.split("\n")) {
+                if (line.startsWith(":")) {
+                    events.add(line);
+                } else if (line.startsWith("id:")) {
+                    id = line;
+                } else if (line.startsWith("event:")) {
+                    name = line.substring("event:".length());
+                }
+            }
+            if (id != null) {
+                events.add(id + " " + name);
+            }
+        }
+        return events;
+    }
+}
@@ -0,0 +1,129 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.service.AnalyticsSnapshot.BookingRows;
+import com.hotelbooking.service.AnalyticsSnapshot.Contents;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * AnalyticsSnapshot write/read round trip, and the damaged files read must
+ * refuse rather than restore: truncated, altered and foreign ones.
+ */
+class AnalyticsSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readReturnsWhatWasWritten() throws IOException {
+        Path path = dir.resolve("analytics.snapshot");
+        Contents written = sample();
+
+        AnalyticsSnapshot.write(path, written);
+        Contents read = AnalyticsSnapshot.read(path);
+
+        assertThat(read.source()).isEqualTo(written.source());
+        assertThat(read.watermarks()).containsExactlyEntriesOf(written.watermarks());
+        assertThat(read.watermarks().get("shard-b").getNanos()).isEqualTo(123_456_789);
+        assertThat(read.hotelIds()).isEqualTo(written.hotelIds());
+        assertThat(read.roomTypeIds()).isEqualTo(written.roomTypeIds());
+        assertThat(read.bookings()).isEqualTo(written.bookings());
+        // Only the first size entries of each column are written
+        assertThat(read.size()).isEqualTo(3);
+        assertThat(read.hotelCol()).containsExactly(0, 1, 1);
+        assertThat(read.roomTypeCol()).containsExactly(0, 1, 2);
+        assertThat(read.dayCol()).containsExactly(20_000, 20_000, 20_001);
+        assertThat(read.amountCol()).containsExactly(120.5, 99.0, 99.0);
+        // The temporary file was moved into place
+        try (var files = Files.list(dir)) {
+            assertThat(files).containsExactly(path);
+        }
+    }
+
+    @Test
+    void writingAgainReplacesTheSnapshot() throws IOException {
+        Path path = dir.resolve("analytics.snapshot");
+        AnalyticsSnapshot.write(path, sample());
+
+        Contents empty = new Contents(null, Map.of(), List.of(), List.of(), List.of(), 0,
+                new int[0], new int[0], new int[0], new double[0]);
+        AnalyticsSnapshot.write(path, empty);
+        Contents read = AnalyticsSnapshot.read(path);
+
+        assertThat(read.source()).isEmpty();
+        assertThat(read.watermarks()).isEmpty();
+        assertThat(read.bookings()).isEmpty();
+        assertThat(read.size()).isZero();
+    }
+
+    @Test
+    void rejectsATruncatedFile() throws IOException {
+        Path path = dir.resolve("analytics.snapshot");
+        AnalyticsSnapshot.write(path, sample());
+        byte[] bytes = Files.readAllBytes(path);
+
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 20));
+        assertThatThrownBy(() -> AnalyticsSnapshot.read(path))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("checksum");
+
+        Files.write(path, Arrays.copyOf(bytes, 10));
+        assertThatThrownBy(() -> AnalyticsSnapshot.read(path))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("invalid length");
+    }
+
+    @Test
+    void rejectsAFileWithABadChecksum() throws IOException {
+        Path path = dir.resolve("analytics.snapshot");
+        AnalyticsSnapshot.write(path, sample());
+        byte[] bytes = Files.readAllBytes(path);
+
+        // One amount byte flipped
+        bytes[bytes.length - 12] ^= 0x01;
+        Files.write(path, bytes);
+
+        assertThatThrownBy(() -> AnalyticsSnapshot.read(path))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Analytics snapshot checksum mismatch");
+    }
+
+    @Test
+    void rejectsFilesThatAreNotSnapshots() throws IOException {
+        Path path = dir.resolve("analytics.snapshot");
+        Files.write(path, new byte[64]);
+
+        assertThatThrownBy(() -> AnalyticsSnapshot.read(path))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Not an analytics snapshot");
+        assertThatThrownBy(() -> AnalyticsSnapshot.read(dir.resolve("missing.snapshot")))
+                .isInstanceOf(IOException.class);
+    }
+
+    private static Contents sample() {
+        Map<String, Timestamp> watermarks = new LinkedHashMap<>();
+        watermarks.put("shard-a", Timestamp.valueOf("2026-03-01 10:15:30"));
+        Timestamp precise = Timestamp.valueOf("2026-03-01 10:16:00");
+        precise.setNanos(123_456_789);
+        watermarks.put("shard-b", precise);
+
+        // Columns carry spare capacity past size, as the live store's arrays do
+        return new Contents("jdbc:mysql://localhost:3306/hotel_booking", watermarks,
+                List.of("hotel-1", "Hôtel-2"), List.of("rt-1", "rt-2", "rt-3"),
+                List.of(new BookingRows("booking-1", 1), new BookingRows("booking-2", 2)), 3,
+                new int[]{0, 1, 1, 7}, new int[]{0, 1, 2, 7}, new int[]{20_000, 20_000, 20_001, 7},
+                new double[]{120.5, 99.0, 99.0, 7.0});
+    }
+}
@@ -0,0 +1,133 @@
+package com.hotelbooking.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * HoldExpiryService with a zero-minute hold and the database mocked out:
+ * pending bookings loaded at startup expire at once and are cancelled with
+ * their inventory released, while a hold stopped by a payment, or a booking
+ * no longer pending when the row lock re-checks it, is left alone.
+ */
+class HoldExpiryServiceTest {
+
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final InventoryService inventoryService = mock(InventoryService.class);
+    private final PriceCalendarService priceCalendarService = mock(PriceCalendarService.class);
+    private final ActivityStreamService activityStreamService = mock(ActivityStreamService.class);
+    private final ShardRouter shardRouter = mock(ShardRouter.class);
+
+    private final HoldExpiryService holdExpiryService = new HoldExpiryService();
+
+    private final Query pending = mock(Query.class);
+    private final Query lock = mock(Query.class);
+    private final Query cancel = mock(Query.class);
+
+    private final List<Object[]> pendingRows = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReflectionTestUtils.setField(holdExpiryService, "entityManager", entityManager);
+        ReflectionTestUtils.setField(holdExpiryService, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(holdExpiryService, "inventoryService", inventoryService);
+        ReflectionTestUtils.setField(holdExpiryService, "priceCalendarService", priceCalendarService);
+        ReflectionTestUtils.setField(holdExpiryService, "activityStreamService", activityStreamService);
+        ReflectionTestUtils.setField(holdExpiryService, "shardRouter", shardRouter);
+        ReflectionTestUtils.setField(holdExpiryService, "holdMinutes", 0L);
+        ReflectionTestUtils.setField(holdExpiryService, "batchSize", 100);
+
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(shardRouter.defaultShard()).thenReturn("shard0");
+        when(shardRouter.scatter(any())).thenAnswer(invocation -> {
+            Function<String, Object> work = invocation.getArgument(0);
+            return Map.of("shard0", work.apply("shard0"));
+        });
+        when(pending.getResultList()).thenReturn(pendingRows);
+        when(entityManager.createNativeQuery(anyString())).thenAnswer(invocation -> {
+            String sql = ((String) invocation.getArgument(0)).strip();
+            if (sql.startsWith("SELECT id, created_at FROM bookings")) {
+                return pending;
+            }
+            if (sql.startsWith("SELECT id FROM bookings")) {
+                return lock;
+            }
+            if (sql.startsWith("UPDATE bookings")) {
+                return cancel;
+            }
+            throw new AssertionError("Unexpected SQL: " + sql);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        holdExpiryService.stop();
+    }
+
+    @Test
+    void expiredPendingBookingIsCancelledAndReleased() {
+        pendingRows.add(new Object[] { "b-1", Timestamp.from(Instant.now().minusSeconds(60)) });
+        when(lock.getResultList()).thenReturn(List.of("b-1"));
+
+        holdExpiryService.start();
+
+        verify(inventoryService, timeout(2000)).releaseBooking("b-1");
+        verify(lock).setParameter("ids", List.of("b-1"));
+        verify(cancel).setParameter("ids", List.of("b-1"));
+        verify(cancel).executeUpdate();
+        verify(priceCalendarService).invalidateForBookings(List.of("b-1"));
+        verify(activityStreamService).publishStatusChanges(List.of("b-1"), "cancelled");
+    }
+
+    @Test
+    void bookingPaidBeforeItsDeadlineIsLeftAlone() {
+        holdExpiryService.register("b-paid");
+        holdExpiryService.cancel("b-paid");
+        // Due after the paid hold, so once it is expired the paid one has been taken and skipped
+        pendingRows.add(new Object[] { "b-1", Timestamp.from(Instant.now().plusMillis(100)) });
+        when(lock.getResultList()).thenReturn(List.of("b-1"));
+
+        holdExpiryService.start();
+
+        verify(inventoryService, timeout(2000)).releaseBooking("b-1");
+        verify(lock, never()).setParameter(eq("ids"), eq(List.of("b-paid")));
+        verify(inventoryService, never()).releaseBooking("b-paid");
+    }
+
+    @Test
+    void bookingNoLongerPendingUnderTheLockIsLeftAlone() {
+        // Paid on another node: the hold is still queued here, but the locked re-check finds nothing pending
+        pendingRows.add(new Object[] { "b-1", Timestamp.from(Instant.now().minusSeconds(60)) });
+        when(lock.getResultList()).thenReturn(List.of());
+
+        holdExpiryService.start();
+
+        verify(transactionManager, timeout(2000)).commit(any());
+        verify(cancel, never()).executeUpdate();
+        verify(inventoryService, never()).releaseBooking(anyString());
+        verify(activityStreamService, never()).publishStatusChanges(any(), anyString());
+    }
+}
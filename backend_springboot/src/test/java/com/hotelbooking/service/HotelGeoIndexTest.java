@@ -0,0 +1,91 @@
+package com.hotelbooking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Radius queries of HotelGeoIndex where the lat/lon grid is awkward: boxes
+ * crossing the antimeridian, and boxes near a pole where a small radius
+ * spans every longitude.
+ */
+class HotelGeoIndexTest {
+
+    private final HotelGeoIndex index = new HotelGeoIndex();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(index, "cellDegrees", 0.5);
+    }
+
+    @Test
+    void findsHotelsOnBothSidesOfTheAntimeridian() {
+        index.put("fiji-east", -17.0, 179.9, null);
+        index.put("fiji-west", -17.0, -179.9, null);
+        index.put("far-away", -17.0, 178.0, null);
+
+        assertThat(ids(index.within(-17.0, 179.95, 50, null))).containsExactly("fiji-east", "fiji-west");
+        assertThat(ids(index.within(-17.0, -179.95, 50, null))).containsExactly("fiji-west", "fiji-east");
+        // The same point written past +/-180 degrees
+        assertThat(ids(index.within(-17.0, 180.05, 50, null))).containsExactly("fiji-west", "fiji-east");
+    }
+
+    @Test
+    void distanceAcrossTheAntimeridianIsTheShortWayRound() {
+        index.put("east", 0.0, 179.5, null);
+
+        List<HotelGeoIndex.Match> matches = index.within(0.0, -179.5, 200, null);
+
+        // One degree of longitude on the equator, not 359
+        assertThat(matches).hasSize(1);
+        assertThat(matches.get(0).distanceKm()).isCloseTo(111.2, within(0.5));
+    }
+
+    @Test
+    void findsHotelsOnOppositeMeridiansNearAPole() {
+        index.put("north-0", 89.9, 0.0, null);
+        index.put("north-180", 89.9, 180.0, null);
+        index.put("north-90w", 89.95, -90.0, null);
+        index.put("a-degree-south", 88.9, 0.0, null);
+
+        // Every longitude is within a few km here, so the scan has to cover all columns
+        assertThat(ids(index.within(89.95, 90.0, 30, null)))
+                .containsExactlyInAnyOrder("north-0", "north-180", "north-90w");
+        assertThat(ids(index.within(90.0, 0.0, 12, null)))
+                .containsExactlyInAnyOrder("north-0", "north-180", "north-90w");
+        assertThat(ids(index.within(-89.99, 45.0, 500, null))).isEmpty();
+    }
+
+    @Test
+    void searchesNearTheSouthPoleToo() {
+        index.put("south-a", -89.8, 10.0, null);
+        index.put("south-b", -89.8, -170.0, null);
+
+        // The two sit on opposite sides of the pole, 0.4 degrees of latitude apart
+        List<HotelGeoIndex.Match> matches = index.within(-89.8, 10.0, 50, null);
+        assertThat(ids(matches)).containsExactly("south-a", "south-b");
+        assertThat(matches.get(1).distanceKm()).isCloseTo(44.5, within(0.5));
+    }
+
+    @Test
+    void movedAndRemovedHotelsLeaveTheirOldCell() {
+        index.put("moving", 10.0, 10.0, 4);
+        index.put("moving", -17.0, 179.9, 4);
+        index.put("gone", -17.0, -179.9, 3);
+        index.remove("gone");
+
+        assertThat(index.within(10.0, 10.0, 10, null)).isEmpty();
+        assertThat(ids(index.within(-17.0, -179.95, 50, 4))).containsExactly("moving");
+        assertThat(index.within(-17.0, -179.95, 50, 3)).isEmpty();
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    private static List<String> ids(List<HotelGeoIndex.Match> matches) {
+        return matches.stream().map(HotelGeoIndex.Match::hotelId).toList();
+    }
+}
@@ -0,0 +1,190 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.dto.CreateBookingRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The room-type ledger against a real MySQL (skipped without Docker): the
+ * reserve/release SQL, and that concurrent bookings of one room type never
+ * sell more rooms than it has.
+ */
+@SpringBootTest(properties = {
+        "admission.enabled=false",
+        "booking.hold-minutes=600"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class InventoryLedgerMySqlTest {
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+    }
+
+    private static final LocalDate CHECK_IN = LocalDate.now().plusDays(30);
+    private static final LocalDate CHECK_OUT = CHECK_IN.plusDays(3);
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private String hotelId;
+    private String roomTypeId;
+
+    @BeforeEach
+    void seed() {
+        hotelId = UUID.randomUUID().toString();
+        roomTypeId = UUID.randomUUID().toString();
+        jdbcTemplate.update("""
+                    INSERT INTO hotels (id, name, city, country, email)
+                    VALUES (?, 'Ledger Test', 'Pune', 'India', ?)
+                """, hotelId, hotelId + "@example.com");
+        jdbcTemplate.update("""
+                    INSERT INTO room_types (id, hotel_id, name, max_occupancy, base_price)
+                    VALUES (?, ?, 'Double', 2, 100.00)
+                """, roomTypeId, hotelId);
+        for (int i = 1; i <= 3; i++) {
+            jdbcTemplate.update("INSERT INTO rooms (id, hotel_id, room_type_id, room_number) VALUES (?, ?, ?, ?)",
+                    UUID.randomUUID().toString(), hotelId, roomTypeId, "10" + i);
+        }
+    }
+
+    @Test
+    void reserveTakesOneRoomPerNightAndReleaseGivesItBack() {
+        inTransaction(() -> inventoryService.reserve(roomTypeId, CHECK_IN, CHECK_OUT));
+        inTransaction(() -> inventoryService.reserve(roomTypeId, CHECK_IN.plusDays(1), CHECK_OUT));
+        assertThat(remainingByNight()).containsExactly(2, 1, 1);
+
+        // A stay over a sold-out night fails as a whole and leaves the other nights alone
+        inTransaction(() -> inventoryService.reserve(roomTypeId, CHECK_IN.plusDays(1), CHECK_IN.plusDays(2)));
+        assertThatThrownBy(() -> inTransaction(() -> inventoryService.reserve(roomTypeId, CHECK_IN, CHECK_OUT)))
+                .hasMessageContaining("No available rooms");
+        assertThat(remainingByNight()).containsExactly(2, 0, 1);
+
+        String bookingId = insertTypeBooking(CHECK_IN, CHECK_OUT);
+        inventoryService.releaseBooking(bookingId);
+        assertThat(remainingByNight()).containsExactly(3, 1, 2);
+
+        // Releasing again never pushes a night above the type's room count
+        inventoryService.releaseBooking(bookingId);
+        assertThat(remainingByNight()).containsExactly(3, 2, 3);
+        assertThat(inventoryService.minRemaining(roomTypeId, CHECK_IN, CHECK_OUT)).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentBookingsNeverOversellARoomType() throws Exception {
+        String guestId = UUID.randomUUID().toString();
+        jdbcTemplate.update("INSERT INTO guests (id, first_name, last_name, email) VALUES (?, 'Ledger', 'Guest', ?)",
+                guestId, guestId + "@example.com");
+
+        int attempts = 12;
+        ExecutorService executor = Executors.newFixedThreadPool(attempts);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < attempts; i++) {
+                results.add(executor.submit(() -> {
+                    CreateBookingRequest request = new CreateBookingRequest();
+                    request.setGuest_id(guestId);
+                    request.setHotel_id(hotelId);
+                    request.setCheck_in_date(CHECK_IN);
+                    request.setCheck_out_date(CHECK_OUT);
+                    request.setRoom_ids(List.of(roomTypeId));
+                    start.await();
+                    try {
+                        bookingService.createBooking(request);
+                        return true;
+                    } catch (RuntimeException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int booked = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get()) {
+                    booked++;
+                }
+            }
+            assertThat(booked).isEqualTo(3);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Integer stays = jdbcTemplate.queryForObject("""
+                    SELECT COUNT(*) FROM booking_rooms br
+                    JOIN bookings b ON br.booking_id = b.id
+                    WHERE br.room_type_id = ? AND b.status NOT IN ('cancelled', 'no_show')
+                """, Integer.class, roomTypeId);
+        assertThat(stays).isEqualTo(3);
+        assertThat(remainingByNight()).containsExactly(0, 0, 0);
+    }
+
+    private List<Integer> remainingByNight() {
+        return jdbcTemplate.queryForList("""
+                    SELECT remaining FROM room_type_inventory
+                    WHERE room_type_id = ? AND stay_date >= ? AND stay_date < ?
+                    ORDER BY stay_date
+                """, Integer.class, roomTypeId, CHECK_IN, CHECK_OUT);
+    }
+
+    // A cancelled booking holding one room of the type for the stay, as releaseBooking reads it
+    private String insertTypeBooking(LocalDate checkIn, LocalDate checkOut) {
+        String guestId = UUID.randomUUID().toString();
+        jdbcTemplate.update("INSERT INTO guests (id, first_name, last_name, email) VALUES (?, 'Release', 'Guest', ?)",
+                guestId, guestId + "@example.com");
+        String bookingId = UUID.randomUUID().toString();
+        jdbcTemplate.update("""
+                    INSERT INTO bookings (id, guest_id, hotel_id, check_in_date, check_out_date, status,
+                        total_amount, final_amount)
+                    VALUES (?, ?, ?, ?, ?, 'cancelled', 0, 0)
+                """, bookingId, guestId, hotelId, checkIn, checkOut);
+        jdbcTemplate.update("""
+                    INSERT INTO booking_rooms (id, booking_id, room_type_id, check_in_date, check_out_date,
+                        price_per_night, number_of_nights, total_price)
+                    VALUES (?, ?, ?, ?, ?, 0, ?, 0)
+                """, UUID.randomUUID().toString(), bookingId, roomTypeId, checkIn, checkOut,
+                checkIn.datesUntil(checkOut).count());
+        return bookingId;
+    }
+
+    private void inTransaction(Runnable work) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> work.run());
+    }
+}
@@ -0,0 +1,147 @@
+package com.hotelbooking.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ledger arithmetic of InventoryService with the database mocked out: which
+ * nights get initialised, when a reservation counts as sold out, and how
+ * minRemaining combines stored nights with nights computed from stays.
+ * InventoryLedgerMySqlTest runs the same SQL against a real database.
+ */
+class InventoryServiceTest {
+
+    private static final LocalDate CHECK_IN = LocalDate.of(2026, 3, 10);
+    private static final LocalDate CHECK_OUT = LocalDate.of(2026, 3, 13);
+
+    private final EntityManager entityManager = mock(EntityManager.class);
+
+    private final InventoryService inventoryService = new InventoryService();
+
+    private final Query existingNights = mock(Query.class);
+    private final Query insertNight = mock(Query.class);
+    private final Query decrement = mock(Query.class);
+    private final Query ledger = mock(Query.class);
+    private final Query capacity = mock(Query.class);
+    private final Query stays = mock(Query.class);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(inventoryService, "entityManager", entityManager);
+        when(entityManager.createNativeQuery(anyString())).thenAnswer(invocation -> {
+            String sql = ((String) invocation.getArgument(0)).strip();
+            if (sql.startsWith("SELECT stay_date FROM room_type_inventory")) {
+                return existingNights;
+            }
+            if (sql.startsWith("INSERT IGNORE INTO room_type_inventory")) {
+                return insertNight;
+            }
+            if (sql.startsWith("UPDATE room_type_inventory") && sql.contains("remaining - 1")) {
+                return decrement;
+            }
+            if (sql.startsWith("SELECT room_type_id, stay_date, remaining")) {
+                return ledger;
+            }
+            if (sql.startsWith("SELECT room_type_id, COUNT(*) FROM rooms")) {
+                return capacity;
+            }
+            if (sql.startsWith("SELECT br.room_type_id, br.check_in_date")) {
+                return stays;
+            }
+            throw new AssertionError("Unexpected query: " + sql);
+        });
+    }
+
+    @Test
+    void reserveInitialisesOnlyMissingNightsAndTakesOneRoomPerNight() {
+        when(existingNights.getResultList()).thenReturn(List.of(Date.valueOf(CHECK_IN)));
+        when(decrement.executeUpdate()).thenReturn(3);
+
+        inventoryService.reserve("rt-1", CHECK_IN, CHECK_OUT);
+
+        // Two of the three nights had no ledger row yet
+        verify(insertNight, times(2)).executeUpdate();
+        verify(insertNight).setParameter("night", CHECK_IN.plusDays(1));
+        verify(insertNight).setParameter("night", CHECK_IN.plusDays(2));
+        verify(decrement).executeUpdate();
+    }
+
+    @Test
+    void reserveFailsWhenAnyNightIsSoldOut() {
+        when(existingNights.getResultList()).thenReturn(List.of(
+                Date.valueOf(CHECK_IN), Date.valueOf(CHECK_IN.plusDays(1)), Date.valueOf(CHECK_IN.plusDays(2))));
+        // remaining > 0 held on two of three nights
+        when(decrement.executeUpdate()).thenReturn(2);
+
+        assertThatThrownBy(() -> inventoryService.reserve("rt-1", CHECK_IN, CHECK_OUT))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("No available rooms");
+        verify(insertNight, times(0)).executeUpdate();
+    }
+
+    @Test
+    void minRemainingUsesStoredNightsAndComputesTheRest() {
+        // Night 1 in the ledger with 4 left; nights 2 and 3 computed from 5 rooms and the stays
+        when(ledger.getResultList()).thenReturn(rows(new Object[]{"rt-1", Date.valueOf(CHECK_IN), 4}));
+        when(capacity.getResultList()).thenReturn(rows(new Object[]{"rt-1", 5L}));
+        when(stays.getResultList()).thenReturn(rows(
+                new Object[]{"rt-1", Date.valueOf(CHECK_IN.minusDays(1)), Date.valueOf(CHECK_IN.plusDays(2))},
+                new Object[]{"rt-1", Date.valueOf(CHECK_IN.plusDays(1)), Date.valueOf(CHECK_OUT)},
+                new Object[]{"rt-1", Date.valueOf(CHECK_IN.plusDays(2)), Date.valueOf(CHECK_OUT.plusDays(4))}));
+
+        // Night 2 has two overlapping stays (5 - 2 = 3), night 3 two as well; the stored night 1 is not recounted
+        assertThat(inventoryService.minRemaining("rt-1", CHECK_IN, CHECK_OUT)).isEqualTo(3);
+    }
+
+    @Test
+    void minRemainingSkipsComputationWhenTheLedgerCoversTheStay() {
+        when(ledger.getResultList()).thenReturn(rows(
+                new Object[]{"rt-1", Date.valueOf(CHECK_IN), 2},
+                new Object[]{"rt-1", Date.valueOf(CHECK_IN.plusDays(1)), 0},
+                new Object[]{"rt-1", Date.valueOf(CHECK_IN.plusDays(2)), 5}));
+
+        assertThat(inventoryService.minRemaining("rt-1", CHECK_IN, CHECK_OUT)).isZero();
+        verify(entityManager, times(1)).createNativeQuery(anyString());
+    }
+
+    @Test
+    void minRemainingForSeveralTypesKeepsTheirStaysApart() {
+        when(ledger.getResultList()).thenReturn(rows());
+        when(capacity.getResultList()).thenReturn(rows(new Object[]{"rt-1", 2L}, new Object[]{"rt-2", 3L}));
+        when(stays.getResultList()).thenReturn(rows(
+                new Object[]{"rt-1", Date.valueOf(CHECK_IN), Date.valueOf(CHECK_OUT)},
+                new Object[]{"rt-1", Date.valueOf(CHECK_IN), Date.valueOf(CHECK_IN.plusDays(1))},
+                new Object[]{"rt-2", Date.valueOf(CHECK_IN.plusDays(1)), Date.valueOf(CHECK_IN.plusDays(2))}));
+
+        Map<String, Integer> remaining = inventoryService.minRemaining(List.of("rt-1", "rt-2", "rt-3"),
+                CHECK_IN, CHECK_OUT);
+
+        assertThat(remaining).containsEntry("rt-1", 0).containsEntry("rt-2", 2).containsEntry("rt-3", 0);
+    }
+
+    @Test
+    void minRemainingOfAnEmptyStayIsZero() {
+        assertThat(inventoryService.minRemaining("rt-1", CHECK_IN, CHECK_IN)).isZero();
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+}
@@ -0,0 +1,157 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.dto.CreateBookingRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * daily_hotel_stats against a real MySQL (skipped without Docker): after a
+ * booking, its payment and a refund, each refresh leaves the rollup totals
+ * equal to the same figures counted from the raw tables, with REFUND_
+ * transactions counted as refunds rather than payments.
+ */
+@SpringBootTest(properties = {
+        "admission.enabled=false",
+        "booking.hold-minutes=600",
+        // Refreshed by the test itself
+        "rollup.refresh-seconds=3600"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class RollupMySqlTest {
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+    }
+
+    private static final LocalDate CHECK_IN = LocalDate.now().plusDays(30);
+    private static final LocalDate CHECK_OUT = CHECK_IN.plusDays(3);
+
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String hotelId;
+    private String roomTypeId;
+    private String guestId;
+
+    @BeforeEach
+    void seed() {
+        hotelId = UUID.randomUUID().toString();
+        roomTypeId = UUID.randomUUID().toString();
+        guestId = UUID.randomUUID().toString();
+        jdbcTemplate.update("""
+                    INSERT INTO hotels (id, name, city, country, email)
+                    VALUES (?, 'Rollup Test', 'Pune', 'India', ?)
+                """, hotelId, hotelId + "@example.com");
+        jdbcTemplate.update("""
+                    INSERT INTO room_types (id, hotel_id, name, max_occupancy, base_price)
+                    VALUES (?, ?, 'Double', 2, 100.00)
+                """, roomTypeId, hotelId);
+        jdbcTemplate.update("INSERT INTO rooms (id, hotel_id, room_type_id, room_number) VALUES (?, ?, ?, '101')",
+                UUID.randomUUID().toString(), hotelId, roomTypeId);
+        jdbcTemplate.update("INSERT INTO guests (id, first_name, last_name, email) VALUES (?, 'Rollup', 'Guest', ?)",
+                guestId, guestId + "@example.com");
+    }
+
+    @Test
+    void totalsMatchRawTablesAfterBookingPaymentAndRefund() {
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setGuest_id(guestId);
+        request.setHotel_id(hotelId);
+        request.setCheck_in_date(CHECK_IN);
+        request.setCheck_out_date(CHECK_OUT);
+        request.setRoom_ids(List.of(roomTypeId));
+        Map<String, Object> booking = bookingService.createBooking(request);
+        String bookingId = (String) booking.get("id");
+        double finalAmount = ((Number) booking.get("final_amount")).doubleValue();
+
+        rollupService.refresh();
+        Map<String, Object> totals = rollupService.getTotals(hotelId);
+        assertThat(totals.get("bookings_created")).isEqualTo(1L);
+        // Unpaid bookings sell no nights yet
+        assertThat(totals.get("nights_sold")).isEqualTo(0L);
+        assertMatchesRawTables(totals);
+
+        Map<String, Object> payment = paymentService.createPayment(Map.of(
+                "booking_id", bookingId,
+                "amount", finalAmount,
+                "payment_method", "card",
+                "transaction_id", "TXN_" + bookingId));
+        rollupService.refresh();
+        totals = rollupService.getTotals(hotelId);
+        assertThat(totals.get("nights_sold")).isEqualTo(3L);
+        assertThat((Double) totals.get("revenue")).isCloseTo(finalAmount, within(0.01));
+        assertThat(totals.get("payments_count")).isEqualTo(1L);
+        assertMatchesRawTables(totals);
+
+        paymentService.processRefund((String) payment.get("payment_id"), Map.of("refund_amount", 40));
+        rollupService.refresh();
+        totals = rollupService.getTotals(hotelId);
+        assertThat(totals.get("payments_count")).isEqualTo(2L);
+        assertThat((Double) totals.get("payments_amount")).isCloseTo(finalAmount, within(0.01));
+        assertThat((Double) totals.get("refunds")).isCloseTo(40.0, within(0.01));
+        assertMatchesRawTables(totals);
+
+        // The next run re-reads the overlap window and rebuilds the same rows to the same values
+        rollupService.refresh();
+        assertThat(rollupService.getTotals(hotelId)).isEqualTo(totals);
+    }
+
+    private void assertMatchesRawTables(Map<String, Object> totals) {
+        Map<String, Object> raw = jdbcTemplate.queryForMap("""
+                    SELECT
+                        (SELECT COUNT(*) FROM bookings WHERE hotel_id = ?) AS bookings_created,
+                        (SELECT COALESCE(SUM(DATEDIFF(br.check_out_date, br.check_in_date)), 0)
+                         FROM booking_rooms br JOIN bookings b ON br.booking_id = b.id
+                         WHERE b.hotel_id = ? AND b.status = 'confirmed') AS nights_sold,
+                        (SELECT COALESCE(SUM(final_amount), 0) FROM bookings
+                         WHERE hotel_id = ? AND status = 'confirmed') AS revenue,
+                        (SELECT COUNT(*) FROM payments p JOIN bookings b ON p.booking_id = b.id
+                         WHERE b.hotel_id = ?) AS payments_count,
+                        (SELECT COALESCE(SUM(p.amount), 0) FROM payments p JOIN bookings b ON p.booking_id = b.id
+                         WHERE b.hotel_id = ? AND p.transaction_id NOT LIKE 'REFUND\\_%') AS payments_amount,
+                        (SELECT COALESCE(SUM(p.amount), 0) FROM payments p JOIN bookings b ON p.booking_id = b.id
+                         WHERE b.hotel_id = ? AND p.transaction_id LIKE 'REFUND\\_%') AS refunds
+                """, hotelId, hotelId, hotelId, hotelId, hotelId, hotelId);
+
+        assertThat(totals.get("bookings_created")).isEqualTo(((Number) raw.get("bookings_created")).longValue());
+        assertThat(totals.get("nights_sold")).isEqualTo(((Number) raw.get("nights_sold")).longValue());
+        assertThat(totals.get("payments_count")).isEqualTo(((Number) raw.get("payments_count")).longValue());
+        assertThat((Double) totals.get("revenue"))
+                .isCloseTo(((Number) raw.get("revenue")).doubleValue(), within(0.01));
+        assertThat((Double) totals.get("payments_amount"))
+                .isCloseTo(((Number) raw.get("payments_amount")).doubleValue(), within(0.01));
+        assertThat((Double) totals.get("refunds"))
+                .isCloseTo(((Number) raw.get("refunds")).doubleValue(), within(0.01));
+    }
+}
@@ -0,0 +1,90 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.service.RoomAllocator.Candidate;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * RoomAllocator.bestFit: the free room whose neighbouring stays leave the
+ * smallest gaps wins, then the lowest room number.
+ */
+class RoomAllocatorTest {
+
+    private static final int HORIZON = 30;
+
+    // The request in every test: nights 10 to 12, checking out on day 13
+    private static final long CHECK_IN = 10;
+    private static final long CHECK_OUT = 13;
+
+    @Test
+    void prefersTheRoomWhereTheStayButtsOntoAnExistingOne() {
+        Candidate empty = room("101");
+        Candidate gapOfTwo = room("102", 5, 8);
+        Candidate adjacent = room("103", 13, 15);
+
+        assertThat(bestFit(empty, gapOfTwo, adjacent)).isSameAs(adjacent);
+    }
+
+    @Test
+    void roomWhoseGuestLeavesOnTheCheckInDayIsFreeAndFitsBest() {
+        Candidate departing = room("104", 7, 10);
+        Candidate empty = room("101");
+
+        assertThat(bestFit(empty, departing)).isSameAs(departing);
+    }
+
+    @Test
+    void breaksNearSideTiesOnTheFarSideGap() {
+        Candidate openAfter = room("101", 5, 10);
+        Candidate boxedIn = room("102", 5, 10, 16, 20);
+
+        assertThat(bestFit(openAfter, boxedIn)).isSameAs(boxedIn);
+    }
+
+    @Test
+    void breaksFullTiesOnTheLowestRoomNumber() {
+        Candidate room10 = room("10");
+        Candidate room9 = room("9");
+        Candidate room11 = room("11");
+
+        assertThat(bestFit(room10, room11, room9)).isSameAs(room9);
+    }
+
+    @Test
+    void skipsRoomsWithAnOverlappingStay() {
+        Candidate overlapsCheckIn = room("101", 8, 11);
+        Candidate overlapsCheckOut = room("102", 12, 14);
+        Candidate inside = room("103", 11, 12);
+        Candidate free = room("104", 1, 2);
+
+        assertThat(bestFit(overlapsCheckIn, overlapsCheckOut, inside, free)).isSameAs(free);
+        assertThat(bestFit(overlapsCheckIn, overlapsCheckOut, inside)).isNull();
+    }
+
+    @Test
+    void staysBeyondTheHorizonCountAsOpen() {
+        Candidate farBefore = room("101", CHECK_IN - HORIZON - 5, CHECK_IN - HORIZON - 1);
+        Candidate empty = room("102");
+
+        // Both score as open on both sides, so the room number decides
+        assertThat(bestFit(empty, farBefore)).isSameAs(farBefore);
+        assertThat(RoomAllocator.bestFit(List.of(), CHECK_IN, CHECK_OUT, HORIZON)).isNull();
+    }
+
+    private static Candidate bestFit(Candidate... candidates) {
+        return RoomAllocator.bestFit(List.of(candidates), CHECK_IN, CHECK_OUT, HORIZON);
+    }
+
+    // Room with stays given as pairs of [checkIn, checkOut) days
+    private static Candidate room(String roomNumber, long... stays) {
+        List<long[]> booked = new ArrayList<>();
+        for (int i = 0; i < stays.length; i += 2) {
+            booked.add(new long[]{stays[i], stays[i + 1]});
+        }
+        return new Candidate("room-" + roomNumber, roomNumber, booked);
+    }
+}
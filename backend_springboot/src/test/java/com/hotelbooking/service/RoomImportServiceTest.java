@@ -0,0 +1,151 @@
+package com.hotelbooking.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Row validation of RoomImportService with JDBC mocked out: good rows are
+ * counted as created, bad rows are reported with their line number in the
+ * uploaded file and do not stop the rest of the import.
+ */
+class RoomImportServiceTest {
+
+    private static final String HOTEL_ID = "hotel-1";
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final CatalogVersionService catalogVersionService = mock(CatalogVersionService.class);
+    private final InventoryService inventoryService = mock(InventoryService.class);
+
+    private final RoomImportService roomImportService = new RoomImportService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(roomImportService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(roomImportService, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(roomImportService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(roomImportService, "catalogVersionService", catalogVersionService);
+        ReflectionTestUtils.setField(roomImportService, "inventoryService", inventoryService);
+        ReflectionTestUtils.setField(roomImportService, "chunkSize", 500);
+
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(HOTEL_ID))).thenReturn(1);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    @Test
+    void csvImportCountsGoodRowsAndReportsBadOnesByLine() throws Exception {
+        String csv = """
+                kind,name,max_occupancy,room_type,room_number,price,start_date,end_date
+                room_type,Deluxe,2,,,,,
+                room,,,Deluxe,101,,,
+                room,,,Deluxe,101,,,
+                room,,,Suite,102,,,
+
+                tariff,,,Deluxe,,120,2026-03-01,2026-03-31
+                tariff,,,Deluxe,,-5,2026-03-01,2026-03-31
+                room_type,"Family ""Plus\""",0,,,,,
+                room,,,"Deluxe,103,,,
+                """;
+
+        Map<String, Object> result = roomImportService.importRooms(HOTEL_ID, stream(csv),
+                RoomImportService.Format.CSV);
+
+        // Header and blank line are not rows
+        assertThat(result.get("rows_read")).isEqualTo(8);
+        assertThat(result.get("room_types_created")).isEqualTo(1);
+        assertThat(result.get("rooms_created")).isEqualTo(1);
+        assertThat(result.get("tariffs_created")).isEqualTo(1);
+        assertThat(result.get("error_count")).isEqualTo(5);
+        assertThat(errorLines(result)).containsExactly(4, 5, 8, 9, 10);
+        assertThat(errorMessages(result)).containsExactly(
+                "Room number 101 already exists",
+                "Unknown room type 'Suite'",
+                "price must be a non-negative number",
+                "max_occupancy must be a positive number",
+                "Malformed row: unterminated quote");
+        verify(catalogVersionService).bump(HOTEL_ID);
+    }
+
+    @Test
+    void jsonLinesImportCountsGoodRowsAndReportsBadOnesByLine() throws Exception {
+        String jsonl = """
+                {"kind":"room_type","name":"Standard","max_occupancy":2}
+                {"kind":"room","room_type":"Standard","room_number":"201"}
+                {"kind":"room","room_type":"standard","room_number":"202"}
+                {not json
+                {"room_number":"203"}
+                {"kind":"tariff","room_type":"Standard","price":90,"start_date":"2026-04-10","end_date":"2026-04-01"}
+                {"kind":"tariff","room_type":"Standard","price":90,"start_date":"2026-04-01","end_date":"2026-04-10"}
+                """;
+
+        Map<String, Object> result = roomImportService.importRooms(HOTEL_ID, stream(jsonl),
+                RoomImportService.Format.JSON_LINES);
+
+        assertThat(result.get("rows_read")).isEqualTo(7);
+        assertThat(result.get("room_types_created")).isEqualTo(1);
+        assertThat(result.get("rooms_created")).isEqualTo(2);
+        assertThat(result.get("tariffs_created")).isEqualTo(1);
+        assertThat(result.get("error_count")).isEqualTo(3);
+        assertThat(errorLines(result)).containsExactly(4, 5, 6);
+        assertThat((String) errorMessages(result).get(0)).startsWith("Malformed row:");
+        assertThat(errorMessages(result).subList(1, 3)).containsExactly(
+                "Missing kind (room_type, room or tariff)",
+                "end_date must be after start_date");
+    }
+
+    @Test
+    void failedChunkReportsEveryLineItCarried() throws Exception {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new RuntimeException("deadlock"));
+        String jsonl = """
+                {"kind":"room_type","name":"Standard","max_occupancy":2}
+                {"kind":"room","room_type":"Standard"}
+                {"kind":"room","room_type":"Standard","room_number":"201"}
+                """;
+
+        Map<String, Object> result = roomImportService.importRooms(HOTEL_ID, stream(jsonl),
+                RoomImportService.Format.JSON_LINES);
+
+        assertThat(result.get("room_types_created")).isEqualTo(0);
+        assertThat(result.get("rooms_created")).isEqualTo(0);
+        assertThat(result.get("error_count")).isEqualTo(3);
+        // The validation error is reported as it is read, the rolled-back lines when the chunk is flushed
+        assertThat(errorLines(result)).containsExactly(2, 1, 3);
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> errors(Map<String, Object> result) {
+        return (List<Map<String, Object>>) result.get("errors");
+    }
+
+    private static List<Object> errorLines(Map<String, Object> result) {
+        return errors(result).stream().map(e -> e.get("line")).toList();
+    }
+
+    private static List<Object> errorMessages(Map<String, Object> result) {
+        return errors(result).stream().map(e -> e.get("error")).toList();
+    }
+}
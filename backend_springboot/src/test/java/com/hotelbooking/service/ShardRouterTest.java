@@ -0,0 +1,76 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.config.ShardContext;
+import com.hotelbooking.config.ShardingConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * ShardRouter.onShard: work runs on the requested shard outside a
+ * transaction, but a transaction's connection is already bound, so switching
+ * shards inside one is refused before the work runs.
+ */
+class ShardRouterTest {
+
+    private final ShardRouter shardRouter = new ShardRouter();
+
+    @BeforeEach
+    void setUp() {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        dataSources.put("shard0", mock(DataSource.class));
+        dataSources.put("shard1", mock(DataSource.class));
+        ReflectionTestUtils.setField(shardRouter, "shards", new ShardingConfig.Shards("shard0", dataSources));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void onShardSwitchesOutsideATransactionAndRestores() {
+        assertThat(shardRouter.onShard("shard1", ShardContext::current)).isEqualTo("shard1");
+        assertThat(ShardContext.current()).isNull();
+    }
+
+    @Test
+    void onShardRefusesToSwitchInsideATransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        assertThatThrownBy(() -> shardRouter.onShard("shard1", () -> ran.getAndSet(true)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("from shard shard0 to shard1");
+        assertThat(ran).isFalse();
+    }
+
+    @Test
+    void onShardStaysOnTheCurrentShardInsideATransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        // No shard set means the default shard
+        assertThat(shardRouter.onShard("shard0", ShardContext::current)).isEqualTo("shard0");
+        assertThat(ShardContext.call("shard1", () -> shardRouter.onShard("shard1", ShardContext::current)))
+                .isEqualTo("shard1");
+    }
+
+    @Test
+    void disabledRouterRunsWorkInPlace() {
+        ReflectionTestUtils.setField(shardRouter, "shards", null);
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        assertThat(shardRouter.onShard("shard1", ShardContext::current)).isNull();
+    }
+}
@@ -0,0 +1,144 @@
+package com.hotelbooking.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * SingleFlightService: callers that arrive while a key is in flight join the
+ * leader's execution and share its result or its exception.
+ */
+class SingleFlightServiceTest {
+
+    private static final int FOLLOWERS = 4;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final SingleFlightService singleFlight = new SingleFlightService();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(FOLLOWERS + 1);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(singleFlight, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(singleFlight, "maxReusedEntries", 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersJoinTheLeadersExecution() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<List<String>>> results = callConcurrently(() -> {
+            executions.incrementAndGet();
+            await(release);
+            return List.of("result");
+        }, "hotel-1");
+        release.countDown();
+
+        List<String> first = results.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<List<String>> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(first);
+        }
+        assertThat(executions).hasValue(1);
+        assertThat(count("executed")).isEqualTo(1);
+        assertThat(count("joined")).isEqualTo(FOLLOWERS);
+        assertThat(meterRegistry.get("singleflight.coalescing.ratio").gauge().value())
+                .isEqualTo((double) FOLLOWERS / (FOLLOWERS + 1));
+    }
+
+    @Test
+    void followersReceiveTheLeadersException() throws Exception {
+        IllegalStateException failure = new IllegalStateException("query failed");
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<List<String>>> results = callConcurrently(() -> {
+            await(release);
+            throw failure;
+        }, "hotel-1");
+        release.countDown();
+
+        for (Future<List<String>> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .cause().isSameAs(failure);
+        }
+        assertThat(count("executed")).isEqualTo(1);
+    }
+
+    @Test
+    void differentArgumentsAndFinishedCallsRunAgain() {
+        AtomicInteger executions = new AtomicInteger();
+        Supplier<Integer> query = executions::incrementAndGet;
+
+        assertThat(singleFlight.execute("search", query, "hotel-1")).isEqualTo(1);
+        assertThat(singleFlight.execute("search", query, "hotel-2")).isEqualTo(2);
+        // Without singleflight.reuse-millis nothing outlives the flight
+        assertThat(singleFlight.execute("search", query, "hotel-1")).isEqualTo(3);
+    }
+
+    @Test
+    void finishedResultIsReusedWithinTheReuseWindow() {
+        ReflectionTestUtils.setField(singleFlight, "reuseMillis", 60_000L);
+        AtomicInteger executions = new AtomicInteger();
+        Supplier<Integer> query = executions::incrementAndGet;
+
+        assertThat(singleFlight.execute("search", query, "hotel-1")).isEqualTo(1);
+        assertThat(singleFlight.execute("search", query, "hotel-1")).isEqualTo(1);
+        assertThat(count("reused")).isEqualTo(1);
+    }
+
+    // Starts the leader, then the followers once the leader is in flight; returns the leader's future first
+    private <T> List<Future<T>> callConcurrently(Supplier<T> supplier, Object... args) throws InterruptedException {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        List<Future<T>> results = new ArrayList<>();
+        results.add(executor.submit(() -> singleFlight.execute("search", () -> {
+            leaderStarted.countDown();
+            return supplier.get();
+        }, args)));
+        assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < FOLLOWERS; i++) {
+            results.add(executor.submit(() -> singleFlight.execute("search", supplier, args)));
+        }
+        // Followers are counted as joined before they block on the leader
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count("joined") < FOLLOWERS && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(count("joined")).isEqualTo(FOLLOWERS);
+        return results;
+    }
+
+    private double count(String outcome) {
+        var counter = meterRegistry.find("singleflight.calls").tags("outcome", outcome).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
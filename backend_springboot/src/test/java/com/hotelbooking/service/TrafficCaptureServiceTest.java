@@ -0,0 +1,63 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.service.TrafficCaptureService.CapturedRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * What a captured request keeps: hotel ids in paths and allow-listed
+ * parameters; other ids and parameter values are dropped by name.
+ */
+class TrafficCaptureServiceTest {
+
+    private final TrafficCaptureService trafficCaptureService = new TrafficCaptureService();
+
+    private final BlockingQueue<CapturedRequest> buffer = new ArrayBlockingQueue<>(10);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(trafficCaptureService, "buffer", buffer);
+    }
+
+    @Test
+    void keepsHotelIdsAndDropsOtherPathIds() {
+        trafficCaptureService.record(1L, "GET", "/api/bookings/guest/{guestId}", Map.of("guestId", "guest-42"),
+                Map.of(), "guest", 200, 2_000_000);
+        trafficCaptureService.record(2L, "GET", "/api/hotels/{id}/room-types", Map.of("id", "hotel-7"),
+                Map.of(), null, 200, 1_000_000);
+        trafficCaptureService.record(3L, "GET", "/api/rooms/availability/{hotelId}", Map.of("hotelId", "hotel-7"),
+                Map.of(), "hotel_admin", 200, 1_000_000);
+        trafficCaptureService.record(4L, "GET", "/api/reviews/{id}", Map.of("id", "review-3"),
+                Map.of(), null, 200, 1_000_000);
+
+        List<CapturedRequest> captured = List.copyOf(buffer);
+        assertThat(captured.get(0).variables()).isEmpty();
+        assertThat(captured.get(0).redactedVariables()).containsExactly("guestId");
+        assertThat(captured.get(1).variables()).containsExactly(Map.entry("id", "hotel-7"));
+        assertThat(captured.get(2).variables()).containsExactly(Map.entry("hotelId", "hotel-7"));
+        assertThat(captured.get(3).variables()).isEmpty();
+        assertThat(captured.get(3).redactedVariables()).containsExactly("id");
+    }
+
+    @Test
+    void sanitizesQueryParametersAndKeepsUnmatchedRequestsWithoutAPath() {
+        trafficCaptureService.record(1L, "GET", null, Map.of(), Map.of(
+                "city", new String[]{"Pune"},
+                "lat", new String[]{"18.5204"},
+                "email", new String[]{"guest@example.com"}), null, 404, 1_000_000);
+
+        CapturedRequest captured = buffer.poll();
+        assertThat(captured.pattern()).isNull();
+        assertThat(captured.params()).containsEntry("city", List.of("Pune")).containsEntry("lat", List.of("18.5"));
+        assertThat(captured.redacted()).containsExactly("email");
+        assertThat(captured.ms()).isEqualTo(1.0);
+    }
+}
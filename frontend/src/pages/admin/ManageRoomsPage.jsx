@@ -387,9 +387,9 @@ const ManageRoomsPage = () => {
                                         <tbody>
                                             {availability.map((item, idx) => (
                                                 <tr key={idx} className={item.booking_id ? 'bg-red-50' : 'bg-green-50'}>
-                                                    <td className="border p-3">🚪 {item.room_number}</td>
+                                                    <td className="border p-3">🚪 {item.id ? item.room_number : 'Not assigned yet'}</td>
                                                     <td className="border p-3">{item.type_name}</td>
-                                                    <td className="border p-3">Floor {item.floor}</td>
+                                                    <td className="border p-3">{item.id ? `Floor ${item.floor}` : '-'}</td>
                                                     <td className="border p-3">
                                                         {item.booking_id ? (
                                                             <span className="px-2 py-1 bg-red-200 text-red-800 rounded text-sm">